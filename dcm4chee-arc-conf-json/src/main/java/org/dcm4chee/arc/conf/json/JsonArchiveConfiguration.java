@@ -190,6 +190,27 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 arcDev.getMergeMWLCacheStaleTimeout(), null);
         writer.writeNotDef("dcmMergeMWLCacheSize",
                 arcDev.getMergeMWLCacheSize(), 10);
+        writer.writeNotNullOrDef("dcmQidoCountCacheStaleTimeout", arcDev.getQidoCountCacheStaleTimeout(), null);
+        writer.writeNotDef("dcmQidoCountCacheSize", arcDev.getQidoCountCacheSize(), 100);
+        writer.writeNotDef("dcmSearchTokenMatching", arcDev.isSearchTokenMatching(), false);
+        writer.writeNotDef("dcmSearchTokenMaintenance", arcDev.isSearchTokenMaintenance(), false);
+        writer.writeNotDef("dcmHttpClientConnectionPoolSize", arcDev.getHttpClientConnectionPoolSize(), 50);
+        writer.writeNotDef("dcmHttpClientMaxPooledPerRoute", arcDev.getHttpClientMaxPooledPerRoute(), 10);
+        writer.writeNotNullOrDef("dcmHttpClientConnectionRequestTimeout",
+                arcDev.getHttpClientConnectionRequestTimeout(),
+                ArchiveDeviceExtension.DEFAULT_HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT);
+        writer.writeNotNullOrDef("dcmUserIdentityCacheStaleTimeout", arcDev.getUserIdentityCacheStaleTimeout(), null);
+        writer.writeNotDef("dcmUserIdentityCacheSize", arcDev.getUserIdentityCacheSize(), 100);
+        writer.writeNotDef("dcmWadoZIPParallelism", arcDev.getWadoZIPParallelism(), 1);
+        writer.writeNotNullOrDef("dcmWadoFrameCacheSize", arcDev.getWadoFrameCacheSize(), null);
+        writer.writeNotNullOrDef("dcmWadoMetadataCacheSize", arcDev.getWadoMetadataCacheSize(), null);
+        writer.writeNotDef("dcmCopyMoveBatchSize", arcDev.getCopyMoveBatchSize(), 100);
+        writer.writeNotDef("dcmUPSEventQueueSize", arcDev.getUPSEventQueueSize(), 100);
+        writer.writeNotNullOrDef("dcmUPSEventQueueFullPolicy",
+                arcDev.getUPSEventQueueFullPolicy(), UPSEventQueueFullPolicy.DROP_OLDEST);
+        writer.writeNotNullOrDef("dcmHL7JournalDirectory", arcDev.getHL7JournalDirectory(), null);
+        writer.writeNotDef("dcmHL7JournalSegmentSize", arcDev.getHL7JournalSegmentSize(), 67108864);
+        writer.writeNotNullOrDef("dcmHL7JournalRetentionPeriod", arcDev.getHL7JournalRetentionPeriod(), null);
         writer.writeNotDef("dcmStoreUpdateDBMaxRetries", arcDev.getStoreUpdateDBMaxRetries(), 1);
         writer.writeNotDef("dcmStoreUpdateDBMinRetryDelay", arcDev.getStoreUpdateDBMinRetryDelay(), 500);
         writer.writeNotDef("dcmStoreUpdateDBMaxRetryDelay", arcDev.getStoreUpdateDBMaxRetryDelay(), 1000);
@@ -295,6 +316,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 false);
         writer.writeNotDef("hl7UseNullValue", arcDev.isHL7UseNullValue(), false);
         writer.writeNotDef("dcmQueueTasksFetchSize", arcDev.getQueueTasksFetchSize(), 100);
+        writer.writeNotNullOrDef("dcmRetryInProcessTasksDelay", arcDev.getRetryInProcessTasksDelay(), null);
         writer.writeNotNullOrDef("dcmRejectionNoteStorageAET", arcDev.getRejectionNoteStorageAET(), null);
         writer.writeNotEmpty("dcmXRoadProperty", arcDev.getXRoadProperties());
         writer.writeNotEmpty("dcmImpaxReportProperty", arcDev.getImpaxReportProperties());
@@ -316,6 +338,11 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 arcDev.getPatientVerificationFetchSize(), 100);
         writer.writeNotDef("dcmPatientVerificationAdjustIssuerOfPatientID",
                 arcDev.isPatientVerificationAdjustIssuerOfPatientID(), false);
+        writer.writeNotDef("dcmPatientVerificationThreads", arcDev.getPatientVerificationThreads(), 1);
+        writer.writeNotDef("dcmPatientVerificationMaxRequestsPerSecond",
+                arcDev.getPatientVerificationMaxRequestsPerSecond(), 0);
+        writer.writeNotDef("dcmPatientVerificationMaxConsecutiveFailures",
+                arcDev.getPatientVerificationMaxConsecutiveFailures(), 0);
         writer.writeNotNullOrDef("dcmPatientVerificationPeriod",
                 arcDev.getPatientVerificationPeriod(), null);
         writer.writeNotNullOrDef("dcmPatientVerificationPeriodOnNotFound",
@@ -332,6 +359,7 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 arcDev.getHl7ImportReportMissingStudyIUIDPolicy(), HL7ImportReportMissingStudyIUIDPolicy.GENERATE);
         writer.writeNotNullOrDef("hl7DicomCharacterSet", arcDev.getHl7DicomCharacterSet(), null);
         writer.writeNotDef("hl7VeterinaryUsePatientName", arcDev.isHl7VeterinaryUsePatientName(), false);
+        writer.writeNotDef("hl7UseBuiltinMapping", arcDev.isHl7UseBuiltinMapping(), false);
         writer.writeNotDef("dcmCSVUploadChunkSize", arcDev.getCSVUploadChunkSize(), 100);
         writer.writeNotDef("dcmValidateUID", arcDev.isValidateUID(), true);
         writer.writeNotDef("dcmRelationalQueryNegotiationLenient",
@@ -353,6 +381,11 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
         writer.writeNotNullOrDef("dcmUPSProcessingPollingInterval",
                 arcDev.getUPSProcessingPollingInterval(), null);
         writer.writeNotDef("dcmUPSProcessingFetchSize", arcDev.getUPSProcessingFetchSize(), 100);
+        writer.writeNotNullOrDef("dcmUPSOnStoreCoalescingWindow", arcDev.getUPSOnStoreCoalescingWindow(), null);
+        writer.writeNotNullOrDef("dcmStudyFinalizerPollingInterval", arcDev.getStudyFinalizerPollingInterval(), null);
+        writer.writeNotDef("dcmStudyFinalizerFetchSize", arcDev.getStudyFinalizerFetchSize(), 100);
+        writer.writeNotNullOrDef("dcmStudyFinalizerQuietPeriod",
+                arcDev.getStudyFinalizerQuietPeriod(), ArchiveDeviceExtension.DEFAULT_STUDY_FINALIZER_QUIET_PERIOD);
         writer.writeNotNullOrDef("dcmFallbackWadoURIWebAppName",
                 arcDev.getFallbackWadoURIWebApplication(), null);
         writer.writeNotDef("dcmFallbackWadoURIHttpStatusCode",
@@ -372,6 +405,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 arcDev.getUserIdentityNegotiationRole(), null);
         writer.writeNotNullOrDef("dcmUserIdentityNegotiationKeycloakClientID",
                 arcDev.getUserIdentityNegotiationKeycloakClientID(), null);
+        writer.writeNotNullOrDef("dcmQueueSizeReconciliationPollingInterval",
+                arcDev.getQueueSizeReconciliationPollingInterval(),
+                ArchiveDeviceExtension.DEFAULT_QUEUE_SIZE_RECONCILIATION_POLLING_INTERVAL);
         writeAttributeFilters(writer, arcDev);
         writeStorageDescriptor(writer, arcDev.getStorageDescriptors());
         writeQueryRetrieveView(writer, arcDev.getQueryRetrieveViews());
@@ -521,6 +557,11 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
             writer.writeNotNullOrDef(
                     "dcmPurgeQueueMessageCanceledDelay", qd.getPurgeQueueMessageCanceledDelay(), null);
             writer.writeNotDef("dcmMaxQueueSize", qd.getMaxQueueSize(), 0);
+            writer.writeNotDef("dcmFairShareQuantum", qd.getFairShareQuantum(), 0);
+            writer.writeNotNullOrDef("dcmFairShareHalfLife",
+                    qd.getFairShareHalfLife(), QueueDescriptor.DEFAULT_FAIR_SHARE_HALF_LIFE);
+            writer.writeNotDef("dcmMaxConcurrentNormalPriorityTasks", qd.getMaxConcurrentNormalPriorityTasks(), 0);
+            writer.writeNotDef("dcmMaxTasksPerSecond", qd.getMaxTasksPerSecond(), 0);
             writer.writeNotDef("dcmRetryInProcessOnStartup", qd.isRetryInProcessOnStartup(), false);
             writer.writeEnd();
         }
@@ -1532,6 +1573,60 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmMergeMWLCacheSize":
                     arcDev.setMergeMWLCacheSize(reader.intValue());
                     break;
+                case "dcmQidoCountCacheStaleTimeout":
+                    arcDev.setQidoCountCacheStaleTimeout(Duration.valueOf(reader.stringValue()));
+                    break;
+                case "dcmQidoCountCacheSize":
+                    arcDev.setQidoCountCacheSize(reader.intValue());
+                    break;
+                case "dcmSearchTokenMatching":
+                    arcDev.setSearchTokenMatching(reader.booleanValue());
+                    break;
+                case "dcmSearchTokenMaintenance":
+                    arcDev.setSearchTokenMaintenance(reader.booleanValue());
+                    break;
+                case "dcmHttpClientConnectionPoolSize":
+                    arcDev.setHttpClientConnectionPoolSize(reader.intValue());
+                    break;
+                case "dcmHttpClientMaxPooledPerRoute":
+                    arcDev.setHttpClientMaxPooledPerRoute(reader.intValue());
+                    break;
+                case "dcmHttpClientConnectionRequestTimeout":
+                    arcDev.setHttpClientConnectionRequestTimeout(Duration.valueOf(reader.stringValue()));
+                    break;
+                case "dcmUserIdentityCacheStaleTimeout":
+                    arcDev.setUserIdentityCacheStaleTimeout(Duration.valueOf(reader.stringValue()));
+                    break;
+                case "dcmUserIdentityCacheSize":
+                    arcDev.setUserIdentityCacheSize(reader.intValue());
+                    break;
+                case "dcmWadoZIPParallelism":
+                    arcDev.setWadoZIPParallelism(reader.intValue());
+                    break;
+                case "dcmWadoFrameCacheSize":
+                    arcDev.setWadoFrameCacheSize(reader.stringValue());
+                    break;
+                case "dcmWadoMetadataCacheSize":
+                    arcDev.setWadoMetadataCacheSize(reader.stringValue());
+                    break;
+                case "dcmCopyMoveBatchSize":
+                    arcDev.setCopyMoveBatchSize(reader.intValue());
+                    break;
+                case "dcmUPSEventQueueSize":
+                    arcDev.setUPSEventQueueSize(reader.intValue());
+                    break;
+                case "dcmUPSEventQueueFullPolicy":
+                    arcDev.setUPSEventQueueFullPolicy(UPSEventQueueFullPolicy.valueOf(reader.stringValue()));
+                    break;
+                case "dcmHL7JournalDirectory":
+                    arcDev.setHL7JournalDirectory(reader.stringValue());
+                    break;
+                case "dcmHL7JournalSegmentSize":
+                    arcDev.setHL7JournalSegmentSize(reader.intValue());
+                    break;
+                case "dcmHL7JournalRetentionPeriod":
+                    arcDev.setHL7JournalRetentionPeriod(Duration.valueOf(reader.stringValue()));
+                    break;
                 case "dcmStoreUpdateDBMaxRetries":
                     arcDev.setStoreUpdateDBMaxRetries(reader.intValue());
                     break;
@@ -1752,6 +1847,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmQueueTasksFetchSize":
                     arcDev.setQueueTasksFetchSize(reader.intValue());
                     break;
+                case "dcmRetryInProcessTasksDelay":
+                    arcDev.setRetryInProcessTasksDelay(Duration.valueOf(reader.stringValue()));
+                    break;
                 case "dcmRejectionNoteStorageAET":
                     arcDev.setRejectionNoteStorageAET(reader.stringValue());
                     break;
@@ -1794,6 +1892,15 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmPatientVerificationAdjustIssuerOfPatientID":
                     arcDev.setPatientVerificationAdjustIssuerOfPatientID(reader.booleanValue());
                     break;
+                case "dcmPatientVerificationThreads":
+                    arcDev.setPatientVerificationThreads(reader.intValue());
+                    break;
+                case "dcmPatientVerificationMaxRequestsPerSecond":
+                    arcDev.setPatientVerificationMaxRequestsPerSecond(reader.intValue());
+                    break;
+                case "dcmPatientVerificationMaxConsecutiveFailures":
+                    arcDev.setPatientVerificationMaxConsecutiveFailures(reader.intValue());
+                    break;
                 case "dcmPatientVerificationPeriod":
                     arcDev.setPatientVerificationPeriod(Period.parse(reader.stringValue()));
                     break;
@@ -1837,6 +1944,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "hl7VeterinaryUsePatientName":
                     arcDev.setHl7VeterinaryUsePatientName(reader.booleanValue());
                     break;
+                case "hl7UseBuiltinMapping":
+                    arcDev.setHl7UseBuiltinMapping(reader.booleanValue());
+                    break;
                 case "dcmRejectConflictingPatientAttribute":
                     arcDev.setRejectConflictingPatientAttribute(TagUtils.fromHexStrings(reader.stringArray()));
                     break;
@@ -1870,6 +1980,18 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmUPSProcessingFetchSize":
                     arcDev.setUPSProcessingFetchSize(reader.intValue());
                     break;
+                case "dcmUPSOnStoreCoalescingWindow":
+                    arcDev.setUPSOnStoreCoalescingWindow(Duration.valueOf(reader.stringValue()));
+                    break;
+                case "dcmStudyFinalizerPollingInterval":
+                    arcDev.setStudyFinalizerPollingInterval(Duration.valueOf(reader.stringValue()));
+                    break;
+                case "dcmStudyFinalizerFetchSize":
+                    arcDev.setStudyFinalizerFetchSize(reader.intValue());
+                    break;
+                case "dcmStudyFinalizerQuietPeriod":
+                    arcDev.setStudyFinalizerQuietPeriod(Duration.valueOf(reader.stringValue()));
+                    break;
                 case "dcmFallbackWadoURIWebAppName":
                     arcDev.setFallbackWadoURIWebApplication(reader.stringValue());
                     break;
@@ -1903,6 +2025,9 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                 case "dcmUserIdentityNegotiationKeycloakClientID":
                     arcDev.setUserIdentityNegotiationKeycloakClientID(reader.stringValue());
                     break;
+                case "dcmQueueSizeReconciliationPollingInterval":
+                    arcDev.setQueueSizeReconciliationPollingInterval(Duration.valueOf(reader.stringValue()));
+                    break;
                 case "dcmAttributeFilter":
                     loadAttributeFilterListFrom(arcDev, reader);
                     break;
@@ -2245,6 +2370,18 @@ public class JsonArchiveConfiguration extends JsonConfigurationExtension {
                     case "dcmMaxQueueSize":
                         qd.setMaxQueueSize(reader.intValue());
                         break;
+                    case "dcmFairShareQuantum":
+                        qd.setFairShareQuantum(reader.intValue());
+                        break;
+                    case "dcmFairShareHalfLife":
+                        qd.setFairShareHalfLife(Duration.valueOf(reader.stringValue()));
+                        break;
+                    case "dcmMaxConcurrentNormalPriorityTasks":
+                        qd.setMaxConcurrentNormalPriorityTasks(reader.intValue());
+                        break;
+                    case "dcmMaxTasksPerSecond":
+                        qd.setMaxTasksPerSecond(reader.intValue());
+                        break;
                     case "dcmSchedule":
                         qd.setSchedules(ScheduleExpression.valuesOf(reader.stringArray()));
                         break;
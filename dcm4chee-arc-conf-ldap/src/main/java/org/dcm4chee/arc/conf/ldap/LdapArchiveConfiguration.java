@@ -250,6 +250,35 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmMergeMWLCacheStaleTimeout",
                 ext.getMergeMWLCacheStaleTimeout(), null);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmMergeMWLCacheSize", ext.getMergeMWLCacheSize(), 10);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmQidoCountCacheStaleTimeout",
+                ext.getQidoCountCacheStaleTimeout(), null);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmQidoCountCacheSize", ext.getQidoCountCacheSize(), 100);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmSearchTokenMatching", ext.isSearchTokenMatching(), false);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmSearchTokenMaintenance", ext.isSearchTokenMaintenance(), false);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmHttpClientConnectionPoolSize",
+                ext.getHttpClientConnectionPoolSize(), 50);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmHttpClientMaxPooledPerRoute",
+                ext.getHttpClientMaxPooledPerRoute(), 10);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmHttpClientConnectionRequestTimeout",
+                ext.getHttpClientConnectionRequestTimeout(),
+                ArchiveDeviceExtension.DEFAULT_HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmUserIdentityCacheStaleTimeout",
+                ext.getUserIdentityCacheStaleTimeout(), null);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmUserIdentityCacheSize", ext.getUserIdentityCacheSize(), 100);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmWadoZIPParallelism", ext.getWadoZIPParallelism(), 1);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmWadoFrameCacheSize",
+                ext.getWadoFrameCacheSize(), null);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmWadoMetadataCacheSize",
+                ext.getWadoMetadataCacheSize(), null);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmCopyMoveBatchSize", ext.getCopyMoveBatchSize(), 100);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmUPSEventQueueSize", ext.getUPSEventQueueSize(), 100);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmUPSEventQueueFullPolicy",
+                ext.getUPSEventQueueFullPolicy(), UPSEventQueueFullPolicy.DROP_OLDEST);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmHL7JournalDirectory",
+                ext.getHL7JournalDirectory(), null);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmHL7JournalSegmentSize", ext.getHL7JournalSegmentSize(), 67108864);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmHL7JournalRetentionPeriod",
+                ext.getHL7JournalRetentionPeriod(), null);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmStoreUpdateDBMaxRetries",
                 ext.getStoreUpdateDBMaxRetries(), 1);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmStoreUpdateDBMinRetryDelay",
@@ -378,6 +407,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 ext.isAuditSoftwareConfigurationVerbose(), false);
         LdapUtils.storeNotDef(ldapObj, attrs, "hl7UseNullValue", ext.isHL7UseNullValue(), false);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmQueueTasksFetchSize", ext.getQueueTasksFetchSize(), 100);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmRetryInProcessTasksDelay",
+                ext.getRetryInProcessTasksDelay(), null);
         LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmRejectionNoteStorageAET",
                 ext.getRejectionNoteStorageAET(), null);
         LdapUtils.storeNotEmpty(ldapObj, attrs, "dcmXRoadProperty", ext.getXRoadProperties());
@@ -401,6 +432,11 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 ext.getPatientVerificationFetchSize(), 100);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmPatientVerificationAdjustIssuerOfPatientID",
                 ext.isPatientVerificationAdjustIssuerOfPatientID(), false);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmPatientVerificationThreads", ext.getPatientVerificationThreads(), 1);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmPatientVerificationMaxRequestsPerSecond",
+                ext.getPatientVerificationMaxRequestsPerSecond(), 0);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmPatientVerificationMaxConsecutiveFailures",
+                ext.getPatientVerificationMaxConsecutiveFailures(), 0);
         LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmPatientVerificationPeriod",
                 ext.getPatientVerificationPeriod(), null);
         LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmPatientVerificationPeriodOnNotFound",
@@ -420,6 +456,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 ext.getHl7DicomCharacterSet(), null);
         LdapUtils.storeNotDef(ldapObj, attrs, "hl7VeterinaryUsePatientName",
                 ext.isHl7VeterinaryUsePatientName(), false);
+        LdapUtils.storeNotDef(ldapObj, attrs, "hl7UseBuiltinMapping", ext.isHl7UseBuiltinMapping(), false);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmValidateUID", ext.isValidateUID(), true);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmRelationalQueryNegotiationLenient",
                 ext.isRelationalQueryNegotiationLenient(), false);
@@ -443,6 +480,13 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 ext.getUPSProcessingPollingInterval(), null);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmUPSProcessingFetchSize",
                 ext.getUPSProcessingFetchSize(), 100);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmUPSOnStoreCoalescingWindow",
+                ext.getUPSOnStoreCoalescingWindow(), null);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmStudyFinalizerPollingInterval",
+                ext.getStudyFinalizerPollingInterval(), null);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmStudyFinalizerFetchSize", ext.getStudyFinalizerFetchSize(), 100);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmStudyFinalizerQuietPeriod",
+                ext.getStudyFinalizerQuietPeriod(), ArchiveDeviceExtension.DEFAULT_STUDY_FINALIZER_QUIET_PERIOD);
         LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmFallbackWadoURIWebAppName",
                 ext.getFallbackWadoURIWebApplication(), null);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmFallbackWadoURIHttpStatusCode",
@@ -463,6 +507,9 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 ext.getUserIdentityNegotiationRole(), null);
         LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmUserIdentityNegotiationKeycloakClientID",
                 ext.getUserIdentityNegotiationKeycloakClientID(), null);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmQueueSizeReconciliationPollingInterval",
+                ext.getQueueSizeReconciliationPollingInterval(),
+                ArchiveDeviceExtension.DEFAULT_QUEUE_SIZE_RECONCILIATION_POLLING_INTERVAL);
         storeNotEmptyTags(ldapObj, attrs, "dcmRejectConflictingPatientAttribute",
                 ext.getRejectConflictingPatientAttribute());
     }
@@ -577,6 +624,26 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setStorePermissionCacheSize(LdapUtils.intValue(attrs.get("dcmStorePermissionCacheSize"), 10));
         ext.setMergeMWLCacheStaleTimeout(toDuration(attrs.get("dcmMergeMWLCacheStaleTimeout"), null));
         ext.setMergeMWLCacheSize(LdapUtils.intValue(attrs.get("dcmMergeMWLCacheSize"), 10));
+        ext.setQidoCountCacheStaleTimeout(toDuration(attrs.get("dcmQidoCountCacheStaleTimeout"), null));
+        ext.setQidoCountCacheSize(LdapUtils.intValue(attrs.get("dcmQidoCountCacheSize"), 100));
+        ext.setSearchTokenMatching(LdapUtils.booleanValue(attrs.get("dcmSearchTokenMatching"), false));
+        ext.setSearchTokenMaintenance(LdapUtils.booleanValue(attrs.get("dcmSearchTokenMaintenance"), false));
+        ext.setHttpClientConnectionPoolSize(LdapUtils.intValue(attrs.get("dcmHttpClientConnectionPoolSize"), 50));
+        ext.setHttpClientMaxPooledPerRoute(LdapUtils.intValue(attrs.get("dcmHttpClientMaxPooledPerRoute"), 10));
+        ext.setHttpClientConnectionRequestTimeout(toDuration(attrs.get("dcmHttpClientConnectionRequestTimeout"),
+                ArchiveDeviceExtension.DEFAULT_HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT));
+        ext.setUserIdentityCacheStaleTimeout(toDuration(attrs.get("dcmUserIdentityCacheStaleTimeout"), null));
+        ext.setUserIdentityCacheSize(LdapUtils.intValue(attrs.get("dcmUserIdentityCacheSize"), 100));
+        ext.setWadoZIPParallelism(LdapUtils.intValue(attrs.get("dcmWadoZIPParallelism"), 1));
+        ext.setWadoFrameCacheSize(LdapUtils.stringValue(attrs.get("dcmWadoFrameCacheSize"), null));
+        ext.setWadoMetadataCacheSize(LdapUtils.stringValue(attrs.get("dcmWadoMetadataCacheSize"), null));
+        ext.setCopyMoveBatchSize(LdapUtils.intValue(attrs.get("dcmCopyMoveBatchSize"), 100));
+        ext.setUPSEventQueueSize(LdapUtils.intValue(attrs.get("dcmUPSEventQueueSize"), 100));
+        ext.setUPSEventQueueFullPolicy(LdapUtils.enumValue(UPSEventQueueFullPolicy.class,
+                attrs.get("dcmUPSEventQueueFullPolicy"), UPSEventQueueFullPolicy.DROP_OLDEST));
+        ext.setHL7JournalDirectory(LdapUtils.stringValue(attrs.get("dcmHL7JournalDirectory"), null));
+        ext.setHL7JournalSegmentSize(LdapUtils.intValue(attrs.get("dcmHL7JournalSegmentSize"), 67108864));
+        ext.setHL7JournalRetentionPeriod(toDuration(attrs.get("dcmHL7JournalRetentionPeriod"), null));
         ext.setStoreUpdateDBMaxRetries(LdapUtils.intValue(attrs.get("dcmStoreUpdateDBMaxRetries"), 1));
         ext.setStoreUpdateDBMinRetryDelay(LdapUtils.intValue(attrs.get("dcmStoreUpdateDBMinRetryDelay"), 500));
         ext.setStoreUpdateDBMaxRetryDelay(LdapUtils.intValue(attrs.get("dcmStoreUpdateDBMaxRetryDelay"), 1000));
@@ -676,6 +743,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setAuditSoftwareConfigurationVerbose(LdapUtils.booleanValue(attrs.get("dcmAuditSoftwareConfigurationVerbose"), false));
         ext.setHL7UseNullValue(LdapUtils.booleanValue(attrs.get("hl7UseNullValue"), false));
         ext.setQueueTasksFetchSize(LdapUtils.intValue(attrs.get("dcmQueueTasksFetchSize"), 100));
+        ext.setRetryInProcessTasksDelay(toDuration(attrs.get("dcmRetryInProcessTasksDelay"), null));
         ext.setRejectionNoteStorageAET(LdapUtils.stringValue(
                 attrs.get("dcmRejectionNoteStorageAET"), null));
         ext.setXRoadProperties(LdapUtils.stringArray(attrs.get("dcmXRoadProperty")));
@@ -698,6 +766,11 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 LdapUtils.intValue(attrs.get("dcmPatientVerificationFetchSize"), 100));
         ext.setPatientVerificationAdjustIssuerOfPatientID(
                 LdapUtils.booleanValue(attrs.get("dcmPatientVerificationAdjustIssuerOfPatientID"), false));
+        ext.setPatientVerificationThreads(LdapUtils.intValue(attrs.get("dcmPatientVerificationThreads"), 1));
+        ext.setPatientVerificationMaxRequestsPerSecond(
+                LdapUtils.intValue(attrs.get("dcmPatientVerificationMaxRequestsPerSecond"), 0));
+        ext.setPatientVerificationMaxConsecutiveFailures(
+                LdapUtils.intValue(attrs.get("dcmPatientVerificationMaxConsecutiveFailures"), 0));
         ext.setPatientVerificationPeriod(
                 toPeriod(attrs.get("dcmPatientVerificationPeriod")));
         ext.setPatientVerificationPeriodOnNotFound(
@@ -717,6 +790,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                         attrs.get("hl7ImportReportMissingStudyIUIDPolicy"), HL7ImportReportMissingStudyIUIDPolicy.GENERATE));
         ext.setHl7DicomCharacterSet(LdapUtils.stringValue(attrs.get("hl7DicomCharacterSet"), null));
         ext.setHl7VeterinaryUsePatientName(LdapUtils.booleanValue(attrs.get("hl7VeterinaryUsePatientName"), false));
+        ext.setHl7UseBuiltinMapping(LdapUtils.booleanValue(attrs.get("hl7UseBuiltinMapping"), false));
         ext.setValidateUID(LdapUtils.booleanValue(attrs.get("dcmValidateUID"), true));
         ext.setRelationalQueryNegotiationLenient(LdapUtils.booleanValue(
                 attrs.get("dcmRelationalQueryNegotiationLenient"), false));
@@ -735,6 +809,11 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setDeleteMWLDelay(LdapUtils.stringArray(attrs.get("dcmDeleteMWLDelay")));
         ext.setUPSProcessingPollingInterval(toDuration(attrs.get("dcmUPSProcessingPollingInterval"), null));
         ext.setUPSProcessingFetchSize(LdapUtils.intValue(attrs.get("dcmUPSProcessingFetchSize"), 100));
+        ext.setUPSOnStoreCoalescingWindow(toDuration(attrs.get("dcmUPSOnStoreCoalescingWindow"), null));
+        ext.setStudyFinalizerPollingInterval(toDuration(attrs.get("dcmStudyFinalizerPollingInterval"), null));
+        ext.setStudyFinalizerFetchSize(LdapUtils.intValue(attrs.get("dcmStudyFinalizerFetchSize"), 100));
+        ext.setStudyFinalizerQuietPeriod(toDuration(attrs.get("dcmStudyFinalizerQuietPeriod"),
+                ArchiveDeviceExtension.DEFAULT_STUDY_FINALIZER_QUIET_PERIOD));
         ext.setFallbackWadoURIWebApplication(LdapUtils.stringValue(attrs.get("dcmFallbackWadoURIWebAppName"), null));
         ext.setFallbackWadoURIHttpStatusCode(LdapUtils.intValue(attrs.get("dcmFallbackWadoURIHttpStatusCode"), 303));
         ext.setHl7ReferredMergedPatientPolicy(LdapUtils.enumValue(
@@ -752,6 +831,9 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         ext.setUserIdentityNegotiationRole(LdapUtils.stringValue(attrs.get("dcmUserIdentityNegotiationRole"), null));
         ext.setUserIdentityNegotiationKeycloakClientID(LdapUtils.stringValue(
                 attrs.get("dcmUserIdentityNegotiationKeycloakClientID"), null));
+        ext.setQueueSizeReconciliationPollingInterval(
+                toDuration(attrs.get("dcmQueueSizeReconciliationPollingInterval"),
+                        ArchiveDeviceExtension.DEFAULT_QUEUE_SIZE_RECONCILIATION_POLLING_INTERVAL));
     }
 
     @Override
@@ -981,6 +1063,78 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getMergeMWLCacheStaleTimeout(), bb.getMergeMWLCacheStaleTimeout(), null);
         LdapUtils.storeDiff(ldapObj, mods, "dcmMergeMWLCacheSize",
                 aa.getMergeMWLCacheSize(), bb.getMergeMWLCacheSize(), 10);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmQidoCountCacheStaleTimeout",
+                aa.getQidoCountCacheStaleTimeout(),
+                bb.getQidoCountCacheStaleTimeout(),
+                null);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmQidoCountCacheSize",
+                aa.getQidoCountCacheSize(),
+                bb.getQidoCountCacheSize(),
+                100);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmSearchTokenMatching",
+                aa.isSearchTokenMatching(),
+                bb.isSearchTokenMatching(),
+                false);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmSearchTokenMaintenance",
+                aa.isSearchTokenMaintenance(),
+                bb.isSearchTokenMaintenance(),
+                false);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmHttpClientConnectionPoolSize",
+                aa.getHttpClientConnectionPoolSize(),
+                bb.getHttpClientConnectionPoolSize(),
+                50);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmHttpClientMaxPooledPerRoute",
+                aa.getHttpClientMaxPooledPerRoute(),
+                bb.getHttpClientMaxPooledPerRoute(),
+                10);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmHttpClientConnectionRequestTimeout",
+                aa.getHttpClientConnectionRequestTimeout(),
+                bb.getHttpClientConnectionRequestTimeout(),
+                ArchiveDeviceExtension.DEFAULT_HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmUserIdentityCacheStaleTimeout",
+                aa.getUserIdentityCacheStaleTimeout(),
+                bb.getUserIdentityCacheStaleTimeout(),
+                null);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmUserIdentityCacheSize",
+                aa.getUserIdentityCacheSize(),
+                bb.getUserIdentityCacheSize(),
+                100);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmWadoZIPParallelism",
+                aa.getWadoZIPParallelism(),
+                bb.getWadoZIPParallelism(),
+                1);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmWadoFrameCacheSize",
+                aa.getWadoFrameCacheSize(),
+                bb.getWadoFrameCacheSize(),
+                null);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmWadoMetadataCacheSize",
+                aa.getWadoMetadataCacheSize(),
+                bb.getWadoMetadataCacheSize(),
+                null);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmCopyMoveBatchSize",
+                aa.getCopyMoveBatchSize(),
+                bb.getCopyMoveBatchSize(),
+                100);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmUPSEventQueueSize",
+                aa.getUPSEventQueueSize(),
+                bb.getUPSEventQueueSize(),
+                100);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmUPSEventQueueFullPolicy",
+                aa.getUPSEventQueueFullPolicy(),
+                bb.getUPSEventQueueFullPolicy(),
+                UPSEventQueueFullPolicy.DROP_OLDEST);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmHL7JournalDirectory",
+                aa.getHL7JournalDirectory(),
+                bb.getHL7JournalDirectory(),
+                null);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmHL7JournalSegmentSize",
+                aa.getHL7JournalSegmentSize(),
+                bb.getHL7JournalSegmentSize(),
+                67108864);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmHL7JournalRetentionPeriod",
+                aa.getHL7JournalRetentionPeriod(),
+                bb.getHL7JournalRetentionPeriod(),
+                null);
         LdapUtils.storeDiff(ldapObj, mods, "dcmStoreUpdateDBMaxRetries",
                 aa.getStoreUpdateDBMaxRetries(), bb.getStoreUpdateDBMaxRetries(), 1);
         LdapUtils.storeDiff(ldapObj, mods, "dcmStoreUpdateDBMinRetryDelay",
@@ -1131,6 +1285,10 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getQueueTasksFetchSize(),
                 bb.getQueueTasksFetchSize(),
                 100);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmRetryInProcessTasksDelay",
+                aa.getRetryInProcessTasksDelay(),
+                bb.getRetryInProcessTasksDelay(),
+                null);
         LdapUtils.storeDiffObject(ldapObj, mods, "dcmRejectionNoteStorageAET",
                 aa.getRejectionNoteStorageAET(), bb.getRejectionNoteStorageAET(),
                 null);
@@ -1174,6 +1332,18 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.isPatientVerificationAdjustIssuerOfPatientID(),
                 bb.isPatientVerificationAdjustIssuerOfPatientID(),
                 false);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmPatientVerificationThreads",
+                aa.getPatientVerificationThreads(),
+                bb.getPatientVerificationThreads(),
+                1);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmPatientVerificationMaxRequestsPerSecond",
+                aa.getPatientVerificationMaxRequestsPerSecond(),
+                bb.getPatientVerificationMaxRequestsPerSecond(),
+                0);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmPatientVerificationMaxConsecutiveFailures",
+                aa.getPatientVerificationMaxConsecutiveFailures(),
+                bb.getPatientVerificationMaxConsecutiveFailures(),
+                0);
         LdapUtils.storeDiffObject(ldapObj, mods, "dcmPatientVerificationPeriod",
                 aa.getPatientVerificationPeriod(),
                 bb.getPatientVerificationPeriod(),
@@ -1210,6 +1380,10 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.isHl7VeterinaryUsePatientName(),
                 bb.isHl7VeterinaryUsePatientName(),
                 false);
+        LdapUtils.storeDiff(ldapObj, mods, "hl7UseBuiltinMapping",
+                aa.isHl7UseBuiltinMapping(),
+                bb.isHl7UseBuiltinMapping(),
+                false);
         LdapUtils.storeDiff(ldapObj, mods, "dcmValidateUID",
                 aa.isValidateUID(),
                 bb.isValidateUID(),
@@ -1259,6 +1433,22 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 aa.getUPSProcessingPollingInterval(), bb.getUPSProcessingPollingInterval(), null);
         LdapUtils.storeDiff(ldapObj, mods, "dcmUPSProcessingFetchSize",
                 aa.getUPSProcessingFetchSize(), bb.getUPSProcessingFetchSize(), 100);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmUPSOnStoreCoalescingWindow",
+                aa.getUPSOnStoreCoalescingWindow(),
+                bb.getUPSOnStoreCoalescingWindow(),
+                null);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmStudyFinalizerPollingInterval",
+                aa.getStudyFinalizerPollingInterval(),
+                bb.getStudyFinalizerPollingInterval(),
+                null);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmStudyFinalizerFetchSize",
+                aa.getStudyFinalizerFetchSize(),
+                bb.getStudyFinalizerFetchSize(),
+                100);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmStudyFinalizerQuietPeriod",
+                aa.getStudyFinalizerQuietPeriod(),
+                bb.getStudyFinalizerQuietPeriod(),
+                ArchiveDeviceExtension.DEFAULT_STUDY_FINALIZER_QUIET_PERIOD);
         LdapUtils.storeDiffObject(ldapObj, mods, "dcmFallbackWadoURIWebAppName",
                 aa.getFallbackWadoURIWebApplication(),
                 bb.getFallbackWadoURIWebApplication(),
@@ -1295,6 +1485,10 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeDiffObject(ldapObj, mods, "dcmUserIdentityNegotiationKeycloakClientID",
                 aa.getUserIdentityNegotiationKeycloakClientID(),
                 bb.getUserIdentityNegotiationKeycloakClientID(), null);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmQueueSizeReconciliationPollingInterval",
+                aa.getQueueSizeReconciliationPollingInterval(),
+                bb.getQueueSizeReconciliationPollingInterval(),
+                ArchiveDeviceExtension.DEFAULT_QUEUE_SIZE_RECONCILIATION_POLLING_INTERVAL);
         if (remove)
             mods.add(new ModificationItem(DirContext.REMOVE_ATTRIBUTE,
                     LdapUtils.attr("objectClass", "dcmArchiveDevice")));
@@ -2102,7 +2296,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadAttributeFilters(ArchiveDeviceExtension device, String deviceDN)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmAttributeFilter)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN,
+                "(objectclass=dcmAttributeFilter)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -2125,7 +2320,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadAttributeSet(ArchiveDeviceExtension device, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmAttributeSet)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN, "(objectclass=dcmAttributeSet)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -2150,7 +2345,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     static void loadHL7OrderSPSStatus(
             Map<SPSStatus, HL7OrderSPSStatus> hl7OrderSPSStatusMap, String deviceDN, LdapDicomConfiguration config)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=hl7OrderSPSStatus)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN,
+                "(objectclass=hl7OrderSPSStatus)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -2373,7 +2569,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadStorageDescriptors(ArchiveDeviceExtension arcdev, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmStorage)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN, "(objectclass=dcmStorage)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -2531,6 +2727,12 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmPurgeQueueMessageCanceledDelay",
                 descriptor.getPurgeQueueMessageCanceledDelay(), null);
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmMaxQueueSize", descriptor.getMaxQueueSize(), 0);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmFairShareQuantum", descriptor.getFairShareQuantum(), 0);
+        LdapUtils.storeNotNullOrDef(ldapObj, attrs, "dcmFairShareHalfLife",
+                descriptor.getFairShareHalfLife(), QueueDescriptor.DEFAULT_FAIR_SHARE_HALF_LIFE);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmMaxConcurrentNormalPriorityTasks",
+                descriptor.getMaxConcurrentNormalPriorityTasks(), 0);
+        LdapUtils.storeNotDef(ldapObj, attrs, "dcmMaxTasksPerSecond", descriptor.getMaxTasksPerSecond(), 0);
         LdapUtils.storeNotEmpty(ldapObj, attrs, "dcmSchedule", descriptor.getSchedules());
         LdapUtils.storeNotDef(ldapObj, attrs, "dcmRetryInProcessOnStartup",
                 descriptor.isRetryInProcessOnStartup(), false);
@@ -2538,7 +2740,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadQueueDescriptors(ArchiveDeviceExtension arcdev, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmQueue)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN, "(objectclass=dcmQueue)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -2560,6 +2762,12 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
                 desc.setPurgeQueueMessageCanceledDelay(
                         toDuration(attrs.get("dcmPurgeQueueMessageCanceledDelay"), null));
                 desc.setMaxQueueSize(LdapUtils.intValue(attrs.get("dcmMaxQueueSize"), 0));
+                desc.setFairShareQuantum(LdapUtils.intValue(attrs.get("dcmFairShareQuantum"), 0));
+                desc.setFairShareHalfLife(toDuration(attrs.get("dcmFairShareHalfLife"),
+                        QueueDescriptor.DEFAULT_FAIR_SHARE_HALF_LIFE));
+                desc.setMaxConcurrentNormalPriorityTasks(
+                        LdapUtils.intValue(attrs.get("dcmMaxConcurrentNormalPriorityTasks"), 0));
+                desc.setMaxTasksPerSecond(LdapUtils.intValue(attrs.get("dcmMaxTasksPerSecond"), 0));
                 desc.setSchedules(ScheduleExpression.valuesOf(LdapUtils.stringArray(attrs.get("dcmSchedule"))));
                 desc.setRetryInProcessOnStartup(
                         LdapUtils.booleanValue(attrs.get("dcmRetryInProcessOnStartup"), false));
@@ -2622,6 +2830,14 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
         LdapUtils.storeDiffObject(ldapObj, mods, "dcmPurgeQueueMessageCanceledDelay",
                 prev.getPurgeQueueMessageCanceledDelay(), desc.getPurgeQueueMessageCanceledDelay(), null);
         LdapUtils.storeDiff(ldapObj, mods, "dcmMaxQueueSize", prev.getMaxQueueSize(), desc.getMaxQueueSize(), 0);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmFairShareQuantum",
+                prev.getFairShareQuantum(), desc.getFairShareQuantum(), 0);
+        LdapUtils.storeDiffObject(ldapObj, mods, "dcmFairShareHalfLife",
+                prev.getFairShareHalfLife(), desc.getFairShareHalfLife(), QueueDescriptor.DEFAULT_FAIR_SHARE_HALF_LIFE);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmMaxConcurrentNormalPriorityTasks",
+                prev.getMaxConcurrentNormalPriorityTasks(), desc.getMaxConcurrentNormalPriorityTasks(), 0);
+        LdapUtils.storeDiff(ldapObj, mods, "dcmMaxTasksPerSecond",
+                prev.getMaxTasksPerSecond(), desc.getMaxTasksPerSecond(), 0);
         LdapUtils.storeDiff(ldapObj, mods, "dcmSchedule", prev.getSchedules(), desc.getSchedules());
         LdapUtils.storeDiff(ldapObj, mods, "dcmRetryInProcessOnStartup",
                 prev.isRetryInProcessOnStartup(), desc.isRetryInProcessOnStartup(), false);
@@ -2651,7 +2867,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadPDQServiceDescriptors(ArchiveDeviceExtension arcdev, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmPDQService)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN, "(objectclass=dcmPDQService)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -2752,7 +2968,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadExporterDescriptors(ArchiveDeviceExtension arcdev, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmExporter)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN, "(objectclass=dcmExporter)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3207,7 +3423,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadExportRules(Collection<ExportRule> exportRules, String parentDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmExportRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=dcmExportRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3231,7 +3447,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadMWLIdleTimeouts(Collection<MWLIdleTimeout> mwlIdleTimeouts, String parentDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmMWLIdleTimeout)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmMWLIdleTimeout)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3249,7 +3466,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadUPSOnStoreList(Collection<UPSOnStore> upsOnStoreList, String parentDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmUPSOnStore)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=dcmUPSOnStore)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3310,7 +3527,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadUPSOnUPSCompletedList(Collection<UPSOnUPSCompleted> upsOnUPSCompletedList, String parentDN)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmUPSOnUPSCompleted)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmUPSOnUPSCompleted)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3367,7 +3585,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadUPSTemplates(ArchiveDeviceExtension arcdev, String parentDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmUPSTemplate)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=dcmUPSTemplate)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3404,7 +3622,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadUPSProcessingRules(ArchiveDeviceExtension arcDev, String parentDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmUPSProcessingRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmUPSProcessingRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3450,7 +3669,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     static void loadUPSOnHL7List(Collection<UPSOnHL7> upsOnHL7List, String parentDN, LdapDicomConfiguration config)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=hl7UPSOnHL7)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=hl7UPSOnHL7)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3516,7 +3735,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadPrefetchRules(Collection<ExportPriorsRule> exportPriorsRules, String parentDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmExportPriorsRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmExportPriorsRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3565,7 +3785,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     static void loadHL7ExportRules(Collection<HL7ExportRule> prefetchRules, String parentDN,
                                    LdapDicomConfiguration config) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=hl7ExportRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=hl7ExportRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -3620,7 +3840,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     static void loadHL7PrefetchRules(Collection<HL7PrefetchRule> prefetchRules, String parentDN,
                                    LdapDicomConfiguration config) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=hl7PrefetchRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=hl7PrefetchRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4608,7 +4828,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadCompressionRules(Collection<ArchiveCompressionRule> rules, String parentDN)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmArchiveCompressionRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmArchiveCompressionRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4628,7 +4849,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadStoreAccessControlIDRules(Collection<StoreAccessControlIDRule> rules, String parentDN)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmStoreAccessControlIDRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmStoreAccessControlIDRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4646,7 +4868,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadStudyRetentionPolicies(Collection<StudyRetentionPolicy> policies, String parentDN)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmStudyRetentionPolicy)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmStudyRetentionPolicy)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4671,7 +4894,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     static void loadHL7StudyRetentionPolicies(Collection<HL7StudyRetentionPolicy> policies, String parentDN,
                                               LdapDicomConfiguration config)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=hl7StudyRetentionPolicy)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=hl7StudyRetentionPolicy)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4697,7 +4921,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     static void loadHL7ForwardRules(
             Collection<HL7ForwardRule> rules, String parentDN, LdapDicomConfiguration config)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=hl7ForwardRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=hl7ForwardRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4715,7 +4939,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     static void loadScheduledStations(
             Collection<HL7OrderScheduledStation> stations, String parentDN, LdapDicomConfiguration config, Device device)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=hl7OrderScheduledStation)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=hl7OrderScheduledStation)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4746,7 +4971,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadRSForwardRules(Collection<RSForwardRule> rules, String parentDN)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmRSForwardRule)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=dcmRSForwardRule)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4767,7 +4992,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadKeycloakServers(ArchiveDeviceExtension arcdev, String parentDN)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmKeycloakServer)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmKeycloakServer)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -4793,7 +5019,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadMetricsDescriptors(ArchiveDeviceExtension arcdev, String parentDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmMetrics)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN, "(objectclass=dcmMetrics)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -5346,7 +5572,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadQueryRetrieveViews(ArchiveDeviceExtension arcdev, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmQueryRetrieveView)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN,
+                "(objectclass=dcmQueryRetrieveView)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -5454,7 +5681,8 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
 
     private void loadAttributeCoercions(Collection<ArchiveAttributeCoercion> coercions, String parentDN, Device device)
             throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(parentDN, "(objectclass=dcmArchiveAttributeCoercion)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, parentDN,
+                "(objectclass=dcmArchiveAttributeCoercion)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -5610,7 +5838,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadRejectNotes(ArchiveDeviceExtension arcdev, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmRejectionNote)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN, "(objectclass=dcmRejectionNote)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
@@ -5638,7 +5866,7 @@ class LdapArchiveConfiguration extends LdapDicomConfigurationExtension {
     }
 
     private void loadIDGenerators(ArchiveDeviceExtension arcdev, String deviceDN) throws NamingException {
-        NamingEnumeration<SearchResult> ne = config.search(deviceDN, "(objectclass=dcmIDGenerator)");
+        NamingEnumeration<SearchResult> ne = LdapSearchCache.search(config, deviceDN, "(objectclass=dcmIDGenerator)");
         try {
             while (ne.hasMore()) {
                 SearchResult sr = ne.next();
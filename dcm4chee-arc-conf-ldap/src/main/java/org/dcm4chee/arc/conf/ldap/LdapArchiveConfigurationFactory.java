@@ -51,6 +51,7 @@ import org.dcm4che3.conf.ldap.audit.LdapAuditRecordRepositoryConfiguration;
 import org.dcm4che3.conf.ldap.hl7.LdapHL7Configuration;
 import org.dcm4che3.conf.ldap.imageio.LdapImageReaderConfiguration;
 import org.dcm4che3.conf.ldap.imageio.LdapImageWriterConfiguration;
+import org.dcm4che3.net.Device;
 import org.dcm4chee.arc.conf.ui.ldap.LdapArchiveUIConfiguration;
 
 import javax.enterprise.context.ApplicationScoped;
@@ -105,7 +106,17 @@ public class LdapArchiveConfigurationFactory {
 
     public static LdapDicomConfiguration newLdapDicomConfiguration(Hashtable<?, ?> env)
             throws ConfigurationException {
-        LdapDicomConfiguration config = new LdapDicomConfiguration(env);
+        LdapDicomConfiguration config = new LdapDicomConfiguration(env) {
+            @Override
+            public synchronized Device findDevice(String name) throws ConfigurationException {
+                LdapSearchCache prev = LdapSearchCache.prefetch(this, deviceRef(name));
+                try {
+                    return super.findDevice(name);
+                } finally {
+                    LdapSearchCache.restore(prev);
+                }
+            }
+        };
         for (LdapDicomConfigurationExtension ext : configExts()) {
             config.addDicomConfigurationExtension(ext);
         }
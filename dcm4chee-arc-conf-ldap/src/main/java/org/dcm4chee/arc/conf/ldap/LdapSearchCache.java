@@ -0,0 +1,198 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.conf.ldap;
+
+import org.dcm4che3.conf.ldap.LdapDicomConfiguration;
+import org.dcm4che3.conf.ldap.LdapUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.naming.NameNotFoundException;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.SizeLimitExceededException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapName;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Holds the entries of the subtree of the Device, which is currently loaded by the calling thread, fetched by one
+ * subtree search. One level searches for child entries of a particular object class - as performed by the loaders
+ * of Device, Application Entity and HL7 Application extensions - are served from the fetched entries, instead of
+ * performing a separate search for each type of child entries. The fetched entries are associated with the
+ * calling thread only while {@link LdapDicomConfiguration#findDevice(String)} is in progress.
+ */
+class LdapSearchCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LdapSearchCache.class);
+    private static final Pattern OBJECTCLASS_FILTER =
+            Pattern.compile("\\(objectclass=([^()*=]+)\\)", Pattern.CASE_INSENSITIVE);
+    private static final ThreadLocal<LdapSearchCache> CURRENT = new ThreadLocal<>();
+
+    private final LdapDicomConfiguration config;
+    private final LdapName baseDN;
+    private final Map<LdapName, Map<String, List<SearchResult>>> childrenByParentAndObjectClass = new HashMap<>();
+
+    LdapSearchCache(LdapDicomConfiguration config, LdapName baseDN) {
+        this.config = config;
+        this.baseDN = baseDN;
+    }
+
+    /**
+     * Fetches all entries of the subtree of the specified Device by one search and associates them with the calling
+     * thread, replacing previously fetched entries, which are returned to be restored by {@link #restore} after
+     * the Device was loaded. If the search fails, subsequent searches are performed against the LDAP server.
+     */
+    static LdapSearchCache prefetch(LdapDicomConfiguration config, String deviceDN) {
+        LdapSearchCache prev = CURRENT.get();
+        CURRENT.remove();
+        try {
+            LdapSearchCache cache = new LdapSearchCache(config, new LdapName(deviceDN));
+            NamingEnumeration<SearchResult> ne =
+                    config.search(deviceDN, "(objectclass=*)", SearchControls.SUBTREE_SCOPE, (String[]) null);
+            try {
+                while (ne.hasMore())
+                    cache.add(ne.next());
+            } finally {
+                LdapUtils.safeClose(ne);
+            }
+            CURRENT.set(cache);
+        } catch (NameNotFoundException e) {
+            LOG.debug("No entry {} - load child entries separately", deviceDN);
+        } catch (SizeLimitExceededException e) {
+            LOG.warn("Number of entries in subtree of {} exceeds size limit of LDAP server " +
+                    "- load child entries separately", deviceDN);
+        } catch (NamingException e) {
+            LOG.warn("Failed to fetch subtree of {} - load child entries separately:\n", deviceDN, e);
+        }
+        return prev;
+    }
+
+    static void restore(LdapSearchCache prev) {
+        if (prev != null)
+            CURRENT.set(prev);
+        else
+            CURRENT.remove();
+    }
+
+    /**
+     * Returns the child entries of the specified parent matching the specified filter, either from the prefetched
+     * entries of the currently loaded Device, or - if the parent is not within the subtree of that Device or the
+     * filter does not only select by object class - by a one level search against the LDAP server.
+     */
+    static NamingEnumeration<SearchResult> search(LdapDicomConfiguration config, String parentDN, String filter)
+            throws NamingException {
+        LdapSearchCache cache = CURRENT.get();
+        List<SearchResult> children;
+        return cache != null && cache.config == config && (children = cache.lookup(parentDN, filter)) != null
+                ? new Enumeration<>(children.iterator())
+                : config.search(parentDN, filter);
+    }
+
+    /**
+     * Returns the fetched child entries of the specified parent matching the specified filter or {@code null}, if
+     * the parent is not within the fetched subtree or the filter does not only select by object class.
+     */
+    List<SearchResult> lookup(String parentDN, String filter) throws NamingException {
+        Matcher matcher = OBJECTCLASS_FILTER.matcher(filter);
+        if (!matcher.matches())
+            return null;
+
+        LdapName parent = new LdapName(parentDN);
+        return parent.startsWith(baseDN) ? children(parent, matcher.group(1)) : null;
+    }
+
+    void add(SearchResult sr) throws NamingException {
+        LdapName dn = new LdapName(sr.getNameInNamespace());
+        if (dn.size() <= baseDN.size())
+            return;
+
+        Map<String, List<SearchResult>> childrenByObjectClass = childrenByParentAndObjectClass.computeIfAbsent(
+                (LdapName) dn.getPrefix(dn.size() - 1), parent -> new HashMap<>());
+        Attribute objectclass = sr.getAttributes().get("objectclass");
+        if (objectclass != null)
+            for (int i = 0; i < objectclass.size(); i++)
+                childrenByObjectClass.computeIfAbsent(objectclass.get(i).toString().toLowerCase(),
+                        x -> new ArrayList<>()).add(sr);
+    }
+
+    private List<SearchResult> children(LdapName parent, String objectclass) {
+        return childrenByParentAndObjectClass
+                .getOrDefault(parent, Collections.emptyMap())
+                .getOrDefault(objectclass.toLowerCase(), Collections.emptyList());
+    }
+
+    private static class Enumeration<T> implements NamingEnumeration<T> {
+        private final Iterator<T> iterator;
+
+        Enumeration(Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public T next() {
+            return iterator.next();
+        }
+
+        @Override
+        public boolean hasMore() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean hasMoreElements() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public T nextElement() {
+            return iterator.next();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.conf.ldap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapName;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LdapSearchCacheTest {
+
+    private static final String DEVICE_DN =
+            "dicomDeviceName=dcm4chee-arc,cn=Devices,cn=DICOM Configuration,dc=dcm4che,dc=org";
+    private static final String AE_DN = "dicomAETitle=DCM4CHEE," + DEVICE_DN;
+    private static final String OTHER_DEVICE_DN =
+            "dicomDeviceName=storescu,cn=Devices,cn=DICOM Configuration,dc=dcm4che,dc=org";
+
+    private LdapSearchCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new LdapSearchCache(null, new LdapName(DEVICE_DN));
+        cache.add(entry(DEVICE_DN, "dicomDevice", "dcmArchiveDevice"));
+        cache.add(entry("cn=dicom," + DEVICE_DN, "dicomNetworkConnection"));
+        cache.add(entry(AE_DN, "dicomNetworkAE", "dcmArchiveNetworkAE"));
+        cache.add(entry("cn=Queue1," + DEVICE_DN, "dcmQueue"));
+        cache.add(entry("cn=Queue2," + DEVICE_DN, "dcmQueue"));
+        cache.add(entry("cn=ExportRule," + AE_DN, "dcmExportRule"));
+    }
+
+    @Test
+    public void testLookupByObjectClass() throws Exception {
+        assertDNs(cache.lookup(DEVICE_DN, "(objectclass=dcmQueue)"),
+                "cn=Queue1," + DEVICE_DN, "cn=Queue2," + DEVICE_DN);
+        assertDNs(cache.lookup(DEVICE_DN, "(objectClass=DCMQUEUE)"),
+                "cn=Queue1," + DEVICE_DN, "cn=Queue2," + DEVICE_DN);
+    }
+
+    @Test
+    public void testLookupChildsOfChild() throws Exception {
+        assertDNs(cache.lookup(AE_DN, "(objectclass=dcmExportRule)"), "cn=ExportRule," + AE_DN);
+        assertDNs(cache.lookup(DEVICE_DN, "(objectclass=dcmExportRule)"));
+        assertDNs(cache.lookup("cn=ExportRule," + AE_DN, "(objectclass=dcmProperty)"));
+    }
+
+    @Test
+    public void testLookupOutsideSubtree() throws Exception {
+        assertNull(cache.lookup(OTHER_DEVICE_DN, "(objectclass=dcmQueue)"));
+    }
+
+    @Test
+    public void testLookupByOtherFilter() throws Exception {
+        assertNull(cache.lookup(DEVICE_DN, "(&(objectclass=dcmQueue)(cn=Queue1))"));
+        assertNull(cache.lookup(DEVICE_DN, "(objectclass=*)"));
+    }
+
+    private static SearchResult entry(String dn, String... objectclasses) {
+        BasicAttribute objectclass = new BasicAttribute("objectClass");
+        for (String value : objectclasses)
+            objectclass.add(value);
+        BasicAttributes attrs = new BasicAttributes(true);
+        attrs.put(objectclass);
+        SearchResult sr = new SearchResult(dn, null, attrs);
+        sr.setNameInNamespace(dn);
+        return sr;
+    }
+
+    private static void assertDNs(List<SearchResult> results, String... expected) {
+        assertNotNull(results);
+        assertEquals(expected.length, results.size());
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], results.get(i).getNameInNamespace());
+    }
+}
@@ -258,11 +258,14 @@ public class ArchiveAEExtension extends AEExtension {
         this.bulkDataDescriptorID = bulkDataDescriptorID;
     }
 
-    public BulkDataDescriptor getBulkDataDescriptor() {
-        ArchiveDeviceExtension arcdev = getArchiveDeviceExtension();
-        return arcdev.getBulkDataDescriptor(bulkDataDescriptorID != null
+    public String bulkDataDescriptorID() {
+        return bulkDataDescriptorID != null
                 ? bulkDataDescriptorID
-                : arcdev.getBulkDataDescriptorID());
+                : getArchiveDeviceExtension().getBulkDataDescriptorID();
+    }
+
+    public BulkDataDescriptor getBulkDataDescriptor() {
+        return getArchiveDeviceExtension().getBulkDataDescriptor(bulkDataDescriptorID());
     }
 
     public Duration getSeriesMetadataDelay() {
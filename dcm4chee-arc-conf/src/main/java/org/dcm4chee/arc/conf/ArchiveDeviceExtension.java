@@ -68,6 +68,9 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     public static final String AUDIT_UNKNOWN_STUDY_INSTANCE_UID = "1.2.40.0.13.1.15.110.3.165.1";
     public static final String AUDIT_UNKNOWN_PATIENT_ID = "<none>";
     public static final String JBOSS_SERVER_TEMP_DIR = "${jboss.server.temp.dir}";
+    public static final Duration DEFAULT_STUDY_FINALIZER_QUIET_PERIOD = Duration.valueOf("PT5M");
+    public static final Duration DEFAULT_QUEUE_SIZE_RECONCILIATION_POLLING_INTERVAL = Duration.valueOf("PT5M");
+    public static final Duration DEFAULT_HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT = Duration.valueOf("PT10S");
     public static final String DEFAULT_WADO_ZIP_ENTRY_NAME_FORMAT =
             "DICOM/{0020000D,hash}/{0020000E,hash}/{00080018,hash}.dcm";
     public static final String WADO_THUMBNAIL_VIEWPORT = "64,64";
@@ -95,6 +98,10 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private volatile Duration deleteUPSCanceledDelay;
     private volatile Duration upsProcessingPollingInterval;
     private volatile int upsProcessingFetchSize = 100;
+    private volatile Duration upsOnStoreCoalescingWindow;
+    private volatile Duration studyFinalizerPollingInterval;
+    private volatile int studyFinalizerFetchSize = 100;
+    private volatile Duration studyFinalizerQuietPeriod = DEFAULT_STUDY_FINALIZER_QUIET_PERIOD;
     private volatile OverwritePolicy overwritePolicy = OverwritePolicy.NEVER;
     private volatile boolean recordAttributeModification = true;
     private volatile ShowPatientInfo showPatientInfoInSystemLog = ShowPatientInfo.PLAIN_TEXT;
@@ -187,6 +194,27 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private volatile int storePermissionCacheSize = 10;
     private volatile Duration mergeMWLCacheStaleTimeout;
     private volatile int mergeMWLCacheSize = 10;
+    private volatile Duration qidoCountCacheStaleTimeout;
+    private volatile int qidoCountCacheSize = 100;
+    private volatile boolean searchTokenMatching;
+    private volatile boolean searchTokenMaintenance;
+    private volatile int httpClientConnectionPoolSize = 50;
+    private volatile int httpClientMaxPooledPerRoute = 10;
+    private volatile Duration httpClientConnectionRequestTimeout =
+            DEFAULT_HTTP_CLIENT_CONNECTION_REQUEST_TIMEOUT;
+    private volatile Duration userIdentityCacheStaleTimeout;
+    private volatile int userIdentityCacheSize = 100;
+    private volatile int wadoZIPParallelism = 1;
+    private volatile String wadoFrameCacheSize;
+    private volatile long wadoFrameCacheSizeInBytes;
+    private volatile String wadoMetadataCacheSize;
+    private volatile long wadoMetadataCacheSizeInBytes;
+    private volatile int copyMoveBatchSize = 100;
+    private volatile int upsEventQueueSize = 100;
+    private volatile UPSEventQueueFullPolicy upsEventQueueFullPolicy = UPSEventQueueFullPolicy.DROP_OLDEST;
+    private volatile String hl7JournalDirectory;
+    private volatile int hl7JournalSegmentSize = 67108864;
+    private volatile Duration hl7JournalRetentionPeriod;
     private volatile int storeUpdateDBMaxRetries = 1;
     private volatile int storeUpdateDBMaxRetryDelay = 1000;
     private volatile int storeUpdateDBMinRetryDelay = 500;
@@ -199,6 +227,8 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private volatile UserIdentityNegotiation userIdentityNegotiation = UserIdentityNegotiation.SUPPORTS;
     private volatile String userIdentityNegotiationRole;
     private volatile String userIdentityNegotiationKeycloakClientID;
+    private volatile Duration queueSizeReconciliationPollingInterval =
+            DEFAULT_QUEUE_SIZE_RECONCILIATION_POLLING_INTERVAL;
     private volatile String[] retrieveAETitles = {};
     private volatile String[] returnRetrieveAETitles = {};
     private volatile String remapRetrieveURL;
@@ -230,6 +260,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private volatile String[] hl7ADTReceivingApplication = {};
     private volatile String hl7ADTSendingApplication;
     private volatile int queueTasksFetchSize = 100;
+    private volatile Duration retryInProcessTasksDelay;
     private volatile ScheduledProtocolCodeInOrder hl7ScheduledProtocolCodeInOrder =
             ScheduledProtocolCodeInOrder.OBR_4_4;
     private volatile ScheduledStationAETInOrder hl7ScheduledStationAETInOrder;
@@ -265,6 +296,9 @@ public class ArchiveDeviceExtension extends DeviceExtension {
     private volatile Duration patientVerificationRetryInterval;
     private volatile int patientVerificationMaxRetries;
     private volatile boolean patientVerificationAdjustIssuerOfPatientID;
+    private volatile int patientVerificationThreads = 1;
+    private volatile int patientVerificationMaxRequestsPerSecond;
+    private volatile int patientVerificationMaxConsecutiveFailures;
     private volatile HL7OrderMissingStudyIUIDPolicy hl7OrderMissingStudyIUIDPolicy = HL7OrderMissingStudyIUIDPolicy.GENERATE;
     private volatile HL7ImportReportMissingStudyIUIDPolicy hl7ImportReportMissingStudyIUIDPolicy =
             HL7ImportReportMissingStudyIUIDPolicy.GENERATE;
@@ -272,6 +306,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
             HL7ReferredMergedPatientPolicy.REJECT;
     private volatile String hl7DicomCharacterSet;
     private volatile boolean hl7VeterinaryUsePatientName;
+    private volatile boolean hl7UseBuiltinMapping;
     private volatile String hl7PatientArrivalMessageType;
     private volatile int csvUploadChunkSize = 100;
     private volatile boolean validateUID = true;
@@ -588,6 +623,38 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.upsProcessingFetchSize = upsProcessingFetchSize;
     }
 
+    public Duration getUPSOnStoreCoalescingWindow() {
+        return upsOnStoreCoalescingWindow;
+    }
+
+    public void setUPSOnStoreCoalescingWindow(Duration upsOnStoreCoalescingWindow) {
+        this.upsOnStoreCoalescingWindow = upsOnStoreCoalescingWindow;
+    }
+
+    public Duration getStudyFinalizerPollingInterval() {
+        return studyFinalizerPollingInterval;
+    }
+
+    public void setStudyFinalizerPollingInterval(Duration studyFinalizerPollingInterval) {
+        this.studyFinalizerPollingInterval = studyFinalizerPollingInterval;
+    }
+
+    public int getStudyFinalizerFetchSize() {
+        return studyFinalizerFetchSize;
+    }
+
+    public void setStudyFinalizerFetchSize(int studyFinalizerFetchSize) {
+        this.studyFinalizerFetchSize = greaterZero(studyFinalizerFetchSize, "StudyFinalizerFetchSize");
+    }
+
+    public Duration getStudyFinalizerQuietPeriod() {
+        return studyFinalizerQuietPeriod;
+    }
+
+    public void setStudyFinalizerQuietPeriod(Duration studyFinalizerQuietPeriod) {
+        this.studyFinalizerQuietPeriod = studyFinalizerQuietPeriod;
+    }
+
     public boolean isPersonNameComponentOrderInsensitiveMatching() {
         return personNameComponentOrderInsensitiveMatching;
     }
@@ -1283,6 +1350,170 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.mergeMWLCacheSize = greaterZero(mergeMWLCacheSize, "mergeMWLCacheSize");
     }
 
+    public Duration getQidoCountCacheStaleTimeout() {
+        return qidoCountCacheStaleTimeout;
+    }
+
+    public void setQidoCountCacheStaleTimeout(Duration qidoCountCacheStaleTimeout) {
+        this.qidoCountCacheStaleTimeout = qidoCountCacheStaleTimeout;
+    }
+
+    public int getQidoCountCacheStaleTimeoutSeconds() {
+        return toSeconds(qidoCountCacheStaleTimeout);
+    }
+
+    public int getQidoCountCacheSize() {
+        return qidoCountCacheSize;
+    }
+
+    public void setQidoCountCacheSize(int qidoCountCacheSize) {
+        this.qidoCountCacheSize = greaterZero(qidoCountCacheSize, "qidoCountCacheSize");
+    }
+
+    public boolean isSearchTokenMatching() {
+        return searchTokenMatching;
+    }
+
+    public void setSearchTokenMatching(boolean searchTokenMatching) {
+        this.searchTokenMatching = searchTokenMatching;
+    }
+
+    public boolean isSearchTokenMaintenance() {
+        return searchTokenMaintenance;
+    }
+
+    public void setSearchTokenMaintenance(boolean searchTokenMaintenance) {
+        this.searchTokenMaintenance = searchTokenMaintenance;
+    }
+
+    public int getHttpClientConnectionPoolSize() {
+        return httpClientConnectionPoolSize;
+    }
+
+    public void setHttpClientConnectionPoolSize(int httpClientConnectionPoolSize) {
+        this.httpClientConnectionPoolSize = greaterZero(httpClientConnectionPoolSize, "httpClientConnectionPoolSize");
+    }
+
+    public int getHttpClientMaxPooledPerRoute() {
+        return httpClientMaxPooledPerRoute;
+    }
+
+    public void setHttpClientMaxPooledPerRoute(int httpClientMaxPooledPerRoute) {
+        this.httpClientMaxPooledPerRoute = greaterZero(httpClientMaxPooledPerRoute, "httpClientMaxPooledPerRoute");
+    }
+
+    public Duration getHttpClientConnectionRequestTimeout() {
+        return httpClientConnectionRequestTimeout;
+    }
+
+    public void setHttpClientConnectionRequestTimeout(Duration httpClientConnectionRequestTimeout) {
+        this.httpClientConnectionRequestTimeout = httpClientConnectionRequestTimeout;
+    }
+
+    public Duration getUserIdentityCacheStaleTimeout() {
+        return userIdentityCacheStaleTimeout;
+    }
+
+    public void setUserIdentityCacheStaleTimeout(Duration userIdentityCacheStaleTimeout) {
+        this.userIdentityCacheStaleTimeout = userIdentityCacheStaleTimeout;
+    }
+
+    public int getUserIdentityCacheStaleTimeoutSeconds() {
+        return toSeconds(userIdentityCacheStaleTimeout);
+    }
+
+    public int getUserIdentityCacheSize() {
+        return userIdentityCacheSize;
+    }
+
+    public void setUserIdentityCacheSize(int userIdentityCacheSize) {
+        this.userIdentityCacheSize = greaterZero(userIdentityCacheSize, "userIdentityCacheSize");
+    }
+
+    public int getWadoZIPParallelism() {
+        return wadoZIPParallelism;
+    }
+
+    public void setWadoZIPParallelism(int wadoZIPParallelism) {
+        this.wadoZIPParallelism = greaterZero(wadoZIPParallelism, "wadoZIPParallelism");
+    }
+
+    public String getWadoFrameCacheSize() {
+        return wadoFrameCacheSize;
+    }
+
+    public void setWadoFrameCacheSize(String wadoFrameCacheSize) {
+        this.wadoFrameCacheSizeInBytes = wadoFrameCacheSize != null ? BinaryPrefix.parse(wadoFrameCacheSize) : 0L;
+        this.wadoFrameCacheSize = wadoFrameCacheSize;
+    }
+
+    public String getWadoMetadataCacheSize() {
+        return wadoMetadataCacheSize;
+    }
+
+    public void setWadoMetadataCacheSize(String wadoMetadataCacheSize) {
+        this.wadoMetadataCacheSizeInBytes = wadoMetadataCacheSize != null
+                ? BinaryPrefix.parse(wadoMetadataCacheSize)
+                : 0L;
+        this.wadoMetadataCacheSize = wadoMetadataCacheSize;
+    }
+
+    public long getWadoMetadataCacheSizeInBytes() {
+        return wadoMetadataCacheSizeInBytes;
+    }
+
+    public int getCopyMoveBatchSize() {
+        return copyMoveBatchSize;
+    }
+
+    public void setCopyMoveBatchSize(int copyMoveBatchSize) {
+        this.copyMoveBatchSize = greaterZero(copyMoveBatchSize, "copyMoveBatchSize");
+    }
+
+    public int getUPSEventQueueSize() {
+        return upsEventQueueSize;
+    }
+
+    public void setUPSEventQueueSize(int upsEventQueueSize) {
+        this.upsEventQueueSize = greaterZero(upsEventQueueSize, "upsEventQueueSize");
+    }
+
+    public UPSEventQueueFullPolicy getUPSEventQueueFullPolicy() {
+        return upsEventQueueFullPolicy;
+    }
+
+    public void setUPSEventQueueFullPolicy(UPSEventQueueFullPolicy upsEventQueueFullPolicy) {
+        this.upsEventQueueFullPolicy = upsEventQueueFullPolicy;
+    }
+
+    public String getHL7JournalDirectory() {
+        return hl7JournalDirectory;
+    }
+
+    public void setHL7JournalDirectory(String hl7JournalDirectory) {
+        this.hl7JournalDirectory = hl7JournalDirectory;
+    }
+
+    public int getHL7JournalSegmentSize() {
+        return hl7JournalSegmentSize;
+    }
+
+    public void setHL7JournalSegmentSize(int hl7JournalSegmentSize) {
+        this.hl7JournalSegmentSize = greaterZero(hl7JournalSegmentSize, "hl7JournalSegmentSize");
+    }
+
+    public Duration getHL7JournalRetentionPeriod() {
+        return hl7JournalRetentionPeriod;
+    }
+
+    public void setHL7JournalRetentionPeriod(Duration hl7JournalRetentionPeriod) {
+        this.hl7JournalRetentionPeriod = hl7JournalRetentionPeriod;
+    }
+
+    public long getWadoFrameCacheSizeInBytes() {
+        return wadoFrameCacheSizeInBytes;
+    }
+
     public int getStoreUpdateDBMaxRetries() {
         return storeUpdateDBMaxRetries;
     }
@@ -1732,6 +1963,19 @@ public class ArchiveDeviceExtension extends DeviceExtension {
                 .map(StorageDescriptor::getStorageID);
     }
 
+    public boolean isRetrieveCacheStorage(String storageID) {
+        return storageDescriptorMap.values().stream()
+                .anyMatch(desc -> storageID.equals(desc.getRetrieveCacheStorageID()));
+    }
+
+    public List<String> getRetrieveCacheStorageIDs() {
+        return storageDescriptorMap.values().stream()
+                .map(StorageDescriptor::getRetrieveCacheStorageID)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
     public List<String> getOtherStorageIDs(StorageDescriptor desc) {
         return desc.getStorageClusterID() != null
                 ? getStorageIDsOfCluster(desc.getStorageClusterID())
@@ -1740,11 +1984,11 @@ public class ArchiveDeviceExtension extends DeviceExtension {
                 : Collections.emptyList();
     }
 
-    public List<String> getStudyStorageIDs(String storageID, Boolean storageClustered, Boolean storageExported) {
+    public StudyStorageIDs getStudyStorageIDs(String storageID, Boolean storageClustered, Boolean storageExported) {
         StorageDescriptor desc = getStorageDescriptor(storageID);
         return desc != null
                 ? desc.getStudyStorageIDs(getOtherStorageIDs(desc), storageClustered, storageExported)
-                : Collections.emptyList();
+                : StudyStorageIDs.NONE;
     }
 
     public QueueDescriptor getQueueDescriptor(String queueName) {
@@ -2237,6 +2481,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.userIdentityNegotiationKeycloakClientID = userIdentityNegotiationKeycloakClientID;
     }
 
+    public Duration getQueueSizeReconciliationPollingInterval() {
+        return queueSizeReconciliationPollingInterval;
+    }
+
+    public void setQueueSizeReconciliationPollingInterval(Duration queueSizeReconciliationPollingInterval) {
+        this.queueSizeReconciliationPollingInterval = queueSizeReconciliationPollingInterval;
+    }
+
     public String[] getRetrieveAETitles() {
         return retrieveAETitles;
     }
@@ -2381,6 +2633,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.queueTasksFetchSize = queueTasksFetchSize;
     }
 
+    public Duration getRetryInProcessTasksDelay() {
+        return retryInProcessTasksDelay;
+    }
+
+    public void setRetryInProcessTasksDelay(Duration retryInProcessTasksDelay) {
+        this.retryInProcessTasksDelay = retryInProcessTasksDelay;
+    }
+
     public String getRejectionNoteStorageAET() {
         return rejectionNoteStorageAET;
     }
@@ -2613,6 +2873,30 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.patientVerificationAdjustIssuerOfPatientID = patientVerificationAdjustIssuerOfPatientID;
     }
 
+    public int getPatientVerificationThreads() {
+        return patientVerificationThreads;
+    }
+
+    public void setPatientVerificationThreads(int patientVerificationThreads) {
+        this.patientVerificationThreads = greaterZero(patientVerificationThreads, "patientVerificationThreads");
+    }
+
+    public int getPatientVerificationMaxRequestsPerSecond() {
+        return patientVerificationMaxRequestsPerSecond;
+    }
+
+    public void setPatientVerificationMaxRequestsPerSecond(int patientVerificationMaxRequestsPerSecond) {
+        this.patientVerificationMaxRequestsPerSecond = patientVerificationMaxRequestsPerSecond;
+    }
+
+    public int getPatientVerificationMaxConsecutiveFailures() {
+        return patientVerificationMaxConsecutiveFailures;
+    }
+
+    public void setPatientVerificationMaxConsecutiveFailures(int patientVerificationMaxConsecutiveFailures) {
+        this.patientVerificationMaxConsecutiveFailures = patientVerificationMaxConsecutiveFailures;
+    }
+
     public Duration getPatientVerificationMaxStaleness() {
         return patientVerificationMaxStaleness;
     }
@@ -2779,6 +3063,14 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         this.hl7VeterinaryUsePatientName = hl7VeterinaryUsePatientName;
     }
 
+    public boolean isHl7UseBuiltinMapping() {
+        return hl7UseBuiltinMapping;
+    }
+
+    public void setHl7UseBuiltinMapping(boolean hl7UseBuiltinMapping) {
+        this.hl7UseBuiltinMapping = hl7UseBuiltinMapping;
+    }
+
     public String getHL7PatientArrivalMessageType() {
         return hl7PatientArrivalMessageType;
     }
@@ -2949,6 +3241,10 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         deleteUPSCanceledDelay = arcdev.deleteUPSCanceledDelay;
         upsProcessingPollingInterval = arcdev.upsProcessingPollingInterval;
         upsProcessingFetchSize = arcdev.upsProcessingFetchSize;
+        upsOnStoreCoalescingWindow = arcdev.upsOnStoreCoalescingWindow;
+        studyFinalizerPollingInterval = arcdev.studyFinalizerPollingInterval;
+        studyFinalizerFetchSize = arcdev.studyFinalizerFetchSize;
+        studyFinalizerQuietPeriod = arcdev.studyFinalizerQuietPeriod;
         overwritePolicy = arcdev.overwritePolicy;
         recordAttributeModification = arcdev.recordAttributeModification;
         showPatientInfoInSystemLog = arcdev.showPatientInfoInSystemLog;
@@ -3043,6 +3339,26 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         storePermissionCacheSize = arcdev.storePermissionCacheSize;
         mergeMWLCacheStaleTimeout = arcdev.mergeMWLCacheStaleTimeout;
         mergeMWLCacheSize = arcdev.mergeMWLCacheSize;
+        qidoCountCacheStaleTimeout = arcdev.qidoCountCacheStaleTimeout;
+        qidoCountCacheSize = arcdev.qidoCountCacheSize;
+        searchTokenMatching = arcdev.searchTokenMatching;
+        searchTokenMaintenance = arcdev.searchTokenMaintenance;
+        httpClientConnectionPoolSize = arcdev.httpClientConnectionPoolSize;
+        httpClientMaxPooledPerRoute = arcdev.httpClientMaxPooledPerRoute;
+        httpClientConnectionRequestTimeout = arcdev.httpClientConnectionRequestTimeout;
+        userIdentityCacheStaleTimeout = arcdev.userIdentityCacheStaleTimeout;
+        userIdentityCacheSize = arcdev.userIdentityCacheSize;
+        wadoZIPParallelism = arcdev.wadoZIPParallelism;
+        wadoFrameCacheSize = arcdev.wadoFrameCacheSize;
+        wadoFrameCacheSizeInBytes = arcdev.wadoFrameCacheSizeInBytes;
+        wadoMetadataCacheSize = arcdev.wadoMetadataCacheSize;
+        wadoMetadataCacheSizeInBytes = arcdev.wadoMetadataCacheSizeInBytes;
+        copyMoveBatchSize = arcdev.copyMoveBatchSize;
+        upsEventQueueSize = arcdev.upsEventQueueSize;
+        upsEventQueueFullPolicy = arcdev.upsEventQueueFullPolicy;
+        hl7JournalDirectory = arcdev.hl7JournalDirectory;
+        hl7JournalSegmentSize = arcdev.hl7JournalSegmentSize;
+        hl7JournalRetentionPeriod = arcdev.hl7JournalRetentionPeriod;
         storeUpdateDBMaxRetries = arcdev.storeUpdateDBMaxRetries;
         storeUpdateDBMaxRetryDelay = arcdev.storeUpdateDBMaxRetryDelay;
         storeUpdateDBMinRetryDelay = arcdev.storeUpdateDBMinRetryDelay;
@@ -3074,6 +3390,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         userIdentityNegotiation = arcdev.userIdentityNegotiation;
         userIdentityNegotiationRole = arcdev.userIdentityNegotiationRole;
         userIdentityNegotiationKeycloakClientID = arcdev.userIdentityNegotiationKeycloakClientID;
+        queueSizeReconciliationPollingInterval = arcdev.queueSizeReconciliationPollingInterval;
         proxyUpstreamURL = arcdev.proxyUpstreamURL;
         atna2JsonFhirTemplateURI = arcdev.atna2JsonFhirTemplateURI;
         atna2XmlFhirTemplateURI = arcdev.atna2XmlFhirTemplateURI;
@@ -3089,6 +3406,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         auditSoftwareConfigurationVerbose = arcdev.auditSoftwareConfigurationVerbose;
         hl7UseNullValue = arcdev.hl7UseNullValue;
         queueTasksFetchSize = arcdev.queueTasksFetchSize;
+        retryInProcessTasksDelay = arcdev.retryInProcessTasksDelay;
         rejectionNoteStorageAET = arcdev.rejectionNoteStorageAET;
         uiConfigurationDeviceName = arcdev.uiConfigurationDeviceName;
         storageVerificationPolicy = arcdev.storageVerificationPolicy;
@@ -3119,6 +3437,9 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         patientVerificationPeriodOnNotFound = arcdev.patientVerificationPeriodOnNotFound;
         patientVerificationMaxRetries = arcdev.patientVerificationMaxRetries;
         patientVerificationAdjustIssuerOfPatientID = arcdev.patientVerificationAdjustIssuerOfPatientID;
+        patientVerificationThreads = arcdev.patientVerificationThreads;
+        patientVerificationMaxRequestsPerSecond = arcdev.patientVerificationMaxRequestsPerSecond;
+        patientVerificationMaxConsecutiveFailures = arcdev.patientVerificationMaxConsecutiveFailures;
         csvUploadChunkSize = arcdev.csvUploadChunkSize;
         validateUID = arcdev.validateUID;
         hl7OrderMissingStudyIUIDPolicy = arcdev.hl7OrderMissingStudyIUIDPolicy;
@@ -3126,6 +3447,7 @@ public class ArchiveDeviceExtension extends DeviceExtension {
         hl7ReferredMergedPatientPolicy = arcdev.hl7ReferredMergedPatientPolicy;
         hl7DicomCharacterSet = arcdev.hl7DicomCharacterSet;
         hl7VeterinaryUsePatientName = arcdev.hl7VeterinaryUsePatientName;
+        hl7UseBuiltinMapping = arcdev.hl7UseBuiltinMapping;
         hl7PatientArrivalMessageType = arcdev.hl7PatientArrivalMessageType;
         relationalQueryNegotiationLenient = arcdev.relationalQueryNegotiationLenient;
         relationalRetrieveNegotiationLenient = arcdev.relationalRetrieveNegotiationLenient;
@@ -66,6 +66,10 @@ public class Duration {
         return nano;
     }
 
+    public long toMillis() {
+        return seconds * 1000L + nano / 1000000;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
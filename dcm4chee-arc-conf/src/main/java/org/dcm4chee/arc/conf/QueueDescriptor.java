@@ -10,6 +10,7 @@ import java.util.Objects;
 public class QueueDescriptor {
 
     public static final Duration DEFAULT_RETRY_DELAY = Duration.valueOf("PT1M");
+    public static final Duration DEFAULT_FAIR_SHARE_HALF_LIFE = Duration.valueOf("PT1H");
 
     private String queueName;
     private String jndiName;
@@ -25,6 +26,10 @@ public class QueueDescriptor {
     private Duration purgeQueueMessageWarningDelay;
     private Duration purgeQueueMessageCanceledDelay;
     private int maxQueueSize = 0;
+    private int fairShareQuantum = 0;
+    private Duration fairShareHalfLife = DEFAULT_FAIR_SHARE_HALF_LIFE;
+    private int maxConcurrentNormalPriorityTasks = 0;
+    private int maxTasksPerSecond = 0;
     private ScheduleExpression[] schedules = {};
 
     public QueueDescriptor(String queueName) {
@@ -157,6 +162,38 @@ public class QueueDescriptor {
         this.maxQueueSize = maxQueueSize;
     }
 
+    public int getFairShareQuantum() {
+        return fairShareQuantum;
+    }
+
+    public void setFairShareQuantum(int fairShareQuantum) {
+        this.fairShareQuantum = fairShareQuantum;
+    }
+
+    public Duration getFairShareHalfLife() {
+        return fairShareHalfLife;
+    }
+
+    public void setFairShareHalfLife(Duration fairShareHalfLife) {
+        this.fairShareHalfLife = Objects.requireNonNull(fairShareHalfLife, "FairShareHalfLife");
+    }
+
+    public int getMaxConcurrentNormalPriorityTasks() {
+        return maxConcurrentNormalPriorityTasks;
+    }
+
+    public void setMaxConcurrentNormalPriorityTasks(int maxConcurrentNormalPriorityTasks) {
+        this.maxConcurrentNormalPriorityTasks = maxConcurrentNormalPriorityTasks;
+    }
+
+    public int getMaxTasksPerSecond() {
+        return maxTasksPerSecond;
+    }
+
+    public void setMaxTasksPerSecond(int maxTasksPerSecond) {
+        this.maxTasksPerSecond = maxTasksPerSecond;
+    }
+
     public ScheduleExpression[] getSchedules() {
         return schedules;
     }
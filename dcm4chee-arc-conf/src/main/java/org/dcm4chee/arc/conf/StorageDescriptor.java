@@ -47,7 +47,6 @@ import java.security.NoSuchAlgorithmException;
 import java.time.Period;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -345,52 +344,27 @@ public final class StorageDescriptor {
         this.storageClusterID = storageClusterID;
     }
 
-    public List<String> getStudyStorageIDs(List<String> otherStorageIDs) {
-        return exportStorageID != null
-                ? addPowerSet(false, otherStorageIDs, exportStorageID, storageID)
-                : addPowerSet(false, otherStorageIDs, storageID);
-    }
-
-    public List<String> getStudyStorageIDs(List<String> otherStorageIDs,
-                                           Boolean storageClustered, Boolean storageExported) {
-        if (storageClusterID == null || storageClustered != null && !storageClustered) {
-            return exportStorageID == null || storageExported != null && !storageExported
-                    ? Collections.singletonList(storageID)
-                    : storageExported == null
-                    ? addPowerSet(false, Collections.singletonList(exportStorageID), storageID)
-                    : addPowerSet(false, Collections.emptyList(), exportStorageID, storageID);
-        }
-
-        if (exportStorageID == null || storageExported != null && !storageExported) {
-            return addPowerSet(storageClustered != null, otherStorageIDs, storageID);
-        }
+    public StudyStorageIDs getStudyStorageIDs(List<String> otherStorageIDs,
+                                              Boolean storageClustered, Boolean storageExported) {
+        List<String> required = new ArrayList<>(2);
+        List<String> requiredAnyOf = Collections.emptyList();
+        List<String> permitted = new ArrayList<>(otherStorageIDs.size() + 2);
+        required.add(storageID);
+        permitted.add(storageID);
+        if (storageClusterID != null && (storageClustered == null || storageClustered)) {
+            if (storageClustered != null) {
+                if (otherStorageIDs.isEmpty())
+                    return StudyStorageIDs.NONE;
 
-        List<String> studyStorageIDs = addPowerSet(
-                storageClustered != null, otherStorageIDs, exportStorageID, storageID);
-        if (storageExported == null) {
-            studyStorageIDs.addAll(addPowerSet(storageClustered != null, otherStorageIDs, storageID));
+                requiredAnyOf = otherStorageIDs;
+            }
+            permitted.addAll(otherStorageIDs);
         }
-        return studyStorageIDs;
-    }
-
-    private static List<String> addPowerSet(boolean excludeEmptySet, List<String> storageIDs, String... common) {
-        if (storageIDs.isEmpty()) {
-            if (excludeEmptySet)
-                return Collections.emptyList();
-
-            Arrays.sort(common);
-            return Collections.singletonList(StringUtils.concat(common, '\\'));
+        if (exportStorageID != null && (storageExported == null || storageExported)) {
+            if (storageExported != null)
+                required.add(exportStorageID);
+            permitted.add(exportStorageID);
         }
-        return IntStream.range(excludeEmptySet ? 1 : 0, 1 << storageIDs.size()).mapToObj(i -> {
-            String[] a = Arrays.copyOf(common, common.length + Integer.bitCount(i));
-            int j = common.length;
-            int mask = 1;
-            for (String storageID : storageIDs) {
-                if ((i & mask) != 0) a[j++] = storageID;
-                mask <<= 1;
-            }
-            Arrays.sort(a);
-            return StringUtils.concat(a, '\\');
-        }).collect(Collectors.toList());
+        return new StudyStorageIDs(required, requiredAnyOf, permitted);
     }
 }
@@ -0,0 +1,98 @@
+/*
+ * **** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2018
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * **** END LICENSE BLOCK *****
+ *
+ */
+
+package org.dcm4chee.arc.conf;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Storages on which Studies matching a Storage filter of a query have to be stored, and on which they may be
+ * stored.
+ */
+public final class StudyStorageIDs {
+
+    public static final StudyStorageIDs NONE =
+            new StudyStorageIDs(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    private final List<String> required;
+    private final List<String> requiredAnyOf;
+    private final List<String> permitted;
+
+    public StudyStorageIDs(List<String> required, List<String> requiredAnyOf, List<String> permitted) {
+        this.required = required;
+        this.requiredAnyOf = requiredAnyOf;
+        this.permitted = permitted;
+    }
+
+    /**
+     * @return Storages on which matching Studies have to be stored
+     */
+    public List<String> getRequired() {
+        return required;
+    }
+
+    /**
+     * @return Storages on at least one of which matching Studies have to be stored, if not empty
+     */
+    public List<String> getRequiredAnyOf() {
+        return requiredAnyOf;
+    }
+
+    /**
+     * @return Storages on which matching Studies may be stored
+     */
+    public List<String> getPermitted() {
+        return permitted;
+    }
+
+    public boolean isNone() {
+        return permitted.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "StudyStorageIDs[required=" + required
+                + ", requiredAnyOf=" + requiredAnyOf
+                + ", permitted=" + permitted
+                + "]";
+    }
+}
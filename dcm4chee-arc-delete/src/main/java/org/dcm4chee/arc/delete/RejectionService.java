@@ -40,6 +40,7 @@
 
 package org.dcm4chee.arc.delete;
 
+import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Code;
 import org.dcm4che3.net.ApplicationEntity;
 import org.dcm4chee.arc.conf.RejectionNote;
@@ -63,9 +64,14 @@ public interface RejectionService {
     int reject(ApplicationEntity ae, String studyIUID, String seriesIUID, String sopIUID, RejectionNote rjNote,
                HttpServletRequestInfo httpRequest) throws Exception;
 
+    int reject(String aet, List<Attributes> refs, Code code, HttpServletRequestInfo httpRequest) throws Exception;
+
     void scheduleReject(String aet, String studyIUID, String seriesIUID, String sopIUID, Code code,
                HttpServletRequestInfo httpRequest, String batchID) throws QueueSizeLimitExceededException;
 
     void scheduleStudyRejectTasks(String aet, List<String> studyUIDs, Code code,
               HttpServletRequestInfo httpRequest, String batchID) throws QueueSizeLimitExceededException;
+
+    void scheduleReject(String aet, List<Attributes> refs, Code code,
+              HttpServletRequestInfo httpRequest, String batchID) throws QueueSizeLimitExceededException;
 }
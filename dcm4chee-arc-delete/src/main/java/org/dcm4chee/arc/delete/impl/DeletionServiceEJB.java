@@ -47,6 +47,7 @@ import org.dcm4chee.arc.code.CodeCache;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.RetentionPeriod;
 import org.dcm4chee.arc.conf.StorageDescriptor;
+import org.dcm4chee.arc.delete.InstancesDeleted;
 import org.dcm4chee.arc.delete.RejectionService;
 import org.dcm4chee.arc.delete.StudyDeleteContext;
 import org.dcm4chee.arc.entity.*;
@@ -61,6 +62,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ejb.Stateless;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.jms.JMSException;
 import javax.jms.JMSRuntimeException;
@@ -73,6 +75,7 @@ import javax.persistence.criteria.*;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -111,6 +114,9 @@ public class DeletionServiceEJB {
     @Inject
     private QueueManager queueManager;
 
+    @Inject
+    private Event<InstancesDeleted> instancesDeletedEvent;
+
     public List<Location> findLocationsWithStatus(String storageID, Location.Status status, int limit) {
         return em.createNamedQuery(Location.FIND_BY_STORAGE_ID_AND_STATUS, Location.class)
                 .setParameter(1, storageID)
@@ -129,31 +135,50 @@ public class DeletionServiceEJB {
 
     public List<Study.PKUID> findStudiesForDeletionOnStorage(StorageDescriptor desc, boolean retentionPeriods,
             int limit) {
-        List<String> studyStorageIDs = getStudyStorageIDs(desc);
-        LOG.debug("Query for Studies for deletion on {} with StorageIDs={}", desc, studyStorageIDs);
-        return em.createQuery(queryStudiesForDeletionOnStorage(desc, studyStorageIDs, retentionPeriods))
+        List<String> storageIDs = getStorageIDsOfStudiesForDeletion(desc);
+        LOG.debug("Query for Studies for deletion on {} only stored on Storages{}", desc, storageIDs);
+        return em.createQuery(queryStudiesForDeletionOnStorage(desc, storageIDs, retentionPeriods))
                 .setMaxResults(limit)
                 .getResultList();
     }
 
     private CriteriaQuery<Study.PKUID> queryStudiesForDeletionOnStorage(
-            StorageDescriptor desc, List<String> studyStorageIDs, boolean retentionPeriods) {
+            StorageDescriptor desc, List<String> storageIDs, boolean retentionPeriods) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Study.PKUID> query = cb.createQuery(Study.PKUID.class);
-        Root<Study> study = query.from(Study.class);
+        Root<StudyStorage> studyStorage = query.from(StudyStorage.class);
+        Join<StudyStorage, Study> study = studyStorage.join(StudyStorage_.study);
         List<Predicate> predicates = new ArrayList<>();
-        predicates.add(study.get(Study_.storageIDs).in(studyStorageIDs));
+        predicates.add(cb.equal(studyStorage.get(StudyStorage_.storageID), desc.getStorageID()));
+        if (desc.getExportStorageID() != null)
+            predicates.add(cb.exists(studyStorageOf(query, cb, study,
+                    storageID -> cb.equal(storageID, desc.getExportStorageID()))));
+        predicates.add(cb.not(cb.exists(studyStorageOf(query, cb, study,
+                storageID -> cb.not(storageID.in(storageIDs))))));
         String[] externalRetrieveAETitles = desc.getExternalRetrieveAETitles();
         if (externalRetrieveAETitles.length > 0)
             predicates.add(study.get(Study_.externalRetrieveAET).in(Arrays.asList(externalRetrieveAETitles)));
         if (retentionPeriods)
             retentionPeriods(predicates, cb, study, desc);
-        return query.select(cb.construct(Study.PKUID.class, study.get(Study_.pk), study.get(Study_.studyInstanceUID)))
-                .where(predicates.toArray(new Predicate[0]))
-                .orderBy(cb.asc(study.get(Study_.accessTime)));
+        query.select(cb.construct(Study.PKUID.class, study.get(Study_.pk), study.get(Study_.studyInstanceUID)))
+                .where(predicates.toArray(new Predicate[0]));
+        // Segmented LRU on retrieve cache Storages: delete Studies not accessed again since copied to the cache first
+        return query.orderBy(
+                cb.asc(studyStorage.get(StudyStorage_.lruSegment)),
+                cb.asc(studyStorage.get(StudyStorage_.accessTime)));
     }
 
-    private void retentionPeriods(List<Predicate> predicates, CriteriaBuilder cb, Root<Study> study, StorageDescriptor desc) {
+    private Subquery<StudyStorage> studyStorageOf(CriteriaQuery<?> query, CriteriaBuilder cb,
+            Join<StudyStorage, Study> study, Function<Path<String>, Predicate> storageIDPredicate) {
+        Subquery<StudyStorage> sq = query.subquery(StudyStorage.class);
+        Root<StudyStorage> studyStorage = sq.from(StudyStorage.class);
+        return sq.select(studyStorage).where(
+                cb.equal(studyStorage.get(StudyStorage_.study), study),
+                storageIDPredicate.apply(studyStorage.get(StudyStorage_.storageID)));
+    }
+
+    private void retentionPeriods(List<Predicate> predicates, CriteriaBuilder cb, From<?, Study> study,
+            StorageDescriptor desc) {
         Calendar now = Calendar.getInstance();
         List<Predicate> list = new ArrayList<>();
         desc.getRetentionPeriod(RetentionPeriod.DeleteStudies.ReceivedBefore, now).ifPresent(
@@ -398,6 +423,8 @@ public class DeletionServiceEJB {
             LOG.debug("{} - Marked {}/{} objects/instances", queryName, locations.size(), insts.size());
             deleteInstances(insts, null);
             LOG.debug("{} - Deleted {} instances", queryName, insts.size());
+            instancesDeletedEvent.fire(new InstancesDeleted(
+                    insts.stream().map(Instance::getSopInstanceUID).collect(Collectors.toList())));
         } else {
             LOG.debug("{} - No objects found", queryName);
         }
@@ -628,6 +655,9 @@ public class DeletionServiceEJB {
         em.createNamedQuery(Study.UPDATE_ACCESS_TIME)
                 .setParameter(1, studyPk)
                 .executeUpdate();
+        em.createNamedQuery(StudyStorage.UPDATE_ACCESS_TIME)
+                .setParameter(1, studyPk)
+                .executeUpdate();
     }
 
     private List<String> getStorageIDsOfCluster(StorageDescriptor desc) {
@@ -639,10 +669,13 @@ public class DeletionServiceEJB {
             : Collections.singletonList(desc.getStorageID());
     }
 
-    private List<String> getStudyStorageIDs(StorageDescriptor desc) {
-        return desc.getStudyStorageIDs(
-                device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class)
-                        .getOtherStorageIDs(desc));
+    private List<String> getStorageIDsOfStudiesForDeletion(StorageDescriptor desc) {
+        List<String> storageIDs = new ArrayList<>(
+                device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getOtherStorageIDs(desc));
+        storageIDs.add(desc.getStorageID());
+        if (desc.getExportStorageID() != null)
+            storageIDs.add(desc.getExportStorageID());
+        return storageIDs;
     }
 
     public List<Study> findExpiredStudies(int studyFetchSize) {
@@ -686,13 +719,43 @@ public class DeletionServiceEJB {
     public void scheduleStudyRejectTasks(
             String aet, List<String> studyUIDs, Code code, HttpServletRequestInfo httpRequestInfo, String batchID)
             throws QueueSizeLimitExceededException {
-        for (String studyUID : studyUIDs)
-            scheduleRejection(aet, studyUID, null, null, code, httpRequestInfo, batchID);
+        List<Attributes> refs = new ArrayList<>(studyUIDs.size());
+        for (String studyUID : new LinkedHashSet<>(studyUIDs)) {
+            Attributes ref = new Attributes(1);
+            ref.setString(Tag.StudyInstanceUID, VR.UI, studyUID);
+            refs.add(ref);
+        }
+        scheduleRejection(aet, refs, code, httpRequestInfo, batchID);
+    }
+
+    public void scheduleRejection(
+            String aet, List<Attributes> refs, Code code, HttpServletRequestInfo httpRequestInfo, String batchID)
+            throws QueueSizeLimitExceededException {
+        Attributes body = new Attributes(1);
+        Sequence seq = body.newSequence(Tag.ContentSequence, refs.size());
+        for (Attributes ref : refs)
+            seq.add(new Attributes(ref));
+        try {
+            ObjectMessage msg = queueManager.createObjectMessage(body);
+            msg.setStringProperty("LocalAET", aet);
+            msg.setStringProperty("Code", code.toString());
+            httpRequestInfo.copyTo(msg);
+            queueManager.scheduleMessage(RejectionService.QUEUE_NAME, msg, Message.DEFAULT_PRIORITY, batchID, 0L);
+        } catch (JMSException e) {
+            throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e.getCause());
+        }
     }
 
     public void scheduleRejection(String aet, String studyIUID, String seriesIUID, String sopIUID, Code code,
                                   HttpServletRequestInfo httpRequest, String batchID)
             throws QueueSizeLimitExceededException {
+        queueManager.scheduleMessage(RejectionService.QUEUE_NAME,
+                createRejectionMessage(aet, studyIUID, seriesIUID, sopIUID, code, httpRequest),
+                Message.DEFAULT_PRIORITY, batchID, 0L);
+    }
+
+    private ObjectMessage createRejectionMessage(String aet, String studyIUID, String seriesIUID, String sopIUID,
+                                                 Code code, HttpServletRequestInfo httpRequest) {
         try {
             ObjectMessage msg = queueManager.createObjectMessage("");
             msg.setStringProperty("LocalAET", aet);
@@ -701,7 +764,7 @@ public class DeletionServiceEJB {
             msg.setStringProperty("SOPInstanceUID", sopIUID);
             msg.setStringProperty("Code", code.toString());
             httpRequest.copyTo(msg);
-            queueManager.scheduleMessage(RejectionService.QUEUE_NAME, msg, Message.DEFAULT_PRIORITY, batchID, 0L);
+            return msg;
         } catch (JMSException e) {
             throw new JMSRuntimeException(e.getMessage(), e.getErrorCode(), e.getCause());
         }
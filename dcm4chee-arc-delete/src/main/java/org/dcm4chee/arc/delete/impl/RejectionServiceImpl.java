@@ -42,6 +42,7 @@ package org.dcm4chee.arc.delete.impl;
 
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Code;
+import org.dcm4che3.data.Sequence;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.UID;
 import org.dcm4che3.net.ApplicationEntity;
@@ -65,7 +66,7 @@ import org.slf4j.LoggerFactory;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -136,6 +137,7 @@ public class RejectionServiceImpl implements org.dcm4chee.arc.delete.RejectionSe
             return 0;
 
         int count = countInstances(attrs);
+        long start = System.currentTimeMillis();
         LOG.info("Start rejection of {} instances of Study[UID={}], Series[UID={}], SOPInstance[UID={}].",
                 count, studyIUID, seriesIUID, sopIUID);
         StoreContext storeCtx = storeService.newStoreContext(storeSession);
@@ -143,11 +145,105 @@ public class RejectionServiceImpl implements org.dcm4chee.arc.delete.RejectionSe
         storeCtx.setSopInstanceUID(attrs.getString(Tag.SOPInstanceUID));
         storeCtx.setReceiveTransferSyntax(UID.ExplicitVRLittleEndian);
         storeService.store(storeCtx, attrs);
-        LOG.info("Rejection of {} instances of Study[UID={}], Series[UID={}], SOPInstance[UID={}] completed.",
-                count, studyIUID, seriesIUID, sopIUID);
+        long time = Math.max(1L, System.currentTimeMillis() - start);
+        LOG.info("Rejection of {} instances of Study[UID={}], Series[UID={}], SOPInstance[UID={}] completed " +
+                        "in {} ms ({} instances/s).",
+                count, studyIUID, seriesIUID, sopIUID, time, count * 1000L / time);
         return count;
     }
 
+    /**
+     * Rejects the referenced Studies, Series or Instances by one Rejection Note per Study. Studies, which Instances
+     * were already rejected - e.g. by a previous attempt of the same task - are skipped. Rejection of remaining
+     * Studies continues on failure of one Study; the first failure is thrown after all Studies were processed.
+     */
+    @Override
+    public int reject(String aet, List<Attributes> refs, Code code, HttpServletRequestInfo httpRequest)
+            throws Exception {
+        ApplicationEntity ae = getApplicationEntity(aet);
+        RejectionNote rjNote = getRejectionNote(code);
+        Map<String, List<Attributes>> refsByStudy = refs.stream().collect(Collectors.groupingBy(
+                ref -> ref.getString(Tag.StudyInstanceUID), LinkedHashMap::new, Collectors.toList()));
+        long start = System.currentTimeMillis();
+        LOG.info("Start rejection of {} entities of {} Studies.", refs.size(), refsByStudy.size());
+        int count = 0;
+        int failed = 0;
+        Exception failure = null;
+        for (Map.Entry<String, List<Attributes>> entry : refsByStudy.entrySet()) {
+            try {
+                count += rejectStudy(ae, entry.getKey(), entry.getValue(), rjNote, httpRequest);
+            } catch (Exception e) {
+                LOG.warn("Rejection of Study[UID={}] failed.\n", entry.getKey(), e);
+                if (failed++ == 0)
+                    failure = e;
+            }
+        }
+        long time = Math.max(1L, System.currentTimeMillis() - start);
+        LOG.info("Rejection of {} instances of {} Studies completed in {} ms ({} instances/s) - {} Studies failed.",
+                count, refsByStudy.size(), time, count * 1000L / time, failed);
+        if (failure != null)
+            throw failure;
+
+        return count;
+    }
+
+    private int rejectStudy(ApplicationEntity ae, String studyIUID, List<Attributes> refs, RejectionNote rjNote,
+                            HttpServletRequestInfo httpRequest) throws Exception {
+        StoreSession storeSession = storeService.newStoreSession(httpRequest, ae, null);
+        storeSession.withObjectStorageID(rejectionNoteObjectStorageID(storeSession));
+        Attributes attrs = null;
+        if (refs.stream().anyMatch(ref -> !ref.containsValue(Tag.SeriesInstanceUID))) {
+            storeService.restoreInstances(storeSession, studyIUID, null, null);
+            attrs = queryService.createRejectionNote(ae, studyIUID, null, null, rjNote);
+        } else {
+            Set<String> restoredSeriesIUIDs = new HashSet<>();
+            for (Attributes ref : refs) {
+                String seriesIUID = ref.getString(Tag.SeriesInstanceUID);
+                if (restoredSeriesIUIDs.add(seriesIUID))
+                    storeService.restoreInstances(storeSession, studyIUID, seriesIUID, null);
+                Attributes rjNoteOfRef = queryService.createRejectionNote(
+                        ae, studyIUID, seriesIUID, ref.getString(Tag.SOPInstanceUID), rjNote);
+                if (rjNoteOfRef == null)
+                    continue;
+
+                if (attrs == null)
+                    attrs = rjNoteOfRef;
+                else
+                    addSOPInstanceRefs(attrs, rjNoteOfRef);
+            }
+        }
+        if (attrs == null) {
+            LOG.info("No instances of Study[UID={}] found for rejection.", studyIUID);
+            return 0;
+        }
+
+        StoreContext storeCtx = storeService.newStoreContext(storeSession);
+        storeCtx.setSopClassUID(attrs.getString(Tag.SOPClassUID));
+        storeCtx.setSopInstanceUID(attrs.getString(Tag.SOPInstanceUID));
+        storeCtx.setReceiveTransferSyntax(UID.ExplicitVRLittleEndian);
+        storeService.store(storeCtx, attrs);
+        return countInstances(attrs);
+    }
+
+    private static void addSOPInstanceRefs(Attributes attrs, Attributes other) {
+        Sequence refSeriesSeq = attrs.getNestedDataset(Tag.CurrentRequestedProcedureEvidenceSequence)
+                .getSequence(Tag.ReferencedSeriesSequence);
+        for (Attributes otherRefSeries : other.getNestedDataset(Tag.CurrentRequestedProcedureEvidenceSequence)
+                .getSequence(Tag.ReferencedSeriesSequence)) {
+            String seriesIUID = otherRefSeries.getString(Tag.SeriesInstanceUID);
+            Optional<Attributes> refSeries = refSeriesSeq.stream()
+                    .filter(item -> seriesIUID.equals(item.getString(Tag.SeriesInstanceUID)))
+                    .findFirst();
+            if (refSeries.isPresent()) {
+                Sequence refSOPSeq = refSeries.get().getSequence(Tag.ReferencedSOPSequence);
+                for (Attributes refSOP : otherRefSeries.getSequence(Tag.ReferencedSOPSequence))
+                    refSOPSeq.add(new Attributes(refSOP));
+            } else {
+                refSeriesSeq.add(new Attributes(otherRefSeries));
+            }
+        }
+    }
+
     @Override
     public void scheduleReject(String aet, String studyIUID, String seriesIUID, String sopIUID, Code code,
                                HttpServletRequestInfo httpRequest, String batchID)
@@ -162,6 +258,13 @@ public class RejectionServiceImpl implements org.dcm4chee.arc.delete.RejectionSe
         ejb.scheduleStudyRejectTasks(aet, studyUIDs, code, httpRequest, batchID);
     }
 
+    @Override
+    public void scheduleReject(
+            String aet, List<Attributes> refs, Code code, HttpServletRequestInfo httpRequest, String batchID)
+            throws QueueSizeLimitExceededException {
+        ejb.scheduleRejection(aet, refs, code, httpRequest, batchID);
+    }
+
     private static int countInstances(Attributes attrs) {
         return attrs.getNestedDataset(Tag.CurrentRequestedProcedureEvidenceSequence)
                 .getSequence(Tag.ReferencedSeriesSequence).stream()
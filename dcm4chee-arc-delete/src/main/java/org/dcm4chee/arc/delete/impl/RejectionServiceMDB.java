@@ -41,7 +41,10 @@
 
 package org.dcm4chee.arc.delete.impl;
 
+import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Code;
+import org.dcm4che3.data.Sequence;
+import org.dcm4che3.data.Tag;
 import org.dcm4chee.arc.delete.RejectionService;
 import org.dcm4chee.arc.entity.QueueMessage;
 import org.dcm4chee.arc.keycloak.HttpServletRequestInfo;
@@ -56,6 +59,8 @@ import javax.inject.Inject;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
+import javax.jms.ObjectMessage;
+import java.io.Serializable;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -85,6 +90,17 @@ public class RejectionServiceMDB implements MessageListener {
 
         try {
             String aet = msg.getStringProperty("LocalAET");
+            Serializable body = ((ObjectMessage) msg).getObject();
+            if (body instanceof Attributes) {
+                Sequence refs = ((Attributes) body).getSequence(Tag.ContentSequence);
+                int count = service.reject(aet, refs, new Code(msg.getStringProperty("Code")),
+                        HttpServletRequestInfo.valueOf(msg));
+                queueManager.onProcessingSuccessful(msgID, count > 0
+                        ? new Outcome(QueueMessage.Status.COMPLETED, count + " instances rejected.")
+                        : new Outcome(QueueMessage.Status.WARNING,
+                        "No instances of " + refs.size() + " entities found for rejection."));
+                return;
+            }
             String studyIUID = msg.getStringProperty("StudyInstanceUID");
             String seriesIUID = msg.getStringProperty("SeriesInstanceUID");
             String sopIUID = msg.getStringProperty("SOPInstanceUID");
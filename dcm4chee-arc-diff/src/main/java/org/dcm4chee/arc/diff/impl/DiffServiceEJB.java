@@ -170,8 +170,7 @@ public class DiffServiceEJB {
                 .setMaxResults(deleteTasksFetchSize)
                 .getResultList();
 
-        referencedQueueMsgIDs.forEach(queueMsgID -> queueManager.deleteTask(queueMsgID, null));
-        return referencedQueueMsgIDs.size();
+        return queueManager.deleteTasks(referencedQueueMsgIDs);
     }
 
     public List<String> listDistinctDeviceNames(TaskQueryParam queueTaskQueryParam, TaskQueryParam diffTaskQueryParam) {
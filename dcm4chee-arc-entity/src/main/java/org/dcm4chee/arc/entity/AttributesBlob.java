@@ -41,14 +41,21 @@
 package org.dcm4chee.arc.entity;
 
 import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Fragments;
+import org.dcm4che3.data.Sequence;
+import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.UID;
+import org.dcm4che3.io.DicomInputHandler;
 import org.dcm4che3.io.DicomInputStream;
 import org.dcm4che3.io.DicomOutputStream;
+import org.dcm4che3.util.StreamUtils;
+import org.dcm4che3.util.TagUtils;
 
 import javax.persistence.*;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * @author Umberto Cappellini <umberto.cappellini@agfa.com>
@@ -128,4 +135,92 @@ public class AttributesBlob {
             throw new BlobCorruptedException(e);
         }
     }
+
+    /**
+     * Decodes only attributes with tags contained in {@code selection} and Private Creator Data Elements. Values of
+     * other attributes - including Sequences with all their Items - are skipped in the encoded stream without
+     * parsing them into {@code Attributes}.
+     *
+     * @param b encoded attributes
+     * @param result attributes to which the selected attributes are added or {@code null}
+     * @param selection sorted tags of attributes to decode
+     * @return attributes with the selected attributes
+     */
+    public static Attributes decodeAttributes(byte[] b, Attributes result, int[] selection) {
+        if (b == null || b.length == 0)
+            return result != null ? result : new Attributes(0);
+
+        if (result == null)
+            result = new Attributes(selection.length);
+        ByteArrayInputStream is = new ByteArrayInputStream(b);
+        try {
+            DicomInputStream dis = new DicomInputStream(is);
+            dis.readFileMetaInformation();
+            dis.setDicomInputHandler(new SelectionHandler(result, selection));
+            dis.readAttributes(result, -1, -1);
+            return result;
+        } catch (IOException e) {
+            throw new BlobCorruptedException(e);
+        }
+    }
+
+    private static class SelectionHandler implements DicomInputHandler {
+        private final Attributes dataset;
+        private final int[] selection;
+
+        SelectionHandler(Attributes dataset, int[] selection) {
+            this.dataset = dataset;
+            this.selection = selection;
+        }
+
+        @Override
+        public void readValue(DicomInputStream dis, Attributes attrs) throws IOException {
+            if (attrs != dataset || isSelected(dis.tag()))
+                dis.readValue(dis, attrs);
+            else
+                skipValue(dis);
+        }
+
+        private boolean isSelected(int tag) {
+            return Arrays.binarySearch(selection, tag) >= 0 || TagUtils.isPrivateCreator(tag);
+        }
+
+        @Override
+        public void readValue(DicomInputStream dis, Sequence seq) throws IOException {
+            dis.readValue(dis, seq);
+        }
+
+        @Override
+        public void readValue(DicomInputStream dis, Fragments frags) throws IOException {
+            dis.readValue(dis, frags);
+        }
+
+        @Override
+        public void startDataset(DicomInputStream dis) throws IOException {
+            dis.startDataset(dis);
+        }
+
+        @Override
+        public void endDataset(DicomInputStream dis) throws IOException {
+            dis.endDataset(dis);
+        }
+
+        private static void skipValue(DicomInputStream dis) throws IOException {
+            if (dis.length() != -1) {
+                StreamUtils.skipFully(dis, dis.length() & 0xffffffffL);
+                return;
+            }
+            while (dis.readItemHeader()) {
+                if (dis.length() != -1) {
+                    StreamUtils.skipFully(dis, dis.length() & 0xffffffffL);
+                    continue;
+                }
+                dis.readHeader();
+                while (dis.tag() != Tag.ItemDelimitationItem) {
+                    skipValue(dis);
+                    dis.readHeader();
+                }
+            }
+        }
+    }
 }
@@ -383,7 +383,8 @@ public class MWLItem {
         return attributesBlob.getAttributes();
     }
 
-    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr) {
+    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr,
+            boolean searchTokens) {
         Attributes spsItem = attrs
                 .getNestedDataset(Tag.ScheduledProcedureStepSequence);
         if (spsItem == null) {
@@ -403,7 +404,8 @@ public class MWLItem {
             scheduledStartTime = "*";
         }
         scheduledPerformingPhysicianName = PersonName.valueOf(
-                spsItem.getString(Tag.ScheduledPerformingPhysicianName), fuzzyStr, scheduledPerformingPhysicianName);
+                spsItem.getString(Tag.ScheduledPerformingPhysicianName), fuzzyStr, searchTokens,
+                scheduledPerformingPhysicianName);
         String cs = spsItem.getString(Tag.ScheduledProcedureStepStatus);
         status = SPSStatus.valueOf(cs);
         requestedProcedureID = attrs.getString(Tag.RequestedProcedureID);
@@ -107,7 +107,17 @@ import java.util.*;
 @NamedQuery(
     name=Patient.CLAIM_PATIENT_VERIFICATION,
     query="update Patient p set p.verificationStatus = ?3 " +
-            "where p.pk = ?1 and p.verificationStatus = ?2")
+            "where p.pk = ?1 and p.verificationStatus = ?2"),
+@NamedQuery(
+    name=Patient.UPDATE_VERIFICATION_STATUS,
+    query="update Patient p set p.verificationStatus = ?1, p.verificationTime = ?2, " +
+            "p.failedVerifications = 0, p.updatedTime = ?2, p.version = p.version + 1 " +
+            "where p.pk in ?3"),
+@NamedQuery(
+    name=Patient.UPDATE_VERIFICATION_FAILED,
+    query="update Patient p set p.verificationStatus = ?1, p.verificationTime = ?2, " +
+            "p.failedVerifications = p.failedVerifications + 1, p.updatedTime = ?2, p.version = p.version + 1 " +
+            "where p.pk in ?3")
 })
 @Entity
 @Table(name = "patient",
@@ -135,6 +145,8 @@ public class Patient {
     public static final String FIND_BY_VERIFICATION_STATUS_AND_TIME_AND_MAX_RETRIES =
             "Patient.findByVerificationStatusAndTimeAndMaxRetries";
     public static final String CLAIM_PATIENT_VERIFICATION = "Patient.ClaimPatientVerification";
+    public static final String UPDATE_VERIFICATION_STATUS = "Patient.UpdateVerificationStatus";
+    public static final String UPDATE_VERIFICATION_FAILED = "Patient.UpdateVerificationFailed";
 
     public enum VerificationStatus {
         UNVERIFIED,
@@ -392,9 +404,10 @@ public class Patient {
         return attributesBlob.getAttributes();
     }
 
-    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr) {
+    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr,
+            boolean searchTokens) {
         patientName = PersonName.valueOf(
-                attrs.getString(Tag.PatientName), fuzzyStr, patientName);
+                attrs.getString(Tag.PatientName), fuzzyStr, searchTokens, patientName);
         patientBirthDate = attrs.getString(Tag.PatientBirthDate, "*");
         patientSex = attrs.getString(Tag.PatientSex, "*").toUpperCase();
 
@@ -412,7 +425,7 @@ public class Patient {
             attributesBlob.setAttributes(blobAttrs);
 
         responsiblePerson = PersonName.valueOf(
-                attrs.getString(Tag.ResponsiblePerson), fuzzyStr, responsiblePerson);
+                attrs.getString(Tag.ResponsiblePerson), fuzzyStr, searchTokens, responsiblePerson);
 
         updatedTime = new Date();
     }
@@ -46,6 +46,8 @@ import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import static org.dcm4che3.data.PersonName.Component;
 import static org.dcm4che3.data.PersonName.Group;
@@ -54,6 +56,12 @@ import static org.dcm4che3.data.PersonName.Group;
  * @author Gunter Zeilinger <gunterze@gmail.com>
  *
  */
+@NamedQuery(
+        name = PersonName.FIND_PKS_WITHOUT_SEARCH_TOKENS,
+        query = "select pn.pk from PersonName pn " +
+                "where pn.pk > ?1 " +
+                "and not exists (select t from SearchToken t where t.personName = pn) " +
+                "order by pn.pk")
 @Entity
 @Table(name = "person_name", indexes = {
     @Index(columnList = "family_name"),
@@ -68,6 +76,8 @@ import static org.dcm4che3.data.PersonName.Group;
 })
 public class PersonName {
 
+    public static final String FIND_PKS_WITHOUT_SEARCH_TOKENS = "PersonName.findPksWithoutSearchTokens";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "pk")
@@ -121,14 +131,17 @@ public class PersonName {
     @OneToMany(mappedBy = "personName", cascade = CascadeType.ALL, orphanRemoval = true)
     private Collection<SoundexCode> soundexCodes;
 
+    @OneToMany(mappedBy = "personName", cascade = CascadeType.ALL, orphanRemoval = true)
+    private Collection<SearchToken> searchTokens;
+
     public PersonName() {
     }
     
-    public PersonName(org.dcm4che3.data.PersonName pn, FuzzyStr fuzzyStr) {
-        fromDicom(pn, fuzzyStr);
+    public PersonName(org.dcm4che3.data.PersonName pn, FuzzyStr fuzzyStr, boolean searchTokens) {
+        fromDicom(pn, fuzzyStr, searchTokens);
     }
 
-    private void fromDicom(org.dcm4che3.data.PersonName pn, FuzzyStr fuzzyStr) {
+    private void fromDicom(org.dcm4che3.data.PersonName pn, FuzzyStr fuzzyStr, boolean searchTokens) {
         familyName = pn.get(Group.Alphabetic, Component.FamilyName);
         givenName = pn.get(Group.Alphabetic, Component.GivenName);
         middleName = pn.get(Group.Alphabetic, Component.MiddleName);
@@ -145,6 +158,8 @@ public class PersonName {
         phoneticNamePrefix = pn.get(Group.Phonetic, Component.NamePrefix);
         phoneticNameSuffix = pn.get(Group.Phonetic, Component.NameSuffix);
         createOrUpdateSoundexCodes(familyName, givenName, middleName, fuzzyStr);
+        if (searchTokens)
+            updateSearchTokens();
     }
 
     private void createOrUpdateSoundexCodes(String familyName,
@@ -178,6 +193,31 @@ public class PersonName {
         }
     }
 
+    public void updateSearchTokens() {
+        if (searchTokens == null)
+            searchTokens = new ArrayList<>();
+        else
+            searchTokens.clear();
+
+        addSearchTokensTo(SearchToken.Attribute.FamilyName,
+                familyName, ideographicFamilyName, phoneticFamilyName);
+        addSearchTokensTo(SearchToken.Attribute.GivenName,
+                givenName, ideographicGivenName, phoneticGivenName);
+        addSearchTokensTo(SearchToken.Attribute.MiddleName,
+                middleName, ideographicMiddleName, phoneticMiddleName);
+    }
+
+    private void addSearchTokensTo(SearchToken.Attribute attribute, String... names) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String name : names)
+            tokens.addAll(SearchToken.tokenize(name));
+        for (String token : tokens) {
+            SearchToken searchToken = new SearchToken(attribute, token);
+            searchToken.setPersonName(this);
+            searchTokens.add(searchToken);
+        }
+    }
+
     public org.dcm4che3.data.PersonName toPersonName() {
         org.dcm4che3.data.PersonName pn = new org.dcm4che3.data.PersonName();
         pn.set(Group.Alphabetic, Component.FamilyName, familyName);
@@ -198,7 +238,7 @@ public class PersonName {
         return pn;
     }
 
-    public static PersonName valueOf(String s, FuzzyStr fuzzyStr,
+    public static PersonName valueOf(String s, FuzzyStr fuzzyStr, boolean searchTokens,
             PersonName prev) {
         if (s == null)
             return null;
@@ -210,10 +250,10 @@ public class PersonName {
 
         if (prev != null) {
             if (!pn.equals(prev.toPersonName()))
-                prev.fromDicom(pn, fuzzyStr); //update values
+                prev.fromDicom(pn, fuzzyStr, searchTokens); //update values
             return prev;
         } else
-            return new PersonName(pn, fuzzyStr); //create new
+            return new PersonName(pn, fuzzyStr, searchTokens); //create new
     }
     
     @Override
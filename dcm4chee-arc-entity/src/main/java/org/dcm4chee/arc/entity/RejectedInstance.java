@@ -64,10 +64,20 @@ import java.util.Date;
         name = RejectedInstance.DELETE_BY_UIDS,
         query = "delete from RejectedInstance ri " +
                 "where ri.studyInstanceUID = ?1 and ri.seriesInstanceUID = ?2 and ri.sopInstanceUID = ?3")
+@NamedQuery(
+        name = RejectedInstance.INSERT_FOR_SERIES,
+        query = "insert into RejectedInstance " +
+                "(createdTime, studyInstanceUID, seriesInstanceUID, sopInstanceUID, sopClassUID, " +
+                "rejectionNoteCode) " +
+                "select CURRENT_TIMESTAMP, st.studyInstanceUID, se.seriesInstanceUID, i.sopInstanceUID, " +
+                "i.sopClassUID, c " +
+                "from Instance i join i.series se join se.study st, CodeEntity c " +
+                "where se = ?1 and c = ?2")
 public class RejectedInstance {
     public static final String FIND_BY_UIDS = "RejectedInstance.findByUIDs";
     public static final String FIND_BY_SERIES_UID = "RejectedInstance.findBySeriesUID";
     public static final String DELETE_BY_UIDS = "RejectedInstance.deleteByUIDs";
+    public static final String INSERT_FOR_SERIES = "RejectedInstance.insertForSeries";
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,168 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.entity;
+
+import javax.persistence.*;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Trigram of the normalized value of a Person Name component or of a Study attribute, used to select candidates
+ * for wildcard matching with a leading wildcard, which cannot use the index on the attribute column itself.
+ * The begin and end of the value are marked by {@code ^} and {@code $}, so the first and last trigrams also
+ * serve as prefix and suffix tokens.
+ */
+@Entity
+@Table(name = "search_token", indexes = {
+    @Index(columnList = "token_value")
+})
+public class SearchToken {
+
+    public enum Attribute {
+        FamilyName,
+        GivenName,
+        MiddleName,
+        StudyDescription,
+        AccessionNumber
+    }
+
+    private static final int N = 3;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "pk")
+    private long pk;
+
+    @Column(name = "token_attr", nullable = false)
+    private Attribute attribute;
+
+    @Column(name = "token_value", nullable = false)
+    private String value;
+
+    @ManyToOne
+    @JoinColumn(name = "person_name_fk")
+    private PersonName personName;
+
+    @ManyToOne
+    @JoinColumn(name = "study_fk")
+    private Study study;
+
+    public SearchToken() {}
+
+    public SearchToken(Attribute attribute, String value) {
+        this.attribute = attribute;
+        this.value = value;
+    }
+
+    /**
+     * Returns the tokens of an attribute value.
+     *
+     * @param value attribute value
+     * @return tokens of the attribute value
+     */
+    public static Set<String> tokenize(String value) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (value != null && !value.isEmpty()) {
+            String s = normalize(value);
+            addTokensTo(tokens, s, 0, s.length());
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the tokens, an attribute value matching the specified wildcard pattern must contain. Literal
+     * sequences between wildcards with less than 3 characters - including the begin and end mark - do not
+     * contribute tokens.
+     *
+     * @param pattern wildcard pattern with {@code *} and {@code ?} as wildcards
+     * @return tokens contained by matching attribute values, empty if no tokens can be derived from the pattern
+     */
+    public static Set<String> tokenizeWildcard(String pattern) {
+        Set<String> tokens = new LinkedHashSet<>();
+        String s = normalize(pattern);
+        int start = 0;
+        for (int i = 0, n = s.length(); i <= n; i++) {
+            if (i == n || s.charAt(i) == '*' || s.charAt(i) == '?') {
+                addTokensTo(tokens, s, start, i);
+                start = i + 1;
+            }
+        }
+        return tokens;
+    }
+
+    private static String normalize(String value) {
+        return '^' + value.toUpperCase(Locale.ENGLISH) + '$';
+    }
+
+    private static void addTokensTo(Set<String> tokens, String s, int start, int end) {
+        for (int i = start; i + N <= end; i++)
+            tokens.add(s.substring(i, i + N));
+    }
+
+    public long getPk() {
+        return pk;
+    }
+
+    public Attribute getAttribute() {
+        return attribute;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public PersonName getPersonName() {
+        return personName;
+    }
+
+    public void setPersonName(PersonName personName) {
+        this.personName = personName;
+    }
+
+    public Study getStudy() {
+        return study;
+    }
+
+    public void setStudy(Study study) {
+        this.study = study;
+    }
+}
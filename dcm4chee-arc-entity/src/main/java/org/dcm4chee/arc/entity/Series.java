@@ -100,6 +100,30 @@ import java.util.stream.Stream;
             "join fetch p.attributesBlob " +
             "where st.studyInstanceUID = ?1 " +
             "and se.seriesInstanceUID = ?2"),
+@NamedQuery(
+    name=Series.FIND_BY_SERIES_IUID_EAGER_WITH_INSTANCE_PKS,
+    query="select se, i.pk, ri.pk from Series se " +
+            "join fetch se.study st " +
+            "join fetch st.patient p " +
+            "left join fetch p.patientName " +
+            "left join fetch st.referringPhysicianName " +
+            "left join fetch se.performingPhysicianName " +
+            "join fetch se.attributesBlob " +
+            "join fetch st.attributesBlob " +
+            "join fetch p.attributesBlob " +
+            "left join Instance i on i.series = se and i.sopInstanceUID = ?3 " +
+            "left join RejectedInstance ri on ri.studyInstanceUID = st.studyInstanceUID " +
+            "and ri.seriesInstanceUID = se.seriesInstanceUID and ri.sopInstanceUID = ?3 " +
+            "where st.studyInstanceUID = ?1 " +
+            "and se.seriesInstanceUID = ?2"),
+@NamedQuery(
+    name=Series.INSTANCE_PKS_BY_SOP_IUID,
+    query="select i.pk, ri.pk from Series se " +
+            "join se.study st " +
+            "left join Instance i on i.series = se and i.sopInstanceUID = ?2 " +
+            "left join RejectedInstance ri on ri.studyInstanceUID = st.studyInstanceUID " +
+            "and ri.seriesInstanceUID = se.seriesInstanceUID and ri.sopInstanceUID = ?2 " +
+            "where se.pk = ?1"),
 @NamedQuery(
     name = Series.SERIES_PKS_OF_STUDY_WITH_UNKNOWN_SIZE,
     query = "select se.pk from Series se " +
@@ -312,6 +336,8 @@ public class Series {
     public static final String ATTRS_BY_SERIES_IUID = "Series.attrsBySeriesIUID";
     public static final String FIND_SERIES_OF_STUDY_BY_STUDY_IUID_EAGER = "Series.findSeriesOfStudyByStudyIUIDEager";
     public static final String FIND_BY_SERIES_IUID_EAGER = "Series.findBySeriesIUIDEager";
+    public static final String FIND_BY_SERIES_IUID_EAGER_WITH_INSTANCE_PKS = "Series.findBySeriesIUIDEagerWithInstancePks";
+    public static final String INSTANCE_PKS_BY_SOP_IUID = "Series.instancePksBySopIUID";
     public static final String COUNT_SERIES_OF_STUDY = "Series.countSeriesOfStudy";
     public static final String SERIES_PKS_OF_STUDY_WITH_UNKNOWN_SIZE = "Series.seriesPKsOfStudyWithUnknownSize";
     public static final String SIZE_OF_STUDY="Series.sizeOfStudy";
@@ -964,7 +990,8 @@ public class Series {
         return attributesBlob.getAttributes();
     }
 
-    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr) {
+    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr,
+            boolean searchTokens) {
         seriesInstanceUID = attrs.getString(Tag.SeriesInstanceUID);
         seriesNumber = getInt(attrs, Tag.SeriesNumber);
         seriesDescription = attrs.getString(Tag.SeriesDescription, "*");
@@ -994,7 +1021,7 @@ public class Series {
             performedProcedureStepStartTime = "*";
         }
         performingPhysicianName = PersonName.valueOf(
-                attrs.getString(Tag.PerformingPhysicianName), fuzzyStr,
+                attrs.getString(Tag.PerformingPhysicianName), fuzzyStr, searchTokens,
                 performingPhysicianName);
         seriesCustomAttribute1 = 
             AttributeFilter.selectStringValue(attrs, filter.getCustomAttribute1(), "*");
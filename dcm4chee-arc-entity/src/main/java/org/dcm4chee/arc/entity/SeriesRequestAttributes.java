@@ -98,7 +98,7 @@ public class SeriesRequestAttributes {
     public SeriesRequestAttributes() {}
 
     public SeriesRequestAttributes(Attributes attrs, IssuerEntity issuerOfAccessionNumber,
-                                   FuzzyStr fuzzyStr) {
+                                   FuzzyStr fuzzyStr, boolean searchTokens) {
         studyInstanceUID = attrs.getString(Tag.StudyInstanceUID, "*");
         accessionNumber = attrs.getString(Tag.AccessionNumber, "*");
         this.issuerOfAccessionNumber = issuerOfAccessionNumber;
@@ -107,7 +107,7 @@ public class SeriesRequestAttributes {
                 Tag.ScheduledProcedureStepID, "*");
         requestingService = attrs.getString(Tag.RequestingService, "*");
         requestingPhysician = PersonName.valueOf(
-                attrs.getString(Tag.RequestingPhysician), fuzzyStr, null);
+                attrs.getString(Tag.RequestingPhysician), fuzzyStr, searchTokens, null);
     }
 
     public long getPk() {
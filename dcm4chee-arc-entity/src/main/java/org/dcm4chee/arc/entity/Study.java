@@ -123,7 +123,17 @@ import java.util.*;
         @NamedQuery(
                 name = Study.UPDATE_ACCESS_CONTROL_ID,
                 query = "update Study st set st.accessControlID = ?2 " +
-                        "where st.studyInstanceUID = ?1")
+                        "where st.studyInstanceUID = ?1"),
+        @NamedQuery(
+                name = Study.FIND_PKS_WITH_UNKNOWN_SIZE_UPDATED_BEFORE,
+                query = "select st.pk from Study st " +
+                        "where st.size = -1 and st.updatedTime < ?1"),
+        @NamedQuery(
+                name = Study.FIND_PKS_WITHOUT_SEARCH_TOKENS,
+                query = "select st.pk from Study st " +
+                        "where st.pk > ?1 " +
+                        "and not exists (select t from SearchToken t where t.study = st) " +
+                        "order by st.pk")
 })
 @Entity
 @Table(name = "study",
@@ -166,6 +176,8 @@ public class Study {
     public static final String STORAGE_IDS_BY_STUDY_UID = "Study.storageIDsByStudyUID";
     public static final String SET_STORAGE_IDS = "Study.setStorageIDs";
     public static final String UPDATE_ACCESS_CONTROL_ID = "Study.updateAccessControlID";
+    public static final String FIND_PKS_WITH_UNKNOWN_SIZE_UPDATED_BEFORE = "Study.findPksWithUnknownSizeUpdatedBefore";
+    public static final String FIND_PKS_WITHOUT_SEARCH_TOKENS = "Study.findPksWithoutSearchTokens";
 
     public static class PKUID {
         public final Long pk;
@@ -318,6 +330,12 @@ public class Study {
     @OneToMany(mappedBy = "study", cascade=CascadeType.ALL)
     private Collection<StudyQueryAttributes> queryAttributes;
 
+    @OneToMany(mappedBy = "study", cascade = CascadeType.ALL, orphanRemoval = true)
+    private Collection<SearchToken> searchTokens;
+
+    @OneToMany(mappedBy = "study", cascade = CascadeType.ALL, orphanRemoval = true)
+    private Collection<StudyStorage> studyStorages;
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "patient_fk")
     private Patient patient;
@@ -384,6 +402,8 @@ public class Study {
         Date now = new Date();
         if (accessTime.getTime() + maxAccessTimeStaleness.getSeconds() * 1000 < now.getTime()) {
             accessTime = now;
+            if (studyStorages != null)
+                studyStorages.forEach(studyStorage -> studyStorage.setAccessTime(now));
             return true;
         }
         return false;
@@ -400,6 +420,7 @@ public class Study {
     public void setStorageIDs(String... storageIDs) {
         Arrays.sort(storageIDs);
         this.storageIDs = StringUtils.concat(storageIDs, '\\');
+        updateStudyStorages();
     }
 
     public boolean addStorageID(String storageID) {
@@ -408,6 +429,7 @@ public class Study {
             return false;
         }
         this.storageIDs = newStorageIDs;
+        updateStudyStorages();
         return true;
     }
 
@@ -430,6 +452,7 @@ public class Study {
 
         if (storageID.equals(storageIDs)) {
             storageIDs = null;
+            updateStudyStorages();
             return true;
         }
 
@@ -438,11 +461,33 @@ public class Study {
             return false;
 
         this.storageIDs = StringUtils.concat(set.toArray(StringUtils.EMPTY_STRING), '\\');
+        updateStudyStorages();
         return true;
     }
 
     public void clearStorageIDs() {
         storageIDs = null;
+        updateStudyStorages();
+    }
+
+    public Collection<StudyStorage> getStudyStorages() {
+        if (studyStorages == null)
+            studyStorages = new ArrayList<>();
+
+        return studyStorages;
+    }
+
+    private void updateStudyStorages() {
+        List<String> storageIDs = Arrays.asList(getStorageIDs());
+        Collection<StudyStorage> studyStorages = getStudyStorages();
+        studyStorages.removeIf(studyStorage -> !storageIDs.contains(studyStorage.getStorageID()));
+        for (String storageID : storageIDs) {
+            if (studyStorages.stream().noneMatch(studyStorage -> studyStorage.getStorageID().equals(storageID))) {
+                StudyStorage studyStorage = new StudyStorage(this, storageID);
+                studyStorage.setAccessTime(accessTime);
+                studyStorages.add(studyStorage);
+            }
+        }
     }
 
     public String getStudyInstanceUID() {
@@ -595,7 +640,10 @@ public class Study {
         this.patient = patient;
     }
 
-    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr) {
+    public void setAttributes(Attributes attrs, AttributeFilter filter, FuzzyStr fuzzyStr,
+            boolean searchTokens) {
+        String prevStudyDescription = studyDescription;
+        String prevAccessionNumber = accessionNumber;
         studyInstanceUID = attrs.getString(Tag.StudyInstanceUID);
         studyID = attrs.getString(Tag.StudyID, "*");
         studyDescription = attrs.getString(Tag.StudyDescription, "*");
@@ -611,8 +659,12 @@ public class Study {
         }
         accessionNumber = attrs.getString(Tag.AccessionNumber, "*");
         admissionID = attrs.getString(Tag.AdmissionID, "*");
+        if (searchTokens && (this.searchTokens == null
+                || !studyDescription.equals(prevStudyDescription)
+                || !accessionNumber.equals(prevAccessionNumber)))
+            updateSearchTokens();
         referringPhysicianName = PersonName.valueOf(
-                attrs.getString(Tag.ReferringPhysicianName), fuzzyStr,
+                attrs.getString(Tag.ReferringPhysicianName), fuzzyStr, searchTokens,
                 referringPhysicianName);
         studyCustomAttribute1 =
                 AttributeFilter.selectStringValue(attrs, filter.getCustomAttribute1(), "*");
@@ -630,4 +682,25 @@ public class Study {
         if (externalRetrieveAET == null)
             externalRetrieveAET = "*";
     }
+
+    public void updateSearchTokens() {
+        if (searchTokens == null)
+            searchTokens = new ArrayList<>();
+        else
+            searchTokens.clear();
+
+        addSearchTokensTo(SearchToken.Attribute.StudyDescription, studyDescription);
+        addSearchTokensTo(SearchToken.Attribute.AccessionNumber, accessionNumber);
+    }
+
+    private void addSearchTokensTo(SearchToken.Attribute attribute, String value) {
+        if (value.equals("*"))
+            return;
+
+        for (String token : SearchToken.tokenize(value)) {
+            SearchToken searchToken = new SearchToken(attribute, token);
+            searchToken.setStudy(this);
+            searchTokens.add(searchToken);
+        }
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.entity;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Association of a Study with a Storage containing objects of the Study. Replicates the Storage IDs encoded in
+ * {@code study.storage_ids} together with the access time of the Study, so the Studies on a particular Storage
+ * can be selected in order of their access time by a range scan of the index on
+ * {@code (storage_id, lru_segment, access_time)}.
+ * <p>
+ * {@code lru_segment} partitions the Studies on a retrieve cache Storage into a probationary segment (0), holding
+ * Studies not accessed again since they were copied to the cache, and a protected segment (1), holding Studies
+ * accessed again afterwards. It stays 0 on other Storages, which therefore are ordered by access time only.
+ */
+@NamedQueries({
+        @NamedQuery(
+                name = StudyStorage.UPDATE_ACCESS_TIME,
+                query = "update StudyStorage ss set ss.accessTime = CURRENT_TIMESTAMP " +
+                        "where ss.study.pk = ?1"),
+        @NamedQuery(
+                name = StudyStorage.PROTECT,
+                query = "update StudyStorage ss set ss.lruSegment = 1 " +
+                        "where ss.study.pk = ?1 and ss.storageID in ?2 and ss.lruSegment = 0"),
+        @NamedQuery(
+                name = StudyStorage.RESET_LRU_SEGMENT,
+                query = "update StudyStorage ss set ss.lruSegment = 0 " +
+                        "where ss.study.pk in (" +
+                        "select st.pk from Study st where st.studyInstanceUID = ?1) " +
+                        "and ss.lruSegment = 1")
+})
+@Entity
+@Table(name = "study_storage", indexes = {
+        @Index(columnList = "storage_id, lru_segment, access_time")
+})
+public class StudyStorage {
+
+    public static final String UPDATE_ACCESS_TIME = "StudyStorage.UpdateAccessTime";
+    public static final String PROTECT = "StudyStorage.Protect";
+    public static final String RESET_LRU_SEGMENT = "StudyStorage.ResetLRUSegment";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "pk")
+    private long pk;
+
+    @Basic(optional = false)
+    @Column(name = "storage_id", updatable = false)
+    private String storageID;
+
+    @Basic(optional = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "access_time")
+    private Date accessTime;
+
+    @Basic(optional = false)
+    @Column(name = "lru_segment")
+    private int lruSegment;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "study_fk", updatable = false)
+    private Study study;
+
+    public StudyStorage() {}
+
+    public StudyStorage(Study study, String storageID) {
+        this.study = study;
+        this.storageID = storageID;
+    }
+
+    @PrePersist
+    public void onPrePersist() {
+        if (accessTime == null)
+            accessTime = new Date();
+    }
+
+    @Override
+    public String toString() {
+        return "StudyStorage[pk=" + pk
+                + ", storageID=" + storageID
+                + "]";
+    }
+
+    public long getPk() {
+        return pk;
+    }
+
+    public String getStorageID() {
+        return storageID;
+    }
+
+    public Date getAccessTime() {
+        return accessTime;
+    }
+
+    public void setAccessTime(Date accessTime) {
+        this.accessTime = accessTime;
+    }
+
+    public int getLruSegment() {
+        return lruSegment;
+    }
+
+    public void setLruSegment(int lruSegment) {
+        this.lruSegment = lruSegment;
+    }
+
+    public Study getStudy() {
+        return study;
+    }
+}
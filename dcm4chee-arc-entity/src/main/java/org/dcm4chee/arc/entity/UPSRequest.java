@@ -91,14 +91,14 @@ public class UPSRequest {
     public UPSRequest() {}
 
     public UPSRequest(Attributes attrs, IssuerEntity issuerOfAccessionNumber,
-                                   FuzzyStr fuzzyStr) {
+                                   FuzzyStr fuzzyStr, boolean searchTokens) {
         studyInstanceUID = attrs.getString(Tag.StudyInstanceUID, "*");
         accessionNumber = attrs.getString(Tag.AccessionNumber, "*");
         this.issuerOfAccessionNumber = issuerOfAccessionNumber;
         requestedProcedureID = attrs.getString(Tag.RequestedProcedureID, "*");
         requestingService = attrs.getString(Tag.RequestingService, "*");
         requestingPhysician = PersonName.valueOf(
-                attrs.getString(Tag.RequestingPhysician), fuzzyStr, null);
+                attrs.getString(Tag.RequestingPhysician), fuzzyStr, searchTokens, null);
     }
 
     public long getPk() {
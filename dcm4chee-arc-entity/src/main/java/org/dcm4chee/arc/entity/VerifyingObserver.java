@@ -75,11 +75,11 @@ public class VerifyingObserver {
 
     public VerifyingObserver() {}
 
-    public VerifyingObserver(Attributes attrs, FuzzyStr fuzzyStr) {
+    public VerifyingObserver(Attributes attrs, FuzzyStr fuzzyStr, boolean searchTokens) {
         Date dt = attrs.getDate(Tag.VerificationDateTime);
         verificationDateTime = dt != null ? DateUtils.formatDT(null, dt) : "*";
         verifyingObserverName = PersonName.valueOf(
-                attrs.getString(Tag.VerifyingObserverName), fuzzyStr, null);
+                attrs.getString(Tag.VerifyingObserverName), fuzzyStr, searchTokens, null);
     }
 
     public long getPk() {
@@ -31,6 +31,8 @@ create index FK_mnahh8fh77d365m6w2x4x3f4q on rel_study_pcode (study_fk) ;
 create index FK_6asj28yy5se9mp443b6ryefd2 on rel_ups_perf_code (perf_code_fk) ;
 create index FK_6m06tt8ku376qxkro94xpteus on rel_ups_perf_code (ups_fk) ;
 create index FK_mxokt1gw5g1e7rc3ssotvuqix on retrieve_task (queue_msg_fk) ;
+create index FK_rehylqekw00oue86gs7519nv8 on search_token (person_name_fk) ;
+create index FK_4vvf9pgoo0wff035qj9crgqs8 on search_token (study_fk) ;
 create index FK_oiq81nulcmtg6p85iu31igtf5 on series (inst_code_fk) ;
 create index FK_avp2oeuufo8axv5j184cchrop on series (dept_code_fk) ;
 create index FK_pu4p7k1o9hleuk9rmxvw2ybj6 on series (metadata_fk) ;
@@ -48,6 +50,7 @@ create index FK_9fqno60wc3gr4376ov1xlfme4 on study (admid_issuer_fk) ;
 create index FK_e3fdaqhw7u60trs5aspf4sna9 on study (patient_fk) ;
 create index FK_49eet5qgcsb32ktsqrf1mj3x2 on study (ref_phys_name_fk) ;
 create index FK_sxccj81423w8o6w2tsb7nshy9 on study_query_attrs (study_fk) ;
+create index FK_5k3k1ve0a35umylq0mbkhmv6s on study_storage (study_fk) ;
 create index FK_jadcs2aho4ijh639r67qgk0g0 on subscription (ups_fk) ;
 create index FK_61tpdp9aoy98jwiif5wq82ia3 on ups (admission_issuer_fk) ;
 create index FK_8xiqdli1p8cyw1y4hwyqhimcx on ups (patient_fk) ;
@@ -22,6 +22,7 @@ create table rejected_instance (pk bigint identity not null, created_time dateti
 create table rel_study_pcode (study_fk bigint not null, pcode_fk bigint not null);
 create table rel_ups_perf_code (ups_fk bigint not null, perf_code_fk bigint not null);
 create table retrieve_task (pk bigint identity not null, batch_id varchar(255), completed int not null, created_time datetime2 not null, destination_aet varchar(255) not null, device_name varchar(255) not null, error_comment varchar(255), failed int not null, local_aet varchar(255) not null, queue_name varchar(255) not null, remaining int not null, remote_aet varchar(255) not null, scheduled_time datetime2, series_iuid varchar(255), sop_iuid varchar(255), status_code int not null, study_iuid varchar(255) not null, updated_time datetime2 not null, warning int not null, queue_msg_fk bigint, primary key (pk));
+create table search_token (pk bigint identity not null, token_attr int not null, token_value varchar(255) not null, person_name_fk bigint, study_fk bigint, primary key (pk));
 create table series (pk bigint identity not null, body_part varchar(255) not null, completeness int not null, compress_failures int not null, compress_params varchar(255), compress_time datetime2, compress_tsuid varchar(255), created_time datetime2 not null, expiration_date varchar(255), expiration_exporter_id varchar(255), expiration_state int not null, ext_retrieve_aet varchar(255), failed_retrieves int not null, stgver_failures int not null, inst_purge_state int not null, inst_purge_time datetime2, institution varchar(255) not null, department varchar(255) not null, laterality varchar(255) not null, metadata_update_time datetime2, metadata_update_failures int not null, modality varchar(255) not null, pps_cuid varchar(255) not null, pps_iuid varchar(255) not null, pps_start_date varchar(255) not null, pps_start_time varchar(255) not null, rejection_state int not null, series_custom1 varchar(255) not null, series_custom2 varchar(255) not null, series_custom3 varchar(255) not null, series_desc varchar(255) not null, series_iuid varchar(255) not null, series_no int, series_size bigint not null, sop_cuid varchar(255) not null, src_aet varchar(255), station_name varchar(255) not null, stgver_time datetime2, tsuid varchar(255) not null, updated_time datetime2 not null, version bigint, dicomattrs_fk bigint not null, inst_code_fk bigint, dept_code_fk bigint, metadata_fk bigint, perf_phys_name_fk bigint, study_fk bigint not null, primary key (pk));
 create table series_query_attrs (pk bigint identity not null, availability int, num_instances int, retrieve_aets varchar(255), cuids_in_series varchar(255), view_id varchar(255), series_fk bigint not null, primary key (pk));
 create table series_req (pk bigint identity not null, accession_no varchar(255) not null, req_proc_id varchar(255) not null, req_service varchar(255) not null, sps_id varchar(255) not null, study_iuid varchar(255) not null, accno_issuer_fk bigint, req_phys_name_fk bigint, series_fk bigint, primary key (pk));
@@ -31,6 +32,7 @@ create table stgcmt_result (pk bigint identity not null, batch_id varchar(255),
 create table stgver_task (pk bigint identity not null, completed int not null, created_time datetime2 not null, failed int not null, local_aet varchar(255) not null, series_iuid varchar(255), sop_iuid varchar(255), storage_ids varchar(255), stgcmt_policy int, study_iuid varchar(255) not null, update_location_status bit, updated_time datetime2 not null, queue_msg_fk bigint not null, primary key (pk));
 create table study (pk bigint identity not null, access_control_id varchar(255) not null, access_time datetime2 not null, accession_no varchar(255) not null, admission_id varchar(255) not null, completeness int not null, created_time datetime2 not null, expiration_date varchar(255), expiration_exporter_id varchar(255), expiration_state int not null, ext_retrieve_aet varchar(255) not null, failed_retrieves int not null, modified_time datetime2 not null, rejection_state int not null, study_size bigint not null, storage_ids varchar(255), study_custom1 varchar(255) not null, study_custom2 varchar(255) not null, study_custom3 varchar(255) not null, study_date varchar(255) not null, study_desc varchar(255) not null, study_id varchar(255) not null, study_iuid varchar(255) not null, study_time varchar(255) not null, updated_time datetime2 not null, version bigint, dicomattrs_fk bigint not null, accno_issuer_fk bigint, admid_issuer_fk bigint, patient_fk bigint not null, ref_phys_name_fk bigint, primary key (pk));
 create table study_query_attrs (pk bigint identity not null, availability int, mods_in_study varchar(255), num_instances int, num_series int, retrieve_aets varchar(255), cuids_in_study varchar(4000), view_id varchar(255), study_fk bigint not null, primary key (pk));
+create table study_storage (pk bigint identity not null, access_time datetime2 not null, lru_segment int not null, storage_id varchar(255) not null, study_fk bigint not null, primary key (pk));
 create table subscription (pk bigint identity not null, deletion_lock bit not null, subscriber_aet varchar(255) not null, ups_fk bigint not null, primary key (pk));
 create table uidmap (pk bigint identity not null, uidmap varbinary(MAX) not null, primary key (pk));
 create table ups (pk bigint identity not null, admission_id varchar(255) not null, created_time datetime2 not null, expected_end_date_time varchar(255) not null, input_readiness_state int not null, performer_aet varchar(255), ups_state int not null, replaced_iuid varchar(255) not null, expiration_date_time varchar(255) not null, start_date_time varchar(255) not null, transaction_iuid varchar(255), updated_time datetime2 not null, ups_iuid varchar(255) not null, ups_label varchar(255) not null, ups_priority int not null, version bigint, worklist_label varchar(255) not null, dicomattrs_fk bigint not null, admission_issuer_fk bigint, patient_fk bigint not null, station_class_fk bigint, station_location_fk bigint, station_name_fk bigint, ups_code_fk bigint, primary key (pk));
@@ -134,6 +136,7 @@ create index UK_e2lo4ep4t4k07njc09anf6xkm on retrieve_task (updated_time);
 create index UK_rqp93vxrhyg09x3ck7vc1mawp on retrieve_task (scheduled_time);
 create index UK_gafcma0d5wwdjlq8jueqknlq0 on retrieve_task (study_iuid);
 create index UK_ahkqwir2di2jm44jlhi22iw3e on retrieve_task (batch_id);
+create index UK_mboliy7bgc29r8y92cqa91tq6 on search_token (token_value);
 alter table series add constraint UK_bdj2kuutidekc2en6dckev7l6  unique (dicomattrs_fk);
 alter table series add constraint UK_83y2fx8cou17h3xggxspgikna  unique (study_fk, series_iuid);
 create index UK_9fi64g5jjycg9dp24jjk5txg1 on series (series_iuid);
@@ -209,6 +212,7 @@ create index UK_gl5rq54a0tr8nreu27c2t04rb on study (completeness);
 create index UK_cl9dmi0kb97ov1cjh7rn3dhve on study (ext_retrieve_aet);
 create index UK_q7vxiaj1q6ojfxdq1g9jjxgqv on study (study_size);
 alter table study_query_attrs add constraint UK_prn4qt6d42stw0gfi1yce1fap  unique (view_id, study_fk);
+create index UK_gxuwu6ivy8vvwpvx209t50i1g on study_storage (storage_id, lru_segment, access_time);
 alter table subscription add constraint UK_co8q5hn46dehb35qsrtwyys96  unique (subscriber_aet, ups_fk);
 alter table ups add constraint UK_3frtpy5cstsoxk5jxw9cutr33  unique (dicomattrs_fk);
 alter table ups add constraint UK_qck03rlxht9myv77sc79a480t  unique (ups_iuid);
@@ -266,6 +270,8 @@ alter table rel_study_pcode add constraint FK_mnahh8fh77d365m6w2x4x3f4q foreign
 alter table rel_ups_perf_code add constraint FK_6asj28yy5se9mp443b6ryefd2 foreign key (perf_code_fk) references code;
 alter table rel_ups_perf_code add constraint FK_6m06tt8ku376qxkro94xpteus foreign key (ups_fk) references ups;
 alter table retrieve_task add constraint FK_mxokt1gw5g1e7rc3ssotvuqix foreign key (queue_msg_fk) references queue_msg;
+alter table search_token add constraint FK_rehylqekw00oue86gs7519nv8 foreign key (person_name_fk) references person_name;
+alter table search_token add constraint FK_4vvf9pgoo0wff035qj9crgqs8 foreign key (study_fk) references study;
 alter table series add constraint FK_bdj2kuutidekc2en6dckev7l6 foreign key (dicomattrs_fk) references dicomattrs;
 alter table series add constraint FK_oiq81nulcmtg6p85iu31igtf5 foreign key (inst_code_fk) references code;
 alter table series add constraint FK_avp2oeuufo8axv5j184cchrop foreign key (dept_code_fk) references code;
@@ -285,6 +291,7 @@ alter table study add constraint FK_9fqno60wc3gr4376ov1xlfme4 foreign key (admid
 alter table study add constraint FK_e3fdaqhw7u60trs5aspf4sna9 foreign key (patient_fk) references patient;
 alter table study add constraint FK_49eet5qgcsb32ktsqrf1mj3x2 foreign key (ref_phys_name_fk) references person_name;
 alter table study_query_attrs add constraint FK_sxccj81423w8o6w2tsb7nshy9 foreign key (study_fk) references study;
+alter table study_storage add constraint FK_5k3k1ve0a35umylq0mbkhmv6s foreign key (study_fk) references study;
 alter table subscription add constraint FK_jadcs2aho4ijh639r67qgk0g0 foreign key (ups_fk) references ups;
 alter table ups add constraint FK_3frtpy5cstsoxk5jxw9cutr33 foreign key (dicomattrs_fk) references dicomattrs;
 alter table ups add constraint FK_61tpdp9aoy98jwiif5wq82ia3 foreign key (admission_issuer_fk) references issuer;
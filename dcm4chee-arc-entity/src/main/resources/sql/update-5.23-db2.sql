@@ -0,0 +1,41 @@
+-- part 1: can be applied on archive running archive 5.22
+-- search tokens of Person Names and Studies stored before are created in background by archive 5.23
+-- while dcmSearchTokenMaintenance is enabled: keep dcmSearchTokenMatching disabled until that completed
+create table search_token (pk bigint generated by default as identity, token_attr integer not null, token_value varchar(255) not null, person_name_fk bigint, study_fk bigint, primary key (pk));
+
+create index UK_mboliy7bgc29r8y92cqa91tq6 on search_token (token_value);
+
+alter table search_token add constraint FK_rehylqekw00oue86gs7519nv8 foreign key (person_name_fk) references person_name;
+alter table search_token add constraint FK_4vvf9pgoo0wff035qj9crgqs8 foreign key (study_fk) references study;
+
+create index FK_rehylqekw00oue86gs7519nv8 on search_token (person_name_fk) ;
+create index FK_4vvf9pgoo0wff035qj9crgqs8 on search_token (study_fk) ;
+
+create table study_storage (pk bigint generated by default as identity, access_time timestamp not null, lru_segment integer not null, storage_id varchar(255) not null, study_fk bigint not null, primary key (pk));
+
+create index UK_gxuwu6ivy8vvwpvx209t50i1g on study_storage (storage_id, lru_segment, access_time);
+
+alter table study_storage add constraint FK_5k3k1ve0a35umylq0mbkhmv6s foreign key (study_fk) references study;
+
+create index FK_5k3k1ve0a35umylq0mbkhmv6s on study_storage (study_fk) ;
+
+-- part 2: shall be applied on stopped archive before starting 5.23
+-- fill study_storage in batches of 10000 studies, resuming after the last filled study on re-run;
+-- distinct storage IDs are collected only once by index scan of location
+-- the compound statement has to be submitted as one statement, e.g. by db2 -td@
+create table tmp_storage_id as (select distinct storage_id from location) with data;
+begin
+    declare batch_pk bigint;
+    declare max_pk bigint;
+    set batch_pk = (select coalesce(max(study_fk), 0) from study_storage);
+    set max_pk = (select coalesce(max(pk), 0) from study);
+    while batch_pk < max_pk do
+        insert into study_storage (access_time, lru_segment, storage_id, study_fk)
+            select st.access_time, 0, l.storage_id, st.pk from study st, tmp_storage_id l
+            where st.pk > batch_pk and st.pk <= batch_pk + 10000 and st.storage_ids is not null
+            and locate('\' || l.storage_id || '\', '\' || st.storage_ids || '\') > 0;
+        set batch_pk = batch_pk + 10000;
+        commit;
+    end while;
+end;
+drop table tmp_storage_id;
@@ -0,0 +1,46 @@
+-- part 1: can be applied on archive running archive 5.22
+-- search tokens of Person Names and Studies stored before are created in background by archive 5.23
+-- while dcmSearchTokenMaintenance is enabled: keep dcmSearchTokenMatching disabled until that completed
+create table search_token (pk numeric(18,0) not null, token_attr integer not null, token_value varchar(255) not null, person_name_fk numeric(18,0), study_fk numeric(18,0), primary key (pk));
+
+create index UK_mboliy7bgc29r8y92cqa91tq6 on search_token (token_value);
+
+alter table search_token add constraint FK_rehylqekw00oue86gs7519nv8 foreign key (person_name_fk) references person_name;
+alter table search_token add constraint FK_4vvf9pgoo0wff035qj9crgqs8 foreign key (study_fk) references study;
+
+create generator search_token_pk_seq;
+
+create table study_storage (pk numeric(18,0) not null, access_time timestamp not null, lru_segment integer not null, storage_id varchar(255) not null, study_fk numeric(18,0) not null, primary key (pk));
+
+create index UK_gxuwu6ivy8vvwpvx209t50i1g on study_storage (storage_id, lru_segment, access_time);
+
+alter table study_storage add constraint FK_5k3k1ve0a35umylq0mbkhmv6s foreign key (study_fk) references study;
+
+create generator study_storage_pk_seq;
+
+-- part 2: shall be applied on stopped archive before starting 5.23
+-- fill study_storage in batches of 10000 studies, resuming after the last filled study on re-run;
+-- distinct storage IDs are collected only once by index scan of location
+create table tmp_storage_id (storage_id varchar(255) not null);
+commit;
+insert into tmp_storage_id select distinct storage_id from location;
+commit;
+set term ^ ;
+execute block as
+    declare batch_pk numeric(18,0);
+    declare max_pk numeric(18,0);
+begin
+    select coalesce(max(study_fk), 0) from study_storage into batch_pk;
+    select coalesce(max(pk), 0) from study into max_pk;
+    while (batch_pk < max_pk) do
+    begin
+        in autonomous transaction do
+            insert into study_storage (pk, access_time, lru_segment, storage_id, study_fk)
+                select gen_id(study_storage_pk_seq, 1), st.access_time, 0, l.storage_id, st.pk from study st, tmp_storage_id l
+                where st.pk > :batch_pk and st.pk <= :batch_pk + 10000 and st.storage_ids is not null
+                and position('\' || l.storage_id || '\' in '\' || st.storage_ids || '\') > 0;
+        batch_pk = batch_pk + 10000;
+    end
+end^
+set term ; ^
+drop table tmp_storage_id;
@@ -0,0 +1,46 @@
+-- part 1: can be applied on archive running archive 5.22
+-- search tokens of Person Names and Studies stored before are created in background by archive 5.23
+-- while dcmSearchTokenMaintenance is enabled: keep dcmSearchTokenMatching disabled until that completed
+create table search_token (pk number(19,0) not null, token_attr number(10,0) not null, token_value varchar2(255 char) not null, person_name_fk number(19,0), study_fk number(19,0), primary key (pk));
+
+create index UK_mboliy7bgc29r8y92cqa91tq6 on search_token (token_value);
+
+alter table search_token add constraint FK_rehylqekw00oue86gs7519nv8 foreign key (person_name_fk) references person_name;
+alter table search_token add constraint FK_4vvf9pgoo0wff035qj9crgqs8 foreign key (study_fk) references study;
+
+create index FK_rehylqekw00oue86gs7519nv8 on search_token (person_name_fk) ;
+create index FK_4vvf9pgoo0wff035qj9crgqs8 on search_token (study_fk) ;
+
+create sequence search_token_pk_seq;
+
+create table study_storage (pk number(19,0) not null, access_time timestamp not null, lru_segment number(10,0) not null, storage_id varchar2(255 char) not null, study_fk number(19,0) not null, primary key (pk));
+
+create index UK_gxuwu6ivy8vvwpvx209t50i1g on study_storage (storage_id, lru_segment, access_time);
+
+alter table study_storage add constraint FK_5k3k1ve0a35umylq0mbkhmv6s foreign key (study_fk) references study;
+
+create index FK_5k3k1ve0a35umylq0mbkhmv6s on study_storage (study_fk) ;
+
+create sequence study_storage_pk_seq;
+
+-- part 2: shall be applied on stopped archive before starting 5.23
+-- fill study_storage in batches of 10000 studies, resuming after the last filled study on re-run;
+-- distinct storage IDs are collected only once by index scan of location
+create table tmp_storage_id as select distinct storage_id from location;
+declare
+    batch_pk number(19,0);
+    max_pk number(19,0);
+begin
+    select coalesce(max(study_fk), 0) into batch_pk from study_storage;
+    select coalesce(max(pk), 0) into max_pk from study;
+    while batch_pk < max_pk loop
+        insert into study_storage (pk, access_time, lru_segment, storage_id, study_fk)
+            select study_storage_pk_seq.nextval, st.access_time, 0, l.storage_id, st.pk from study st, tmp_storage_id l
+            where st.pk > batch_pk and st.pk <= batch_pk + 10000 and st.storage_ids is not null
+            and instr('\' || st.storage_ids || '\', '\' || l.storage_id || '\') > 0;
+        batch_pk := batch_pk + 10000;
+        commit;
+    end loop;
+end;
+/
+drop table tmp_storage_id;
@@ -40,6 +40,8 @@
 
 package org.dcm4chee.arc.export.mgt;
 
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.net.service.QueryRetrieveLevel2;
 import org.dcm4chee.arc.conf.ExporterDescriptor;
 import org.dcm4chee.arc.entity.ExportTask;
 import org.dcm4chee.arc.event.QueueMessageEvent;
@@ -82,6 +84,10 @@ public interface ExportManager {
                             HttpServletRequestInfo httpServletRequestInfo, String batchID, String... studyUID)
         throws QueueSizeLimitExceededException;
 
+    int scheduleExportTasks(ExporterDescriptor exporter, QueryRetrieveLevel2 qrlevel, List<Attributes> matches,
+                            HttpServletRequestInfo httpServletRequestInfo, String batchID)
+        throws QueueSizeLimitExceededException;
+
     int createExportTask(ExporterDescriptor exporter, HttpServletRequestInfo httpServletRequestInfo,
                          String batchID, Date scheduledTime, String... studyUIDs);
 
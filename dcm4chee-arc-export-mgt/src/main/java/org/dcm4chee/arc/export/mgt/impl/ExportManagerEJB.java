@@ -48,6 +48,7 @@ import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.net.ApplicationEntity;
 import org.dcm4che3.net.Device;
+import org.dcm4che3.net.service.QueryRetrieveLevel2;
 import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.ExporterDescriptor;
@@ -247,6 +248,44 @@ public class ExportManagerEJB implements ExportManager {
         }
     }
 
+    @Override
+    public int scheduleExportTasks(ExporterDescriptor exporter, QueryRetrieveLevel2 qrlevel, List<Attributes> matches,
+                                   HttpServletRequestInfo httpServletRequestInfo, String batchID)
+            throws QueueSizeLimitExceededException {
+        Date now = new Date();
+        List<ExportTask> tasks = new ArrayList<>(matches.size());
+        for (Attributes match : matches)
+            tasks.add(createExportTask(
+                    device.getDeviceName(),
+                    exporter.getExporterID(),
+                    match.getString(Tag.StudyInstanceUID),
+                    qrlevel != QueryRetrieveLevel2.STUDY ? match.getString(Tag.SeriesInstanceUID) : "*",
+                    qrlevel == QueryRetrieveLevel2.IMAGE ? match.getString(Tag.SOPInstanceUID) : "*",
+                    batchID,
+                    now));
+
+        ApplicationEntity ae = device.getApplicationEntity(exporter.getAETitle(), true);
+        if (ae == null) {
+            LOG.warn("Failed to schedule {} Export Tasks: no such Archive AE Title - {}",
+                    tasks.size(), exporter.getAETitle());
+            tasks.forEach(task -> task.setScheduledTime(null));
+            return tasks.size();
+        }
+        List<ObjectMessage> msgs = new ArrayList<>(tasks.size());
+        for (ExportTask task : tasks)
+            msgs.add(createMessage(task, httpServletRequestInfo));
+        Iterator<QueueMessage> queueMessages = queueManager.scheduleMessages(
+                exporter.getQueueName(),
+                msgs,
+                exporter.getPriority(),
+                batchID, 0L).iterator();
+        for (ExportTask task : tasks) {
+            task.setQueueMessage(queueMessages.next());
+            updateExportTaskInfo(task, ae);
+        }
+        return tasks.size();
+    }
+
     @Override
     public int createExportTask(ExporterDescriptor exporter, HttpServletRequestInfo httpServletRequestInfo,
                                 String batchID, Date scheduledTime, String... studyUIDs) {
@@ -303,6 +342,10 @@ public class ExportManagerEJB implements ExportManager {
                 exporter.getPriority(),
                 batchID, 0L);
         exportTask.setQueueMessage(queueMessage);
+        updateExportTaskInfo(exportTask, ae);
+    }
+
+    private void updateExportTaskInfo(ExportTask exportTask, ApplicationEntity ae) {
         Attributes attrs = queryService.queryExportTaskInfo(exportTask, ae);
         if (attrs == null) {
             LOG.info("No Export Task Info found for {}", exportTask);
@@ -683,8 +726,7 @@ public class ExportManagerEJB implements ExportManager {
                 .setMaxResults(deleteTasksFetchSize)
                 .getResultList();
 
-        referencedQueueMsgIDs.forEach(queueMsgID -> queueManager.deleteTask(queueMsgID, null));
-        return referencedQueueMsgIDs.size();
+        return queueManager.deleteTasks(referencedQueueMsgIDs);
     }
 
     private CriteriaQuery<String> select(
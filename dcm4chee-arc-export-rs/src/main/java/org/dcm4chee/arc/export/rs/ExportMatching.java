@@ -71,6 +71,8 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author Vrinda Nayak <vrinda.nayak@j4care.com>
@@ -188,17 +190,27 @@ class ExportMatching {
             String warning = null;
             int count = 0;
             Response.Status status = Response.Status.ACCEPTED;
+            int fetchSize = arcDev.getQueryFetchSize();
+            HttpServletRequestInfo httpServletRequestInfo = HttpServletRequestInfo.valueOf(request);
+            List<Attributes> matches = new ArrayList<>();
             try (Query query = queryService.createQuery(ctx)) {
                 try {
-                    query.executeQuery(arcDev.getQueryFetchSize());
+                    query.executeQuery(fetchSize);
                     while (query.hasMoreMatches()) {
                         Attributes match = query.nextMatch();
                         if (match == null)
                             continue;
 
-                        scheduleExportTask(exporter, match, qrlevel);
-                        count++;
+                        matches.add(match);
+                        if (matches.size() == fetchSize) {
+                            count += exportManager.scheduleExportTasks(
+                                    exporter, qrlevel, matches, httpServletRequestInfo, batchID);
+                            matches.clear();
+                        }
                     }
+                    if (!matches.isEmpty())
+                        count += exportManager.scheduleExportTasks(
+                                exporter, qrlevel, matches, httpServletRequestInfo, batchID);
                 } catch (QueueSizeLimitExceededException e) {
                     status = Response.Status.SERVICE_UNAVAILABLE;
                     warning = e.getMessage();
@@ -319,15 +331,4 @@ class ExportMatching {
         ctx.setBatchID(batchID);
         return ctx;
     }
-
-    private void scheduleExportTask(ExporterDescriptor exporter, Attributes match, QueryRetrieveLevel2 qrlevel)
-            throws QueueSizeLimitExceededException {
-        exportManager.scheduleExportTask(
-                qrlevel != QueryRetrieveLevel2.STUDY ? match.getString(Tag.SeriesInstanceUID) : null,
-                qrlevel == QueryRetrieveLevel2.IMAGE ? match.getString(Tag.SOPInstanceUID) : null,
-                exporter,
-                HttpServletRequestInfo.valueOf(request),
-                batchID,
-                match.getString(Tag.StudyInstanceUID));
-    }
 }
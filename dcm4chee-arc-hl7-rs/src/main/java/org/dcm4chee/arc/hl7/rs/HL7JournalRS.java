@@ -0,0 +1,142 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.hl7.rs;
+
+import org.dcm4che3.data.DatePrecision;
+import org.dcm4che3.data.VR;
+import org.dcm4chee.arc.hl7.HL7Journal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Looks up received HL7 messages in the HL7 journal, and exports them to the layout of file per message logging.
+ */
+@RequestScoped
+@Path("/hl7journal")
+public class HL7JournalRS {
+    private static final Logger LOG = LoggerFactory.getLogger(HL7JournalRS.class);
+
+    @Inject
+    private HL7Journal journal;
+
+    @Context
+    private HttpServletRequest request;
+
+    @GET
+    @Path("/{msgControlID}")
+    @Produces("application/hl7-v2")
+    public Response findMessage(@PathParam("msgControlID") String msgControlID) {
+        logRequest();
+        if (!journal.isEnabled())
+            return errResponse("HL7 journal not configured", Response.Status.NOT_FOUND);
+
+        try {
+            List<HL7Journal.Entry> entries = journal.find(msgControlID);
+            if (entries.isEmpty())
+                return errResponse("No HL7 message with Message Control ID " + msgControlID + " in journal",
+                        Response.Status.NOT_FOUND);
+
+            return Response.ok(entries.get(0).data).build();
+        } catch (Exception e) {
+            return errResponse(e.getMessage(), Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @POST
+    @Path("/export")
+    @Produces("application/json")
+    public Response export(@QueryParam("received") String received) {
+        logRequest();
+        if (!journal.isEnabled())
+            return errResponse("HL7 journal not configured", Response.Status.NOT_FOUND);
+
+        try {
+            Date[] range = parseDateRange(received);
+            int count = journal.export(range[0], range[1]);
+            return Response.ok("{\"count\":" + count + '}').build();
+        } catch (IllegalArgumentException e) {
+            return errResponse(e.getMessage(), Response.Status.BAD_REQUEST);
+        } catch (Exception e) {
+            return errResponse(e.getMessage(), Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static Date[] parseDateRange(String s) {
+        Date[] range = new Date[2];
+        if (s == null)
+            return range;
+
+        int delim = s.indexOf('-');
+        String start = delim == -1 ? s : s.substring(0, delim);
+        String end = delim == -1 ? s : s.substring(delim + 1);
+        if (!start.isEmpty())
+            range[0] = VR.DT.toDate(start, null, 0, false, null, new DatePrecision());
+        if (!end.isEmpty())
+            range[1] = VR.DT.toDate(end, null, 0, true, null, new DatePrecision());
+        return range;
+    }
+
+    private void logRequest() {
+        LOG.info("Process {} {}?{} from {}@{}",
+                request.getMethod(),
+                request.getRequestURI(),
+                request.getQueryString(),
+                request.getRemoteUser(),
+                request.getRemoteHost());
+    }
+
+    private Response errResponse(String msg, Response.Status status) {
+        LOG.warn("Response {} caused by {}", status, msg);
+        return Response.status(status)
+                .entity("{\"errorMessage\":\"" + msg + "\"}")
+                .type("text/plain")
+                .build();
+    }
+}
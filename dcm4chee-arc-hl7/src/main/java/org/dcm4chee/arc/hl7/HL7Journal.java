@@ -0,0 +1,462 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.hl7;
+
+import org.dcm4che3.net.Device;
+import org.dcm4che3.net.hl7.UnparsedHL7Message;
+import org.dcm4che3.util.StringUtils;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Appends received HL7 messages to segment files in the configured HL7 journal directory, instead of writing one
+ * file per message. Messages are written by a background writer, which appends all messages queued since its last
+ * write and forces them to the storage device by one call. {@link #append} returns after the message was forced
+ * to the storage device, or throws an {@code IOException} if the write failed also on a new segment file.
+ * For each segment file, an index file records Message Control ID, time of receipt and offset of the journaled
+ * messages; the index files are loaded into memory on first invocation of {@link #find}. A new segment file is
+ * started if the current one exceeds the configured segment size. Segment files older than the configured
+ * retention period are deleted on that occasion and periodically by {@link HL7JournalPurgeScheduler}.
+ */
+@ApplicationScoped
+public class HL7Journal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HL7Journal.class);
+    private static final String SEGMENT_PREFIX = "hl7-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String INDEX_SUFFIX = ".index";
+    static final int MAX_QUEUED_MESSAGES = 1000;
+
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+    private final Map<String, List<Location>> index = new HashMap<>();
+    private Path indexedDir;
+    private boolean running;
+    private Path dir;
+    private Path segment;
+    private FileChannel segmentChannel;
+    private FileChannel indexChannel;
+
+    @Inject
+    Device device;
+
+    public boolean isEnabled() {
+        return arcdev().getHL7JournalDirectory() != null;
+    }
+
+    /**
+     * Appends a received HL7 message to the journal. Blocks until the message was forced to the storage device.
+     *
+     * @param path path of the file to which the message is written on {@link #export}
+     * @param msg  received HL7 message
+     * @throws IOException if the message could not be written to the journal
+     */
+    public void append(String path, UnparsedHL7Message msg) throws IOException {
+        Entry entry = new Entry(System.currentTimeMillis(),
+                StringUtils.maskNull(msg.msh().getMessageControlID(), ""), path, msg.data());
+        try {
+            synchronized (queue) {
+                while (queue.size() >= MAX_QUEUED_MESSAGES)
+                    queue.wait();
+                queue.add(entry);
+                if (!running) {
+                    running = true;
+                    device.getExecutor().execute(this::write);
+                }
+            }
+            entry.forced.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while appending HL7 message to journal");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns journaled messages with the specified Message Control ID, most recently received first.
+     */
+    public List<Entry> find(String msgControlID) throws IOException {
+        List<Location> locations = locationsOf(msgControlID);
+        List<Entry> entries = new ArrayList<>(locations.size());
+        for (int i = locations.size(); --i >= 0;) {
+            Location location = locations.get(i);
+            try (FileChannel channel = FileChannel.open(location.segment, StandardOpenOption.READ)) {
+                channel.position(location.offset);
+                Entry entry = Entry.readFrom(new DataInputStream(
+                        new BufferedInputStream(Channels.newInputStream(channel))));
+                if (entry != null)
+                    entries.add(entry);
+            } catch (NoSuchFileException e) {
+                LOG.debug("HL7 journal segment {} deleted meanwhile", location.segment);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes journaled messages received in the specified time range to the files of the paths recorded on
+     * {@link #append}, so they are available in the layout of file per message logging. Existing files are
+     * not overwritten.
+     *
+     * @param from start of time range or {@code null}
+     * @param to   end of time range or {@code null}
+     * @return number of written files
+     */
+    public int export(Date from, Date to) throws IOException {
+        long fromTime = from != null ? from.getTime() : Long.MIN_VALUE;
+        long toTime = to != null ? to.getTime() : Long.MAX_VALUE;
+        List<Path> segments = segments();
+        int count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (i + 1 < segments.size() && startTimeOf(segments.get(i + 1)) < fromTime)
+                continue;
+            if (startTimeOf(segments.get(i)) > toTime)
+                break;
+
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(segments.get(i))))) {
+                Entry entry;
+                while ((entry = Entry.readFrom(in)) != null) {
+                    if (entry.time >= fromTime && entry.time <= toTime && entry.export())
+                        count++;
+                }
+            }
+        }
+        LOG.info("Exported {} HL7 messages from journal {}", count, dir());
+        return count;
+    }
+
+    synchronized void deleteExpiredSegments() {
+        Duration retentionPeriod = arcdev().getHL7JournalRetentionPeriod();
+        if (retentionPeriod == null)
+            return;
+
+        long notBefore = System.currentTimeMillis() - retentionPeriod.toMillis();
+        try {
+            List<Path> segments = segments();
+            for (int i = 0; i + 1 < segments.size() && startTimeOf(segments.get(i + 1)) < notBefore; i++) {
+                Path segment = segments.get(i);
+                removeFromIndex(segment);
+                Files.deleteIfExists(indexOf(segment));
+                Files.delete(segment);
+                LOG.info("Deleted expired HL7 journal segment {}", segment);
+            }
+        } catch (IOException e) {
+            LOG.warn("Failed to delete expired HL7 journal segments from {}:\n", dir, e);
+        }
+    }
+
+    private void write() {
+        List<Entry> entries;
+        while (!(entries = poll()).isEmpty()) {
+            try {
+                write(entries);
+                for (Entry entry : entries)
+                    entry.forced.complete(null);
+            } catch (IOException e) {
+                LOG.warn("Failed to append {} HL7 messages to journal {}:\n", entries.size(), dir, e);
+                for (Entry entry : entries)
+                    entry.forced.completeExceptionally(e);
+            }
+        }
+    }
+
+    private List<Entry> poll() {
+        synchronized (queue) {
+            List<Entry> entries = new ArrayList<>(queue);
+            queue.clear();
+            queue.notifyAll();
+            if (entries.isEmpty())
+                running = false;
+            return entries;
+        }
+    }
+
+    private synchronized void write(List<Entry> entries) throws IOException {
+        Path dir = dir();
+        if (!dir.equals(this.dir)) {
+            close();
+            this.dir = dir;
+        }
+        try {
+            append(entries);
+        } catch (IOException e) {
+            LOG.info("Failed to append {} HL7 messages to journal segment {} - retry on new segment:\n",
+                    entries.size(), segment, e);
+            close();
+            try {
+                append(entries);
+            } catch (IOException e2) {
+                close();
+                throw e2;
+            }
+        }
+        if (segmentChannel.position() >= arcdev().getHL7JournalSegmentSize()) {
+            close();
+            deleteExpiredSegments();
+        }
+    }
+
+    private void append(List<Entry> entries) throws IOException {
+        if (segmentChannel == null)
+            open();
+
+        long offset = segmentChannel.position();
+        long indexOffset = indexChannel.position();
+        ByteArrayOutputStream segmentData = new ByteArrayOutputStream();
+        StringBuilder indexData = new StringBuilder();
+        List<Location> locations = new ArrayList<>(entries.size());
+        DataOutputStream out = new DataOutputStream(segmentData);
+        for (Entry entry : entries) {
+            Location location = new Location(segment, offset + out.size());
+            locations.add(location);
+            indexData.append(entry.msgControlID).append('\t')
+                    .append(entry.time).append('\t')
+                    .append(location.offset).append('\n');
+            entry.writeTo(out);
+        }
+        try {
+            writeFully(segmentChannel, ByteBuffer.wrap(segmentData.toByteArray()));
+            segmentChannel.force(false);
+            synchronized (index) {
+                writeFully(indexChannel, ByteBuffer.wrap(indexData.toString().getBytes(StandardCharsets.UTF_8)));
+                indexChannel.force(false);
+                if (dir.equals(indexedDir))
+                    for (int i = 0; i < entries.size(); i++)
+                        index.computeIfAbsent(entries.get(i).msgControlID, x -> new ArrayList<>())
+                                .add(locations.get(i));
+            }
+        } catch (IOException e) {
+            truncateQuietly(segmentChannel, offset);
+            truncateQuietly(indexChannel, indexOffset);
+            throw e;
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(dir);
+        long time = System.currentTimeMillis();
+        Path segment;
+        while (Files.exists(segment = dir.resolve(SEGMENT_PREFIX + time + SEGMENT_SUFFIX)))
+            time++;
+        segmentChannel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        try {
+            indexChannel = FileChannel.open(indexOf(segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        this.segment = segment;
+        LOG.info("Start HL7 journal segment {}", segment);
+    }
+
+    private void close() {
+        closeQuietly(segmentChannel);
+        closeQuietly(indexChannel);
+        segmentChannel = null;
+        indexChannel = null;
+    }
+
+    private List<Location> locationsOf(String msgControlID) throws IOException {
+        Path dir = dir();
+        synchronized (index) {
+            if (!dir.equals(indexedDir)) {
+                index.clear();
+                indexedDir = null;
+                for (Path segment : segments())
+                    loadIndex(segment);
+                indexedDir = dir;
+            }
+            return new ArrayList<>(index.getOrDefault(msgControlID, Collections.emptyList()));
+        }
+    }
+
+    private void loadIndex(Path segment) throws IOException {
+        Path indexFile = indexOf(segment);
+        if (!Files.exists(indexFile))
+            return;
+
+        for (String line : Files.readAllLines(indexFile, StandardCharsets.UTF_8)) {
+            String[] fields = StringUtils.split(line, '\t');
+            if (fields.length == 3)
+                index.computeIfAbsent(fields[0], x -> new ArrayList<>())
+                        .add(new Location(segment, Long.parseLong(fields[2])));
+        }
+    }
+
+    private void removeFromIndex(Path segment) {
+        synchronized (index) {
+            index.values().removeIf(locations -> {
+                locations.removeIf(location -> location.segment.equals(segment));
+                return locations.isEmpty();
+            });
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        Path dir = dir();
+        if (!Files.isDirectory(dir))
+            return new ArrayList<>();
+
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.filter(HL7Journal::isSegment)
+                    .sorted(Comparator.comparingLong(HL7Journal::startTimeOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path dir() {
+        return Paths.get(StringUtils.replaceSystemProperties(arcdev().getHL7JournalDirectory()));
+    }
+
+    private ArchiveDeviceExtension arcdev() {
+        return device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class);
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long startTimeOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static Path indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + INDEX_SUFFIX);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    private static void truncateQuietly(FileChannel channel, long size) {
+        try {
+            channel.truncate(size);
+        } catch (IOException e) {
+            LOG.info("Failed to truncate HL7 journal file to {} bytes:\n", size, e);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null)
+            try {
+                closeable.close();
+            } catch (IOException ignore) {}
+    }
+
+    private static final class Location {
+        final Path segment;
+        final long offset;
+
+        Location(Path segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+
+    public static final class Entry {
+        public final long time;
+        public final String msgControlID;
+        public final String path;
+        public final byte[] data;
+        final CompletableFuture<Void> forced = new CompletableFuture<>();
+
+        Entry(long time, String msgControlID, String path, byte[] data) {
+            this.time = time;
+            this.msgControlID = msgControlID;
+            this.path = path;
+            this.data = data;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(time);
+            out.writeUTF(msgControlID);
+            out.writeUTF(path);
+            out.writeInt(data.length);
+            out.write(data);
+        }
+
+        static Entry readFrom(DataInputStream in) throws IOException {
+            try {
+                long time = in.readLong();
+                String msgControlID = in.readUTF();
+                String path = in.readUTF();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                return new Entry(time, msgControlID, path, data);
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        boolean export() throws IOException {
+            Path file = Paths.get(path);
+            try {
+                Files.createDirectories(file.getParent());
+                Files.write(file, data, StandardOpenOption.CREATE_NEW);
+                return true;
+            } catch (FileAlreadyExistsException e) {
+                return false;
+            }
+        }
+    }
+}
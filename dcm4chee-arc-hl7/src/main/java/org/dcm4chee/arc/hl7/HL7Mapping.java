@@ -0,0 +1,774 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.hl7;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.PersonName;
+import org.dcm4che3.data.Sequence;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.VR;
+import org.dcm4che3.hl7.HL7Message;
+import org.dcm4che3.hl7.HL7Segment;
+import org.dcm4che3.util.StringUtils;
+import org.dcm4chee.arc.conf.ArchiveHL7ApplicationExtension;
+import org.dcm4chee.arc.conf.ScheduledProtocolCodeInOrder;
+import org.dcm4chee.arc.conf.ScheduledStationAETInOrder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Maps fields of parsed HL7 v2 segments directly to DICOM attributes, as specified by the default stylesheets
+ * {@code hl7-adt2dcm.xsl} and {@code hl7-order2dcm.xsl}, without serializing the message to SAX events and
+ * applying the XSL transformation. The rules are composed once from rules corresponding to the named templates
+ * of {@code hl7-common.xsl}. Messages containing escape sequences are not mapped, but left to the stylesheets.
+ * Only applied if enabled by {@link org.dcm4chee.arc.conf.ArchiveDeviceExtension#isHl7UseBuiltinMapping()}, so
+ * operator edits of the stylesheets stay effective by default.
+ */
+class HL7Mapping {
+
+    static final String ADT2DCM_XSL = "${jboss.server.temp.url}/dcm4chee-arc/hl7-adt2dcm.xsl";
+    static final String ORDER2DCM_XSL = "${jboss.server.temp.url}/dcm4chee-arc/hl7-order2dcm.xsl";
+
+    private static final String NULL = "\"\"";
+
+    @FunctionalInterface
+    interface Rule {
+        void apply(Segment seg, Attributes attrs);
+    }
+
+    @FunctionalInterface
+    interface Value {
+        String of(Segment seg);
+
+        default Value map(UnaryOperator<String> f) {
+            return seg -> {
+                String s = of(seg);
+                return s != null ? nonEmpty(f.apply(s)) : null;
+            };
+        }
+    }
+
+    private static final Rule PID = rules(
+            xpn2pn(Tag.PatientName, 5),
+            cx2pid(3),
+            attr(Tag.PatientBirthDate, VR.DA, substring(string(7), 8)),
+            attr(Tag.PatientSex, VR.CS, text(8).map(HL7Mapping::sex)),
+            xpn2pn(Tag.PatientMotherBirthName, 6),
+            HL7Mapping::otherPatientIDs,
+            ifText(9, rules(
+                    xpn2pn(Tag.ResponsiblePerson, 9),
+                    attr(Tag.ResponsiblePersonRole, VR.CS, text(9).map(HL7Mapping::responsiblePersonRole)))),
+            codeWithDesc(Tag.PatientSpeciesDescription, Tag.PatientSpeciesCodeSequence, 35),
+            codeWithDesc(Tag.PatientBreedDescription, Tag.PatientBreedCodeSequence, 36),
+            attr(Tag.PatientSexNeutered, VR.CS, HL7Mapping::neutered));
+
+    private static final Rule MRG = item(Tag.ModifiedAttributesSequence, rules(
+            xpn2pn(Tag.PatientName, 7),
+            cx2pid(1)));
+
+    private static final Rule PV1 = rules(
+            cn2pn(Tag.ReferringPhysicianName, 8),
+            attr(Tag.PregnancyStatus, VR.US, text(15).map(HL7Mapping::pregnancyStatus)),
+            HL7Mapping::admissionID);
+
+    private static final Rule ORC = rules(
+            ei2attr(Tag.PlacerOrderNumberImagingServiceRequest, VR.LO, Tag.OrderPlacerIdentifierSequence, 2),
+            ei2attr(Tag.FillerOrderNumberImagingServiceRequest, VR.LO, Tag.OrderFillerIdentifierSequence, 3),
+            attr(Tag.RequestedProcedurePriority, VR.CS, text(7, 5).map(HL7Mapping::priority)));
+
+    private static final Rule IPC = rules(
+            attr(Tag.StudyInstanceUID, VR.UI, text(3)),
+            ei2attr(Tag.AccessionNumber, VR.SH, Tag.IssuerOfAccessionNumberSequence, 1),
+            attr(Tag.RequestedProcedureID, VR.SH, text(2)));
+
+    private static final Rule OBR = rules(
+            attr(Tag.MedicalAlerts, VR.LO, substring(text(13), 64)),
+            cn2pn(Tag.RequestingPhysician, 16),
+            codeWithDesc(Tag.RequestedProcedureDescription, Tag.RequestedProcedureCodeSequence, 44),
+            attr(Tag.PatientState, VR.LO, substring(text(12), 64)),
+            codeWithDesc(Tag.ReasonForTheRequestedProcedure, Tag.ReasonForRequestedProcedureCodeSequence, 31),
+            attr(Tag.PatientTransportArrangements, VR.LO, substring(text(30), 64)),
+            eachFollowingOrElse("IPC", IPC, rules(
+                    attr(Tag.AccessionNumber, VR.SH, text(18)),
+                    attr(Tag.RequestedProcedureID, VR.SH, text(19)))));
+
+    private static final Rule TQ1 = attr(Tag.RequestedProcedurePriority, VR.CS, text(9).map(HL7Mapping::priority));
+
+    private static final Rule ZDS = attr(Tag.StudyInstanceUID, VR.UI, text(1));
+
+    private static final Rule NTE = attr(Tag.RequestedProcedureComments, VR.LT, string(3));
+
+    static final HL7Mapping ADT2DCM = new HL7Mapping(
+            each("PID", PID),
+            each("MRG", MRG));
+
+    static final HL7Mapping ORDER2DCM = new HL7Mapping(
+            each("PID", PID),
+            each("PV1", PV1),
+            first("ORC", ORC),
+            first("OBR", OBR),
+            first("TQ1", TQ1),
+            HL7Mapping::scheduledProcedureSteps,
+            each("ZDS", ZDS),
+            each("NTE", NTE));
+
+    private final Rule[] rules;
+
+    private HL7Mapping(Rule... rules) {
+        this.rules = rules;
+    }
+
+    static HL7Mapping forTemplateURI(String uri) {
+        switch (uri) {
+            case ADT2DCM_XSL:
+                return ADT2DCM;
+            case ORDER2DCM_XSL:
+                return ORDER2DCM;
+        }
+        return null;
+    }
+
+    boolean transform(HL7Message msg, ArchiveHL7ApplicationExtension arcHL7App, Attributes attrs) {
+        return transform(msg,
+                arcHL7App.hl7ScheduledProtocolCodeInOrder(),
+                arcHL7App.hl7ScheduledStationAETInOrder(),
+                attrs);
+    }
+
+    boolean transform(HL7Message msg, ScheduledProtocolCodeInOrder scheduledProtocolCodeInOrder,
+            ScheduledStationAETInOrder scheduledStationAETInOrder, Attributes attrs) {
+        Context ctx = new Context(msg, scheduledProtocolCodeInOrder, scheduledStationAETInOrder);
+        if (ctx.containsEscapeSequence())
+            return false;
+
+        Segment msh = ctx.segments.get(0);
+        for (Rule rule : rules)
+            rule.apply(msh, attrs);
+        return true;
+    }
+
+    private static final class Context {
+        final List<Segment> segments;
+        final ScheduledProtocolCodeInOrder scheduledProtocolCodeInOrder;
+        final ScheduledStationAETInOrder scheduledStationAETInOrder;
+
+        Context(HL7Message msg, ScheduledProtocolCodeInOrder scheduledProtocolCodeInOrder,
+                ScheduledStationAETInOrder scheduledStationAETInOrder) {
+            this.segments = new ArrayList<>(msg.size());
+            for (HL7Segment seg : msg)
+                segments.add(new Segment(this, segments.size(), seg));
+            this.scheduledProtocolCodeInOrder = scheduledProtocolCodeInOrder;
+            this.scheduledStationAETInOrder = scheduledStationAETInOrder;
+        }
+
+        boolean containsEscapeSequence() {
+            for (Segment seg : segments)
+                if (!seg.name().equals("MSH"))
+                    for (int i = 1; i < seg.seg.size(); i++)
+                        if (seg.seg.getField(i, "").indexOf(seg.seg.getEscapeCharacter()) >= 0)
+                            return true;
+            return false;
+        }
+
+        List<Segment> segments(String name, int fromIndex) {
+            List<Segment> list = new ArrayList<>();
+            for (int i = fromIndex; i < segments.size(); i++)
+                if (segments.get(i).name().equals(name))
+                    list.add(segments.get(i));
+            return list;
+        }
+    }
+
+    /**
+     * Segment of the message with its position, to select preceding and following segments.
+     */
+    static final class Segment {
+        static final Segment ABSENT = new Segment(null, -1, null);
+
+        private final Context ctx;
+        private final int index;
+        private final HL7Segment seg;
+
+        private Segment(Context ctx, int index, HL7Segment seg) {
+            this.ctx = ctx;
+            this.index = index;
+            this.seg = seg;
+        }
+
+        boolean exists() {
+            return seg != null;
+        }
+
+        String name() {
+            return seg.getField(0, "");
+        }
+
+        Node field(int n) {
+            return seg != null && n < seg.size() ? new Node(seg, seg.getField(n, ""), Node.FIELD) : Node.ABSENT;
+        }
+
+        List<Segment> following(String name) {
+            return seg != null ? ctx.segments(name, index + 1) : Collections.emptyList();
+        }
+
+        Segment next(String name) {
+            if (seg != null)
+                for (int i = index + 1; i < ctx.segments.size(); i++)
+                    if (ctx.segments.get(i).name().equals(name))
+                        return ctx.segments.get(i);
+            return ABSENT;
+        }
+
+        Segment prev(String name) {
+            if (seg != null)
+                for (int i = index - 1; i >= 0; i--)
+                    if (ctx.segments.get(i).name().equals(name))
+                        return ctx.segments.get(i);
+            return ABSENT;
+        }
+    }
+
+    /**
+     * Field, repetition, component or subcomponent of a segment, structured as by {@code HL7Parser}: further
+     * repetitions are children of the field, components are children of the field or repetition and
+     * subcomponents are children of the component or of the field or repetition, if there is no component
+     * separator before the subcomponent separator. The text of a node is its value before the first separator
+     * of its children.
+     */
+    static final class Node {
+        static final int FIELD = 0;
+        static final int REPEAT = 1;
+        static final int COMPONENT = 2;
+        static final int SUBCOMPONENT = 3;
+        static final Node ABSENT = new Node(null, "", -1);
+
+        private final HL7Segment seg;
+        private final String value;
+        private final int level;
+
+        private Node(HL7Segment seg, String value, int level) {
+            this.seg = seg;
+            this.value = value;
+            this.level = level;
+        }
+
+        boolean exists() {
+            return seg != null;
+        }
+
+        String text() {
+            return exists() ? cut(cut(cut(value, REPEAT), COMPONENT), SUBCOMPONENT) : "";
+        }
+
+        String stringValue() {
+            if (!exists())
+                return "";
+
+            StringBuilder sb = new StringBuilder(value.length());
+            for (char c : value.toCharArray())
+                if (c != seg.getRepetitionSeparator()
+                        && c != seg.getComponentSeparator()
+                        && c != seg.getSubcomponentSeparator())
+                    sb.append(c);
+            return sb.toString();
+        }
+
+        Node component(int n) {
+            return level == FIELD || level == REPEAT
+                    ? child(cut(value, REPEAT), seg.getComponentSeparator(), n, COMPONENT)
+                    : ABSENT;
+        }
+
+        Node subcomponent(int n) {
+            return level == FIELD || level == REPEAT || level == COMPONENT
+                    ? child(cut(cut(value, REPEAT), COMPONENT), seg.getSubcomponentSeparator(), n, SUBCOMPONENT)
+                    : ABSENT;
+        }
+
+        List<Node> repeats() {
+            if (level != FIELD)
+                return Collections.emptyList();
+
+            String[] ss = StringUtils.split(value, seg.getRepetitionSeparator());
+            List<Node> list = new ArrayList<>(ss.length);
+            for (int i = 1; i < ss.length; i++)
+                list.add(new Node(seg, ss[i], REPEAT));
+            return list;
+        }
+
+        private String cut(String s, int childLevel) {
+            if (level >= childLevel)
+                return s;
+
+            char separator = childLevel == REPEAT ? seg.getRepetitionSeparator()
+                    : childLevel == COMPONENT ? seg.getComponentSeparator()
+                    : seg.getSubcomponentSeparator();
+            int end = s.indexOf(separator);
+            return end < 0 ? s : s.substring(0, end);
+        }
+
+        private Node child(String s, char separator, int n, int childLevel) {
+            String[] ss = StringUtils.split(s, separator);
+            return n < ss.length ? new Node(seg, ss[n], childLevel) : ABSENT;
+        }
+    }
+
+    private static Rule rules(Rule... rules) {
+        return (seg, attrs) -> {
+            for (Rule rule : rules)
+                rule.apply(seg, attrs);
+        };
+    }
+
+    private static Rule each(String name, Rule rule) {
+        return (msh, attrs) -> msh.following(name).forEach(seg -> rule.apply(seg, attrs));
+    }
+
+    private static Rule first(String name, Rule rule) {
+        return (msh, attrs) -> {
+            Segment seg = msh.next(name);
+            if (seg.exists())
+                rule.apply(seg, attrs);
+        };
+    }
+
+    private static Rule eachFollowingOrElse(String name, Rule rule, Rule otherwise) {
+        return (seg, attrs) -> {
+            List<Segment> following = seg.following(name);
+            if (following.isEmpty())
+                otherwise.apply(seg, attrs);
+            else
+                following.forEach(next -> rule.apply(next, attrs));
+        };
+    }
+
+    private static Rule ifText(int field, Rule rule) {
+        return (seg, attrs) -> {
+            if (!seg.field(field).text().isEmpty())
+                rule.apply(seg, attrs);
+        };
+    }
+
+    private static Rule item(int seqTag, Rule rule) {
+        return (seg, attrs) -> {
+            Attributes item = new Attributes();
+            rule.apply(seg, item);
+            attrs.newSequence(seqTag, 1).add(item);
+        };
+    }
+
+    private static Rule attr(int tag, VR vr, Value val) {
+        return (seg, attrs) -> attr(attrs, tag, vr, val.of(seg));
+    }
+
+    private static Rule xpn2pn(int tag, int field) {
+        return (seg, attrs) -> xpn2pnAttr(attrs, tag, seg.field(field));
+    }
+
+    private static Rule cn2pn(int tag, int field) {
+        return (seg, attrs) -> cn2pnAttr(attrs, tag, seg.field(field));
+    }
+
+    private static Rule cx2pid(int field) {
+        return (seg, attrs) -> cx2pidAttrs(attrs, seg.field(field));
+    }
+
+    private static Rule ei2attr(int tag, VR vr, int sqTag, int field) {
+        return (seg, attrs) -> ei2attr(attrs, tag, vr, sqTag, seg.field(field));
+    }
+
+    private static Rule codeWithDesc(int descTag, int seqTag, int field) {
+        return (seg, attrs) -> ce2codeItemWithDesc(attrs, descTag, seqTag, seg.field(field), 0);
+    }
+
+    private static Value text(int field) {
+        return seg -> nonEmpty(seg.field(field).text());
+    }
+
+    private static Value text(int field, int component) {
+        return seg -> nonEmpty(seg.field(field).component(component).text());
+    }
+
+    private static Value string(int field) {
+        return seg -> string(seg.field(field));
+    }
+
+    private static Value substring(Value val, int maxLength) {
+        return val.map(s -> substring(s, maxLength));
+    }
+
+    private static void attr(Attributes attrs, int tag, VR vr, String val) {
+        if (val != null)
+            value(attrs, tag, vr, val.equals(NULL) ? "" : val);
+    }
+
+    private static void value(Attributes attrs, int tag, VR vr, String val) {
+        if (val.isEmpty())
+            attrs.setNull(tag, vr);
+        else
+            attrs.setString(tag, vr, val);
+    }
+
+    private static String string(Node node) {
+        return node.exists() ? node.stringValue() : null;
+    }
+
+    private static String nonEmpty(String s) {
+        return s == null || s.isEmpty() ? null : s;
+    }
+
+    private static String substring(String s, int maxLength) {
+        return s.length() > maxLength ? s.substring(0, maxLength) : s;
+    }
+
+    private static String sex(String val) {
+        switch (val) {
+            case "F":
+            case "M":
+            case "O":
+                return val;
+            case "A":
+            case "N":
+                return "O";
+        }
+        return NULL;
+    }
+
+    private static String neutered(Segment pid) {
+        Node sex = pid.field(8);
+        String neutered = null;
+        for (int i = 1; sex.component(i).exists(); i++) {
+            switch (sex.component(i).text()) {
+                case "Y":
+                    return "ALTERED";
+                case "N":
+                    neutered = "UNALTERED";
+            }
+        }
+        return neutered;
+    }
+
+    private static String responsiblePersonRole(String val) {
+        return val.contains(NULL) ? val : "OWNER";
+    }
+
+    private static String pregnancyStatus(String ambulantStatus) {
+        return ambulantStatus.equals("B6") ? "3" : NULL;
+    }
+
+    private static String priority(String priority) {
+        switch (priority) {
+            case "S":
+                return "STAT";
+            case "A":
+            case "P":
+            case "C":
+                return "HIGH";
+            case "R":
+                return "ROUTINE";
+            case "T":
+                return "MEDIUM";
+        }
+        return NULL;
+    }
+
+    private static String multiValue(Node field) {
+        StringBuilder sb = new StringBuilder(field.text());
+        for (Node repeat : field.repeats())
+            sb.append('\\').append(repeat.text());
+        return sb.toString();
+    }
+
+    private static String normalizeSpace(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (String token : s.split("[ \t\r\n]+"))
+            if (!token.isEmpty())
+                (sb.length() > 0 ? sb.append(' ') : sb).append(token);
+        return sb.toString();
+    }
+
+    private static void pnAttr(Attributes attrs, int tag, String val,
+            String fn, String gn, String mn, String np, String ns, String deg) {
+        if (val.isEmpty())
+            return;
+
+        if (val.equals(NULL)) {
+            attrs.setNull(tag, VR.PN);
+            return;
+        }
+        PersonName pn = new PersonName();
+        pnComp(pn, PersonName.Component.FamilyName, fn);
+        pnComp(pn, PersonName.Component.GivenName, gn);
+        pnComp(pn, PersonName.Component.MiddleName, mn);
+        pnComp(pn, PersonName.Component.NamePrefix, np);
+        pnComp(pn, PersonName.Component.NameSuffix,
+                ns.isEmpty() || ns.equals(NULL) ? deg : deg.isEmpty() || deg.equals(NULL) ? ns : ns + ' ' + deg);
+        value(attrs, tag, VR.PN, pn.toString());
+    }
+
+    private static void pnComp(PersonName pn, PersonName.Component c, String val) {
+        if (!val.isEmpty() && !val.equals(NULL))
+            pn.set(c, val);
+    }
+
+    private static void xpn2pnAttr(Attributes attrs, int tag, Node xpn) {
+        pnAttr(attrs, tag, xpn.text(),
+                xpn.text(),
+                xpn.component(1).text(),
+                xpn.component(2).text(),
+                xpn.component(4).text(),
+                xpn.component(3).text(),
+                xpn.component(5).text());
+    }
+
+    private static void cn2pnAttr(Attributes attrs, int tag, Node cn) {
+        if (cn.component(1).exists() || cn.stringValue().equals(NULL))
+            pnAttr(attrs, tag, cn.text(),
+                    cn.component(1).text(),
+                    cn.component(2).text(),
+                    cn.component(3).text(),
+                    cn.component(5).text(),
+                    cn.component(4).text(),
+                    cn.component(6).text());
+    }
+
+    private static void cnn2pnAttr(Attributes attrs, int tag, Node cn) {
+        if (cn.component(1).exists() || cn.stringValue().equals(NULL))
+            pnAttr(attrs, tag, cn.text(),
+                    cn.subcomponent(1).text(),
+                    cn.subcomponent(2).text(),
+                    cn.subcomponent(3).text(),
+                    cn.subcomponent(5).text(),
+                    cn.subcomponent(4).text(),
+                    cn.subcomponent(6).text());
+    }
+
+    private static void cx2pidAttrs(Attributes attrs, Node cx) {
+        value(attrs, Tag.PatientID, VR.LO, cx.text());
+        Node hd = cx.component(3);
+        if (hd.exists()) {
+            value(attrs, Tag.IssuerOfPatientID, VR.LO, hd.text());
+            if (hd.subcomponent(2).exists()) {
+                Attributes item = new Attributes(2);
+                value(item, Tag.UniversalEntityID, VR.UT, hd.subcomponent(1).stringValue());
+                value(item, Tag.UniversalEntityIDType, VR.CS, hd.subcomponent(2).stringValue());
+                attrs.newSequence(Tag.IssuerOfPatientIDQualifiersSequence, 1).add(item);
+            }
+        }
+    }
+
+    private static void otherPatientIDs(Segment pid, Attributes attrs) {
+        Node chip = pid.field(2);
+        Node tattoo = pid.field(4);
+        if (chip.text().isEmpty() && tattoo.text().isEmpty())
+            return;
+
+        Sequence seq = attrs.newSequence(Tag.OtherPatientIDsSequence, 2);
+        if (!chip.text().isEmpty() && !chip.text().contains(NULL))
+            seq.add(pidItem(chip, "CHIP", "RFID"));
+        if (!tattoo.text().isEmpty() && !tattoo.text().contains(NULL))
+            seq.add(pidItem(tattoo, "TATTOO", "BARCODE"));
+    }
+
+    private static Attributes pidItem(Node cx, String defaultIssuer, String type) {
+        Attributes item = new Attributes(4);
+        cx2pidAttrs(item, cx);
+        if (!cx.component(3).exists())
+            value(item, Tag.IssuerOfPatientID, VR.LO, defaultIssuer);
+        value(item, Tag.TypeOfPatientID, VR.CS, type);
+        return item;
+    }
+
+    private static void ce2codeItemWithDesc(Attributes attrs, int descTag, int seqTag, Node codedEntry, int offset) {
+        String desc = codedEntry.component(offset + 1).text();
+        if (!desc.isEmpty()) {
+            attr(attrs, descTag, VR.LO, substring(desc, 64));
+            Attributes item = codeItem(codedEntry, offset);
+            if (item != null)
+                attrs.newSequence(seqTag, 1).add(item);
+        } else if (offset == 0) {
+            attr(attrs, descTag, VR.LO, nonEmpty(codedEntry.text()));
+        }
+    }
+
+    private static Attributes codeItem(Node codedEntry, int offset) {
+        String code = offset != 0 ? codedEntry.component(offset).stringValue() : codedEntry.text();
+        Node scheme = codedEntry.component(offset + 2);
+        Node meaning = codedEntry.component(offset + 1);
+        if (code.isEmpty() || !scheme.exists() || !meaning.exists())
+            return null;
+
+        Attributes item = new Attributes(3);
+        attr(item, Tag.CodeValue, VR.SH, nonEmpty(substring(code, 16)));
+        attr(item, Tag.CodingSchemeDesignator, VR.SH, nonEmpty(substring(scheme.stringValue(), 16)));
+        attr(item, Tag.CodeMeaning, VR.LO, nonEmpty(substring(meaning.stringValue(), 64)));
+        return item;
+    }
+
+    private static void ei2attr(Attributes attrs, int tag, VR vr, int sqTag, Node ei) {
+        String val = ei.text();
+        if (val.isEmpty())
+            return;
+
+        attr(attrs, tag, vr, val);
+        Attributes item = new Attributes(3);
+        if (ei.component(1).exists() && !val.equals(NULL)) {
+            value(item, Tag.LocalNamespaceEntityID, VR.UT, ei.component(1).text());
+            if (ei.component(2).exists() && ei.component(3).exists()) {
+                value(item, Tag.UniversalEntityID, VR.UT, ei.component(2).text());
+                value(item, Tag.UniversalEntityIDType, VR.CS, ei.component(3).text());
+            }
+        }
+        attrs.newSequence(sqTag, 1).add(item);
+    }
+
+    private static void admissionID(Segment pv1, Attributes attrs) {
+        Node ei = pv1.field(19);
+        String val = ei.text();
+        if (val.isEmpty())
+            return;
+
+        if (!val.equals(NULL))
+            attr(attrs, Tag.AdmissionID, VR.LO, val);
+        Attributes item = new Attributes(3);
+        if (ei.component(1).exists() && !val.equals(NULL)) {
+            Node hd = ei.component(3);
+            attr(item, Tag.LocalNamespaceEntityID, VR.UT, nonEmpty(hd.text()));
+            attr(item, Tag.UniversalEntityID, VR.UT, string(hd.subcomponent(1)));
+            attr(item, Tag.UniversalEntityIDType, VR.CS, string(hd.subcomponent(2)));
+        }
+        attrs.newSequence(Tag.IssuerOfAdmissionIDSequence, 1).add(item);
+    }
+
+    private static void attrDATM(Attributes attrs, int daTag, int tmTag, String val) {
+        String str = normalizeSpace(val);
+        if (str.isEmpty())
+            return;
+
+        if (str.equals(NULL)) {
+            attrs.setNull(daTag, VR.DA);
+            attrs.setNull(tmTag, VR.TM);
+            return;
+        }
+        value(attrs, daTag, VR.DA, substring(str, 8));
+        String tm = str.length() > 8 ? str.substring(8) : "";
+        int end = tm.indexOf('+');
+        if (end <= 0)
+            end = tm.indexOf('-');
+        value(attrs, tmTag, VR.TM, end > 0 ? tm.substring(0, end) : tm);
+    }
+
+    private static void scheduledProcedureSteps(Segment msh, Attributes attrs) {
+        Sequence seq = attrs.newSequence(Tag.ScheduledProcedureStepSequence, 1);
+        List<Segment> orcs = msh.following("ORC");
+        for (int i = 0; i < orcs.size(); i++) {
+            Segment orc = orcs.get(i);
+            Segment ipc = orc.next("IPC");
+            Segment obr = orc.next("OBR");
+            if (i == 0
+                    || ipc.exists()
+                        && !ipc.field(4).text().equals(orc.prev("IPC").field(4).text())
+                    || !ipc.exists() && obr.exists()
+                        && !obr.field(20).text().equals(orc.prev("OBR").field(20).text()))
+                addItem(seq, i + 1, scheduledProcedureStep(orc, ipc, obr));
+        }
+    }
+
+    /**
+     * Adds the item at the position given by {@code <Item number="{$itemNo}">} in the stylesheet, preceded by empty
+     * items for skipped positions, as inserted by {@link org.dcm4che3.io.ContentHandlerAdapter}.
+     */
+    private static void addItem(Sequence seq, int itemNo, Attributes item) {
+        while (seq.size() < itemNo - 1)
+            seq.add(new Attributes(0));
+        seq.add(item);
+    }
+
+    private static Attributes scheduledProcedureStep(Segment orc, Segment ipc, Segment obr) {
+        Attributes sps = new Attributes();
+        if (orc.ctx.scheduledStationAETInOrder == ScheduledStationAETInOrder.ORC_18)
+            attr(sps, Tag.ScheduledStationAETitle, VR.AE, nonEmpty(multiValue(orc.field(18))));
+        attrDATM(sps, Tag.ScheduledProcedureStepStartDate, Tag.ScheduledProcedureStepStartTime,
+                orc.field(7).component(3).text());
+        attr(sps, Tag.ScheduledProcedureStepStatus, VR.CS,
+                orc.field(1).stringValue() + '_' + orc.field(5).stringValue());
+        attrDATM(sps, Tag.ScheduledProcedureStepStartDate, Tag.ScheduledProcedureStepStartTime,
+                orc.next("TQ1").field(7).stringValue());
+        cnn2pnAttr(sps, Tag.ScheduledPerformingPhysicianName, obr.field(34));
+        if (ipc.exists()) {
+            attr(sps, Tag.Modality, VR.CS, nonEmpty(ipc.field(5).text()));
+            attr(sps, Tag.ScheduledProcedureStepID, VR.SH, nonEmpty(ipc.field(4).text()));
+            scheduledProtocolCode(sps, orc.following("IPC"), 4, 6, 0);
+            attr(sps, Tag.ScheduledStationName, VR.SH, nonEmpty(multiValue(ipc.field(7))));
+            attr(sps, Tag.ScheduledProcedureStepLocation, VR.SH, nonEmpty(ipc.field(8).text()));
+            attr(sps, Tag.ScheduledStationAETitle, VR.AE, nonEmpty(multiValue(ipc.field(9))));
+        } else {
+            scheduledProtocolCode(sps, orc.following("OBR"), 20, 4,
+                    orc.ctx.scheduledProtocolCodeInOrder == ScheduledProtocolCodeInOrder.OBR_4_1 ? 0 : 3);
+            attr(sps, Tag.Modality, VR.CS, nonEmpty(obr.field(24).text()));
+            attr(sps, Tag.ScheduledProcedureStepID, VR.SH, nonEmpty(obr.field(20).text()));
+        }
+        return sps;
+    }
+
+    private static void scheduledProtocolCode(Attributes sps, List<Segment> siblings, int spsIDField,
+            int spsDescCodeField, int offset) {
+        Segment first = siblings.isEmpty() ? Segment.ABSENT : siblings.get(0);
+        Node firstSiblingSPSID = first.field(spsIDField);
+        Node codedEntry = first.field(spsDescCodeField);
+        String desc = codedEntry.component(offset + 1).text();
+        attr(sps, Tag.ScheduledProcedureStepDescription, VR.LO,
+                nonEmpty(!desc.isEmpty() ? substring(desc, 64) : offset == 0 ? codedEntry.text() : ""));
+        Sequence seq = sps.newSequence(Tag.ScheduledProtocolCodeSequence, siblings.size());
+        for (int i = 0; i < siblings.size(); i++) {
+            Segment sibling = siblings.get(i);
+            if (firstSiblingSPSID.exists()
+                    && sibling.field(spsIDField).text().equals(firstSiblingSPSID.stringValue())) {
+                Attributes item = codeItem(sibling.field(spsDescCodeField), offset);
+                if (item != null)
+                    addItem(seq, i + 1, item);
+            }
+        }
+    }
+}
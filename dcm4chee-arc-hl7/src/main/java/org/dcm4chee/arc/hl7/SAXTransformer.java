@@ -44,6 +44,7 @@ import org.dcm4che3.data.Tag;
 import org.dcm4che3.data.VR;
 import org.dcm4che3.hl7.HL7Charset;
 import org.dcm4che3.hl7.HL7ContentHandler;
+import org.dcm4che3.hl7.HL7Message;
 import org.dcm4che3.hl7.HL7Parser;
 import org.dcm4che3.io.ContentHandlerAdapter;
 import org.dcm4che3.io.SAXTransformer.SetupTransformer;
@@ -75,7 +76,6 @@ class SAXTransformer {
     public static Attributes transform(
             UnparsedHL7Message msg, ArchiveHL7ApplicationExtension arcHL7App, String uri, SetupTransformer setup)
             throws TransformerConfigurationException, IOException, SAXException {
-        Templates tpl = TemplatesCache.getDefault().get(StringUtils.replaceSystemProperties(uri));
         Attributes attrs = new Attributes();
         String hl7charset = msg.msh().getField(17, arcHL7App.getHL7Application().getHL7DefaultCharacterSet());
         String dicomCharset = arcHL7App.hl7DicomCharacterSet() != null
@@ -83,6 +83,13 @@ class SAXTransformer {
                 : HL7Charset.toDicomCharacterSetCode(hl7charset);
         if (dicomCharset != null)
             attrs.setString(Tag.SpecificCharacterSet, VR.CS, dicomCharset);
+        HL7Mapping mapping = arcHL7App.getArchiveDeviceExtension().isHl7UseBuiltinMapping()
+                ? HL7Mapping.forTemplateURI(uri)
+                : null;
+        if (mapping != null && mapping.transform(HL7Message.parse(msg.data(), hl7charset), arcHL7App, attrs))
+            return attrs;
+
+        Templates tpl = TemplatesCache.getDefault().get(StringUtils.replaceSystemProperties(uri));
         TransformerHandler th = factory.newTransformerHandler(tpl);
         th.setResult(new SAXResult(new ContentHandlerAdapter(attrs)));
         if (setup != null)
@@ -50,12 +50,14 @@ import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.HL7ConnectionEvent;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.ArchiveHL7ApplicationExtension;
+import org.dcm4chee.arc.hl7.HL7Journal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -74,6 +76,9 @@ public class HL7Logger {
     @Inject
     private Device device;
 
+    @Inject
+    private HL7Journal journal;
+
     public void onHL7Connection(@Observes HL7ConnectionEvent event) {
         UnparsedHL7Message msg = event.getHL7Message();
         switch (event.getType()) {
@@ -112,6 +117,14 @@ public class HL7Logger {
             return;
 
         String hl7LogFile = getPath(StringUtils.replaceSystemProperties(dirpath), msg.getSerialNo(), msg.msh());
+        if (journal.isEnabled()) {
+            try {
+                journal.append(hl7LogFile, msg);
+                return;
+            } catch (IOException e) {
+                LOG.warn("Failed to append message to HL7 journal - write log file : {}\n", hl7LogFile, e);
+            }
+        }
         try {
             Files.createDirectories(Paths.get(hl7LogFile.substring(0, hl7LogFile.lastIndexOf("/"))));
             Files.write(Files.createFile(Paths.get(hl7LogFile)), msg.data());
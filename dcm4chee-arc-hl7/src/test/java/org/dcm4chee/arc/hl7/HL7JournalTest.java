@@ -0,0 +1,143 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+
+package org.dcm4chee.arc.hl7;
+
+import org.dcm4che3.net.Device;
+import org.dcm4che3.net.hl7.UnparsedHL7Message;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class HL7JournalTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private ExecutorService executor;
+    private HL7Journal journal;
+    private Path logDir;
+
+    @Before
+    public void setUp() throws IOException {
+        ArchiveDeviceExtension arcDev = new ArchiveDeviceExtension();
+        arcDev.setHL7JournalDirectory(tmp.newFolder("journal").getPath());
+        Device device = new Device("test");
+        device.addDeviceExtension(arcDev);
+        executor = Executors.newSingleThreadExecutor();
+        device.setExecutor(executor);
+        journal = new HL7Journal();
+        journal.device = device;
+        logDir = tmp.newFolder("log").toPath();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testEntryRoundTrip() throws IOException {
+        HL7Journal.Entry entry = new HL7Journal.Entry(1603108800000L, "MSG-1", "log/MSG-1.hl7", message("MSG-1"));
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bout)) {
+            entry.writeTo(out);
+            entry.writeTo(out);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bout.toByteArray()));
+        for (int i = 0; i < 2; i++) {
+            HL7Journal.Entry read = HL7Journal.Entry.readFrom(in);
+            assertNotNull(read);
+            assertEquals(entry.time, read.time);
+            assertEquals(entry.msgControlID, read.msgControlID);
+            assertEquals(entry.path, read.path);
+            assertArrayEquals(entry.data, read.data);
+        }
+        assertNull(HL7Journal.Entry.readFrom(in));
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        append("MSG-1", "first");
+        append("MSG-2", "second");
+        append("MSG-1", "third");
+        List<HL7Journal.Entry> entries = journal.find("MSG-1");
+        assertEquals(2, entries.size());
+        assertEquals(logDir.resolve("third").toString(), entries.get(0).path);
+        assertEquals(logDir.resolve("first").toString(), entries.get(1).path);
+        append("MSG-1", "fourth");
+        assertEquals(3, journal.find("MSG-1").size());
+        assertTrue(journal.find("MSG-3").isEmpty());
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        append("MSG-1", "first");
+        append("MSG-2", "second");
+        Files.write(logDir.resolve("second"), new byte[0]);
+        assertEquals(1, journal.export(null, null));
+        assertArrayEquals(message("MSG-1"), Files.readAllBytes(logDir.resolve("first")));
+        assertEquals(0, Files.size(logDir.resolve("second")));
+        assertEquals(0, journal.export(null, null));
+    }
+
+    private void append(String msgControlID, String fileName) throws IOException {
+        journal.append(logDir.resolve(fileName).toString(), new UnparsedHL7Message(message(msgControlID)));
+    }
+
+    private static byte[] message(String msgControlID) {
+        return ("MSH|^~\\&|HIS|HOSP|DCM4CHEE|DCM4CHEE|20201019120000||ADT^A01^ADT_A01|" + msgControlID + "|P|2.5.1\r"
+                + "PID|1||PID-1^^^HOSP^MR||DOE^JOHN\r").getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.hl7;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.hl7.HL7Message;
+import org.dcm4che3.hl7.HL7Parser;
+import org.dcm4che3.io.ContentHandlerAdapter;
+import org.dcm4che3.util.TagUtils;
+import org.dcm4chee.arc.conf.ScheduledProtocolCodeInOrder;
+import org.dcm4chee.arc.conf.ScheduledStationAETInOrder;
+import org.junit.Test;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the attributes mapped by {@link HL7Mapping} with the attributes mapped by the default stylesheets,
+ * attribute by attribute.
+ */
+public class HL7MappingTest {
+
+    private static final String XSL_DIR = "../dcm4chee-arc-conf-data/src/main/resources/";
+
+    private static final String ADT_A01 = String.join("\r",
+            "MSH|^~\\&|HIS|HOSP|DCM4CHEE|DCM4CHEE|20201019120000||ADT^A01^ADT_A01|MSG-1|P|2.5.1",
+            "EVN|A01|20201019120000",
+            "PID|1||PID-1^^^HOSP^MR~PID-2^^^OTHER^MR||DOE^JOHN^M^^DR|SMITH^MARY|19700101|M|DOE^JANE",
+            "PV1|1|I|WARD^101^1|||||1234^SMITH^JANE^^^DR|||||||B6||||VISIT-1^^^HOSP");
+
+    private static final String ADT_A40 = String.join("\r",
+            "MSH|^~\\&|HIS|HOSP|DCM4CHEE|DCM4CHEE|20201019120000||ADT^A40^ADT_A39|MSG-2|P|2.5.1",
+            "EVN|A40|20201019120000",
+            "PID|1||PID-NEW^^^HOSP||DOE^JOHN",
+            "MRG|PID-OLD^^^HOSP||||||DOE^JONATHAN");
+
+    private static final String ORM_O01 = String.join("\r",
+            "MSH|^~\\&|HIS|HOSP|DCM4CHEE|DCM4CHEE|20201019120000||ORM^O01^ORM_O01|MSG-3|P|2.3",
+            "PID|1||PID-1^^^HOSP||DOE^JOHN||19700101|M",
+            "PV1|1|O||||||1234^SMITH^JANE",
+            "ORC|NW|PLACER-1^RIS|FILLER-1^PACS||SC||^^^20201020080000^^R",
+            "OBR|1|PLACER-1^RIS|FILLER-1^PACS|CT-HEAD^CT Head^LOCAL|||||||||Allergy|||5678^BROWN^BOB||ACC-1|RP-1"
+                    + "|SPS-1||||CT|||||||^Headache|||||||||||||P1^Procedure^LOCAL",
+            "ORC|NW|PLACER-1^RIS|FILLER-1^PACS||SC||^^^20201020080000^^R",
+            "OBR|2|PLACER-1^RIS|FILLER-1^PACS|CT-NECK^CT Neck^LOCAL|||||||||Allergy|||5678^BROWN^BOB||ACC-1|RP-1"
+                    + "|SPS-1||||CT|||||||^Headache|||||||||||||P1^Procedure^LOCAL",
+            "ORC|NW|PLACER-1^RIS|FILLER-1^PACS||SC||^^^20201020090000^^R",
+            "OBR|3|PLACER-1^RIS|FILLER-1^PACS|MR-KNEE^MR Knee^LOCAL|||||||||Allergy|||5678^BROWN^BOB||ACC-1|RP-1"
+                    + "|SPS-2||||MR|||||||^Headache|||||||||||||P1^Procedure^LOCAL",
+            "NTE|1||Patient is claustrophobic");
+
+    private static final String OMG_O19 = String.join("\r",
+            "MSH|^~\\&|HIS|HOSP|DCM4CHEE|DCM4CHEE|20201019120000||OMG^O19^OMG_O19|MSG-4|P|2.5.1",
+            "PID|1||PID-1^^^HOSP||DOE^JOHN||19700101|M",
+            "PV1|1|O||||||1234^SMITH^JANE",
+            "ORC|NW|PLACER-2^RIS|FILLER-2^PACS||SC|||||||||||||MRAET",
+            "TQ1|1||||||20201020080000||S",
+            "OBR|1|PLACER-2^RIS|FILLER-2^PACS|MR-KNEE^MR Knee^LOCAL||||||||||||5678^BROWN^BOB"
+                    + "||||||||||||||||||||||||||||P2^Knee^LOCAL",
+            "IPC|ACC-2^HOSP|RP-2|1.2.40.0.13.1.1.1|SPS-2|MR|KNEE-T1^Knee T1^LOCAL|MRSTATION|ROOM-1|MRAET",
+            "IPC|ACC-2^HOSP|RP-2|1.2.40.0.13.1.1.1|SPS-2|MR|KNEE-T2^Knee T2^LOCAL|MRSTATION|ROOM-1|MRAET",
+            "ZDS|1.2.40.0.13.1.1.1^DCM4CHEE^Application^DICOM");
+
+    @Test
+    public void testADT_A01() throws Exception {
+        assertEqualAttributes(ADT_A01, "hl7-adt2dcm.xsl", HL7Mapping.ADT2DCM,
+                ScheduledProtocolCodeInOrder.OBR_4_4, null);
+    }
+
+    @Test
+    public void testADT_A40() throws Exception {
+        assertEqualAttributes(ADT_A40, "hl7-adt2dcm.xsl", HL7Mapping.ADT2DCM,
+                ScheduledProtocolCodeInOrder.OBR_4_4, null);
+    }
+
+    @Test
+    public void testORM_O01() throws Exception {
+        assertEqualAttributes(ORM_O01, "hl7-order2dcm.xsl", HL7Mapping.ORDER2DCM,
+                ScheduledProtocolCodeInOrder.OBR_4_4, null);
+    }
+
+    @Test
+    public void testORM_O01_OBR_4_1() throws Exception {
+        assertEqualAttributes(ORM_O01, "hl7-order2dcm.xsl", HL7Mapping.ORDER2DCM,
+                ScheduledProtocolCodeInOrder.OBR_4_1, null);
+    }
+
+    @Test
+    public void testOMG_O19() throws Exception {
+        assertEqualAttributes(OMG_O19, "hl7-order2dcm.xsl", HL7Mapping.ORDER2DCM,
+                ScheduledProtocolCodeInOrder.OBR_4_4, ScheduledStationAETInOrder.ORC_18);
+    }
+
+    private static void assertEqualAttributes(String msg, String xsl, HL7Mapping mapping,
+            ScheduledProtocolCodeInOrder scheduledProtocolCodeInOrder,
+            ScheduledStationAETInOrder scheduledStationAETInOrder) throws Exception {
+        Attributes expected = transform(msg, xsl, scheduledProtocolCodeInOrder, scheduledStationAETInOrder);
+        Attributes actual = new Attributes();
+        assertEquals(true, mapping.transform(
+                HL7Message.parse(msg.getBytes(StandardCharsets.US_ASCII), "ASCII"),
+                scheduledProtocolCodeInOrder,
+                scheduledStationAETInOrder,
+                actual));
+        TreeSet<Integer> tags = new TreeSet<>();
+        for (int tag : expected.tags())
+            tags.add(tag);
+        for (int tag : actual.tags())
+            tags.add(tag);
+        for (int tag : tags)
+            assertEquals(TagUtils.toString(tag), new Attributes(expected, tag), new Attributes(actual, tag));
+    }
+
+    private static Attributes transform(String msg, String xsl,
+            ScheduledProtocolCodeInOrder scheduledProtocolCodeInOrder,
+            ScheduledStationAETInOrder scheduledStationAETInOrder) throws Exception {
+        Attributes attrs = new Attributes();
+        SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactory.newInstance();
+        TransformerHandler th = factory.newTransformerHandler(
+                factory.newTemplates(new StreamSource(new File(XSL_DIR + xsl))));
+        th.setResult(new SAXResult(new ContentHandlerAdapter(attrs)));
+        Transformer tr = th.getTransformer();
+        tr.setParameter("hl7ScheduledProtocolCodeInOrder", scheduledProtocolCodeInOrder.toString());
+        if (scheduledStationAETInOrder != null)
+            tr.setParameter("hl7ScheduledStationAETInOrder", scheduledStationAETInOrder.toString());
+        new HL7Parser(th).parse(new StringReader(msg));
+        return attrs;
+    }
+}
@@ -184,16 +184,21 @@ class RejectMatching {
             Response.Status status = Response.Status.ACCEPTED;
             HttpServletRequestInfo httpRequestInfo = HttpServletRequestInfo.valueOf(request);
             try (Query query = queryService.createQuery(ctx)) {
+                int queryFetchSize = arcDev().getQueryFetchSize();
+                List<Attributes> refs = new ArrayList<>(queryFetchSize);
                 try {
-                    query.executeQuery(arcDev().getQueryFetchSize());
+                    query.executeQuery(queryFetchSize);
                     while (query.hasMoreMatches()) {
                         Attributes match = query.nextMatch();
                         if (match == null)
                             continue;
 
-                        rejectMatching(aet, rjNoteCode, match, qrlevel, httpRequestInfo);
-                        count++;
+                        refs.add(toRef(match, qrlevel));
+                        if (refs.size() == queryFetchSize)
+                            count = scheduleReject(aet, count, rjNoteCode, refs, httpRequestInfo);
                     }
+                    if (!refs.isEmpty())
+                        count = scheduleReject(aet, count, rjNoteCode, refs, httpRequestInfo);
                 } catch (QueueSizeLimitExceededException e) {
                     status = Response.Status.SERVICE_UNAVAILABLE;
                     warning = e.getMessage();
@@ -324,16 +329,23 @@ class RejectMatching {
                 request.getRemoteHost());
     }
 
-    private void rejectMatching(String aet, Code rjNoteCode, Attributes match, QueryRetrieveLevel2 qrlevel,
-                                HttpServletRequestInfo httpRequestInfo)
+    private static Attributes toRef(Attributes match, QueryRetrieveLevel2 qrlevel) {
+        Attributes ref = new Attributes(3);
+        ref.setString(Tag.StudyInstanceUID, VR.UI, match.getString(Tag.StudyInstanceUID));
+        if (qrlevel != QueryRetrieveLevel2.STUDY)
+            ref.setString(Tag.SeriesInstanceUID, VR.UI, match.getString(Tag.SeriesInstanceUID));
+        if (qrlevel == QueryRetrieveLevel2.IMAGE)
+            ref.setString(Tag.SOPInstanceUID, VR.UI, match.getString(Tag.SOPInstanceUID));
+        return ref;
+    }
+
+    private int scheduleReject(String aet, int count, Code rjNoteCode, List<Attributes> refs,
+                               HttpServletRequestInfo httpRequestInfo)
             throws QueueSizeLimitExceededException {
-        rejectionService.scheduleReject(aet,
-                match.getString(Tag.StudyInstanceUID),
-                qrlevel != QueryRetrieveLevel2.STUDY ? match.getString(Tag.SeriesInstanceUID) : null,
-                qrlevel == QueryRetrieveLevel2.IMAGE ? match.getString(Tag.SOPInstanceUID) : null,
-                rjNoteCode,
-                httpRequestInfo,
-                batchID);
+        rejectionService.scheduleReject(aet, refs, rjNoteCode, httpRequestInfo, batchID);
+        count += refs.size();
+        refs.clear();
+        return count;
     }
 
     private int scheduleStudyRejectTasks(String aet, int count, Code rjNoteCode, List<String> studyUIDs) {
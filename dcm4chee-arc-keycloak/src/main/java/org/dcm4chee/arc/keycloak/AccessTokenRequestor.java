@@ -140,14 +140,6 @@ public class AccessTokenRequestor {
         return tmp;
     }
 
-    private CachedKeycloak toCachedKeycloakClient(KeycloakClient kc) throws Exception {
-        CachedKeycloak tmp = cachedKeycloakClient;
-        if (tmp == null || !tmp.keycloakID.equals(kc.getKeycloakClientID()))
-            cachedKeycloakClient = tmp = new CachedKeycloak(kc.getKeycloakClientID(), toKeycloak(kc));
-
-        return tmp;
-    }
-
     private CachedKeycloak cachedKeycloak(String keycloakID, String serverURL, String realm, String clientID,
                                           String clientSecret, String userID, String password, String grantType,
                                           boolean tlsAllowAnyHost, boolean tlsDisableTrustMgr) throws Exception {
@@ -177,12 +169,27 @@ public class AccessTokenRequestor {
         return builder;
     }
 
-    public boolean verifyUsernamePasscode(KeycloakClient kc, String role) throws Exception {
-        CachedKeycloak tmp = toCachedKeycloakClient(kc);
-        TokenManager tokenManager = tmp.keycloak.tokenManager();
-        JWSInput jws = new JWSInput(tokenManager.getAccessToken().getToken());
-        AccessToken token = jws.readJsonContent(AccessToken.class);
-        return token.getRealmAccess().isUserInRole(role);
+    /**
+     * Verifies username and password of the Keycloak Client by requesting an access token from the Keycloak server.
+     *
+     * @param kc Keycloak Client with username and password
+     * @param role required realm role or {@code null}
+     * @return expiration time of the access token in ms since the epoch or {@code 0} if the user has not the
+     *         required role
+     * @throws Exception if the verification failed
+     */
+    public long verifyUsernamePasscode(KeycloakClient kc, String role) throws Exception {
+        Keycloak keycloak = toKeycloak(kc);
+        try {
+            AccessTokenResponse response = keycloak.tokenManager().getAccessToken();
+            JWSInput jws = new JWSInput(response.getToken());
+            AccessToken token = jws.readJsonContent(AccessToken.class);
+            return role == null || token.getRealmAccess().isUserInRole(role)
+                    ? System.currentTimeMillis() + response.getExpiresIn() * 1000L
+                    : 0L;
+        } finally {
+            keycloak.close();
+        }
     }
 
     private Keycloak toKeycloak(KeycloakClient kc) throws Exception {
@@ -200,7 +207,17 @@ public class AccessTokenRequestor {
     }
 
 
-    public boolean verifyJWT(String tokenString, KeycloakClient kc, String role) throws Exception {
+    /**
+     * Verifies the signature and expiration of a JSON Web Token issued by the Keycloak server of the Keycloak Client.
+     *
+     * @param tokenString JSON Web Token
+     * @param kc Keycloak Client
+     * @param role required realm role or {@code null}
+     * @return expiration time of the token in ms since the epoch, {@link Long#MAX_VALUE} if the token does not
+     *         expire, or {@code 0} if the user has not the required role
+     * @throws Exception if the verification failed
+     */
+    public long verifyJWT(String tokenString, KeycloakClient kc, String role) throws Exception {
         String serverURL = kc.getKeycloakServerURL();
         String realmName = kc.getKeycloakRealm();
         KeycloakUriBuilder authUrlBuilder = KeycloakUriBuilder.fromUri(serverURL);
@@ -214,7 +231,10 @@ public class AccessTokenRequestor {
         PublicKey publicKey = getPublicKey(kid, jwksUrl, kc);
         tokenVerifier.publicKey(publicKey);
         tokenVerifier.verify();
-        return role == null || tokenVerifier.getToken().getRealmAccess().isUserInRole(role);
+        AccessToken token = tokenVerifier.getToken();
+        return role == null || token.getRealmAccess().isUserInRole(role)
+                ? token.getExpiration() > 0 ? token.getExpiration() * 1000L : Long.MAX_VALUE
+                : 0L;
     }
 
     private PublicKey getPublicKey(String kid, String jwksUrl, KeycloakClient kc)
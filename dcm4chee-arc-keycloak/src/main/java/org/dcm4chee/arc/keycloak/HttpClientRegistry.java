@@ -0,0 +1,172 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.keycloak;
+
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.event.ArchiveServiceEvent;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.ws.rs.client.Client;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides HTTP clients with pooled keep-alive connections shared by all invocations of web services with the same
+ * scheme, host and port and the same TLS settings, to avoid TLS handshakes and connection set up for each request.
+ * Responses of requests invoked by provided clients must be closed or their entity fully read, to return the
+ * connection to the pool. Provided clients must not be closed by the caller. On reload of the configuration,
+ * new clients are created for subsequent invocations and previously provided clients are only closed after
+ * {@value #DRAIN_TIMEOUT_MINUTES} minutes, so requests in progress are not aborted.
+ */
+@ApplicationScoped
+public class HttpClientRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HttpClientRegistry.class);
+
+    static final int DRAIN_TIMEOUT_MINUTES = 5;
+
+    private final Map<String, ResteasyClient> clients = new ConcurrentHashMap<>();
+    private final List<ResteasyClient> retired = new ArrayList<>();
+
+    @Inject
+    private Device device;
+
+    @Inject
+    private AccessTokenRequestor accessTokenRequestor;
+
+    @Inject
+    private MetricsService metricsService;
+
+    public Client getClient(String url) throws Exception {
+        return getClient(url, false, false);
+    }
+
+    public Client getClient(String url, boolean allowAnyHostname, boolean disableTrustManager) throws Exception {
+        String key = keyOf(url, allowAnyHostname, disableTrustManager);
+        ResteasyClient client = clients.get(key);
+        if (client == null) {
+            synchronized (this) {
+                client = clients.get(key);
+                if (client == null) {
+                    client = newClient(url, allowAnyHostname, disableTrustManager);
+                    clients.put(key, client);
+                    LOG.info("Created HTTP client for {}", key);
+                }
+            }
+            metricsService.accept("http-client-reuse", 0);
+        } else {
+            metricsService.accept("http-client-reuse", 1);
+        }
+        return client;
+    }
+
+    public void onArchiveServiceEvent(@Observes ArchiveServiceEvent event) {
+        switch (event.getType()) {
+            case RELOADED:
+                retireAll();
+                break;
+            case STOPPED:
+                closeAll();
+                break;
+        }
+    }
+
+    private ResteasyClient newClient(String url, boolean allowAnyHostname, boolean disableTrustManager)
+            throws Exception {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class);
+        ResteasyClientBuilder builder = accessTokenRequestor.resteasyClientBuilder(
+                url, allowAnyHostname, disableTrustManager);
+        return builder.connectionPoolSize(arcDev.getHttpClientConnectionPoolSize())
+                .maxPooledPerRoute(arcDev.getHttpClientMaxPooledPerRoute())
+                .connectionCheckoutTimeout(
+                        arcDev.getHttpClientConnectionRequestTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    private synchronized void retireAll() {
+        if (clients.isEmpty())
+            return;
+
+        List<ResteasyClient> drained = new ArrayList<>(clients.values());
+        clients.clear();
+        retired.addAll(drained);
+        device.schedule(() -> close(drained), DRAIN_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private synchronized void close(List<ResteasyClient> drained) {
+        if (retired.removeAll(drained)) {
+            drained.forEach(ResteasyClient::close);
+            LOG.info("Closed {} HTTP clients created before reload of configuration", drained.size());
+        }
+    }
+
+    private synchronized void closeAll() {
+        clients.values().forEach(ResteasyClient::close);
+        clients.clear();
+        retired.forEach(ResteasyClient::close);
+        retired.clear();
+    }
+
+    private static String keyOf(String url, boolean allowAnyHostname, boolean disableTrustManager) {
+        URI uri = URI.create(url);
+        StringBuilder sb = new StringBuilder(64)
+                .append(uri.getScheme().toLowerCase())
+                .append("://")
+                .append(uri.getRawAuthority());
+        if (allowAnyHostname)
+            sb.append(" [allowAnyHostname]");
+        if (disableTrustManager)
+            sb.append(" [disableTrustManager]");
+        return sb.toString();
+    }
+}
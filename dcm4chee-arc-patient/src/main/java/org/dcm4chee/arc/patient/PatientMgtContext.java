@@ -63,6 +63,8 @@ public interface PatientMgtContext {
 
     FuzzyStr getFuzzyStr();
 
+    boolean isSearchTokenMaintenance();
+
     Association getAssociation();
 
     UnparsedHL7Message getUnparsedHL7Message();
@@ -66,6 +66,7 @@ public class PatientMgtContextImpl implements PatientMgtContext {
     private final AttributeFilter attributeFilter;
     private final AttributeFilter studyAttributeFilter;
     private final FuzzyStr fuzzyStr;
+    private final boolean searchTokenMaintenance;
     private HL7Application hl7app;
     private Association as;
     private Socket socket;
@@ -88,6 +89,7 @@ public class PatientMgtContextImpl implements PatientMgtContext {
         this.attributeFilter = arcDev.getAttributeFilter(Entity.Patient);
         this.studyAttributeFilter = arcDev.getAttributeFilter(Entity.Study);
         this.fuzzyStr = arcDev.getFuzzyStr();
+        this.searchTokenMaintenance = arcDev.isSearchTokenMaintenance();
     }
 
     void setHL7Application(HL7Application hl7app) {
@@ -130,6 +132,11 @@ public class PatientMgtContextImpl implements PatientMgtContext {
         return fuzzyStr;
     }
 
+    @Override
+    public boolean isSearchTokenMaintenance() {
+        return searchTokenMaintenance;
+    }
+
     @Override
     public Association getAssociation() {
         return as;
@@ -120,7 +120,8 @@ public class PatientServiceEJB {
         patient.setVerificationStatus(ctx.getPatientVerificationStatus());
         if (ctx.getPatientVerificationStatus() != Patient.VerificationStatus.UNVERIFIED)
             patient.setVerificationTime(new Date());
-        patient.setAttributes(attributes, ctx.getAttributeFilter(), ctx.getFuzzyStr());
+        patient.setAttributes(attributes, ctx.getAttributeFilter(), ctx.getFuzzyStr(),
+                ctx.isSearchTokenMaintenance());
         patient.setPatientID(createPatientID(patientID));
         em.persist(patient);
         LOG.info("{}: Create {}", ctx, patient);
@@ -194,7 +195,8 @@ public class PatientServiceEJB {
                         device.getDeviceName(),
                         modified)
                 : attrs,
-                filter, ctx.getFuzzyStr());
+                filter, ctx.getFuzzyStr(),
+                ctx.isSearchTokenMaintenance());
         em.createNamedQuery(Series.SCHEDULE_METADATA_UPDATE_FOR_PATIENT)
                 .setParameter(1, pat)
                 .executeUpdate();
@@ -285,7 +287,8 @@ public class PatientServiceEJB {
                         device.getDeviceName(),
                         modified)
                 : patientID.exportPatientIDWithIssuer(patientAttrs),
-                ctx.getAttributeFilter(), ctx.getFuzzyStr());
+                ctx.getAttributeFilter(), ctx.getFuzzyStr(),
+                ctx.isSearchTokenMaintenance());
         em.createNamedQuery(Series.SCHEDULE_METADATA_UPDATE_FOR_PATIENT)
                 .setParameter(1, pat)
                 .executeUpdate();
@@ -356,7 +359,8 @@ public class PatientServiceEJB {
                                             device.getDeviceName(),
                                             modified)
                                     : study.getAttributes(),
-                            ctx.getStudyAttributeFilter(), ctx.getFuzzyStr());
+                            ctx.getStudyAttributeFilter(), ctx.getFuzzyStr(),
+                            ctx.isSearchTokenMaintenance());
                     to.incrementNumberOfStudies();
                     from.decrementNumberOfStudies();
                 });
@@ -44,32 +44,61 @@ package org.dcm4chee.arc.pdq.dicom;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.IDWithIssuer;
 import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
 import org.dcm4che3.net.ApplicationEntity;
+import org.dcm4che3.net.Association;
 import org.dcm4che3.net.Device;
 import org.dcm4che3.net.Priority;
+import org.dcm4che3.net.QueryOption;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.Entity;
 import org.dcm4chee.arc.conf.PDQServiceDescriptor;
 import org.dcm4chee.arc.pdq.AbstractPDQService;
+import org.dcm4chee.arc.pdq.PDQService;
 import org.dcm4chee.arc.pdq.PDQServiceException;
 import org.dcm4chee.arc.query.scu.CFindSCU;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-import java.util.Comparator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Oct 2018
  */
 public class DicomPDQService extends AbstractPDQService {
+    private static final Logger LOG = LoggerFactory.getLogger(DicomPDQService.class);
+
     private final Device device;
     private final CFindSCU cFindSCU;
+    private final Deque<Association> pool;
 
     public DicomPDQService(PDQServiceDescriptor descriptor, Device device, CFindSCU cFindSCU) {
+        this(descriptor, device, cFindSCU, null);
+    }
+
+    private DicomPDQService(PDQServiceDescriptor descriptor, Device device, CFindSCU cFindSCU,
+            Deque<Association> pool) {
         super(descriptor);
         this.device = device;
         this.cFindSCU = cFindSCU;
+        this.pool = pool;
+    }
+
+    @Override
+    public PDQService pooled() {
+        return new DicomPDQService(descriptor, device, cFindSCU, new ConcurrentLinkedDeque<>());
+    }
+
+    @Override
+    public void close() {
+        if (pool == null)
+            return;
+
+        Association as;
+        while ((as = pool.pollFirst()) != null)
+            release(as);
     }
 
     @Override
@@ -131,7 +160,10 @@ public class DicomPDQService extends AbstractPDQService {
     private List<Attributes> findPatient(ApplicationEntity localAE, String calledAET, IDWithIssuer pid,
                                          int[] returnKeys) throws PDQServiceException {
         try {
-            return cFindSCU.findPatient(localAE, calledAET, Priority.NORMAL, pid, returnKeys);
+            return pool == null
+                    ? cFindSCU.findPatient(localAE, calledAET, Priority.NORMAL, pid, returnKeys)
+                    : findOnPooledAssociation(localAE, calledAET, UID.PatientRootQueryRetrieveInformationModelFIND,
+                        as -> cFindSCU.findPatient(as, Priority.NORMAL, pid, returnKeys));
         } catch (Exception e) {
             throw new PDQServiceException(e);
         }
@@ -140,10 +172,50 @@ public class DicomPDQService extends AbstractPDQService {
     private List<Attributes> findStudiesOfPatient(ApplicationEntity localAE, String calledAET, IDWithIssuer pid,
                                                   int... returnKeys) throws PDQServiceException {
         try {
-            return cFindSCU.findStudiesOfPatient(localAE, calledAET, Priority.NORMAL, pid, returnKeys);
+            return pool == null
+                    ? cFindSCU.findStudiesOfPatient(localAE, calledAET, Priority.NORMAL, pid, returnKeys)
+                    : findOnPooledAssociation(localAE, calledAET, UID.StudyRootQueryRetrieveInformationModelFIND,
+                        as -> cFindSCU.findStudiesOfPatient(as, Priority.NORMAL, pid, returnKeys));
         } catch (Exception e) {
             throw new PDQServiceException(e);
         }
     }
 
+    private List<Attributes> findOnPooledAssociation(ApplicationEntity localAE, String calledAET, String cuid,
+            FindOnAssociation find) throws Exception {
+        Association as = pooledAssociation(localAE, calledAET, cuid);
+        List<Attributes> matches;
+        try {
+            matches = find.apply(as);
+        } catch (Exception e) {
+            release(as);
+            throw e;
+        }
+        pool.offerFirst(as);
+        return matches;
+    }
+
+    private Association pooledAssociation(ApplicationEntity localAE, String calledAET, String cuid)
+            throws Exception {
+        Association as;
+        while ((as = pool.pollFirst()) != null) {
+            if (as.isReadyForDataTransfer())
+                return as;
+        }
+        return cFindSCU.openAssociation(localAE, calledAET, cuid, EnumSet.noneOf(QueryOption.class));
+    }
+
+    private static void release(Association as) {
+        try {
+            as.waitForOutstandingRSP();
+            as.release();
+        } catch (Exception e) {
+            LOG.info("{}: Failed to release association:\n", as, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FindOnAssociation {
+        List<Attributes> apply(Association as) throws Exception;
+    }
 }
@@ -46,6 +46,7 @@ import org.dcm4chee.arc.entity.Patient;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -97,4 +98,14 @@ public class PatientVerificationEJB {
                 .setParameter(3, Patient.VerificationStatus.IN_PROCESS)
                 .executeUpdate() > 0;
     }
+
+    public int updateVerificationStatus(Collection<Long> pks, Patient.VerificationStatus status) {
+        return em.createNamedQuery(status == Patient.VerificationStatus.VERIFICATION_FAILED
+                        ? Patient.UPDATE_VERIFICATION_FAILED
+                        : Patient.UPDATE_VERIFICATION_STATUS)
+                .setParameter(1, status)
+                .setParameter(2, new Date())
+                .setParameter(3, pks)
+                .executeUpdate();
+    }
 }
@@ -57,12 +57,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.Period;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -82,6 +87,9 @@ public class PatientVerificationScheduler extends Scheduler {
     @Inject
     private PatientVerificationEJB ejb;
 
+    @Inject
+    private Event<PatientMgtContext> patientMgtEvent;
+
     protected PatientVerificationScheduler() {
         super(Mode.scheduleWithFixedDelay);
     }
@@ -111,79 +119,88 @@ public class PatientVerificationScheduler extends Scheduler {
 
         PDQService pdqService;
         try {
-            pdqService = serviceFactory.getPDQService(descriptor);
+            pdqService = serviceFactory.getPDQService(descriptor).pooled();
         } catch (Exception e) {
             LOG.warn("Failed to initialize {}:\n", descriptor, e);
             return;
         }
 
+        try {
+            verifyPatients(arcDev, new Verification(arcDev, pdqService));
+        } finally {
+            pdqService.close();
+        }
+    }
+
+    private void verifyPatients(ArchiveDeviceExtension arcDev, Verification verification) {
         int fetchSize;
-        boolean adjustIssuerOfPatientID = arcDev.isPatientVerificationAdjustIssuerOfPatientID();
         while (arcDev.getPatientVerificationPollingInterval() != null
-                && verifyPatients(pdqService,
+                && verifyPatients(verification,
                 ejb.findByVerificationStatus(Patient.VerificationStatus.UNVERIFIED,
                     fetchSize = arcDev.getPatientVerificationFetchSize()),
-                fetchSize, adjustIssuerOfPatientID));
+                fetchSize));
         Period period;
         while (arcDev.getPatientVerificationPollingInterval() != null
             && (period = arcDev.getPatientVerificationPeriod()) != null
-            && verifyPatients(pdqService,
+            && verifyPatients(verification,
                 ejb.findByVerificationStatusAndTime(Patient.VerificationStatus.VERIFIED,
                         Timestamp.valueOf(LocalDateTime.now().minus(period)),
                         fetchSize = arcDev.getPatientVerificationFetchSize()),
-                fetchSize, adjustIssuerOfPatientID));
+                fetchSize));
         while (arcDev.getPatientVerificationPollingInterval() != null
             && (period = arcDev.getPatientVerificationPeriodOnNotFound()) != null
-            && verifyPatients(pdqService,
+            && verifyPatients(verification,
                 ejb.findByVerificationStatusAndTime(Patient.VerificationStatus.NOT_FOUND,
                         Timestamp.valueOf(LocalDateTime.now().minus(period)),
                         fetchSize = arcDev.getPatientVerificationFetchSize()),
-                fetchSize, adjustIssuerOfPatientID));
+                fetchSize));
         Duration interval;
         int maxRetries;
         while(arcDev.getPatientVerificationPollingInterval() != null
             && (interval = arcDev.getPatientVerificationRetryInterval()) != null
             && (maxRetries = arcDev.getPatientVerificationMaxRetries()) != 0
-            && verifyPatients(pdqService,
+            && verifyPatients(verification,
                 ejb.findByVerificationStatusAndTimeAndRetries(Patient.VerificationStatus.VERIFICATION_FAILED,
                     new Date(System.currentTimeMillis() - interval.getSeconds() * 1000L),
                     maxRetries,
                     fetchSize = arcDev.getPatientVerificationFetchSize()),
-                fetchSize, adjustIssuerOfPatientID));
+                fetchSize));
     }
 
-    private boolean verifyPatients(PDQService pdqService, List<Patient.IDWithPkAndVerificationStatus> patients, int fetchSize,
-                                   boolean adjustIssuerOfPatientID) {
+    private boolean verifyPatients(Verification verification, List<Patient.IDWithPkAndVerificationStatus> patients,
+                                   int fetchSize) {
         for (Patient.IDWithPkAndVerificationStatus patient : patients) {
-            try {
-                if (ejb.claimPatientVerification(patient))
-                    verifyPatient(pdqService, patient, adjustIssuerOfPatientID);
-            } catch (Exception e) {
-                LOG.warn("Verification of {} failed:\n", patient, e);
-            }
+            if (verification.suspended)
+                break;
+            verification.verify(patient);
         }
-        return patients.size() == fetchSize;
+        verification.await();
+        return patients.size() == fetchSize && !verification.suspended;
     }
 
-    private void verifyPatient(PDQService pdqService, Patient.IDWithPkAndVerificationStatus patient,
-                               boolean adjustIssuerOfPatientID) {
+    private void verifyPatient(Verification verification, Patient.IDWithPkAndVerificationStatus patient) {
+        PDQService pdqService = verification.pdqService;
+        boolean adjustIssuerOfPatientID = verification.adjustIssuerOfPatientID;
         PatientMgtContext ctx = patientService.createPatientMgtContextScheduler();
         ctx.setPatientID(patient.idWithIssuer);
         ctx.setPDQServiceURI(pdqService.getPDQServiceDescriptor().getPDQServiceURI().toString());
         Attributes attrs;
         try {
+            verification.acquireRequestPermit();
             attrs = pdqService.query(adjustIssuerOfPatientID
                     ? patient.idWithIssuer.withoutIssuer()
                     : patient.idWithIssuer);
         } catch (PDQServiceException e) {
+            verification.onFailure();
             ctx.setPatientVerificationStatus(Patient.VerificationStatus.VERIFICATION_FAILED);
-            patientService.updatePatientStatus(ctx);
+            updateStatus(patient, ctx);
             LOG.info("Verification of {} failed against {}\n:", patient, pdqService.getPDQServiceDescriptor(), e);
             return;
         }
+        verification.onSuccess();
         if (attrs == null) {
             ctx.setPatientVerificationStatus(Patient.VerificationStatus.NOT_FOUND);
-            patientService.updatePatientStatus(ctx);
+            updateStatus(patient, ctx);
             LOG.info("{} not found at {} - no verification", patient, pdqService.getPDQServiceDescriptor());
             return;
         }
@@ -204,4 +221,98 @@ public class PatientVerificationScheduler extends Scheduler {
                     pdqService.getPDQServiceDescriptor());
         }
     }
+
+    private void updateStatus(Patient.IDWithPkAndVerificationStatus patient, PatientMgtContext ctx) {
+        ejb.updateVerificationStatus(Collections.singletonList(patient.pk), ctx.getPatientVerificationStatus());
+        patientMgtEvent.fire(ctx);
+    }
+
+    /**
+     * State of one execution of the scheduler, shared by the threads verifying Patients concurrently.
+     */
+    private class Verification {
+        final PDQService pdqService;
+        final boolean adjustIssuerOfPatientID;
+        final int threads;
+        final Semaphore semaphore;
+        final long requestIntervalNanos;
+        final int maxConsecutiveFailures;
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        long nextRequestTime = System.nanoTime();
+        volatile boolean suspended;
+
+        Verification(ArchiveDeviceExtension arcDev, PDQService pdqService) {
+            this.pdqService = pdqService;
+            this.adjustIssuerOfPatientID = arcDev.isPatientVerificationAdjustIssuerOfPatientID();
+            this.threads = arcDev.getPatientVerificationThreads();
+            this.semaphore = threads > 1 ? new Semaphore(threads) : null;
+            int maxRequestsPerSecond = arcDev.getPatientVerificationMaxRequestsPerSecond();
+            this.requestIntervalNanos = maxRequestsPerSecond > 0 ? 1_000_000_000L / maxRequestsPerSecond : 0L;
+            this.maxConsecutiveFailures = arcDev.getPatientVerificationMaxConsecutiveFailures();
+        }
+
+        void verify(Patient.IDWithPkAndVerificationStatus patient) {
+            if (semaphore == null) {
+                claimAndVerify(patient);
+                return;
+            }
+            semaphore.acquireUninterruptibly();
+            device.execute(() -> {
+                try {
+                    claimAndVerify(patient);
+                } finally {
+                    semaphore.release();
+                }
+            });
+        }
+
+        private void claimAndVerify(Patient.IDWithPkAndVerificationStatus patient) {
+            try {
+                if (!suspended && ejb.claimPatientVerification(patient))
+                    verifyPatient(this, patient);
+            } catch (Exception e) {
+                LOG.warn("Verification of {} failed:\n", patient, e);
+            }
+        }
+
+        void acquireRequestPermit() throws PDQServiceException {
+            if (requestIntervalNanos == 0L)
+                return;
+
+            long delay;
+            synchronized (this) {
+                long now = System.nanoTime();
+                nextRequestTime = Math.max(nextRequestTime, now);
+                delay = nextRequestTime - now;
+                nextRequestTime += requestIntervalNanos;
+            }
+            if (delay > 0L)
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PDQServiceException(e);
+                }
+        }
+
+        void onSuccess() {
+            consecutiveFailures.set(0);
+        }
+
+        void onFailure() {
+            if (maxConsecutiveFailures > 0 && consecutiveFailures.incrementAndGet() >= maxConsecutiveFailures
+                    && !suspended) {
+                suspended = true;
+                LOG.warn("Suspend verification of Patients against {} after {} consecutive failures",
+                        pdqService.getPDQServiceDescriptor(), maxConsecutiveFailures);
+            }
+        }
+
+        void await() {
+            if (semaphore != null) {
+                semaphore.acquireUninterruptibly(threads);
+                semaphore.release(threads);
+            }
+        }
+    }
 }
@@ -49,8 +49,20 @@ import org.dcm4chee.arc.conf.PDQServiceDescriptor;
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @since Oct 2018
  */
-public interface PDQService {
+public interface PDQService extends AutoCloseable {
     PDQServiceDescriptor getPDQServiceDescriptor();
 
     Attributes query(IDWithIssuer pid) throws PDQServiceException;
+
+    /**
+     * Returns a PDQ Service, which reuses connections to the PDQ Service provider for subsequent - and also
+     * concurrent - queries, until it is closed.
+     */
+    default PDQService pooled() {
+        return this;
+    }
+
+    @Override
+    default void close() {
+    }
 }
@@ -136,7 +136,8 @@ public class ProcedureServiceEJB {
             IssuerEntity issuerOfAdmissionID,
             MWLItem mwlItem, Attributes mwlAttrs) {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
-        mwlItem.setAttributes(mwlAttrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr());
+        mwlItem.setAttributes(mwlAttrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr(),
+                arcDev.isSearchTokenMaintenance());
         mwlItem.setIssuerOfAccessionNumber(issuerOfAccessionNumber);
         mwlItem.setIssuerOfAdmissionID(issuerOfAdmissionID);
         mwlItem.setInstitutionCode(findOrCreateCode(mwlAttrs, Tag.InstitutionCodeSequence));
@@ -177,7 +178,8 @@ public class ProcedureServiceEJB {
         Attributes spsItem = attrs.getNestedDataset(Tag.ScheduledProcedureStepSequence);
         if (!spsItem.containsValue(Tag.ScheduledProcedureStepStartDate))
             spsItem.setDate(Tag.ScheduledProcedureStepStartDateAndTime, new Date());
-        mwlItem.setAttributes(attrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr());
+        mwlItem.setAttributes(attrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr(),
+                arcDev.isSearchTokenMaintenance());
         mwlItem.setIssuerOfAccessionNumber(issuerOfAccessionNumber);
         mwlItem.setIssuerOfAdmissionID(issuerOfAdmissionID);
         mwlItem.setInstitutionCode(findOrCreateCode(attrs, Tag.InstitutionCodeSequence));
@@ -254,7 +256,8 @@ public class ProcedureServiceEJB {
                     .getNestedDataset(Tag.ScheduledProcedureStepSequence);
             if (!spsItemMWL.getString(Tag.ScheduledProcedureStepStatus).equals(ctx.getSpsStatus().name())) {
                 spsItemMWL.setString(Tag.ScheduledProcedureStepStatus, VR.CS, ctx.getSpsStatus().name());
-                mwl.setAttributes(mwlAttrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr());
+                mwl.setAttributes(mwlAttrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr(),
+                        arcDev.isSearchTokenMaintenance());
                 ctx.setEventActionCode(AuditMessages.EventActionCode.Update);
             }
         }
@@ -272,7 +275,8 @@ public class ProcedureServiceEJB {
                 sps.setString(Tag.ScheduledProcedureStepStatus, VR.CS, status.name());
                 mwlAttrs.newSequence(Tag.ScheduledProcedureStepSequence, 1).add(sps);
             }
-            mwl.setAttributes(mwlAttrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr());
+            mwl.setAttributes(mwlAttrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr(),
+                    arcDev.isSearchTokenMaintenance());
         });
         return mwlItems;
     }
@@ -325,7 +329,8 @@ public class ProcedureServiceEJB {
         attrs.remove(Tag.ScheduledProcedureStepSequence);
         sps.setString(Tag.ScheduledProcedureStepStatus, VR.CS, spsStatus.name());
         attrs.newSequence(Tag.ScheduledProcedureStepSequence, 1).add(sps);
-        mwl.setAttributes(attrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr());
+        mwl.setAttributes(attrs, arcDev.getAttributeFilter(Entity.MWL), arcDev.getFuzzyStr(),
+                arcDev.isSearchTokenMaintenance());
     }
 
     private boolean updateStudySeriesAttributesFromMWL(ProcedureContext ctx,
@@ -355,20 +360,22 @@ public class ProcedureServiceEJB {
                         device.getDeviceName(),
                         modified)
                     : studyAttr,
-                    studyFilter, arcDev.getFuzzyStr());
+                    studyFilter, arcDev.getFuzzyStr(), arcDev.isSearchTokenMaintenance());
         }
         Set<String> sourceSeriesIUIDs = ctx.getSourceSeriesInstanceUIDs();
         for (Series series : seriesList)
             if (sourceSeriesIUIDs == null || sourceSeriesIUIDs.contains(series.getSeriesInstanceUID()))
                 updateSeriesAttributes(series, mwlAttr, issuerOfAccessionNumber,
-                        arcDev.getAttributeFilter(Entity.Series), arcDev.getFuzzyStr(), now, ctx);
+                        arcDev.getAttributeFilter(Entity.Series), arcDev.getFuzzyStr(),
+                        arcDev.isSearchTokenMaintenance(), now, ctx);
 
         LOG.info("Study and series attributes updated successfully : " + ctx.getStudyInstanceUID());
         return true;
     }
 
     private void updateSeriesAttributes(Series series, Attributes mwlAttr, IssuerEntity issuerOfAccessionNumber,
-                                        AttributeFilter filter, FuzzyStr fuzzyStr, Date now, ProcedureContext ctx) {
+                                        AttributeFilter filter, FuzzyStr fuzzyStr, boolean searchTokens,
+                                        Date now, ProcedureContext ctx) {
         Attributes seriesAttr = series.getAttributes();
         Attributes modified = new Attributes(seriesAttr, Tag.RequestAttributesSequence);
         if (modified.containsValue(Tag.RequestAttributesSequence) && recordAttributeModification(ctx))
@@ -384,10 +391,11 @@ public class ProcedureServiceEJB {
         requestAttributes.clear();
         for (Attributes spsItem : spsSeq) {
             Attributes rqAttrsItem = MWLItem.addItemToRequestAttributesSequence(rqAttrsSeq, mwlAttr, spsItem);
-            SeriesRequestAttributes request = new SeriesRequestAttributes(rqAttrsItem, issuerOfAccessionNumber, fuzzyStr);
+            SeriesRequestAttributes request = new SeriesRequestAttributes(
+                    rqAttrsItem, issuerOfAccessionNumber, fuzzyStr, searchTokens);
             requestAttributes.add(request);
         }
-        series.setAttributes(seriesAttr, filter, fuzzyStr);
+        series.setAttributes(seriesAttr, filter, fuzzyStr, searchTokens);
     }
 
     public void updateStudySeriesAttributes(ProcedureContext ctx) {
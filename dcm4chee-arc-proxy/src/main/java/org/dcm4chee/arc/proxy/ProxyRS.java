@@ -42,6 +42,7 @@ package org.dcm4chee.arc.proxy;
 
 import org.dcm4che3.net.Device;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.keycloak.HttpClientRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,10 +50,15 @@ import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.*;
-import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.SyncInvoker;
-import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.*;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -65,9 +71,16 @@ public class ProxyRS {
 
     private static final Logger LOG = LoggerFactory.getLogger(ProxyRS.class);
 
+    private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade",
+            "host", "content-length"));
+
     @Inject
     private Device device;
 
+    @Inject
+    private HttpClientRegistry httpClientRegistry;
+
     @Context
     private HttpServletRequest httpRequest;
 
@@ -81,6 +94,31 @@ public class ProxyRS {
         return new ResponseDelegate(resp);
     }
 
+    @POST
+    public Response doPost(InputStream in) {
+        logRequest();
+        Response resp = invoker().post(entity(in));
+        return new ResponseDelegate(resp);
+    }
+
+    @PUT
+    public Response doPut(InputStream in) {
+        logRequest();
+        Response resp = invoker().put(entity(in));
+        return new ResponseDelegate(resp);
+    }
+
+    @DELETE
+    public Response doDelete() {
+        logRequest();
+        Response resp = invoker().delete();
+        return new ResponseDelegate(resp);
+    }
+
+    private Entity<InputStream> entity(InputStream in) {
+        return Entity.entity(in, httpHeaders.getMediaType());
+    }
+
     private void logRequest() {
         LOG.info("Process {} {}?{} from {}@{}",
                 httpRequest.getMethod(),
@@ -99,9 +137,21 @@ public class ProxyRS {
                             .entity("Proxy Upstream URL configuration missing.")
                             .build());
 
-        WebTarget target = ClientBuilder.newBuilder()
-                            .build()
-                            .target(proxyUpstreamURL + "?" + httpRequest.getQueryString());
-        return target.request().headers((MultivaluedMap) httpHeaders.getRequestHeaders());
+        try {
+            return httpClientRegistry.getClient(proxyUpstreamURL)
+                    .target(proxyUpstreamURL + "?" + httpRequest.getQueryString())
+                    .request()
+                    .headers(forwardedHeaders());
+        } catch (Exception e) {
+            throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private MultivaluedMap<String, Object> forwardedHeaders() {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+        for (Map.Entry<String, List<String>> entry : httpHeaders.getRequestHeaders().entrySet())
+            if (!HOP_BY_HOP_HEADERS.contains(entry.getKey().toLowerCase()))
+                headers.addAll(entry.getKey(), entry.getValue().toArray());
+        return headers;
     }
 }
@@ -49,6 +49,7 @@ import org.dcm4che3.net.WebApplication;
 import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4che3.net.service.QueryRetrieveLevel2;
 import org.dcm4che3.ws.rs.MediaTypes;
+import org.dcm4chee.arc.QidoCountCache;
 import org.dcm4chee.arc.conf.ArchiveAEExtension;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.AttributeSet;
@@ -94,6 +95,8 @@ import java.util.stream.Stream;
 public class QidoRS {
 
     private static final Logger LOG = LoggerFactory.getLogger(QidoRS.class);
+    private static final Set<String> NOT_COUNTED_PARAMS = new HashSet<>(Arrays.asList(
+            "offset", "limit", "includefield", "includedefaults", "orderby", "accept", "exactcount"));
 
     @Inject
     private QueryService service;
@@ -110,6 +113,9 @@ public class QidoRS {
     @Inject
     private Device device;
 
+    @Inject
+    private QidoCountCache countCache;
+
     @PathParam("AETitle")
     private String aet;
 
@@ -192,7 +198,13 @@ public class QidoRS {
     @Pattern(regexp = "UPDATEABLE|FROZEN|REJECTED|EXPORT_SCHEDULED|FAILED_TO_EXPORT|FAILED_TO_REJECT")
     private String expirationState;
 
+    @QueryParam("exactcount")
+    @Pattern(regexp = "true|false")
+    private String exactcount;
+
     private char csvDelimiter = ',';
+    private int maxMatches;
+    private boolean moreMatches;
 
     @Override
     public String toString() {
@@ -385,7 +397,8 @@ public class QidoRS {
             return Response.ok("{\"count\":0}").build();
         }
         try (Query query = model.createQuery(service, ctx)) {
-            return Response.ok("{\"count\":" + query.fetchCount() + '}').build();
+            return Response.ok("{\"count\":" + fetchCount(query, model, studyInstanceUID, seriesInstanceUID) + '}')
+                    .build();
         } catch (Exception e) {
             return errResponseAsTextPlain(exceptionAsString(e), Response.Status.INTERNAL_SERVER_ERROR);
         }
@@ -419,28 +432,41 @@ public class QidoRS {
                         .type(output.type())
                         .build();
             }
+            AttributesCoercion coercion = model.getAttributesCoercion(service, ctx);
+            ctx.setDecodeReturnKeysOnly(coercion == null
+                    && !queryAttrs.isIncludeAll()
+                    && !queryAttrs.isIncludePrivate());
             try (Query query = model.createQuery(service, ctx)) {
                 int maxResults = arcAE.qidoMaxNumberOfResults();
                 int offsetInt = parseInt(offset);
                 int limitInt = parseInt(limit);
                 int remaining = 0;
                 if (maxResults > 0 && (limitInt == 0 || limitInt > maxResults) && !ctx.isConsiderPurgedInstances()) {
-                    int numResults = (int) (query.fetchCount() - offsetInt);
-                    if (numResults <= 0)
-                        return Response.noContent().build();
-
-                    remaining = numResults - maxResults;
+                    if (Boolean.parseBoolean(exactcount)) {
+                        int numResults = (int) (fetchCount(query, model, studyInstanceUID, seriesInstanceUID)
+                                - offsetInt);
+                        if (numResults <= 0)
+                            return Response.noContent().build();
+
+                        remaining = numResults - maxResults;
+                    } else {
+                        maxMatches = maxResults;
+                    }
                 }
-                query.executeQuery(arcdev.getQueryFetchSize(), offsetInt, remaining > 0 ? maxResults : limitInt);
+                query.executeQuery(arcdev.getQueryFetchSize(), offsetInt,
+                        maxMatches > 0 ? maxMatches + 1 : remaining > 0 ? maxResults : limitInt);
                 if (!query.hasMoreMatches())
                     return Response.noContent().build();
 
+                Object entity = output.entity(this, method, query, model, coercion);
                 Response.ResponseBuilder builder = Response.ok();
                 if (remaining > 0)
                     builder.header("Warning", warning(remaining));
+                else if (moreMatches)
+                    builder.header("Warning", warning(cachedCount(model, studyInstanceUID, seriesInstanceUID)
+                            - offsetInt - maxMatches));
 
-                return builder.entity(
-                        output.entity(this, method, query, model, model.getAttributesCoercion(service, ctx)))
+                return builder.entity(entity)
                         .type(output.type())
                         .build();
             }
@@ -506,9 +532,59 @@ public class QidoRS {
         throw new WebApplicationException(Response.Status.NOT_ACCEPTABLE);
     }
 
-    private String warning(int remaining) {
+    private String warning(long remaining) {
         return "299 " + request.getServerName() + ':' + request.getServerPort()
-                + " \"There are " + remaining + " additional results that can be requested\"";
+                + (remaining > 0
+                    ? " \"There are " + remaining + " additional results that can be requested\""
+                    : " \"There are additional results that can be requested\"");
+    }
+
+    private long fetchCount(Query query, Model model, String studyInstanceUID, String seriesInstanceUID) {
+        if (device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getQidoCountCacheStaleTimeout() == null)
+            return query.fetchCount();
+
+        String key = countKey(model, studyInstanceUID, seriesInstanceUID);
+        Long count;
+        synchronized (countCache) {
+            count = countCache.get(key);
+        }
+        if (count == null) {
+            count = query.fetchCount();
+            synchronized (countCache) {
+                countCache.put(key, count);
+            }
+        } else {
+            LOG.debug("{}: Use cached count {}", this, count);
+        }
+        return count;
+    }
+
+    private long cachedCount(Model model, String studyInstanceUID, String seriesInstanceUID) {
+        if (device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getQidoCountCacheStaleTimeout() == null)
+            return 0L;
+
+        String key = countKey(model, studyInstanceUID, seriesInstanceUID);
+        Long count;
+        synchronized (countCache) {
+            count = countCache.get(key);
+        }
+        return count != null ? count : 0L;
+    }
+
+    private String countKey(Model model, String studyInstanceUID, String seriesInstanceUID) {
+        StringBuilder sb = new StringBuilder(aet).append('/').append(model);
+        if (studyInstanceUID != null)
+            sb.append('/').append(studyInstanceUID);
+        if (seriesInstanceUID != null)
+            sb.append('/').append(seriesInstanceUID);
+        new TreeMap<>(uriInfo.getQueryParameters()).forEach((name, values) -> {
+            if (!NOT_COUNTED_PARAMS.contains(name)) {
+                List<String> sorted = new ArrayList<>(values);
+                Collections.sort(sorted);
+                sb.append('&').append(name).append('=').append(String.join(",", sorted));
+            }
+        });
+        return sb.toString();
     }
 
     private QueryContext newQueryContext(String method, QueryAttributes queryAttrs, String studyInstanceUID,
@@ -727,7 +803,7 @@ public class QidoRS {
             throws DicomServiceException {
         MultipartRelatedOutput output = new MultipartRelatedOutput();
         int count = 0;
-        while (query != null && query.hasMoreMatches()) {
+        while (query != null && hasMoreMatches(query, count)) {
             Attributes tmp = query.nextMatch();
             if (tmp == null)
                 continue;
@@ -778,6 +854,21 @@ public class QidoRS {
         };
     }
 
+    private boolean hasMoreMatches(Query query, int count) throws DicomServiceException {
+        if (!query.hasMoreMatches())
+            return false;
+
+        if (maxMatches == 0 || count < maxMatches)
+            return true;
+
+        while (query.hasMoreMatches())
+            if (query.nextMatch() != null) {
+                moreMatches = true;
+                break;
+            }
+        return false;
+    }
+
     private List<Attributes> matches(String method, Query query, Model model, AttributesCoercion coercion)
             throws DicomServiceException {
         if (query == null)
@@ -785,7 +876,7 @@ public class QidoRS {
 
         final ArrayList<Attributes> matches = new ArrayList<>();
         int count = 0;
-        while (query.hasMoreMatches()) {
+        while (hasMoreMatches(query, count)) {
             Attributes tmp = query.nextMatch();
             if (tmp == null)
                 continue;
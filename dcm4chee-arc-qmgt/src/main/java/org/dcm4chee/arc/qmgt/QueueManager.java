@@ -61,6 +61,9 @@ public interface QueueManager {
     QueueMessage scheduleMessage(String queueName, ObjectMessage message, int priority, String batchID, long delay)
             throws QueueSizeLimitExceededException;
 
+    List<QueueMessage> scheduleMessages(String queueName, List<ObjectMessage> messages, int priority, String batchID,
+            long delay) throws QueueSizeLimitExceededException;
+
     long countScheduledMessagesOnThisDevice(String queueName);
 
     QueueMessage onProcessingStart(String msgId);
@@ -89,6 +92,8 @@ public interface QueueManager {
 
     int deleteTasks(TaskQueryParam taskQueryParam, int deleteTaskFetchSize);
 
+    int deleteTasks(List<String> msgIds);
+
     Iterator<QueueMessage> listQueueMessages(TaskQueryParam taskQueryParam, int offset, int limit);
 
     long countTasks(TaskQueryParam taskQueryParam);
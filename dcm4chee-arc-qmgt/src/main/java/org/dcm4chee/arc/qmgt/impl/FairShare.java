@@ -0,0 +1,99 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.qmgt.impl;
+
+import javax.jms.Message;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lowers the priority of Tasks of Batches or Users which recently scheduled many Tasks on a Queue, so Tasks of
+ * small Batches are processed before the backlog of large Batches. The number of recently scheduled Tasks decays
+ * exponentially with the configured half-life. Each doubling of that number beyond the configured quantum
+ * decrements the priority by one, but not below the lowest priority of its class, so expedited Tasks - with a
+ * priority above {@link Message#DEFAULT_PRIORITY} - remain expedited.
+ */
+class FairShare {
+
+    private static final int PURGE_THRESHOLD = 1000;
+
+    private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+
+    int priorityOf(int priority, int quantum, long halfLife, long now, String... keys) {
+        int demotion = 0;
+        for (String key : keys)
+            if (key != null)
+                demotion = Math.max(demotion,
+                        demotionOf(usages.computeIfAbsent(key, x -> new Usage()).add(halfLife, now), quantum));
+        if (usages.size() > PURGE_THRESHOLD)
+            purge(halfLife, now);
+        return Math.max(priority > Message.DEFAULT_PRIORITY ? Message.DEFAULT_PRIORITY + 1 : 0,
+                priority - demotion);
+    }
+
+    int size() {
+        return usages.size();
+    }
+
+    private void purge(long halfLife, long now) {
+        usages.values().removeIf(usage -> usage.valueAt(halfLife, now) < 1);
+    }
+
+    private static int demotionOf(double usage, int quantum) {
+        return 31 - Integer.numberOfLeadingZeros(1 + (int) (usage / quantum));
+    }
+
+    private static class Usage {
+        private double value;
+        private long time;
+
+        synchronized double add(long halfLife, long now) {
+            double prev = valueAt(halfLife, now);
+            value = prev + 1;
+            time = now;
+            return prev;
+        }
+
+        synchronized double valueAt(long halfLife, long now) {
+            return now > time ? value * Math.pow(0.5, (double) (now - time) / halfLife) : value;
+        }
+    }
+}
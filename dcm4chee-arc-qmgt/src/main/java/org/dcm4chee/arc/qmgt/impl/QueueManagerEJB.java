@@ -66,6 +66,7 @@ import javax.persistence.*;
 import javax.persistence.criteria.*;
 import javax.persistence.metamodel.SingularAttribute;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -93,6 +94,12 @@ public class QueueManagerEJB {
     @Inject
     private Event<MessageCanceled> messageCanceledEvent;
 
+    @Inject
+    private QueueSizeTracker queueSizes;
+
+    @Inject
+    private TaskDispatcher dispatcher;
+
     @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public ObjectMessage createObjectMessage(Serializable object) {
         return jmsCtx.createObjectMessage(object);
@@ -101,37 +108,95 @@ public class QueueManagerEJB {
     public QueueMessage scheduleMessage(String queueName, ObjectMessage msg, int priority, String batchID, long delay)
             throws QueueSizeLimitExceededException {
         QueueDescriptor queueDescriptor = descriptorOf(queueName);
-        int maxQueueSize = queueDescriptor.getMaxQueueSize();
-        if (maxQueueSize > 0 && maxQueueSize < countScheduledMessagesOnThisDevice(queueName))
-            throw new QueueSizeLimitExceededException(queueDescriptor);
-
-        sendMessage(queueDescriptor, msg, delay, priority);
+        checkQueueSize(queueDescriptor);
+        sendMessage(queueDescriptor, msg, delay, dispatcher.priorityOf(queueDescriptor, priority, batchID, msg));
         QueueMessage entity = new QueueMessage(device.getDeviceName(), queueName, msg, delay);
         entity.setBatchID(batchID);
         em.persist(entity);
+        queueSizes.increment(entity);
+        if (priority > Message.DEFAULT_PRIORITY)
+            dispatcher.onExpeditedTasksScheduled(queueName, 1);
         LOG.info("Schedule Task[id={}] at Queue {}", entity.getMessageID(), entity.getQueueName());
         return entity;
     }
 
+    public List<QueueMessage> scheduleMessages(String queueName, List<ObjectMessage> msgs, int priority,
+            String batchID, long delay) throws QueueSizeLimitExceededException {
+        QueueDescriptor queueDescriptor = descriptorOf(queueName);
+        checkQueueSize(queueDescriptor);
+        JMSProducer producer = jmsCtx.createProducer().setDeliveryDelay(delay);
+        Queue queue = lookup(queueDescriptor.getJndiName());
+        List<QueueMessage> entities = new ArrayList<>(msgs.size());
+        for (ObjectMessage msg : msgs) {
+            producer.setPriority(dispatcher.priorityOf(queueDescriptor, priority, batchID, msg)).send(queue, msg);
+            QueueMessage entity = new QueueMessage(device.getDeviceName(), queueName, msg, delay);
+            entity.setBatchID(batchID);
+            em.persist(entity);
+            queueSizes.increment(entity);
+            entities.add(entity);
+        }
+        em.flush();
+        if (priority > Message.DEFAULT_PRIORITY)
+            dispatcher.onExpeditedTasksScheduled(queueName, entities.size());
+        LOG.info("Schedule {} Tasks at Queue {}", entities.size(), queueName);
+        return entities;
+    }
+
+    private void checkQueueSize(QueueDescriptor queueDescriptor) throws QueueSizeLimitExceededException {
+        int maxQueueSize = queueDescriptor.getMaxQueueSize();
+        if (maxQueueSize > 0 && maxQueueSize < countScheduledMessagesOnThisDevice(queueDescriptor.getQueueName()))
+            throw new QueueSizeLimitExceededException(queueDescriptor);
+    }
+
     public long countScheduledMessagesOnThisDevice(String queueName) {
-        return em.createNamedQuery(QueueMessage.COUNT_BY_DEVICE_AND_QUEUE_NAME_AND_STATUS, Long.class)
+        return queueSizes.size(queueName, QueueMessage.Status.SCHEDULED);
+    }
+
+    public List<Tuple> countTasksOnThisDeviceByQueueNameAndStatus() {
+        return em.createNamedQuery(QueueMessage.COUNT_BY_DEVICE_GROUP_BY_QUEUE_NAME_AND_STATUS, Tuple.class)
                 .setParameter(1, device.getDeviceName())
-                .setParameter(2, queueName)
-                .setParameter(3, QueueMessage.Status.SCHEDULED).getSingleResult();
+                .getResultList();
     }
 
+    /**
+     * Starts processing of the Task. A normal priority Task, which shall not start processing because all consumers
+     * not reserved for expedited Tasks are busy, is returned with Status SCHEDULED if {@code hold} is
+     * {@code true}, otherwise it is rescheduled.
+     */
     @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
-    public QueueMessage onProcessingStart(String msgId) {
+    public QueueMessage onProcessingStart(String msgId, boolean hold) {
         QueueMessage entity = findQueueMessage(msgId);
         if (entity == null) {
             LOG.info("Suppress processing of already deleted Task[id={}]", msgId);
         } else switch (entity.getStatus()) {
-            case IN_PROCESS:
             case SCHEDULED:
+                QueueDescriptor descriptor = descriptorOf(entity.getQueueName());
+                if (dispatcher.isReservedForExpeditedTasks(descriptor, entity)) {
+                    if (hold) {
+                        LOG.debug("Hold processing of Task[id={}] from Queue {} " +
+                                        "- consumers reserved for expedited Tasks",
+                                entity.getMessageID(), entity.getQueueName());
+                        return entity;
+                    }
+                    LOG.info("Defer processing of Task[id={}] from Queue {} by {} " +
+                                    "- consumers reserved for expedited Tasks",
+                            entity.getMessageID(), entity.getQueueName(), descriptor.getRetryDelay());
+                    rescheduleTask(entity, descriptor, descriptor.getRetryDelay().toMillis());
+                    return null;
+                }
+                long delay = dispatcher.delayByRateLimit(descriptor, entity);
+                if (delay > 0) {
+                    LOG.debug("Defer processing of Task[id={}] from Queue {} by {} ms to {} Tasks/s",
+                            entity.getMessageID(), entity.getQueueName(), delay, descriptor.getMaxTasksPerSecond());
+                    rescheduleTask(entity, descriptor, delay);
+                    return null;
+                }
+                // fall through - start processing like of redelivered IN_PROCESS Task
+            case IN_PROCESS:
                 LOG.info("Start processing Task[id={}] from Queue {} with Status: {}",
                         entity.getMessageID(), entity.getQueueName(), entity.getStatus());
                 entity.setProcessingStartTime(new Date());
-                entity.setStatus(QueueMessage.Status.IN_PROCESS);
+                setStatus(entity, QueueMessage.Status.IN_PROCESS);
                 setUpdateTime(entity);
                 return entity;
             default:
@@ -152,7 +217,7 @@ public class QueueManagerEJB {
         String queueName = entity.getQueueName();
         entity.setProcessingEndTime(new Date());
         entity.setOutcomeMessage(outcome.getDescription());
-        entity.setStatus(status);
+        setStatus(entity, status);
         setUpdateTime(entity);
         if (status == QueueMessage.Status.COMPLETED
                 || status == QueueMessage.Status.WARNING && !descriptorOf(queueName).isRetryOnWarning()) {
@@ -164,7 +229,6 @@ public class QueueManagerEJB {
         if (delay >= 0) {
             LOG.info("Failed processing of Task[id={}] at Queue {} with Status {} - retry",
                     msgId, queueName, status);
-            entity.setStatus(QueueMessage.Status.SCHEDULED);
             rescheduleTask(entity, descriptor, delay * 1000L);
             return entity;
         }
@@ -187,7 +251,7 @@ public class QueueManagerEJB {
         long delay = descriptor.getRetryDelayInSeconds(entity.incrementNumberOfFailures());
         if (delay < 0) {
             LOG.warn("Failed processing of Task[id={}] at Queue {}:\n", msgId, entity.getQueueName(), e);
-            entity.setStatus(QueueMessage.Status.FAILED);
+            setStatus(entity, QueueMessage.Status.FAILED);
             setUpdateTime(entity);
         } else {
             LOG.info("Failed processing of Task[id={}] at Queue {} - retry:\n", msgId, entity.getQueueName(), e);
@@ -217,12 +281,18 @@ public class QueueManagerEJB {
     }
 
     private void cancelTask(QueueMessage entity) {
-        entity.setStatus(QueueMessage.Status.CANCELED);
+        setStatus(entity, QueueMessage.Status.CANCELED);
         setUpdateTime(entity);
         LOG.info("Cancel processing of Task[id={}] at Queue {}", entity.getMessageID(), entity.getQueueName());
         messageCanceledEvent.fire(new MessageCanceled(entity.getMessageID()));
     }
 
+    private void setStatus(QueueMessage entity, QueueMessage.Status status) {
+        QueueMessage.Status prevStatus = entity.getStatus();
+        entity.setStatus(status);
+        queueSizes.onUpdate(entity.getDeviceName(), entity.getQueueName(), prevStatus, entity);
+    }
+
     private void setUpdateTime(QueueMessage entity) {
         if (entity.getExportTask() != null)
             entity.getExportTask().setUpdatedTime();
@@ -307,10 +377,13 @@ public class QueueManagerEJB {
     private long updateStatus(Subquery<QueueMessage> sq, QueueMessage.Status status, Date now) {
         CriteriaUpdate<QueueMessage> q = em.getCriteriaBuilder().createCriteriaUpdate(QueueMessage.class);
         Root<QueueMessage> queueMsg = q.from(QueueMessage.class);
-        return em.createQuery(q.where(queueMsg.get(QueueMessage_.pk).in(sq))
+        int updated = em.createQuery(q.where(queueMsg.get(QueueMessage_.pk).in(sq))
                 .set(queueMsg.get(QueueMessage_.updatedTime), now)
                 .set(queueMsg.get(QueueMessage_.status), status))
                 .executeUpdate();
+        if (updated > 0)
+            queueSizes.invalidate();
+        return updated;
     }
 
     private Subquery<QueueMessage> exportTaskQuery(
@@ -462,8 +535,11 @@ public class QueueManagerEJB {
             case IN_PROCESS:
                 cancelTask(entity);
         }
-        if (queueName != null)
+        if (queueName != null && !queueName.equals(entity.getQueueName())) {
+            queueSizes.decrement(entity);
             entity.setQueueName(queueName);
+            queueSizes.increment(entity);
+        }
         entity.setNumberOfFailures(0);
         entity.setErrorMessage(null);
         entity.setOutcomeMessage(null);
@@ -472,6 +548,8 @@ public class QueueManagerEJB {
     }
 
     private void rescheduleTask(QueueMessage entity, QueueDescriptor descriptor, long delay) {
+        String prevDeviceName = entity.getDeviceName();
+        QueueMessage.Status prevStatus = entity.getStatus();
         try {
             ObjectMessage msg = entity.initProperties(createObjectMessage(entity.getMessageBody()));
             sendMessage(descriptor, msg, delay, entity.getPriority());
@@ -479,6 +557,7 @@ public class QueueManagerEJB {
             entity.setScheduledTime(new Date(System.currentTimeMillis() + delay));
             entity.setStatus(QueueMessage.Status.SCHEDULED);
             entity.setDeviceName(device.getDeviceName());
+            queueSizes.onUpdate(prevDeviceName, entity.getQueueName(), prevStatus, entity);
             setUpdateTime(entity);
             LOG.info("Reschedule Task[id={}] at Queue {}", entity.getMessageID(), entity.getQueueName());
         } catch (JMSException e) {
@@ -528,6 +607,7 @@ public class QueueManagerEJB {
         }
 
         em.remove(entity);
+        queueSizes.decrement(entity);
         LOG.info("Delete Task[id={}] from Queue {}", entity.getMessageID(), entity.getQueueName());
     }
 
@@ -618,6 +698,9 @@ public class QueueManagerEJB {
     }
 
     public long countTasks(TaskQueryParam queueTaskQueryParam) {
+        if (queueSizes.isTracked(queueTaskQueryParam))
+            return queueSizes.size(queueTaskQueryParam);
+
         CriteriaBuilder cb = em.getCriteriaBuilder();
         MatchTask matchTask = new MatchTask(cb);
 
@@ -655,42 +738,119 @@ public class QueueManagerEJB {
 
     public int deleteTasks(
             TaskQueryParam queueTaskQueryParam, int deleteTasksFetchSize) {
-        Iterator<QueueMessage> queueMsgs = listQueueMessages(queueTaskQueryParam, 0, 0, deleteTasksFetchSize);
-        int count = 0;
-        while (queueMsgs.hasNext()) {
-            deleteTask(queueMsgs.next(), true);
-            count++;
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        MatchTask matchTask = new MatchTask(cb);
+        CriteriaQuery<Tuple> q = cb.createTupleQuery();
+        Root<QueueMessage> queueMsg = q.from(QueueMessage.class);
+        List<Predicate> predicates = matchTask.queueMsgPredicates(queueMsg, queueTaskQueryParam);
+        if (!predicates.isEmpty())
+            q.where(predicates.toArray(new Predicate[0]));
+        return deleteTasks(em.createQuery(selectTaskKeys(q, queueMsg))
+                .setMaxResults(deleteTasksFetchSize)
+                .getResultList());
+    }
+
+    public int deleteTasks(List<String> msgIds) {
+        if (msgIds.isEmpty())
+            return 0;
+
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> q = cb.createTupleQuery();
+        Root<QueueMessage> queueMsg = q.from(QueueMessage.class);
+        q.where(queueMsg.get(QueueMessage_.messageID).in(msgIds));
+        return deleteTasks(em.createQuery(selectTaskKeys(q, queueMsg)).getResultList());
+    }
+
+    private CriteriaQuery<Tuple> selectTaskKeys(CriteriaQuery<Tuple> q, Root<QueueMessage> queueMsg) {
+        return q.multiselect(
+                queueMsg.get(QueueMessage_.pk),
+                queueMsg.get(QueueMessage_.messageID),
+                queueMsg.get(QueueMessage_.deviceName),
+                queueMsg.get(QueueMessage_.queueName),
+                queueMsg.get(QueueMessage_.status));
+    }
+
+    private int deleteTasks(List<Tuple> tasks) {
+        if (tasks.isEmpty())
+            return 0;
+
+        List<Long> pks = new ArrayList<>(tasks.size());
+        for (Tuple task : tasks) {
+            pks.add(task.get(0, Long.class));
+            if (task.get(4, QueueMessage.Status.class) == QueueMessage.Status.IN_PROCESS)
+                messageCanceledEvent.fire(new MessageCanceled(task.get(1, String.class)));
         }
-        return count;
-    }
-
-    public void retryInProcessTasks() {
-        device.getDeviceExtension(ArchiveDeviceExtension.class)
-                .getQueueDescriptors()
-                .forEach(desc -> {
-                    LOG.info("Check for tasks left in status IN PROCESS for Queue[Name={}, Description={}]",
-                            desc.getQueueName(), desc.getDescription());
-                    if (desc.isRetryInProcessOnStartup())
-                        em.createNamedQuery(QueueMessage.FIND_BY_STATUS_AND_QUEUE_NAME, QueueMessage.class)
-                                .setParameter(1, QueueMessage.Status.IN_PROCESS)
-                                .setParameter(2, desc.getQueueName())
-                                .getResultList()
-                                .forEach(queueMsg -> {
-                                    LOG.info("Retry {} left in status IN PROCESS on system start-up", queueMsg);
-                                    cancelTask(queueMsg);
-                                    queueMsg.setOutcomeMessage(
-                                            "Retry IN PROCESS on start up - " + queueMsg.getOutcomeMessage());
-                                    rescheduleTask(queueMsg, desc, 0L);
-                                });
-                    else {
-                        int scheduled = em.createNamedQuery(QueueMessage.UPDATE_STATUS)
-                                .setParameter(1, QueueMessage.Status.SCHEDULED)
-                                .setParameter(2, QueueMessage.Status.IN_PROCESS)
-                                .setParameter(3, desc.getQueueName())
-                                .executeUpdate();
-                        if (scheduled > 0)
-                            LOG.info("State of {} IN PROCESS tasks changed to SCHEDULED", scheduled);
-                    }
-                });
+        deleteDiffTasks(pks);
+        deleteAssociatedTasks(ExportTask.class, ExportTask_.queueMessage, pks);
+        deleteAssociatedTasks(RetrieveTask.class, RetrieveTask_.queueMessage, pks);
+        deleteAssociatedTasks(StorageVerificationTask.class, StorageVerificationTask_.queueMessage, pks);
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaDelete<QueueMessage> q = cb.createCriteriaDelete(QueueMessage.class);
+        Root<QueueMessage> queueMsg = q.from(QueueMessage.class);
+        em.createQuery(q.where(queueMsg.get(QueueMessage_.pk).in(pks))).executeUpdate();
+        for (Tuple task : tasks)
+            queueSizes.decrement(task.get(2, String.class), task.get(3, String.class),
+                    task.get(4, QueueMessage.Status.class));
+        LOG.info("Deleted {} Tasks", tasks.size());
+        return tasks.size();
+    }
+
+    /**
+     * Diff Tasks are removed individually to cascade the deletion to their associated attributes and
+     * their Queue Messages on flush, before the remaining Queue Messages get deleted by bulk statement.
+     */
+    private void deleteDiffTasks(List<Long> queueMsgPks) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<DiffTask> q = cb.createQuery(DiffTask.class);
+        Root<DiffTask> diffTask = q.from(DiffTask.class);
+        List<DiffTask> diffTasks = em.createQuery(q.where(
+                diffTask.get(DiffTask_.queueMessage).get(QueueMessage_.pk).in(queueMsgPks)))
+                .getResultList();
+        if (diffTasks.isEmpty())
+            return;
+
+        diffTasks.forEach(em::remove);
+        em.flush();
+    }
+
+    private <T> void deleteAssociatedTasks(Class<T> taskClass, SingularAttribute<T, QueueMessage> queueMsg,
+            List<Long> queueMsgPks) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaDelete<T> q = cb.createCriteriaDelete(taskClass);
+        Root<T> task = q.from(taskClass);
+        em.createQuery(q.where(task.get(queueMsg).get(QueueMessage_.pk).in(queueMsgPks))).executeUpdate();
+    }
+
+    public List<Long> findInProcessTasks(String queueName) {
+        return em.createNamedQuery(QueueMessage.FIND_PK_BY_STATUS_AND_QUEUE_NAME, Long.class)
+                .setParameter(1, QueueMessage.Status.IN_PROCESS)
+                .setParameter(2, queueName)
+                .getResultList();
+    }
+
+    public int retryInProcessTasks(QueueDescriptor desc, List<Long> pks, long delay) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<QueueMessage> q = cb.createQuery(QueueMessage.class);
+        Root<QueueMessage> queueMsg = q.from(QueueMessage.class);
+        List<QueueMessage> queueMsgs = em.createQuery(q.where(
+                queueMsg.get(QueueMessage_.pk).in(pks),
+                cb.equal(queueMsg.get(QueueMessage_.status), QueueMessage.Status.IN_PROCESS)))
+                .getResultList();
+        for (QueueMessage entity : queueMsgs) {
+            entity.setOutcomeMessage("Retry IN PROCESS on start up - " + entity.getOutcomeMessage());
+            rescheduleTask(entity, desc, delay);
+        }
+        return queueMsgs.size();
+    }
+
+    public int rescheduleInProcessTasks(QueueDescriptor desc) {
+        int scheduled = em.createNamedQuery(QueueMessage.UPDATE_STATUS)
+                .setParameter(1, QueueMessage.Status.SCHEDULED)
+                .setParameter(2, QueueMessage.Status.IN_PROCESS)
+                .setParameter(3, desc.getQueueName())
+                .executeUpdate();
+        if (scheduled > 0)
+            queueSizes.invalidate();
+        return scheduled;
     }
-}
\ No newline at end of file
+}
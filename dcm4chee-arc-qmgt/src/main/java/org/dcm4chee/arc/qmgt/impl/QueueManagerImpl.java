@@ -38,6 +38,10 @@
 
 package org.dcm4chee.arc.qmgt.impl;
 
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.Duration;
+import org.dcm4chee.arc.conf.QueueDescriptor;
 import org.dcm4chee.arc.entity.QueueMessage;
 import org.dcm4chee.arc.event.ArchiveServiceEvent;
 import org.dcm4chee.arc.event.QueueMessageEvent;
@@ -65,9 +69,15 @@ public class QueueManagerImpl implements QueueManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(QueueManagerEJB.class);
 
+    @Inject
+    private Device device;
+
     @Inject
     private QueueManagerEJB ejb;
 
+    @Inject
+    private TaskDispatcher dispatcher;
+
     @Override
     public ObjectMessage createObjectMessage(Serializable object) {
         return ejb.createObjectMessage(object);
@@ -80,6 +90,13 @@ public class QueueManagerImpl implements QueueManager {
         return ejb.scheduleMessage(queueName, message, priority, batchID, delay);
     }
 
+    @Override
+    public List<QueueMessage> scheduleMessages(String queueName, List<ObjectMessage> messages, int priority,
+                                               String batchID, long delay)
+            throws QueueSizeLimitExceededException {
+        return ejb.scheduleMessages(queueName, messages, priority, batchID, delay);
+    }
+
     @Override
     public long countScheduledMessagesOnThisDevice(String queueName) {
         return ejb.countScheduledMessagesOnThisDevice(queueName);
@@ -88,7 +105,13 @@ public class QueueManagerImpl implements QueueManager {
     @Override
     public QueueMessage onProcessingStart(String msgId) {
         try {
-            return ejb.onProcessingStart(msgId);
+            QueueMessage entity;
+            while ((entity = ejb.onProcessingStart(msgId, true)) != null
+                    && entity.getStatus() == QueueMessage.Status.SCHEDULED) {
+                if (!dispatcher.awaitNormalPriorityConsumer(descriptorOf(entity.getQueueName())))
+                    return ejb.onProcessingStart(msgId, false);
+            }
+            return entity;
         } catch (Throwable e) {
             logDBUpdateFailed("onProcessingStart", msgId, e);
             return null;
@@ -98,7 +121,7 @@ public class QueueManagerImpl implements QueueManager {
     @Override
     public QueueMessage onProcessingSuccessful(String msgId, Outcome outcome) {
         try {
-            return ejb.onProcessingSuccessful(msgId, outcome);
+            return onProcessingEnd(ejb.onProcessingSuccessful(msgId, outcome));
         } catch (Throwable e) {
             logDBUpdateFailed("onProcessingSuccessful", msgId, e);
             return null;
@@ -108,13 +131,23 @@ public class QueueManagerImpl implements QueueManager {
     @Override
     public QueueMessage onProcessingFailed(String msgId, Throwable e) {
         try {
-            return ejb.onProcessingFailed(msgId, e);
+            return onProcessingEnd(ejb.onProcessingFailed(msgId, e));
         } catch (Throwable e1) {
             logDBUpdateFailed("onProcessingFailed", msgId, e1);
             return null;
         }
     }
 
+    private QueueMessage onProcessingEnd(QueueMessage entity) {
+        if (entity != null)
+            dispatcher.onProcessingEnd(entity.getQueueName());
+        return entity;
+    }
+
+    private QueueDescriptor descriptorOf(String queueName) {
+        return device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getQueueDescriptorNotNull(queueName);
+    }
+
     private static void logDBUpdateFailed(String method, String msgId, Throwable e) {
         LOG.error("Failed to update status of Task[id={}] in DB {}:\n", msgId, method, e);
     }
@@ -169,6 +202,11 @@ public class QueueManagerImpl implements QueueManager {
         return ejb.deleteTasks(taskQueryParam, deleteTasksFetchSize);
     }
 
+    @Override
+    public int deleteTasks(List<String> msgIds) {
+        return ejb.deleteTasks(msgIds);
+    }
+
     @Override
     public long countTasks(TaskQueryParam taskQueryParam) {
         return ejb.countTasks(taskQueryParam);
@@ -202,10 +240,48 @@ public class QueueManagerImpl implements QueueManager {
     public void onArchiveServiceEvent(@Observes ArchiveServiceEvent event) {
         switch (event.getType()) {
             case STARTED:
-                ejb.retryInProcessTasks();
+                retryInProcessTasks();
             case STOPPED:
             case RELOADED:
                 break;
         }
     }
+
+    private void retryInProcessTasks() {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        for (QueueDescriptor desc : arcDev.getQueueDescriptors()) {
+            LOG.info("Check for tasks left in status IN PROCESS for Queue[Name={}, Description={}]",
+                    desc.getQueueName(), desc.getDescription());
+            if (desc.isRetryInProcessOnStartup()) {
+                retryInProcessTasks(desc, arcDev.getQueueTasksFetchSize(), arcDev.getRetryInProcessTasksDelay());
+            } else {
+                int scheduled = ejb.rescheduleInProcessTasks(desc);
+                if (scheduled > 0)
+                    LOG.info("State of {} IN PROCESS tasks changed to SCHEDULED", scheduled);
+            }
+        }
+    }
+
+    private void retryInProcessTasks(QueueDescriptor desc, int fetchSize, Duration retryDelay) {
+        List<Long> pks = ejb.findInProcessTasks(desc.getQueueName());
+        if (pks.isEmpty())
+            return;
+
+        LOG.info("Retry {} tasks left in status IN PROCESS at Queue {} on system start-up",
+                pks.size(), desc.getQueueName());
+        long delay = 0L;
+        int retried = 0;
+        for (int fromIndex = 0; fromIndex < pks.size(); fromIndex += fetchSize) {
+            try {
+                retried += ejb.retryInProcessTasks(desc,
+                        pks.subList(fromIndex, Math.min(fromIndex + fetchSize, pks.size())), delay);
+            } catch (Exception e) {
+                LOG.warn("Failed to retry tasks left in status IN PROCESS at Queue {}:\n",
+                        desc.getQueueName(), e);
+            }
+            if (retryDelay != null)
+                delay += retryDelay.getSeconds() * 1000L;
+        }
+        LOG.info("Rescheduled {} tasks left in status IN PROCESS at Queue {}", retried, desc.getQueueName());
+    }
 }
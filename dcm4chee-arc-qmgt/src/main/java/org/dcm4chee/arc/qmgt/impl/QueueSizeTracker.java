@@ -0,0 +1,209 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.qmgt.impl;
+
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.entity.QueueMessage;
+import org.dcm4chee.arc.event.ArchiveServiceEvent;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.dcm4chee.arc.query.util.TaskQueryParam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import javax.persistence.Tuple;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Tracks the number of tasks per queue and status of this device in memory, to avoid counting
+ * the rows of the {@code queue_msg} table on scheduling of each task. Tracked numbers are loaded
+ * on first access and periodically reconciled with the database by {@link QueueSizeReconciliationScheduler}.
+ * Changes are applied after successful completion of the transaction, so rolled back updates of tasks
+ * do not alter the tracked numbers.
+ */
+@ApplicationScoped
+public class QueueSizeTracker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueueSizeTracker.class);
+    private static final QueueMessage.Status[] STATUS = QueueMessage.Status.values();
+    private static final Change INVALIDATE = new Change(null, null, 0);
+
+    private final Map<String, AtomicLongArray> sizes = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Inject
+    Device device;
+
+    @Inject
+    QueueManagerEJB ejb;
+
+    @Inject
+    MetricsService metricsService;
+
+    @Inject
+    Event<Change> changeEvent;
+
+    public long size(String queueName, QueueMessage.Status status) {
+        if (!loaded)
+            reconcile();
+        return sizesOf(queueName).get(status.ordinal());
+    }
+
+    public boolean isTracked(TaskQueryParam taskQueryParam) {
+        return taskQueryParam.getStatus() != null
+                && taskQueryParam.getStatus() != QueueMessage.Status.TO_SCHEDULE
+                && taskQueryParam.getQueueName().size() == 1
+                && device.getDeviceName().equals(taskQueryParam.getDeviceName())
+                && taskQueryParam.getBatchID() == null
+                && taskQueryParam.getJmsMessageID() == null
+                && taskQueryParam.getCreatedTime() == null
+                && taskQueryParam.getUpdatedTime() == null
+                && taskQueryParam.getUpdatedBefore() == null;
+    }
+
+    public long size(TaskQueryParam taskQueryParam) {
+        return size(taskQueryParam.getQueueName().get(0), taskQueryParam.getStatus());
+    }
+
+    public void increment(QueueMessage queueMsg) {
+        fireChange(queueMsg.getDeviceName(), queueMsg.getQueueName(), queueMsg.getStatus(), 1);
+    }
+
+    public void decrement(QueueMessage queueMsg) {
+        fireChange(queueMsg.getDeviceName(), queueMsg.getQueueName(), queueMsg.getStatus(), -1);
+    }
+
+    public void decrement(String deviceName, String queueName, QueueMessage.Status status) {
+        fireChange(deviceName, queueName, status, -1);
+    }
+
+    public void onUpdate(String prevDeviceName, String prevQueueName, QueueMessage.Status prevStatus,
+            QueueMessage queueMsg) {
+        if (prevStatus == queueMsg.getStatus()
+                && prevQueueName.equals(queueMsg.getQueueName())
+                && prevDeviceName.equals(queueMsg.getDeviceName()))
+            return;
+
+        fireChange(prevDeviceName, prevQueueName, prevStatus, -1);
+        fireChange(queueMsg.getDeviceName(), queueMsg.getQueueName(), queueMsg.getStatus(), 1);
+    }
+
+    /**
+     * Invalidates the tracked numbers after bulk updates of the status of tasks, which are not
+     * accounted individually. The numbers will be reloaded from the database on next access.
+     */
+    public void invalidate() {
+        changeEvent.fire(INVALIDATE);
+    }
+
+    public void reconcile() {
+        List<Tuple> counts = ejb.countTasksOnThisDeviceByQueueNameAndStatus();
+        Map<String, long[]> actual = new HashMap<>();
+        for (Tuple tuple : counts)
+            actual.computeIfAbsent(tuple.get(0, String.class), queueName -> new long[STATUS.length])
+                    [tuple.get(1, QueueMessage.Status.class).ordinal()] = tuple.get(2, Long.class);
+        sizes.keySet().forEach(queueName -> actual.putIfAbsent(queueName, new long[STATUS.length]));
+        actual.forEach(this::reconcile);
+        loaded = true;
+    }
+
+    public void onArchiveServiceEvent(@Observes ArchiveServiceEvent event) {
+        if (event.getType() == ArchiveServiceEvent.Type.STARTED)
+            loaded = false;
+    }
+
+    public void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) Change change) {
+        if (change == INVALIDATE) {
+            loaded = false;
+            return;
+        }
+        AtomicLongArray tracked = sizesOf(change.queueName);
+        tracked.addAndGet(change.status.ordinal(), change.delta);
+        acceptMetrics(change.queueName, tracked);
+    }
+
+    private void reconcile(String queueName, long[] actual) {
+        AtomicLongArray tracked = sizesOf(queueName);
+        for (QueueMessage.Status status : STATUS) {
+            long prev = tracked.getAndSet(status.ordinal(), actual[status.ordinal()]);
+            if (loaded && prev != actual[status.ordinal()])
+                LOG.info("Corrected tracked number of {} tasks at Queue {} from {} to {}",
+                        status, queueName, prev, actual[status.ordinal()]);
+        }
+        acceptMetrics(queueName, tracked);
+    }
+
+    private void fireChange(String deviceName, String queueName, QueueMessage.Status status, int delta) {
+        if (status != null && device.getDeviceName().equals(deviceName))
+            changeEvent.fire(new Change(queueName, status, delta));
+    }
+
+    private AtomicLongArray sizesOf(String queueName) {
+        return sizes.computeIfAbsent(queueName, x -> new AtomicLongArray(STATUS.length));
+    }
+
+    private void acceptMetrics(String queueName, AtomicLongArray tracked) {
+        metricsService.accept("queue-scheduled-" + queueName,
+                () -> tracked.get(QueueMessage.Status.SCHEDULED.ordinal()));
+        metricsService.accept("queue-in-process-" + queueName,
+                () -> tracked.get(QueueMessage.Status.IN_PROCESS.ordinal()));
+    }
+
+    static final class Change {
+        final String queueName;
+        final QueueMessage.Status status;
+        final int delta;
+
+        Change(String queueName, QueueMessage.Status status, int delta) {
+            this.queueName = queueName;
+            this.status = status;
+            this.delta = delta;
+        }
+    }
+}
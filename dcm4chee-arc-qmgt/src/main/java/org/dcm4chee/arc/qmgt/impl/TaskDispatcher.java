@@ -0,0 +1,200 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.qmgt.impl;
+
+import org.dcm4chee.arc.conf.QueueDescriptor;
+import org.dcm4chee.arc.entity.QueueMessage;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Applies the fair sharing, the reservation of consumers for expedited Tasks and the rate limit configured for
+ * a Queue on scheduling and on start of processing of Tasks. Tasks which shall not start processing yet because
+ * of the rate limit are rescheduled with a delivery delay, instead of blocking the consumer. Consumers which
+ * received a normal priority Task while all consumers not reserved for expedited Tasks are busy, hold the Task
+ * and stop consuming further Tasks, until one of the busy consumers finished its Task, or until an expedited
+ * Task was scheduled, which requires the consumer.
+ */
+@ApplicationScoped
+public class TaskDispatcher {
+
+    private static final int PURGE_RESERVED_PERMITS_THRESHOLD = 1000;
+    private static final long RESERVED_PERMIT_EXPIRATION = TimeUnit.SECONDS.toNanos(10);
+
+    private final Map<String, FairShare> fairShares = new ConcurrentHashMap<>();
+    private final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final Map<String, HeldConsumers> heldConsumers = new ConcurrentHashMap<>();
+    private final Map<Long, Long> reservedPermits = new ConcurrentHashMap<>();
+
+    @Inject
+    private QueueSizeTracker queueSizes;
+
+    public int priorityOf(QueueDescriptor desc, int priority, String batchID, Message msg) {
+        int quantum = desc.getFairShareQuantum();
+        if (quantum <= 0)
+            return priority;
+
+        String userID = requesterUserIDOf(msg);
+        if (batchID == null && userID == null)
+            return priority;
+
+        return fairShares.computeIfAbsent(desc.getQueueName(), x -> new FairShare())
+                .priorityOf(priority, quantum, desc.getFairShareHalfLife().getSeconds() * 1000L,
+                        System.currentTimeMillis(),
+                        batchID != null ? "batch:" + batchID : null,
+                        userID != null ? "user:" + userID : null);
+    }
+
+    public boolean isReservedForExpeditedTasks(QueueDescriptor desc, QueueMessage queueMsg) {
+        return queueMsg.getPriority() <= Message.DEFAULT_PRIORITY && isReserveExhausted(desc);
+    }
+
+    private boolean isReserveExhausted(QueueDescriptor desc) {
+        int maxConcurrent = desc.getMaxConcurrentNormalPriorityTasks();
+        return maxConcurrent > 0
+                && queueSizes.size(desc.getQueueName(), QueueMessage.Status.IN_PROCESS) >= maxConcurrent;
+    }
+
+    /**
+     * Blocks the consumer of a normal priority Task, while all consumers not reserved for expedited Tasks are
+     * busy. The condition is re-checked on completion of any Task of the Queue and at least after the retry delay
+     * of the Queue.
+     *
+     * @return {@code true} if the Task may start processing now, {@code false} if the consumer is required for
+     *         an expedited Task, so the held Task has to be rescheduled
+     */
+    public boolean awaitNormalPriorityConsumer(QueueDescriptor desc) {
+        return heldConsumersOf(desc.getQueueName())
+                .await(() -> isReserveExhausted(desc), Math.max(1000L, desc.getRetryDelay().toMillis()));
+    }
+
+    public void onProcessingEnd(String queueName) {
+        HeldConsumers held = heldConsumers.get(queueName);
+        if (held != null)
+            held.wakeUp();
+    }
+
+    public void onExpeditedTasksScheduled(String queueName, int count) {
+        HeldConsumers held = heldConsumers.get(queueName);
+        if (held != null)
+            held.release(count);
+    }
+
+    private HeldConsumers heldConsumersOf(String queueName) {
+        return heldConsumers.computeIfAbsent(queueName, x -> new HeldConsumers());
+    }
+
+    /**
+     * Returns the delay in ms after which the Task may start processing without exceeding the rate limit of its
+     * Queue, or {@code 0} if it may start now. The permit for a delayed Task is reserved, so the Task is not
+     * delayed again, when it is delivered after that delay. Reserved permits of Tasks, which are not delivered
+     * within 10 s after that delay - because they were canceled or deleted
+     * or because their rescheduling was rolled back - expire.
+     */
+    public long delayByRateLimit(QueueDescriptor desc, QueueMessage queueMsg) {
+        int maxTasksPerSecond = desc.getMaxTasksPerSecond();
+        if (maxTasksPerSecond <= 0)
+            return 0L;
+
+        long now = System.nanoTime();
+        Long expiration = reservedPermits.remove(queueMsg.getPk());
+        if (expiration != null && expiration - now > 0)
+            return 0L;
+
+        long wait = rateLimiters.computeIfAbsent(desc.getQueueName(), x -> new RateLimiter())
+                .reserve(maxTasksPerSecond, now);
+        if (wait <= 0)
+            return 0L;
+
+        if (reservedPermits.size() > PURGE_RESERVED_PERMITS_THRESHOLD)
+            reservedPermits.values().removeIf(t -> t - now <= 0);
+        reservedPermits.put(queueMsg.getPk(), now + wait + RESERVED_PERMIT_EXPIRATION);
+        return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(wait));
+    }
+
+    private static String requesterUserIDOf(Message msg) {
+        try {
+            return msg.getStringProperty("RequesterUserID");
+        } catch (JMSException e) {
+            return null;
+        }
+    }
+
+    private static class HeldConsumers {
+        private int held;
+        private int released;
+
+        synchronized boolean await(BooleanSupplier reserveExhausted, long timeout) {
+            held++;
+            try {
+                while (released == 0 && reserveExhausted.getAsBoolean())
+                    wait(timeout);
+            } catch (InterruptedException e) {
+                return false;
+            } finally {
+                held--;
+            }
+            if (released == 0)
+                return true;
+
+            released--;
+            return false;
+        }
+
+        synchronized void wakeUp() {
+            if (held > 0)
+                notifyAll();
+        }
+
+        synchronized void release(int count) {
+            released = Math.min(held, released + count);
+            if (released > 0)
+                notifyAll();
+        }
+    }
+}
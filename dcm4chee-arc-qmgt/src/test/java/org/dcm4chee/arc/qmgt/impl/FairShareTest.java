@@ -0,0 +1,149 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.qmgt.impl;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import static org.junit.Assert.*;
+
+/**
+ * Simulates processing of Tasks by one consumer, which processes one Task per second in the order of their
+ * priority, as a JMS broker delivers them.
+ */
+public class FairShareTest {
+
+    private static final int QUANTUM = 100;
+    private static final long HALF_LIFE = 3600_000L;
+    private static final int LARGE_BATCH = 100_000;
+    private static final int SMALL_BATCH = 10;
+    private static final int SUBMIT_SMALL_BATCH_AT = 60;
+
+    @Test
+    public void testSmallBatchLatencyWithFairShare() {
+        int latency = simulateSmallBatchLatency(QUANTUM);
+        assertTrue("latency: " + latency, latency <= QUANTUM + SMALL_BATCH);
+    }
+
+    @Test
+    public void testSmallBatchLatencyWithoutFairShare() {
+        int latency = simulateSmallBatchLatency(0);
+        assertTrue("latency: " + latency, latency > LARGE_BATCH - SUBMIT_SMALL_BATCH_AT);
+    }
+
+    @Test
+    public void testPriorityOf() {
+        FairShare fairShare = new FairShare();
+        for (int i = 0; i < 1500; i++)
+            assertEquals("task#" + i, i < 100 ? 4 : i < 300 ? 3 : i < 700 ? 2 : 1,
+                    fairShare.priorityOf(4, QUANTUM, HALF_LIFE, 0L, "batch:1"));
+        assertEquals(0, fairShare.priorityOf(4, QUANTUM, HALF_LIFE, 0L, "batch:1"));
+        assertEquals(4, fairShare.priorityOf(4, QUANTUM, HALF_LIFE, 0L, "batch:2"));
+        assertEquals(0, fairShare.priorityOf(4, QUANTUM, HALF_LIFE, 0L, "batch:2", "user:1", "batch:1"));
+    }
+
+    @Test
+    public void testPriorityOfExpedited() {
+        FairShare fairShare = new FairShare();
+        for (int i = 0; i < 1500; i++)
+            assertEquals("task#" + i, i < 100 ? 7 : i < 300 ? 6 : 5,
+                    fairShare.priorityOf(7, QUANTUM, HALF_LIFE, 0L, "batch:1"));
+    }
+
+    @Test
+    public void testDecay() {
+        FairShare fairShare = new FairShare();
+        for (int i = 0; i < 300; i++)
+            fairShare.priorityOf(4, QUANTUM, HALF_LIFE, 0L, "batch:1");
+        assertEquals(2, fairShare.priorityOf(4, QUANTUM, HALF_LIFE, 0L, "batch:1"));
+        assertEquals(3, fairShare.priorityOf(4, QUANTUM, HALF_LIFE, HALF_LIFE, "batch:1"));
+        assertEquals(4, fairShare.priorityOf(4, QUANTUM, HALF_LIFE, 10 * HALF_LIFE, "batch:1"));
+    }
+
+    @Test
+    public void testRateLimiter() {
+        RateLimiter rateLimiter = new RateLimiter();
+        long now = -5_000_000_000L;
+        assertEquals(0L, rateLimiter.reserve(10, now));
+        assertEquals(100_000_000L, rateLimiter.reserve(10, now));
+        assertEquals(150_000_000L, rateLimiter.reserve(10, now + 50_000_000L));
+        assertEquals(0L, rateLimiter.reserve(10, now + 1_000_000_000L));
+    }
+
+    private static int simulateSmallBatchLatency(int quantum) {
+        FairShare fairShare = new FairShare();
+        PriorityQueue<Task> queue = new PriorityQueue<>(
+                Comparator.comparingInt((Task task) -> -task.priority).thenComparingLong(task -> task.seqNo));
+        long seqNo = 0;
+        for (int i = 0; i < LARGE_BATCH; i++)
+            queue.add(new Task(priorityOf(fairShare, quantum, 0, "large"), "large", seqNo++));
+
+        int remaining = SMALL_BATCH;
+        for (int second = 0; !queue.isEmpty(); second++) {
+            if (second == SUBMIT_SMALL_BATCH_AT)
+                for (int i = 0; i < SMALL_BATCH; i++)
+                    queue.add(new Task(priorityOf(fairShare, quantum, second, "small"), "small", seqNo++));
+            if (queue.poll().batchID.equals("small") && --remaining == 0)
+                return second + 1 - SUBMIT_SMALL_BATCH_AT;
+        }
+        throw new AssertionError("small batch not processed");
+    }
+
+    private static int priorityOf(FairShare fairShare, int quantum, int second, String batchID) {
+        return quantum > 0
+                ? fairShare.priorityOf(4, quantum, HALF_LIFE, second * 1000L, "batch:" + batchID)
+                : 4;
+    }
+
+    private static class Task {
+        final int priority;
+        final String batchID;
+        final long seqNo;
+
+        Task(int priority, String batchID, long seqNo) {
+            this.priority = priority;
+            this.batchID = batchID;
+            this.seqNo = seqNo;
+        }
+    }
+}
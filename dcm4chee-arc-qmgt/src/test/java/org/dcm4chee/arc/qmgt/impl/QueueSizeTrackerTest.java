@@ -0,0 +1,270 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.qmgt.impl;
+
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.entity.QueueMessage;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.enterprise.event.Event;
+import javax.enterprise.event.NotificationOptions;
+import javax.enterprise.util.TypeLiteral;
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueueSizeTrackerTest {
+
+    private static final String DEVICE_NAME = "dcm4chee-arc";
+    private static final String QUEUE_NAME = "StgCmtSCP";
+
+    private final List<Tuple> counts = new ArrayList<>();
+    private final List<QueueSizeTracker.Change> pending = new ArrayList<>();
+    private QueueSizeTracker tracker;
+
+    @Before
+    public void setUp() {
+        counts.clear();
+        pending.clear();
+        tracker = new QueueSizeTracker();
+        tracker.device = new Device(DEVICE_NAME);
+        tracker.ejb = new QueueManagerEJB() {
+            @Override
+            public List<Tuple> countTasksOnThisDeviceByQueueNameAndStatus() {
+                return counts;
+            }
+        };
+        tracker.metricsService = new NoopMetricsService();
+        tracker.changeEvent = new PendingChanges();
+    }
+
+    @Test
+    public void testIncrement() {
+        assertEquals(0, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        tracker.increment(queueMessage(DEVICE_NAME, QueueMessage.Status.SCHEDULED));
+        tracker.increment(queueMessage(DEVICE_NAME, QueueMessage.Status.SCHEDULED));
+        tracker.increment(queueMessage("other-device", QueueMessage.Status.SCHEDULED));
+        commit();
+        assertEquals(2, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+    }
+
+    @Test
+    public void testDecrement() {
+        counts.add(new CountTuple(QUEUE_NAME, QueueMessage.Status.SCHEDULED, 3L));
+        assertEquals(3, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        QueueMessage queueMsg = queueMessage(DEVICE_NAME, QueueMessage.Status.SCHEDULED);
+        tracker.decrement(queueMsg);
+        queueMsg.setStatus(QueueMessage.Status.IN_PROCESS);
+        tracker.onUpdate(DEVICE_NAME, QUEUE_NAME, QueueMessage.Status.SCHEDULED, queueMsg);
+        commit();
+        assertEquals(1, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        assertEquals(1, tracker.size(QUEUE_NAME, QueueMessage.Status.IN_PROCESS));
+    }
+
+    @Test
+    public void testRollback() {
+        counts.add(new CountTuple(QUEUE_NAME, QueueMessage.Status.SCHEDULED, 3L));
+        tracker.increment(queueMessage(DEVICE_NAME, QueueMessage.Status.SCHEDULED));
+        tracker.decrement(DEVICE_NAME, QUEUE_NAME, QueueMessage.Status.SCHEDULED);
+        tracker.decrement(DEVICE_NAME, QUEUE_NAME, QueueMessage.Status.SCHEDULED);
+        assertEquals(3, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        rollback();
+        assertEquals(3, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+    }
+
+    @Test
+    public void testReconcile() {
+        counts.add(new CountTuple(QUEUE_NAME, QueueMessage.Status.SCHEDULED, 3L));
+        assertEquals(3, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        tracker.increment(queueMessage(DEVICE_NAME, QueueMessage.Status.SCHEDULED));
+        commit();
+        assertEquals(4, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        counts.clear();
+        counts.add(new CountTuple(QUEUE_NAME, QueueMessage.Status.IN_PROCESS, 2L));
+        tracker.reconcile();
+        assertEquals(0, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        assertEquals(2, tracker.size(QUEUE_NAME, QueueMessage.Status.IN_PROCESS));
+    }
+
+    @Test
+    public void testInvalidate() {
+        counts.add(new CountTuple(QUEUE_NAME, QueueMessage.Status.SCHEDULED, 3L));
+        assertEquals(3, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        counts.clear();
+        tracker.invalidate();
+        assertEquals(3, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+        commit();
+        assertEquals(0, tracker.size(QUEUE_NAME, QueueMessage.Status.SCHEDULED));
+    }
+
+    private void commit() {
+        pending.forEach(tracker::onChange);
+        pending.clear();
+    }
+
+    private void rollback() {
+        pending.clear();
+    }
+
+    private static QueueMessage queueMessage(String deviceName, QueueMessage.Status status) {
+        QueueMessage queueMsg = new QueueMessage();
+        queueMsg.setDeviceName(deviceName);
+        queueMsg.setQueueName(QUEUE_NAME);
+        queueMsg.setStatus(status);
+        return queueMsg;
+    }
+
+    private class PendingChanges implements Event<QueueSizeTracker.Change> {
+
+        @Override
+        public void fire(QueueSizeTracker.Change change) {
+            pending.add(change);
+        }
+
+        @Override
+        public <U extends QueueSizeTracker.Change> CompletionStage<U> fireAsync(U event) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends QueueSizeTracker.Change> CompletionStage<U> fireAsync(U event, NotificationOptions options) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Event<QueueSizeTracker.Change> select(Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends QueueSizeTracker.Change> Event<U> select(Class<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends QueueSizeTracker.Change> Event<U> select(TypeLiteral<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class CountTuple implements Tuple {
+        private final Object[] values;
+
+        CountTuple(Object... values) {
+            this.values = values;
+        }
+
+        @Override
+        public <X> X get(TupleElement<X> tupleElement) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <X> X get(String alias, Class<X> type) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Object get(String alias) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <X> X get(int i, Class<X> type) {
+            return type.cast(values[i]);
+        }
+
+        @Override
+        public Object get(int i) {
+            return values[i];
+        }
+
+        @Override
+        public Object[] toArray() {
+            return Arrays.copyOf(values, values.length);
+        }
+
+        @Override
+        public List<TupleElement<?>> getElements() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class NoopMetricsService implements MetricsService {
+
+        @Override
+        public boolean exists(String name) {
+            return false;
+        }
+
+        @Override
+        public void accept(String name, double value) {
+        }
+
+        @Override
+        public void acceptNanoTime(String name, long startTime) {
+        }
+
+        @Override
+        public void acceptDataRate(String name, long bytes, long startTime) {
+        }
+
+        @Override
+        public void accept(String name, DoubleSupplier valueSupplier) {
+        }
+
+        @Override
+        public void forEach(String name, int limit, int binSize, Consumer<DoubleSummaryStatistics> consumer) {
+        }
+    }
+}
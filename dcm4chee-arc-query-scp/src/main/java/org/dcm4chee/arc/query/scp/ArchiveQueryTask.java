@@ -95,6 +95,7 @@ public class ArchiveQueryTask extends BasicQueryTask {
         this.ctx = ctx;
         this.runInTx = runInTx;
         this.coercion = ctx.getQueryService().getAttributesCoercion(ctx);
+        ctx.setDecodeReturnKeysOnly(coercion == null && !ctx.isReturnPrivate());
         uniqueKey = ctx.getQueryRetrieveLevel().uniqueKey();
         vrOfUniqueKey = ctx.getQueryRetrieveLevel().vrOfUniqueKey();
         ArchiveAEExtension arcAE = ctx.getArchiveAEExtension();
@@ -64,6 +64,9 @@ public interface CFindSCU {
     List<Attributes> findStudiesOfPatient(ApplicationEntity localAE, String calledAET, int priority, IDWithIssuer pid,
                                  int... returnKeys) throws Exception;
 
+    List<Attributes> findStudiesOfPatient(Association as, int priority, IDWithIssuer pid, int... returnKeys)
+            throws Exception;
+
     List<Attributes> find(ApplicationEntity localAE, String calledAET, EnumSet<QueryOption> queryOptions,
             int priority, Attributes keys) throws Exception;
 
@@ -104,6 +104,14 @@ public class CFindSCUImpl implements CFindSCU {
                         new Attributes(3 + returnKeys.length))));
     }
 
+    @Override
+    public List<Attributes> findStudiesOfPatient(Association as, int priority, IDWithIssuer pid, int... returnKeys)
+            throws Exception {
+        return find(as, priority,
+                pid.exportPatientIDWithIssuer(withQueryLevelAndReturnKeys("STUDY", returnKeys,
+                        new Attributes(3 + returnKeys.length))));
+    }
+
     @Override
     public List<Attributes> find(ApplicationEntity localAE, String calledAET, EnumSet<QueryOption> queryOptions,
             int priority, Attributes keys) throws Exception {
@@ -466,14 +466,19 @@ public class QueryBuilder {
                 keys, combinedDatetimeMatching);
         personName(predicates, q, study, Study_.referringPhysicianName,
                 keys.getString(Tag.ReferringPhysicianName, "*"), queryParam);
-        anyOf(predicates, study.get(Study_.studyDescription),
-                keys.getStrings(Tag.StudyDescription), true);
+        String[] studyDescriptions = keys.getStrings(Tag.StudyDescription);
+        if (anyOf(predicates, study.get(Study_.studyDescription), studyDescriptions, true)
+                && studyDescriptions.length == 1 && queryParam.isSearchTokenMatching())
+            searchTokens(predicates, q, study, SearchToken_.study, SearchToken.Attribute.StudyDescription,
+                    studyDescriptions[0]);
         String accNo = keys.getString(Tag.AccessionNumber, "*");
         if (!isUniversalMatching(accNo)) {
             Issuer issuer = Issuer.valueOf(keys.getNestedDataset(Tag.IssuerOfAccessionNumberSequence));
             if (issuer == null)
                 issuer = queryParam.getDefaultIssuerOfAccessionNumber();
             idWithIssuer(predicates, study, Study_.accessionNumber, Study_.issuerOfAccessionNumber, accNo, issuer);
+            if (queryParam.isSearchTokenMatching())
+                searchTokens(predicates, q, study, SearchToken_.study, SearchToken.Attribute.AccessionNumber, accNo);
         }
         String[] modalitiesInStudy = keys.getStrings(Tag.ModalitiesInStudy);
         if (queryParam.isAllOfModalitiesInStudy() && modalitiesInStudy != null && modalitiesInStudy.length > 1) {
@@ -510,7 +515,7 @@ public class QueryBuilder {
         if (queryParam.getExpirationDate() != null)
             dateRange(predicates, study.get(Study_.expirationDate), queryParam.getExpirationDate(), FormatDate.DA);
         if (queryParam.getStudyStorageIDs() != null)
-            predicates.add(study.get(Study_.storageIDs).in(queryParam.getStudyStorageIDs()));
+            studyStorageIDs(predicates, q, study, queryParam.getStudyStorageIDs());
         if (queryParam.getMinStudySize() != 0)
             predicates.add(cb.greaterThanOrEqualTo(study.get(Study_.size), queryParam.getMinStudySize()));
         if (queryParam.getMaxStudySize() != 0)
@@ -934,6 +939,10 @@ public class QueryBuilder {
         return s.indexOf('*') >= 0 || s.indexOf('?') >= 0;
     }
 
+    private static boolean startsWithWildcard(String s) {
+        return s != null && !s.isEmpty() && (s.charAt(0) == '*' || s.charAt(0) == '?');
+    }
+
     private static String toLikePattern(String s) {
         StringBuilder like = new StringBuilder(s.length());
         char[] cs = s.toCharArray();
@@ -1131,6 +1140,26 @@ public class QueryBuilder {
             predicates.add(cb.exists(sq.select(request).where(requestPredicates.toArray(new Predicate[0]))));
     }
 
+    private <T> void studyStorageIDs(List<Predicate> predicates, CriteriaQuery<T> q, Path<Study> study,
+            StudyStorageIDs studyStorageIDs) {
+        for (String storageID : studyStorageIDs.getRequired())
+            predicates.add(cb.exists(studyStorage(q, study, path -> cb.equal(path, storageID))));
+        if (!studyStorageIDs.getRequiredAnyOf().isEmpty())
+            predicates.add(cb.exists(studyStorage(q, study,
+                    path -> path.in(studyStorageIDs.getRequiredAnyOf()))));
+        predicates.add(cb.not(cb.exists(studyStorage(q, study,
+                path -> path.in(studyStorageIDs.getPermitted()).not()))));
+    }
+
+    private <T> Subquery<StudyStorage> studyStorage(CriteriaQuery<T> q, Path<Study> study,
+            Function<Path<String>, Predicate> storageIDPredicate) {
+        Subquery<StudyStorage> sq = q.subquery(StudyStorage.class);
+        Root<StudyStorage> studyStorage = sq.from(StudyStorage.class);
+        return sq.select(studyStorage).where(
+                cb.equal(studyStorage.get(StudyStorage_.study), study),
+                storageIDPredicate.apply(studyStorage.get(StudyStorage_.storageID)));
+    }
+
     private static <T, Z, X> From<Z, X> correlate(Subquery<T> sq, From<Z, X> parent) {
         return parent instanceof Root ? sq.correlate((Root) parent) : sq.correlate((Join) parent);
     }
@@ -1184,8 +1213,37 @@ public class QueryBuilder {
             PersonName pn = new PersonName(value, true);
             if (queryParam.isFuzzySemanticMatching())
                 fuzzyMatch(predicates, q, qpn, pn, queryParam);
-            else
+            else {
                 literalMatch(predicates, qpn, pn, queryParam);
+                if (queryParam.isSearchTokenMatching())
+                    searchTokens(predicates, q, qpn, pn);
+            }
+        }
+    }
+
+    private <T> void searchTokens(List<Predicate> predicates, CriteriaQuery<T> q,
+            Path<org.dcm4chee.arc.entity.PersonName> qpn, PersonName pn) {
+        for (PersonName.Group group : PersonName.Group.values()) {
+            searchTokens(predicates, q, qpn, SearchToken_.personName, SearchToken.Attribute.FamilyName,
+                    pn.get(group, PersonName.Component.FamilyName));
+            searchTokens(predicates, q, qpn, SearchToken_.personName, SearchToken.Attribute.GivenName,
+                    pn.get(group, PersonName.Component.GivenName));
+            searchTokens(predicates, q, qpn, SearchToken_.personName, SearchToken.Attribute.MiddleName,
+                    pn.get(group, PersonName.Component.MiddleName));
+        }
+    }
+
+    private <T, X> void searchTokens(List<Predicate> predicates, CriteriaQuery<T> q, Expression<X> entity,
+            SingularAttribute<SearchToken, X> attribute, SearchToken.Attribute tokenAttribute, String value) {
+        if (!startsWithWildcard(value))
+            return;
+
+        for (String token : SearchToken.tokenizeWildcard(value)) {
+            Subquery<X> sq = q.subquery(attribute.getJavaType());
+            Root<SearchToken> searchToken = sq.from(SearchToken.class);
+            predicates.add(entity.in(sq.select(searchToken.get(attribute)).where(
+                    cb.equal(searchToken.get(SearchToken_.attribute), tokenAttribute),
+                    cb.equal(searchToken.get(SearchToken_.value), token))));
         }
     }
 
@@ -47,9 +47,6 @@ import org.dcm4chee.arc.conf.*;
 import org.dcm4chee.arc.entity.ExpirationState;
 import org.dcm4chee.arc.entity.Patient;
 
-import java.util.List;
-
-
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
  * @author Vrinda Nayak <vrinda.nayak@j4care.com>
@@ -75,7 +72,7 @@ public class QueryParam {
     private Patient.VerificationStatus patientVerificationStatus;
     private ExpirationState[] expirationState;
     private String expirationDate;
-    private List<String> studyStorageIDs;
+    private StudyStorageIDs studyStorageIDs;
     private long minStudySize;
     private long maxStudySize;
 
@@ -105,6 +102,10 @@ public class QueryParam {
         return arcDev.getFuzzyStr();
     }
 
+    public boolean isSearchTokenMatching() {
+        return arcDev.isSearchTokenMatching() && arcDev.isSearchTokenMaintenance();
+    }
+
     public boolean isPersonNameComponentOrderInsensitiveMatching() {
         return arcAE.personNameComponentOrderInsensitiveMatching();
     }
@@ -241,16 +242,16 @@ public class QueryParam {
         this.expirationDate = expirationDate;
     }
 
-    public List<String> getStudyStorageIDs() {
+    public StudyStorageIDs getStudyStorageIDs() {
         return studyStorageIDs;
     }
 
-    public void setStudyStorageIDs(List<String> studyStorageIDs) {
+    public void setStudyStorageIDs(StudyStorageIDs studyStorageIDs) {
         this.studyStorageIDs = studyStorageIDs;
     }
 
     public boolean noMatches() {
-        return studyStorageIDs != null && studyStorageIDs.isEmpty();
+        return studyStorageIDs != null && studyStorageIDs.isNone();
     }
 
     public long getMinStudySize() {
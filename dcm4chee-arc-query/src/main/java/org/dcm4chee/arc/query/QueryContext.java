@@ -106,6 +106,10 @@ public interface QueryContext {
 
     void setReturnKeys(Attributes returnKeys);
 
+    boolean isDecodeReturnKeysOnly();
+
+    void setDecodeReturnKeysOnly(boolean decodeReturnKeysOnly);
+
     boolean containsUniqueKey();
 
     List<OrderByTag> getOrderByTags();
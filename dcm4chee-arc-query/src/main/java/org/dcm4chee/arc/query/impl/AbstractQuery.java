@@ -42,8 +42,11 @@
 package org.dcm4chee.arc.query.impl;
 
 import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
 import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4che3.util.StringUtils;
+import org.dcm4che3.util.TagUtils;
+import org.dcm4chee.arc.entity.AttributesBlob;
 import org.dcm4chee.arc.query.Query;
 import org.dcm4chee.arc.query.QueryContext;
 import org.dcm4chee.arc.query.util.QueryBuilder;
@@ -53,6 +56,7 @@ import javax.persistence.*;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import java.util.Iterator;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -72,6 +76,7 @@ abstract class AbstractQuery implements Query {
     private int fetchSize;
     private int rejected;
     private int matches;
+    private int[] decodeTags;
 
     AbstractQuery(QueryContext context, EntityManager em) {
         this.context = context;
@@ -183,6 +188,41 @@ abstract class AbstractQuery implements Query {
 
     protected abstract Attributes toAttributes(Tuple results);
 
+    protected Attributes decodeAttributes(byte[] encodedAttributes) {
+        Attributes returnKeys = context.getReturnKeys();
+        if (returnKeys == null || context.isReturnPrivate() || !context.isDecodeReturnKeysOnly())
+            return AttributesBlob.decodeAttributes(encodedAttributes, null);
+
+        if (decodeTags == null)
+            decodeTags = decodeTags(returnKeys);
+        return decodeTags.length == 0
+                ? AttributesBlob.decodeAttributes(encodedAttributes, null)
+                : AttributesBlob.decodeAttributes(encodedAttributes, null, decodeTags);
+    }
+
+    /**
+     * Returns an empty array, if private return keys require to decode all attributes, because their tags
+     * depend on the Private Creator Data Element in the encoded attributes.
+     */
+    private static int[] decodeTags(Attributes returnKeys) {
+        int[] tags = returnKeys.tags();
+        if (IntStream.of(tags).anyMatch(TagUtils::isPrivateTag))
+            return new int[0];
+
+        return IntStream.concat(IntStream.of(tags), IntStream.of(
+                Tag.SpecificCharacterSet,
+                Tag.SOPClassUID,
+                Tag.SOPInstanceUID,
+                Tag.StudyInstanceUID,
+                Tag.SeriesInstanceUID,
+                Tag.PatientID,
+                Tag.IssuerOfPatientID,
+                Tag.TimezoneOffsetFromUTC))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+
     static String[] splitAndAppend(String s, String append) {
         String[] ss = StringUtils.split(s, '\\');
         if (append != null && !append.equals("*")) {
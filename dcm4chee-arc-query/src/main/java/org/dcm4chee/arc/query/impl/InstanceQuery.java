@@ -155,7 +155,7 @@ class InstanceQuery extends AbstractQuery {
             if (context.isReturnPrivate())
                 this.rejectedInstancesOfSeries = getRejectedInstancesOfSeries(seriesAttrs);
         }
-        Attributes instAttrs = AttributesBlob.decodeAttributes(results.get(instanceAttrBlob), null);
+        Attributes instAttrs = decodeAttributes(results.get(instanceAttrBlob));
         Attributes.unifyCharacterSets(seriesAttrs, instAttrs);
         Attributes attrs = new Attributes(seriesAttrs.size() + instAttrs.size() + 10);
         attrs.addAll(seriesAttrs);
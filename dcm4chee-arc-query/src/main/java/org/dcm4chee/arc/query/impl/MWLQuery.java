@@ -88,8 +88,8 @@ public class MWLQuery extends AbstractQuery {
 
     @Override
     protected Attributes toAttributes(Tuple results) {
-        Attributes mwlAttrs = AttributesBlob.decodeAttributes(results.get(mwlAttrBlob), null);
-        Attributes patAttrs = AttributesBlob.decodeAttributes(results.get(patientAttrBlob), null);
+        Attributes mwlAttrs = decodeAttributes(results.get(mwlAttrBlob));
+        Attributes patAttrs = decodeAttributes(results.get(patientAttrBlob));
         Attributes.unifyCharacterSets(patAttrs, mwlAttrs);
         Attributes attrs = new Attributes(patAttrs.size() + mwlAttrs.size() + 1);
         attrs.addAll(patAttrs);
@@ -92,7 +92,7 @@ class PatientQuery extends AbstractQuery {
 
     @Override
     protected Attributes toAttributes(Tuple results) {
-        Attributes patAttrs = AttributesBlob.decodeAttributes(results.get(patientAttrBlob), null);
+        Attributes patAttrs = decodeAttributes(results.get(patientAttrBlob));
         addPatientQRAttrs(patient, context, results, patAttrs);
         return patAttrs;
     }
@@ -150,6 +150,11 @@ public class QueryAttributesEJB {
         } catch (NoResultException e) {
             return false;
         }
+        calculateStudyQueryAttributes(studyPk);
+        return true;
+    }
+
+    public void calculateStudyQueryAttributes(Long studyPk) {
         ArchiveDeviceExtension arcDev = device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class);
         Set<String> viewIDs = new HashSet<>(arcDev.getQueryRetrieveViewIDs());
         viewIDs.removeAll(em.createNamedQuery(StudyQueryAttributes.VIEW_IDS_FOR_STUDY_PK, String.class)
@@ -159,7 +164,6 @@ public class QueryAttributesEJB {
         for (String viewID : viewIDs) {
             calculateStudyQueryAttributes(studyPk, arcDev.getQueryRetrieveView(viewID));
         }
-        return true;
     }
 
     private static class SeriesQueryAttributesBuilder {
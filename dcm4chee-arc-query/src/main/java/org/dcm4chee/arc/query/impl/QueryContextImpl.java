@@ -76,6 +76,7 @@ class QueryContextImpl implements QueryContext {
     private Attributes coercedQueryKeys = new Attributes();
     private Attributes returnKeys;
     private boolean returnPrivate;
+    private boolean decodeReturnKeysOnly;
     private String sopClassUID;
     private String searchMethod;
     private final HashMap<String, Storage> storageMap = new HashMap<>();
@@ -189,6 +190,16 @@ class QueryContextImpl implements QueryContext {
         this.returnKeys = returnKeys;
     }
 
+    @Override
+    public boolean isDecodeReturnKeysOnly() {
+        return decodeReturnKeysOnly;
+    }
+
+    @Override
+    public void setDecodeReturnKeysOnly(boolean decodeReturnKeysOnly) {
+        this.decodeReturnKeysOnly = decodeReturnKeysOnly;
+    }
+
     @Override
     public Attributes getQueryKeys() {
         return queryKeys;
@@ -49,6 +49,8 @@ import javax.ejb.TransactionAttributeType;
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
+import java.util.Date;
+import java.util.List;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -95,6 +97,13 @@ public class QuerySizeEJB {
         return size;
     }
 
+    public List<Long> findStudiesWithUnknownSizeUpdatedBefore(Date before, int limit) {
+        return em.createNamedQuery(Study.FIND_PKS_WITH_UNKNOWN_SIZE_UPDATED_BEFORE, Long.class)
+                .setParameter(1, before)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
     public long calculateStudySize(String studyUID) {
         Long studyPk;
         try {
@@ -0,0 +1,86 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.query.impl;
+
+import org.dcm4chee.arc.entity.PersonName;
+import org.dcm4chee.arc.entity.Study;
+
+import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Creates search tokens of Person Names and Studies, which were stored before search tokens were maintained.
+ */
+@Stateless
+@TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+public class SearchTokenEJB {
+
+    @PersistenceContext(unitName = "dcm4chee-arc")
+    EntityManager em;
+
+    public List<Long> findPersonNamesWithoutSearchTokens(long afterPk, int fetchSize) {
+        return em.createNamedQuery(PersonName.FIND_PKS_WITHOUT_SEARCH_TOKENS, Long.class)
+                .setParameter(1, afterPk)
+                .setMaxResults(fetchSize)
+                .getResultList();
+    }
+
+    public List<Long> findStudiesWithoutSearchTokens(long afterPk, int fetchSize) {
+        return em.createNamedQuery(Study.FIND_PKS_WITHOUT_SEARCH_TOKENS, Long.class)
+                .setParameter(1, afterPk)
+                .setMaxResults(fetchSize)
+                .getResultList();
+    }
+
+    public void createPersonNameSearchTokens(List<Long> pks) {
+        for (Long pk : pks)
+            em.find(PersonName.class, pk).updateSearchTokens();
+    }
+
+    public void createStudySearchTokens(List<Long> pks) {
+        for (Long pk : pks)
+            em.find(Study.class, pk).updateSearchTokens();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.query.impl;
+
+import org.dcm4chee.arc.Scheduler;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.List;
+
+/**
+ * Creates search tokens of Person Names and Studies stored before the maintenance of search tokens was enabled.
+ * Entities are visited once in the order of their primary key, so entities without any tokenizable value are
+ * not selected again, until the maintenance of search tokens was disabled and enabled again.
+ */
+@ApplicationScoped
+public class SearchTokenScheduler extends Scheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SearchTokenScheduler.class);
+    private static final Duration POLLING_INTERVAL = Duration.valueOf("PT1M");
+
+    @Inject
+    private SearchTokenEJB ejb;
+
+    private volatile long lastPersonNamePk;
+    private volatile long lastStudyPk;
+    private volatile boolean completed;
+
+    protected SearchTokenScheduler() {
+        super(Mode.scheduleWithFixedDelay);
+    }
+
+    @Override
+    protected Logger log() {
+        return LOG;
+    }
+
+    @Override
+    protected Duration getPollingInterval() {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        if (!arcDev.isSearchTokenMaintenance()) {
+            lastPersonNamePk = 0L;
+            lastStudyPk = 0L;
+            completed = false;
+            return null;
+        }
+        return completed ? null : POLLING_INTERVAL;
+    }
+
+    @Override
+    protected void execute() {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        int fetchSize = arcDev.getQueryFetchSize();
+        int personNames = 0;
+        int studies = 0;
+        List<Long> pks;
+        while (getPollingInterval() != null
+                && !(pks = ejb.findPersonNamesWithoutSearchTokens(lastPersonNamePk, fetchSize)).isEmpty()) {
+            ejb.createPersonNameSearchTokens(pks);
+            lastPersonNamePk = pks.get(pks.size() - 1);
+            personNames += pks.size();
+        }
+        while (getPollingInterval() != null
+                && !(pks = ejb.findStudiesWithoutSearchTokens(lastStudyPk, fetchSize)).isEmpty()) {
+            ejb.createStudySearchTokens(pks);
+            lastStudyPk = pks.get(pks.size() - 1);
+            studies += pks.size();
+        }
+        if (personNames > 0 || studies > 0)
+            LOG.info("Created search tokens of {} Person Names and {} Studies", personNames, studies);
+        if (getPollingInterval() != null) {
+            completed = true;
+            LOG.info("Created search tokens of all Person Names and Studies - dcmSearchTokenMatching may be enabled");
+        }
+    }
+}
@@ -187,7 +187,7 @@ class SeriesQuery extends AbstractQuery {
             this.studyAttrs = toStudyAttributes(studyPk, results);
             this.studyPk = studyPk;
         }
-        Attributes seriesAttrs = AttributesBlob.decodeAttributes(results.get(seriesAttrBlob), null);
+        Attributes seriesAttrs = decodeAttributes(results.get(seriesAttrBlob));
         Attributes.unifyCharacterSets(studyAttrs, seriesAttrs);
         Attributes attrs = new Attributes(studyAttrs.size() + seriesAttrs.size() + 20);
         attrs.addAll(studyAttrs);
@@ -308,8 +308,8 @@ class SeriesQuery extends AbstractQuery {
             sopClassesInStudy = studyView.getSOPClassesInStudy();
         }
 
-        Attributes studyAttrs = AttributesBlob.decodeAttributes(results.get(studyAttrBlob), null);
-        Attributes patAttrs = AttributesBlob.decodeAttributes(results.get(patientAttrBlob), null);
+        Attributes studyAttrs = decodeAttributes(results.get(studyAttrBlob));
+        Attributes patAttrs = decodeAttributes(results.get(patientAttrBlob));
         Attributes.unifyCharacterSets(patAttrs, studyAttrs);
         Attributes attrs = new Attributes(patAttrs.size() + studyAttrs.size() + 20);
         attrs.addAll(patAttrs);
@@ -0,0 +1,117 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.query.impl;
+
+import org.dcm4chee.arc.Scheduler;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.Duration;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Calculates the size and the query attributes for all configured Query/Retrieve Views of Studies, which were not
+ * updated for the configured Study Finalizer Quiet Period, so queries do not have to calculate them on the fly.
+ * The number of Studies fetched for finalization by each poll is exposed as metric {@code study-finalizer-backlog},
+ * without counting all Studies with unknown size.
+ */
+@ApplicationScoped
+public class StudyFinalizerScheduler extends Scheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StudyFinalizerScheduler.class);
+
+    @Inject
+    private QuerySizeEJB querySizeEJB;
+
+    @Inject
+    private QueryAttributesEJB queryAttributesEJB;
+
+    @Inject
+    private MetricsService metricsService;
+
+    protected StudyFinalizerScheduler() {
+        super(Mode.scheduleWithFixedDelay);
+    }
+
+    @Override
+    protected Logger log() {
+        return LOG;
+    }
+
+    @Override
+    protected Duration getPollingInterval() {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        return arcDev.getStudyFinalizerPollingInterval();
+    }
+
+    @Override
+    protected void execute() {
+        ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
+        int fetchSize = arcDev.getStudyFinalizerFetchSize();
+        Date before = new Date(System.currentTimeMillis() - arcDev.getStudyFinalizerQuietPeriod().getSeconds() * 1000L);
+        int fetched = 0;
+        int finalized = 0;
+        int failed = 0;
+        List<Long> studyPks;
+        while (getPollingInterval() != null && failed == 0
+                && !(studyPks = querySizeEJB.findStudiesWithUnknownSizeUpdatedBefore(before, fetchSize)).isEmpty()) {
+            fetched += studyPks.size();
+            for (Long studyPk : studyPks) {
+                try {
+                    queryAttributesEJB.calculateStudyQueryAttributes(studyPk);
+                    querySizeEJB.calculateStudySize(studyPk);
+                    finalized++;
+                } catch (Exception e) {
+                    LOG.warn("Failed to finalize Study[pk={}]:\n", studyPk, e);
+                    failed++;
+                }
+            }
+        }
+        metricsService.accept("study-finalizer-backlog", fetched);
+        if (finalized > 0 || failed > 0)
+            LOG.info("Finalized {} Studies - {} failed", finalized, failed);
+    }
+}
@@ -171,8 +171,8 @@ class StudyQuery extends AbstractQuery {
             retrieveAETs = studyView.getRetrieveAETs();
             availability = studyView.getAvailability();
         }
-        Attributes studyAttrs = AttributesBlob.decodeAttributes(results.get(studyAttrBlob), null);
-        Attributes patAttrs = AttributesBlob.decodeAttributes(results.get(patientAttrBlob), null);
+        Attributes studyAttrs = decodeAttributes(results.get(studyAttrBlob));
+        Attributes patAttrs = decodeAttributes(results.get(patientAttrBlob));
         Attributes.unifyCharacterSets(patAttrs, studyAttrs);
         Attributes attrs = new Attributes(patAttrs.size() + studyAttrs.size() + 20);
         attrs.addAll(patAttrs);
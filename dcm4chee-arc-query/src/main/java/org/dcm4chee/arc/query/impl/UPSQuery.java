@@ -89,8 +89,8 @@ public class UPSQuery extends AbstractQuery {
 
     @Override
     protected Attributes toAttributes(Tuple results) {
-        Attributes upsAttrs = AttributesBlob.decodeAttributes(results.get(upsAttrBlob), null);
-        Attributes patAttrs = AttributesBlob.decodeAttributes(results.get(patientAttrBlob), null);
+        Attributes upsAttrs = decodeAttributes(results.get(upsAttrBlob));
+        Attributes patAttrs = decodeAttributes(results.get(patientAttrBlob));
         Attributes.unifyCharacterSets(patAttrs, upsAttrs);
         Attributes attrs = new Attributes(patAttrs.size() + upsAttrs.size() + 3);
         attrs.addAll(patAttrs);
@@ -95,24 +95,31 @@ public class RetrieveManagerEJB {
     public int scheduleRetrieveTask(int priority, ExternalRetrieveContext ctx,
                                     Date notRetrievedAfter, long delay)
             throws QueueSizeLimitExceededException {
-        int count = 0;
         Attributes keys = ctx.getKeys();
-        String[] studyUIDs = keys.getStrings(Tag.StudyInstanceUID);
+        Set<String> studyUIDs = new LinkedHashSet<>(Arrays.asList(keys.getStrings(Tag.StudyInstanceUID)));
+        List<String> scheduledStudyUIDs = new ArrayList<>(studyUIDs.size());
+        List<ObjectMessage> msgs = new ArrayList<>(studyUIDs.size());
         for (String studyUID : studyUIDs) {
+            if (isAlreadyScheduledOrRetrievedAfter(em, ctx, notRetrievedAfter, studyUID))
+                continue;
+
             keys.setString(Tag.StudyInstanceUID, VR.UI, studyUID);
-            if (scheduleRetrieveTask(priority, ctx, notRetrievedAfter, delay, keys))
-                count++;
+            scheduledStudyUIDs.add(studyUID);
+            msgs.add(createMessage(priority, ctx, new Attributes(keys), studyUID));
         }
+        if (msgs.isEmpty())
+            return 0;
 
-        return count;
-    }
+        List<QueueMessage> queueMessages = queueManager.scheduleMessages(ctx.getQueueName(), msgs,
+                Message.DEFAULT_PRIORITY, ctx.getBatchID(), delay);
+        Date scheduledTime = new Date(System.currentTimeMillis() + delay);
+        for (int i = 0; i < queueMessages.size(); i++)
+            persist(createRetrieveTask(ctx, queueMessages.get(i)), scheduledStudyUIDs.get(i), scheduledTime);
 
-    private boolean scheduleRetrieveTask(int priority, ExternalRetrieveContext ctx, Date notRetrievedAfter, long delay,
-                                         Attributes keys) throws QueueSizeLimitExceededException {
-        String studyUID = keys.getString(Tag.StudyInstanceUID);
-        if (isAlreadyScheduledOrRetrievedAfter(em, ctx, notRetrievedAfter, studyUID))
-            return false;
+        return queueMessages.size();
+    }
 
+    private ObjectMessage createMessage(int priority, ExternalRetrieveContext ctx, Attributes keys, String studyUID) {
         try {
             ObjectMessage msg = queueManager.createObjectMessage(keys);
             msg.setStringProperty("LocalAET", ctx.getLocalAET());
@@ -122,12 +129,7 @@ public class RetrieveManagerEJB {
             msg.setStringProperty("DestinationAET", ctx.getDestinationAET());
             msg.setStringProperty("StudyInstanceUID", studyUID);
             HttpServletRequestInfo.copyTo(ctx.getHttpServletRequestInfo(), msg);
-            QueueMessage queueMessage = queueManager.scheduleMessage(ctx.getQueueName(), msg,
-                    Message.DEFAULT_PRIORITY, ctx.getBatchID(), delay);
-            persist(createRetrieveTask(ctx, queueMessage),
-                    studyUID,
-                    new Date(System.currentTimeMillis() + delay));
-            return true;
+            return msg;
         } catch (JMSException e) {
             throw QueueMessage.toJMSRuntimeException(e);
         }
@@ -647,8 +649,7 @@ public class RetrieveManagerEJB {
                 .setMaxResults(deleteTasksFetchSize)
                 .getResultList();
 
-        referencedQueueMsgIDs.forEach(queueMsgID -> queueManager.deleteTask(queueMsgID, null));
-        return referencedQueueMsgIDs.size();
+        return queueManager.deleteTasks(referencedQueueMsgIDs);
     }
 
     @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
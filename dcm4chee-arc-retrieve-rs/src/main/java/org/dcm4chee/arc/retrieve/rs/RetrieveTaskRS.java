@@ -522,17 +522,21 @@ public class RetrieveTaskRS {
 
     private int count(Response response, String devName) {
         int count = 0;
-        if (response.getStatus() == Response.Status.OK.getStatusCode()) {
-            JsonParser parser = Json.createParser(new StringReader(response.readEntity(String.class)));
-            JsonReader reader = new JsonReader(parser);
-            reader.next();
-            reader.expect(JsonParser.Event.START_OBJECT);
-            while (reader.next() == JsonParser.Event.KEY_NAME)
-                count = reader.intValue();
-            LOG.info("Successfully rescheduled {} tasks on device {}", count, devName);
-        } else {
-            LOG.warn("Failed rescheduling of tasks on device {}. Response received with status: {} and entity: {}",
-                    devName, response.getStatus(), response.getEntity());
+        try {
+            if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+                JsonParser parser = Json.createParser(new StringReader(response.readEntity(String.class)));
+                JsonReader reader = new JsonReader(parser);
+                reader.next();
+                reader.expect(JsonParser.Event.START_OBJECT);
+                while (reader.next() == JsonParser.Event.KEY_NAME)
+                    count = reader.intValue();
+                LOG.info("Successfully rescheduled {} tasks on device {}", count, devName);
+            } else {
+                LOG.warn("Failed rescheduling of tasks on device {}. Response received with status: {} and entity: {}",
+                        devName, response.getStatus(), response.getEntity());
+            }
+        } finally {
+            response.close();
         }
         return count;
     }
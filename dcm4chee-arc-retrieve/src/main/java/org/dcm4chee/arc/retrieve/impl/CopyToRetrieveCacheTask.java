@@ -76,6 +76,7 @@ public class CopyToRetrieveCacheTask implements Runnable {
 
     private final RetrieveContextImpl ctx;
     private final ArchiveDeviceExtension arcdev;
+    private final StorageDescriptor storageDescriptor;
     private final String storageID;
     private final int maxParallel;
     private final Semaphore semaphore;
@@ -86,7 +87,7 @@ public class CopyToRetrieveCacheTask implements Runnable {
     public CopyToRetrieveCacheTask(RetrieveContextImpl ctx, InstanceLocations match) {
         this.ctx = ctx;
         this.arcdev = ctx.getRetrieveService().getArchiveDeviceExtension();
-        StorageDescriptor storageDescriptor = arcdev.getStorageDescriptor(match.getLocations().get(0).getStorageID());
+        this.storageDescriptor = arcdev.getStorageDescriptor(match.getLocations().get(0).getStorageID());
         this.storageID = storageDescriptor.getRetrieveCacheStorageID();
         this.maxParallel = storageDescriptor.getRetrieveCacheMaxParallel();
         this.semaphore = new Semaphore(maxParallel);
@@ -156,6 +157,7 @@ public class CopyToRetrieveCacheTask implements Runnable {
         for (Map.Entry<String, Set<String>> entry : uidMap.entrySet()) {
             String studyIUID = entry.getKey();
             storeService.addStorageID(studyIUID, storageID);
+            ctx.getRetrieveCacheManager().onCopiedToRetrieveCache(studyIUID);
             for (String seriesIUID : entry.getValue()) {
                 storeService.scheduleMetadataUpdate(studyIUID, seriesIUID);
             }
@@ -165,6 +167,18 @@ public class CopyToRetrieveCacheTask implements Runnable {
     }
 
     private boolean copy(InstanceLocations match) {
+        try {
+            match.getLocations().add(
+                    ctx.getRetrieveCacheManager().copy(storageDescriptor, match, () -> copyToStorage(match)));
+            return true;
+        } catch (Exception e) {
+            return false;
+        } finally {
+            ctx.getRetrieveService().updateLocations(ctx);
+        }
+    }
+
+    private Location copyToStorage(InstanceLocations match) throws Exception {
         Storage storage = ctx.getRetrieveService().getStorage(storageID, ctx);
         WriteContext writeCtx = storage.createWriteContext();
         writeCtx.setAttributes(match.getAttributes());
@@ -177,9 +191,8 @@ public class CopyToRetrieveCacheTask implements Runnable {
             StoreSession storeSession = storeService.newStoreSession(ae).withObjectStorageID(storageID);
             storeService.addLocation(storeSession, match.getInstancePk(), location);
             storage.commitStorage(writeCtx);
-            match.getLocations().add(location);
             LOG.debug("Finished copying {} to {}:\n", match, storage.getStorageDescriptor());
-            return true;
+            return location;
         } catch (Exception e) {
             LOG.warn("Failed to copy {} to {}:\n", match, storage.getStorageDescriptor(), e);
             if (location != null)
@@ -188,9 +201,7 @@ public class CopyToRetrieveCacheTask implements Runnable {
                 } catch (Exception e1) {
                     LOG.warn("Failed to revoke storage", e1);
                 }
-            return false;
-        } finally {
-            ctx.getRetrieveService().updateLocations(ctx);
+            throw e;
         }
     }
 
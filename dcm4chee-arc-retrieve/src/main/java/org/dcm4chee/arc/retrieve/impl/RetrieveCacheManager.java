@@ -0,0 +1,150 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.retrieve.impl;
+
+import org.dcm4chee.arc.conf.StorageDescriptor;
+import org.dcm4chee.arc.entity.Location;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.dcm4chee.arc.store.InstanceLocations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coordinates copies of objects to retrieve caches over all concurrent retrieves. The number of parallel copies
+ * from one storage is limited by its {@link StorageDescriptor#getRetrieveCacheMaxParallel()} for the whole device,
+ * and concurrent requests to copy the same object to the same retrieve cache are served by one copy. Requests waiting
+ * for the copy by a concurrent retrieve give up after {@value #MAX_WAIT_FOR_CONCURRENT_COPY_SECONDS} s, so the
+ * object is retrieved from its original storage.
+ */
+@ApplicationScoped
+public class RetrieveCacheManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetrieveCacheManager.class);
+    private static final long MAX_WAIT_FOR_CONCURRENT_COPY_SECONDS = 60;
+
+    private final Map<String, Permits> permitsByStorageID = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Location>> copies = new ConcurrentHashMap<>();
+
+    @Inject
+    private RetrieveServiceEJB ejb;
+
+    @Inject
+    private MetricsService metricsService;
+
+    public void onLookup(boolean cached) {
+        metricsService.accept("retrieve-cache-hit", cached ? 1 : 0);
+    }
+
+    public Location copy(StorageDescriptor desc, InstanceLocations match, Callable<Location> copyTo)
+            throws Exception {
+        String key = desc.getRetrieveCacheStorageID() + '/' + match.getSopInstanceUID();
+        CompletableFuture<Location> copy = new CompletableFuture<>();
+        CompletableFuture<Location> pending = copies.putIfAbsent(key, copy);
+        if (pending != null) {
+            LOG.debug("Wait for copying {} to {} by concurrent retrieve", match, desc.getRetrieveCacheStorageID());
+            try {
+                return pending.get(MAX_WAIT_FOR_CONCURRENT_COPY_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception)
+                    throw (Exception) cause;
+                throw e;
+            } catch (TimeoutException e) {
+                LOG.warn("Timeout on waiting for copying {} to {} by concurrent retrieve",
+                        match, desc.getRetrieveCacheStorageID());
+                throw e;
+            }
+        }
+        try {
+            Permits permits = permitsOf(desc);
+            permits.acquire();
+            try {
+                Location location = copyTo.call();
+                metricsService.accept("retrieve-cache-copied-bytes", location.getSize());
+                copy.complete(location);
+                return location;
+            } finally {
+                permits.release();
+            }
+        } catch (Throwable e) {
+            copy.completeExceptionally(e);
+            throw e;
+        } finally {
+            copies.remove(key);
+        }
+    }
+
+    /**
+     * Marks the Study as newly copied to a retrieve cache, so it will be deleted from the retrieve cache
+     * before other Studies which were accessed again since they were copied to the retrieve cache.
+     */
+    public void onCopiedToRetrieveCache(String studyIUID) {
+        ejb.resetLRUSegment(studyIUID);
+    }
+
+    private Permits permitsOf(StorageDescriptor desc) {
+        int maxParallel = desc.getRetrieveCacheMaxParallel();
+        return permitsByStorageID.compute(desc.getStorageID(),
+                (storageID, permits) -> permits != null && permits.maxParallel == maxParallel
+                        ? permits
+                        : new Permits(maxParallel));
+    }
+
+    private static class Permits extends Semaphore {
+        final int maxParallel;
+
+        Permits(int maxParallel) {
+            super(maxParallel);
+            this.maxParallel = maxParallel;
+        }
+    }
+}
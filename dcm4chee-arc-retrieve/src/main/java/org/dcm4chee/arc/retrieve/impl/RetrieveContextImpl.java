@@ -72,7 +72,7 @@ class RetrieveContextImpl implements RetrieveContext {
     private Association storeAssociation;
     private Association forwardAssociation;
     private Association fallbackAssociation;
-    private final RetrieveService retrieveService;
+    private final RetrieveServiceImpl retrieveService;
     private final ArchiveAEExtension arcAE;
     private final String localAETitle;
     private String callingAET;
@@ -116,7 +116,7 @@ class RetrieveContextImpl implements RetrieveContext {
     private CopyToRetrieveCacheTask copyToRetrieveCacheTask;
     private final List<UpdateLocation> updateLocations = new ArrayList<>();
 
-    RetrieveContextImpl(RetrieveService retrieveService, ArchiveAEExtension arcAE, String localAETitle,
+    RetrieveContextImpl(RetrieveServiceImpl retrieveService, ArchiveAEExtension arcAE, String localAETitle,
                         QueryRetrieveView qrView) {
         this.retrieveService = retrieveService;
         this.arcAE = arcAE;
@@ -666,13 +666,20 @@ class RetrieveContextImpl implements RetrieveContext {
             return false;
         }
         ArchiveDeviceExtension arcdev = retrieveService.getArchiveDeviceExtension();
-        if (match.getLocations().stream().anyMatch(location ->
+        if (match.getLocations().stream().allMatch(location ->
                 arcdev.getStorageDescriptorNotNull(location.getStorageID())
                         .getRetrieveCacheStorageID() == null))
             return false;
 
-        return copyToRetrieveCacheTask(match).schedule(match);
+        boolean cached = match.getLocations().stream().anyMatch(location ->
+                arcdev.getStorageDescriptorNotNull(location.getStorageID())
+                        .getRetrieveCacheStorageID() == null);
+        getRetrieveCacheManager().onLookup(cached);
+        return !cached && copyToRetrieveCacheTask(match).schedule(match);
+    }
 
+    RetrieveCacheManager getRetrieveCacheManager() {
+        return retrieveService.getRetrieveCacheManager();
     }
 
     private CopyToRetrieveCacheTask copyToRetrieveCacheTask(InstanceLocations match) {
@@ -43,11 +43,13 @@ package org.dcm4chee.arc.retrieve.impl;
 import org.dcm4chee.arc.entity.Completeness;
 import org.dcm4chee.arc.entity.Series;
 import org.dcm4chee.arc.entity.Study;
+import org.dcm4chee.arc.entity.StudyStorage;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.List;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -59,10 +61,24 @@ public class RetrieveServiceEJB {
     @PersistenceContext(unitName = "dcm4chee-arc")
     private EntityManager em;
 
-    public void updateStudyAccessTime(Long studyPk) {
+    public void updateStudyAccessTime(Long studyPk, List<String> retrieveCacheStorageIDs) {
         em.createNamedQuery(Study.UPDATE_ACCESS_TIME)
                 .setParameter(1, studyPk)
                 .executeUpdate();
+        em.createNamedQuery(StudyStorage.UPDATE_ACCESS_TIME)
+                .setParameter(1, studyPk)
+                .executeUpdate();
+        if (!retrieveCacheStorageIDs.isEmpty())
+            em.createNamedQuery(StudyStorage.PROTECT)
+                    .setParameter(1, studyPk)
+                    .setParameter(2, retrieveCacheStorageIDs)
+                    .executeUpdate();
+    }
+
+    public void resetLRUSegment(String studyIUID) {
+        em.createNamedQuery(StudyStorage.RESET_LRU_SEGMENT)
+                .setParameter(1, studyIUID)
+                .executeUpdate();
     }
 
     public void updateCompleteness(RetrieveContext ctx, Completeness completeness) {
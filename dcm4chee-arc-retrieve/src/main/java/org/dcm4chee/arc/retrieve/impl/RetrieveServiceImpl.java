@@ -139,6 +139,9 @@ public class RetrieveServiceImpl implements RetrieveService {
     @Inject
     private LeadingCFindSCPQueryCache leadingCFindSCPQueryCache;
 
+    @Inject
+    private RetrieveCacheManager retrieveCacheManager;
+
     @Inject @RetrieveFailures
     private Event<RetrieveContext> retrieveFailures;
 
@@ -525,15 +528,17 @@ public class RetrieveServiceImpl implements RetrieveService {
         if (ctx.isUpdateSeriesMetadata())
             return;
 
-        Duration maxAccessTimeStaleness = getArchiveDeviceExtension().getMaxAccessTimeStaleness();
+        ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
+        Duration maxAccessTimeStaleness = arcDev.getMaxAccessTimeStaleness();
         if (maxAccessTimeStaleness == null)
             return;
 
         long now = System.currentTimeMillis();
         long minAccessTime = now - maxAccessTimeStaleness.getSeconds() * 1000;
+        List<String> retrieveCacheStorageIDs = arcDev.getRetrieveCacheStorageIDs();
         for (StudyInfo study : ctx.getStudyInfos()) {
             if (study.getAccessTime().getTime() < minAccessTime)
-                ejb.updateStudyAccessTime(study.getStudyPk());
+                ejb.updateStudyAccessTime(study.getStudyPk(), retrieveCacheStorageIDs);
         }
     }
 
@@ -547,6 +552,10 @@ public class RetrieveServiceImpl implements RetrieveService {
         return metricsService;
     }
 
+    RetrieveCacheManager getRetrieveCacheManager() {
+        return retrieveCacheManager;
+    }
+
     @Override
     public Transcoder openTranscoder(RetrieveContext ctx, InstanceLocations inst,
                                      Collection<String> tsuids, boolean fmi) throws IOException {
@@ -950,13 +959,15 @@ public class RetrieveServiceImpl implements RetrieveService {
 
     @Override
     public Storage getStorage(String storageID, RetrieveContext ctx) {
-        Storage storage = ctx.getStorage(storageID);
-        if (storage == null) {
-            ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
-            storage = storageFactory.getStorage(arcDev.getStorageDescriptorNotNull(storageID));
-            ctx.putStorage(storageID, storage);
+        synchronized (ctx) {
+            Storage storage = ctx.getStorage(storageID);
+            if (storage == null) {
+                ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
+                storage = storageFactory.getStorage(arcDev.getStorageDescriptorNotNull(storageID));
+                ctx.putStorage(storageID, storage);
+            }
+            return storage;
         }
-        return storage;
     }
 
     @Override
@@ -47,11 +47,11 @@ import org.dcm4che3.net.WebApplication;
 import org.dcm4chee.arc.conf.RSOperation;
 import org.dcm4chee.arc.entity.QueueMessage;
 import org.dcm4chee.arc.keycloak.AccessTokenRequestor;
+import org.dcm4chee.arc.keycloak.HttpClientRegistry;
 import org.dcm4chee.arc.qmgt.Outcome;
 import org.dcm4chee.arc.qmgt.QueueManager;
 import org.dcm4chee.arc.qmgt.QueueSizeLimitExceededException;
 import org.dcm4chee.arc.rs.client.RSClient;
-import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -81,6 +81,9 @@ public class RSClientImpl implements RSClient {
     @Inject
     private AccessTokenRequestor accessTokenRequestor;
 
+    @Inject
+    private HttpClientRegistry httpClientRegistry;
+
     @Inject
     private IDeviceCache iDeviceCache;
 
@@ -188,9 +191,7 @@ public class RSClientImpl implements RSClient {
                                 byte[] content,
                                 String authorization) throws Exception {
 
-        ResteasyClient client = accessTokenRequestor.resteasyClientBuilder(uri, allowAnyHostname, disableTrustManager)
-                .build();
-        WebTarget target = client.target(uri);
+        WebTarget target = httpClientRegistry.getClient(uri, allowAnyHostname, disableTrustManager).target(uri);
         Invocation.Builder request = target.request();
         if (authorization != null)
             request.header("Authorization", authorization);
@@ -45,8 +45,10 @@ import org.dcm4che3.conf.api.IApplicationEntityCache;
 import org.dcm4che3.net.*;
 import org.dcm4che3.net.pdu.*;
 import org.dcm4che3.util.StringUtils;
+import org.dcm4chee.arc.UserIdentityCache;
 import org.dcm4chee.arc.conf.ArchiveAEExtension;
 import org.dcm4chee.arc.keycloak.AccessTokenRequestor;
+import org.dcm4chee.arc.metrics.MetricsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -54,6 +56,9 @@ import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -71,6 +76,12 @@ public class ArchiveAssociationHandler extends AssociationHandler {
     @Inject
     private AccessTokenRequestor accessTokenRequestor;
 
+    @Inject
+    private UserIdentityCache userIdentityCache;
+
+    @Inject
+    private MetricsService metricsService;
+
     @Override
     protected AAssociateAC makeAAssociateAC(Association as, AAssociateRQ rq, UserIdentityAC userIdentity)
             throws IOException {
@@ -106,16 +117,32 @@ public class ArchiveAssociationHandler extends AssociationHandler {
                     || userIdentityRQ.getType() == UserIdentityRQ.JWT)
                 && (kc = keycloakClient(arcAE)) != null)
             try {
+                String role = arcAE.userIdentityNegotiationRole();
+                String key = userIdentityCache.getStaleTimeout() > 0 ? cacheKey(kc, userIdentityRQ, role) : null;
+                if (key != null && isCachedVerified(key)) {
+                    LOG.debug("{}: use cached verification of {}", as, userIdentityRQ);
+                    return true;
+                }
+                long expiration = 0L;
                 switch (userIdentityRQ.getType()) {
                     case UserIdentityRQ.USERNAME_PASSCODE:
                         kc.setKeycloakGrantType(KeycloakClient.GrantType.password);
                         kc.setUserID(userIdentityRQ.getUsername());
                         kc.setPassword(new String(userIdentityRQ.getPasscode()));
-                        return accessTokenRequestor.verifyUsernamePasscode(kc, arcAE.userIdentityNegotiationRole());
+                        expiration = accessTokenRequestor.verifyUsernamePasscode(kc, role);
+                        break;
                     case UserIdentityRQ.JWT:
-                        return accessTokenRequestor.verifyJWT(
-                                userIdentityRQ.getUsername(), kc, arcAE.userIdentityNegotiationRole());
+                        expiration = accessTokenRequestor.verifyJWT(userIdentityRQ.getUsername(), kc, role);
+                        break;
                 }
+                if (expiration == 0L)
+                    return false;
+
+                if (key != null)
+                    synchronized (userIdentityCache) {
+                        userIdentityCache.put(key, expiration);
+                    }
+                return true;
             } catch (Exception e) {
                 LOG.info("{}: validation of {} failed:\n{}", as, userIdentityRQ, e);
                 return false;
@@ -123,6 +150,38 @@ public class ArchiveAssociationHandler extends AssociationHandler {
         return optional;
     }
 
+    private boolean isCachedVerified(String key) {
+        Long expiration;
+        synchronized (userIdentityCache) {
+            expiration = userIdentityCache.get(key);
+            if (expiration != null && expiration <= System.currentTimeMillis()) {
+                userIdentityCache.remove(key);
+                expiration = null;
+            }
+        }
+        metricsService.accept("user-identity-cache-hit", expiration != null ? 1 : 0);
+        return expiration != null;
+    }
+
+    private static String cacheKey(KeycloakClient kc, UserIdentityRQ userIdentityRQ, String role) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        update(digest, kc.getKeycloakServerURL());
+        update(digest, kc.getKeycloakRealm());
+        update(digest, kc.getKeycloakClientID());
+        update(digest, role);
+        digest.update((byte) userIdentityRQ.getType());
+        update(digest, userIdentityRQ.getUsername());
+        if (userIdentityRQ.getType() == UserIdentityRQ.USERNAME_PASSCODE)
+            update(digest, new String(userIdentityRQ.getPasscode()));
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        if (s != null)
+            digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
     private KeycloakClient keycloakClient(ArchiveAEExtension arcAE) {
         String keycloakClientID = arcAE.userIdentityNegotiationKeycloakClientID();
         if (keycloakClientID != null) {
@@ -119,6 +119,12 @@ public class ArchiveServiceImpl implements ArchiveService {
     @Inject
     private StorePermissionCache storePermissionCache;
 
+    @Inject
+    private QidoCountCache qidoCountCache;
+
+    @Inject
+    private UserIdentityCache userIdentityCache;
+
     @Inject
     private Device device;
 
@@ -238,6 +244,8 @@ public class ArchiveServiceImpl implements ArchiveService {
         leadingCFindSCPQueryCache.clear();
         mergeMWLCache.clear();
         storePermissionCache.clear();
+        qidoCountCache.clear();
+        userIdentityCache.clear();
         configure();
         archiveServiceEvent.fire(new ArchiveServiceEvent(ArchiveServiceEvent.Type.RELOADED, request));
     }
@@ -257,6 +265,12 @@ public class ArchiveServiceImpl implements ArchiveService {
         storePermissionCache.setStaleTimeout(
                 arcdev.getStorePermissionCacheStaleTimeoutSeconds() * 1000L);
         storePermissionCache.setMaxSize(arcdev.getStorePermissionCacheSize());
+        qidoCountCache.setStaleTimeout(
+                arcdev.getQidoCountCacheStaleTimeoutSeconds() * 1000L);
+        qidoCountCache.setMaxSize(arcdev.getQidoCountCacheSize());
+        userIdentityCache.setStaleTimeout(
+                arcdev.getUserIdentityCacheStaleTimeoutSeconds() * 1000L);
+        userIdentityCache.setMaxSize(arcdev.getUserIdentityCacheSize());
         Patient.setShowPatientInfo(arcdev.showPatientInfoInSystemLog());
     }
 
@@ -73,6 +73,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -179,19 +180,25 @@ class StgVerMatching {
             String warning = null;
             int count = 0;
             Response.Status status = Response.Status.ACCEPTED;
+            int fetchSize = arcDev.getQueryFetchSize();
+            HttpServletRequestInfo httpServletRequestInfo = HttpServletRequestInfo.valueOf(request);
+            List<StorageVerificationTask> tasks = new ArrayList<>();
             try (Query query = queryService.createQuery(ctx)) {
                 try {
-                    query.executeQuery(arcDev.getQueryFetchSize());
+                    query.executeQuery(fetchSize);
                     while (query.hasMoreMatches()) {
                         Attributes match = query.nextMatch();
                         if (match == null)
                             continue;
 
-                        if (stgCmtMgr.scheduleStgVerTask(createStgVerTask(aet, match, qrlevel),
-                                HttpServletRequestInfo.valueOf(request), batchID)) {
-                            count++;
+                        tasks.add(createStgVerTask(aet, match, qrlevel));
+                        if (tasks.size() == fetchSize) {
+                            count += stgCmtMgr.scheduleStgVerTasks(tasks, httpServletRequestInfo, batchID);
+                            tasks.clear();
                         }
                     }
+                    if (!tasks.isEmpty())
+                        count += stgCmtMgr.scheduleStgVerTasks(tasks, httpServletRequestInfo, batchID);
                 } catch (QueueSizeLimitExceededException e) {
                     status = Response.Status.SERVICE_UNAVAILABLE;
                     warning = e.getMessage();
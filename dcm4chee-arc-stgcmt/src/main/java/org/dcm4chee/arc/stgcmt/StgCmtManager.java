@@ -84,6 +84,10 @@ public interface StgCmtManager {
                                String batchID)
             throws QueueSizeLimitExceededException;
 
+    int scheduleStgVerTasks(List<StorageVerificationTask> storageVerificationTasks,
+                            HttpServletRequestInfo httpServletRequestInfo, String batchID)
+            throws QueueSizeLimitExceededException;
+
     Outcome executeStgVerTask(StorageVerificationTask storageVerificationTask, HttpServletRequestInfo httpServletRequestInfo)
             throws IOException;
 
@@ -239,6 +239,38 @@ public class StgCmtEJB {
         if (isAlreadyScheduled(storageVerificationTask))
             return false;
 
+        QueueMessage queueMessage = queueManager.scheduleMessage(StgCmtManager.QUEUE_NAME,
+                createMessage(storageVerificationTask, httpServletRequestInfo),
+                Message.DEFAULT_PRIORITY, batchID, 0L);
+        storageVerificationTask.setQueueMessage(queueMessage);
+        em.persist(storageVerificationTask);
+        return true;
+    }
+
+    public int scheduleStgVerTasks(List<StorageVerificationTask> storageVerificationTasks,
+            HttpServletRequestInfo httpServletRequestInfo, String batchID) throws QueueSizeLimitExceededException {
+        List<StorageVerificationTask> tasks = new ArrayList<>(storageVerificationTasks.size());
+        List<ObjectMessage> msgs = new ArrayList<>(storageVerificationTasks.size());
+        for (StorageVerificationTask storageVerificationTask : storageVerificationTasks) {
+            if (!isAlreadyScheduled(storageVerificationTask)) {
+                tasks.add(storageVerificationTask);
+                msgs.add(createMessage(storageVerificationTask, httpServletRequestInfo));
+            }
+        }
+        if (tasks.isEmpty())
+            return 0;
+
+        Iterator<QueueMessage> queueMessages = queueManager.scheduleMessages(StgCmtManager.QUEUE_NAME, msgs,
+                Message.DEFAULT_PRIORITY, batchID, 0L).iterator();
+        for (StorageVerificationTask storageVerificationTask : tasks) {
+            storageVerificationTask.setQueueMessage(queueMessages.next());
+            em.persist(storageVerificationTask);
+        }
+        return tasks.size();
+    }
+
+    private ObjectMessage createMessage(StorageVerificationTask storageVerificationTask,
+            HttpServletRequestInfo httpServletRequestInfo) {
         try {
             ObjectMessage msg = queueManager.createObjectMessage(0);
             msg.setStringProperty("LocalAET", storageVerificationTask.getLocalAET());
@@ -252,14 +284,10 @@ public class StgCmtEJB {
             if (httpServletRequestInfo != null) {
                 httpServletRequestInfo.copyTo(msg);
             }
-            QueueMessage queueMessage = queueManager.scheduleMessage(StgCmtManager.QUEUE_NAME, msg,
-                    Message.DEFAULT_PRIORITY, batchID, 0L);
-            storageVerificationTask.setQueueMessage(queueMessage);
-            em.persist(storageVerificationTask);
+            return msg;
         } catch (JMSException e) {
             throw QueueMessage.toJMSRuntimeException(e);
         }
-        return true;
     }
 
     private boolean isAlreadyScheduled(StorageVerificationTask storageVerificationTask) {
@@ -613,7 +641,6 @@ public class StgCmtEJB {
                 .setMaxResults(deleteTasksFetchSize)
                 .getResultList();
 
-        referencedQueueMsgIDs.forEach(queueMsgID -> queueManager.deleteTask(queueMsgID, null));
-        return referencedQueueMsgIDs.size();
+        return queueManager.deleteTasks(referencedQueueMsgIDs);
     }
 }
@@ -207,6 +207,13 @@ public class StgCmtManagerImpl implements StgCmtManager {
         return ejb.scheduleStgVerTask(storageVerificationTask, httpServletRequestInfo, batchID);
     }
 
+    @Override
+    public int scheduleStgVerTasks(List<StorageVerificationTask> storageVerificationTasks,
+            HttpServletRequestInfo httpServletRequestInfo, String batchID)
+            throws QueueSizeLimitExceededException {
+        return ejb.scheduleStgVerTasks(storageVerificationTasks, httpServletRequestInfo, batchID);
+    }
+
     @Override
     public boolean cancelStgVerTask(Long pk, QueueMessageEvent queueEvent) throws IllegalTaskStateException {
         return ejb.cancelStgVerTask(pk, queueEvent);
@@ -206,6 +206,11 @@ public class FileSystemStorage extends AbstractStorage {
         ctx.setStoragePath(rootURI.relativize(path.toUri()).toString());
     }
 
+    @Override
+    public boolean isSeekable() {
+        return true;
+    }
+
     @Override
     protected InputStream openInputStreamA(ReadContext ctx) throws IOException {
         Path path = Paths.get(rootURI.resolve(ctx.getStoragePath()));
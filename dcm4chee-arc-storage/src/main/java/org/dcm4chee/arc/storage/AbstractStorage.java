@@ -86,6 +86,11 @@ public abstract class AbstractStorage implements Storage {
         return true;
     }
 
+    @Override
+    public boolean isSeekable() {
+        return false;
+    }
+
     @Override
     public boolean exists(ReadContext ctx) {
         throw new UnsupportedOperationException("exists() not supported by " + getClass().getName());
@@ -41,4 +41,9 @@ public interface Storage extends Closeable {
     void deleteObject(String storagePath) throws IOException;
 
     InputStream openInputStream(ReadContext ctx) throws IOException;
+
+    /**
+     * Indicates if input streams opened by {@link #openInputStream} skip bytes without reading them.
+     */
+    boolean isSeekable();
 }
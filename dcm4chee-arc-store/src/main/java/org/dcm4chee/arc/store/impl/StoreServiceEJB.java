@@ -60,6 +60,7 @@ import org.dcm4chee.arc.conf.Entity;
 import org.dcm4chee.arc.entity.*;
 import org.dcm4chee.arc.id.IDService;
 import org.dcm4chee.arc.issuer.IssuerService;
+import org.dcm4chee.arc.keycloak.HttpClientRegistry;
 import org.dcm4chee.arc.keycloak.HttpServletRequestInfo;
 import org.dcm4chee.arc.patient.PatientMgtContext;
 import org.dcm4chee.arc.patient.PatientService;
@@ -77,7 +78,6 @@ import javax.ejb.Stateless;
 import javax.inject.Inject;
 import javax.json.Json;
 import javax.persistence.*;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 import java.io.IOException;
@@ -88,8 +88,10 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -127,6 +129,9 @@ public class StoreServiceEJB {
     @Inject
     private StorePermissionCache storePermissionCache;
 
+    @Inject
+    private HttpClientRegistry httpClientRegistry;
+
     @Inject
     private IDService idService;
 
@@ -138,12 +143,9 @@ public class StoreServiceEJB {
         StoreSession session = ctx.getStoreSession();
         ArchiveAEExtension arcAE = session.getArchiveAEExtension();
         ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
-        restoreInstances(session, findSeries(ctx), ctx.getStudyInstanceUID(), null, null);
-        Instance prevInstance = findPreviousInstance(ctx);
-        RejectedInstance rejectedInstance = findRejectedInstance(
-                ctx.getStudyInstanceUID(),
-                ctx.getSeriesInstanceUID(),
-                ctx.getSopInstanceUID());
+        StoreLookup lookup = lookup(ctx);
+        Instance prevInstance = lookup.prevInstance;
+        RejectedInstance rejectedInstance = lookup.rejectedInstance;
         if (prevInstance != null) {
             result.setPreviousInstance(prevInstance);
             LOG.info("{}: Found previous received {}", session, prevInstance);
@@ -283,6 +285,26 @@ public class StoreServiceEJB {
         return result;
     }
 
+    /**
+     * Updates the DB for several copied, moved or linked Instances within one transaction, so the target Patient,
+     * Study and Series are only looked up once and remain attached for subsequent Instances.
+     */
+    public List<UpdateDBResult> updateDB(List<StoreContext> ctxs) {
+        List<UpdateDBResult> results = new ArrayList<>(ctxs.size());
+        for (StoreContext ctx : ctxs) {
+            UpdateDBResult result = new UpdateDBResult(ctx);
+            try {
+                updateDB(ctx, result);
+            } catch (DicomServiceException e) {
+                result.setException(e);
+            }
+            if (result.getStoredInstance() != null)
+                ctx.getStoreSession().cacheSeries(result.getStoredInstance().getSeries());
+            results.add(result);
+        }
+        return results;
+    }
+
     private static DicomServiceException subsequentOccurrenceOfRejectedObject(RejectedInstance rejectedInstance) {
         return new DicomServiceException(StoreService.SUBSEQUENT_OCCURRENCE_OF_REJECTED_OBJECT,
                 MessageFormat.format(StoreService.SUBSEQUENT_OCCURRENCE_OF_REJECTED_OBJECT_MSG,
@@ -408,16 +430,30 @@ public class StoreServiceEJB {
                 String seriesUID = seriesRef.getString(Tag.SeriesInstanceUID);
                 series = findSeries(studyUID, seriesUID);
                 restoreInstances(session, series, studyUID, purgeInstanceRecordsDelay, null);
-                List<String> sopIUIDsOfSeries = null;
+                Set<String> sopIUIDsOfSeries = null;
                 if (!acceptRejectionBeforeStorage) {
                     if (series == null)
                         throw new DicomServiceException(StoreService.REJECTION_FAILED_NO_SUCH_INSTANCE,
                                 MessageFormat.format(StoreService.REJECTION_FAILED_NO_SUCH_SERIES_MSG, seriesUID));
-                    sopIUIDsOfSeries = sopIUIDsOfSeries(series);
+                    sopIUIDsOfSeries = new HashSet<>(sopIUIDsOfSeries(series));
                 }
                 if (series != null && rjNote.getRejectionNoteType() == RejectionNote.Type.DATA_RETENTION_POLICY_EXPIRED)
                     checkExpirationDate(series, arcAE);
 
+                Map<String, RejectedInstance> rejectedInstancesOfSeries = findRejectedInstances(studyUID, seriesUID);
+                if (rejectedInstancesOfSeries.isEmpty() && sopIUIDsOfSeries != null
+                        && sopIUIDsOfSeries.equals(sopIUIDsOf(seriesRef))) {
+                    int rejected = em.createNamedQuery(RejectedInstance.INSERT_FOR_SERIES)
+                            .setParameter(1, series)
+                            .setParameter(2, rejectionCode)
+                            .executeUpdate();
+                    LOG.info("{}: Reject all {} Instances of {}", session, rejected, series);
+                    series.setRejectionState(RejectionState.COMPLETE);
+                    series.setExpirationDate(null);
+                    deleteSeriesQueryAttributes(series);
+                    series.scheduleMetadataUpdate(seriesMetadataDelay);
+                    continue;
+                }
                 for (Attributes sopRef : seriesRef.getSequence(Tag.ReferencedSOPSequence)) {
                     String classUID = sopRef.getString(Tag.ReferencedSOPClassUID);
                     String objectUID = sopRef.getString(Tag.ReferencedSOPInstanceUID);
@@ -425,7 +461,7 @@ public class StoreServiceEJB {
                         throw new DicomServiceException(StoreService.REJECTION_FAILED_NO_SUCH_INSTANCE,
                                 MessageFormat.format(StoreService.REJECTION_FAILED_NO_SUCH_INSTANCE_MSG, objectUID));
 
-                    RejectedInstance rejectedInstance = findRejectedInstance(studyUID, seriesUID, objectUID);
+                    RejectedInstance rejectedInstance = rejectedInstancesOfSeries.get(objectUID);
                     if (rejectedInstance != null) {
                         LOG.info("{}: Detect previous {}", session, rejectedInstance);
                         CodeEntity prevRjNoteCode = rejectedInstance.getRejectionNoteCode();
@@ -439,6 +475,7 @@ public class StoreServiceEJB {
                     } else {
                         rejectedInstance = new RejectedInstance(studyUID, seriesUID, objectUID, classUID, rejectionCode);
                         em.persist(rejectedInstance);
+                        rejectedInstancesOfSeries.put(objectUID, rejectedInstance);
                         LOG.info("{}: {}", session, rejectedInstance);
                     }
                 }
@@ -525,6 +562,20 @@ public class StoreServiceEJB {
         }
     }
 
+    private static Set<String> sopIUIDsOf(Attributes seriesRef) {
+        return seriesRef.getSequence(Tag.ReferencedSOPSequence).stream()
+                .map(sopRef -> sopRef.getString(Tag.ReferencedSOPInstanceUID))
+                .collect(Collectors.toSet());
+    }
+
+    private Map<String, RejectedInstance> findRejectedInstances(String studyIUID, String seriesIUID) {
+        return em.createNamedQuery(RejectedInstance.FIND_BY_SERIES_UID, RejectedInstance.class)
+                .setParameter(1, studyIUID)
+                .setParameter(2, seriesIUID)
+                .getResultStream()
+                .collect(Collectors.toMap(RejectedInstance::getSopInstanceUID, Function.identity()));
+    }
+
     private void checkExpirationDate(Series series, ArchiveAEExtension arcAE) throws DicomServiceException {
         switch (arcAE.allowRejectionForDataRetentionPolicyExpired()) {
             case NEVER:
@@ -907,7 +958,7 @@ public class StoreServiceEJB {
         pat.setAttributes(recordAttributeModification(ctx)
                     ? attrs.addOriginalAttributes(null, now, reason, device.getDeviceName(), updateInfo.modified)
                     : attrs,
-                filter, arcDev.getFuzzyStr());
+                filter, arcDev.getFuzzyStr(), arcDev.isSearchTokenMaintenance());
         em.createNamedQuery(Series.SCHEDULE_METADATA_UPDATE_FOR_PATIENT)
                 .setParameter(1, pat)
                 .executeUpdate();
@@ -932,7 +983,7 @@ public class StoreServiceEJB {
         study.setAttributes(recordAttributeModification(ctx)
                     ? attrs.addOriginalAttributes(null, now, reason, device.getDeviceName(), updateInfo.modified)
                     : attrs,
-                filter, arcDev.getFuzzyStr());
+                filter, arcDev.getFuzzyStr(), arcDev.isSearchTokenMaintenance());
         study.setIssuerOfAccessionNumber(findOrCreateIssuer(attrs, Tag.IssuerOfAccessionNumberSequence));
         study.setIssuerOfAdmissionID(findOrCreateIssuer(attrs, Tag.IssuerOfAdmissionIDSequence));
         setCodes(study.getProcedureCodes(), attrs, Tag.ProcedureCodeSequence);
@@ -962,10 +1013,10 @@ public class StoreServiceEJB {
         series.setAttributes(recordAttributeModification(ctx)
                     ? attrs.addOriginalAttributes(null, now, reason, device.getDeviceName(), updateInfo.modified)
                     : attrs,
-                filter, fuzzyStr);
+                filter, fuzzyStr, arcDev.isSearchTokenMaintenance());
         series.setInstitutionCode(findOrCreateCode(attrs, Tag.InstitutionCodeSequence));
         series.setInstitutionalDepartmentTypeCode(findOrCreateCode(attrs, Tag.InstitutionalDepartmentTypeCodeSequence));
-        setRequestAttributes(series, attrs, fuzzyStr);
+        setRequestAttributes(series, attrs, fuzzyStr, arcDev.isSearchTokenMaintenance());
         return series;
     }
 
@@ -1074,17 +1125,61 @@ public class StoreServiceEJB {
         }
     }
 
-    private Series findSeries(StoreContext ctx) {
-        StoreSession storeSession = ctx.getStoreSession();
-        String studyInstanceUID = ctx.getStudyInstanceUID();
-        String seriesInstanceUID = ctx.getSeriesInstanceUID();
-        Series series = storeSession.getCachedSeries(studyInstanceUID, seriesInstanceUID);
-        if (series == null) {
-            series = findSeries(studyInstanceUID, seriesInstanceUID);
-            if (series != null)
-                storeSession.cacheSeries(series);
+    /**
+     * Looks up the Series with a previous received Instance and a Rejected Instance record with equal UIDs by one
+     * query for the first received Instance of a Series. For subsequent Instances of that Series, previous received
+     * Instances and Rejected Instance records are looked up by one query by the primary key of the Series cached by
+     * the Store Session, so Instances and Rejections stored by other Associations are still detected.
+     */
+    private StoreLookup lookup(StoreContext ctx) throws DicomServiceException {
+        StoreSession session = ctx.getStoreSession();
+        String studyIUID = ctx.getStudyInstanceUID();
+        String seriesIUID = ctx.getSeriesInstanceUID();
+        String sopIUID = ctx.getSopInstanceUID();
+        Series series = session.getCachedSeries(studyIUID, seriesIUID);
+        if (series != null) {
+            boolean restore = series.getInstancePurgeState() != Series.InstancePurgeState.NO;
+            restoreInstances(session, series, studyIUID, null, null);
+            Object[] pks = em.createNamedQuery(Series.INSTANCE_PKS_BY_SOP_IUID, Object[].class)
+                    .setParameter(1, series.getPk())
+                    .setParameter(2, sopIUID)
+                    .getResultList()
+                    .get(0);
+            return lookup(ctx, restore, pks[0], pks[1]);
         }
-        return series;
+        List<Object[]> resultList = em.createNamedQuery(Series.FIND_BY_SERIES_IUID_EAGER_WITH_INSTANCE_PKS,
+                        Object[].class)
+                .setParameter(1, studyIUID)
+                .setParameter(2, seriesIUID)
+                .setParameter(3, sopIUID)
+                .getResultList();
+        if (resultList.isEmpty()) {
+            StoreLookup lookup = new StoreLookup();
+            if (!isPreviousInstanceOfSameSeries(ctx))
+                lookup.prevInstance = findPreviousInstance(ctx);
+            lookup.rejectedInstance = findRejectedInstance(studyIUID, seriesIUID, sopIUID);
+            return lookup;
+        }
+        Object[] result = resultList.get(0);
+        Series foundSeries = (Series) result[0];
+        session.cacheSeries(foundSeries);
+        boolean restore = foundSeries.getInstancePurgeState() != Series.InstancePurgeState.NO;
+        restoreInstances(session, foundSeries, studyIUID, null, null);
+        return lookup(ctx, restore, result[1], result[2]);
+    }
+
+    private StoreLookup lookup(StoreContext ctx, boolean restore, Object prevInstancePk, Object rejectedInstancePk) {
+        StoreLookup lookup = new StoreLookup();
+        if (restore || prevInstancePk != null || !isPreviousInstanceOfSameSeries(ctx))
+            lookup.prevInstance = findPreviousInstance(ctx);
+        if (rejectedInstancePk != null)
+            lookup.rejectedInstance = em.find(RejectedInstance.class, rejectedInstancePk);
+        return lookup;
+    }
+
+    private static final class StoreLookup {
+        Instance prevInstance;
+        RejectedInstance rejectedInstance;
     }
 
     private Series findSeries(String studyInstanceUID, String seriesInstanceUID) {
@@ -1109,6 +1204,16 @@ public class StoreServiceEJB {
         }
     }
 
+    private static boolean isPreviousInstanceOfSameSeries(StoreContext ctx) {
+        switch (ctx.getStoreSession().getArchiveAEExtension().overwritePolicy()) {
+            case ALWAYS:
+            case SAME_SOURCE:
+                return false;
+            default:
+                return true;
+        }
+    }
+
     private Instance findPreviousInstance(StoreContext ctx) {
         switch (ctx.getStoreSession().getArchiveAEExtension().overwritePolicy()) {
             case ALWAYS:
@@ -1237,24 +1342,28 @@ public class StoreServiceEJB {
         LocalDate expirationDate = null;
         DicomServiceException exception = null;
         try {
-            WebTarget target = ClientBuilder.newBuilder().build().target(urlspec);
+            WebTarget target = httpClientRegistry.getClient(urlspec).target(urlspec);
             Response resp = target.request().get();
-            Pattern responsePattern = session.getArchiveAEExtension().storePermissionServiceResponsePattern();
-            switch (resp.getStatus()) {
-                case 200:
-                    String responseContent = resp.readEntity(String.class);
-                    LOG.debug("{}: Store Permission Service {} response:\n{}", session, urlspec, responseContent);
-                    if (responsePattern == null || responsePattern.matcher(responseContent).find() )
-                        expirationDate = selectExpirationDate(session, urlspec, responseContent);
-                    else
-                        exception = selectErrorCodeComment(session, urlspec, responseContent);
-                    break;
-                case 204:
-                    if (responsePattern == null)
+            try {
+                Pattern responsePattern = session.getArchiveAEExtension().storePermissionServiceResponsePattern();
+                switch (resp.getStatus()) {
+                    case 200:
+                        String responseContent = resp.readEntity(String.class);
+                        LOG.debug("{}: Store Permission Service {} response:\n{}", session, urlspec, responseContent);
+                        if (responsePattern == null || responsePattern.matcher(responseContent).find() )
+                            expirationDate = selectExpirationDate(session, urlspec, responseContent);
+                        else
+                            exception = selectErrorCodeComment(session, urlspec, responseContent);
                         break;
-                default:
-                    exception = new DicomServiceException(Status.NotAuthorized, StoreService.NOT_AUTHORIZED);
-                    break;
+                    case 204:
+                        if (responsePattern == null)
+                            break;
+                    default:
+                        exception = new DicomServiceException(Status.NotAuthorized, StoreService.NOT_AUTHORIZED);
+                        break;
+                }
+            } finally {
+                resp.close();
             }
         } catch (Exception e) {
             LOG.warn("{}: Failed to query Store Permission Service {}:\n", session, urlspec, e);
@@ -1326,7 +1435,8 @@ public class StoreServiceEJB {
     private void setStudyAttributes(StoreContext ctx, Study study) {
         ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
         Attributes attrs = ctx.getAttributes();
-        study.setAttributes(attrs, arcDev.getAttributeFilter(Entity.Study), arcDev.getFuzzyStr());
+        study.setAttributes(attrs, arcDev.getAttributeFilter(Entity.Study), arcDev.getFuzzyStr(),
+                arcDev.isSearchTokenMaintenance());
         study.setIssuerOfAccessionNumber(findOrCreateIssuer(attrs, Tag.IssuerOfAccessionNumberSequence));
         study.setIssuerOfAdmissionID(findOrCreateIssuer(attrs, Tag.IssuerOfAdmissionIDSequence));
         setCodes(study.getProcedureCodes(), attrs, Tag.ProcedureCodeSequence);
@@ -1443,10 +1553,11 @@ public class StoreServiceEJB {
         ArchiveDeviceExtension arcDev = getArchiveDeviceExtension();
         FuzzyStr fuzzyStr = arcDev.getFuzzyStr();
         Attributes attrs = ctx.getAttributes();
-        series.setAttributes(attrs, arcDev.getAttributeFilter(Entity.Series), fuzzyStr);
+        series.setAttributes(attrs, arcDev.getAttributeFilter(Entity.Series), fuzzyStr,
+                arcDev.isSearchTokenMaintenance());
         series.setInstitutionCode(findOrCreateCode(attrs, Tag.InstitutionCodeSequence));
         series.setInstitutionalDepartmentTypeCode(findOrCreateCode(attrs, Tag.InstitutionalDepartmentTypeCodeSequence));
-        setRequestAttributes(series, attrs, fuzzyStr);
+        setRequestAttributes(series, attrs, fuzzyStr, arcDev.isSearchTokenMaintenance());
         series.setSourceAET(session.getCallingAET());
     }
 
@@ -1456,7 +1567,7 @@ public class StoreServiceEJB {
         FuzzyStr fuzzyStr = arcDev.getFuzzyStr();
         Instance instance = new Instance();
         instance.setAttributes(attrs, arcDev.getAttributeFilter(Entity.Instance), fuzzyStr);
-        setVerifyingObservers(instance, attrs, fuzzyStr);
+        setVerifyingObservers(instance, attrs, fuzzyStr, arcDev.isSearchTokenMaintenance());
         instance.setConceptNameCode(conceptNameCode);
         setContentItems(session, instance, attrs);
         instance.setRetrieveAETs(retrieveAETs);
@@ -1556,6 +1667,7 @@ public class StoreServiceEJB {
                     .setParameter(1, studyPk)
                     .setParameter(2, newStorageIDs)
                     .executeUpdate();
+            em.persist(new StudyStorage(em.getReference(Study.class, studyPk), storageID));
             LOG.info("Associate Study[uid={}] with Storage[id:{}]", studyIUID, storageID);
         }
     }
@@ -1600,7 +1712,8 @@ public class StoreServiceEJB {
         return result;
     }
 
-    private void setRequestAttributes(Series series, Attributes attrs, FuzzyStr fuzzyStr) {
+    private void setRequestAttributes(Series series, Attributes attrs, FuzzyStr fuzzyStr,
+            boolean searchTokens) {
         Sequence seq = attrs.getSequence(Tag.RequestAttributesSequence);
         Collection<SeriesRequestAttributes> requestAttributes = series.getRequestAttributes();
         requestAttributes.clear();
@@ -1609,18 +1722,20 @@ public class StoreServiceEJB {
                 SeriesRequestAttributes request = new SeriesRequestAttributes(
                         item,
                         findOrCreateIssuer(item, Tag.IssuerOfAccessionNumberSequence),
-                        fuzzyStr);
+                        fuzzyStr,
+                        searchTokens);
                 requestAttributes.add(request);
             }
     }
 
-    private void setVerifyingObservers(Instance instance, Attributes attrs, FuzzyStr fuzzyStr) {
+    private void setVerifyingObservers(Instance instance, Attributes attrs, FuzzyStr fuzzyStr,
+            boolean searchTokens) {
         Collection<VerifyingObserver> list = instance.getVerifyingObservers();
         list.clear();
         Sequence seq = attrs.getSequence(Tag.VerifyingObserverSequence);
         if (seq != null)
             for (Attributes item : seq)
-                list.add(new VerifyingObserver(item, fuzzyStr));
+                list.add(new VerifyingObserver(item, fuzzyStr, searchTokens));
     }
 
     private void setContentItems(StoreSession session, Instance inst, Attributes attrs) {
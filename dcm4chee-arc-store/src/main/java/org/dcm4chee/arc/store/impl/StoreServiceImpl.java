@@ -245,6 +245,7 @@ class StoreServiceImpl implements StoreService {
             } catch (EJBException e) {
                 if (retries-- > 0) {
                     LOG.info("{}: Failed to update DB - retry:\n", session, e);
+                    session.clearSeriesCache();
                 } else {
                     LOG.warn("{}: Failed to update DB:\n", session, e);
                     throw e;
@@ -414,31 +415,96 @@ class StoreServiceImpl implements StoreService {
         if (instances != null) {
             Sequence refSOPSeq = result.newSequence(Tag.ReferencedSOPSequence, 10);
             Sequence failedSOPSeq = result.newSequence(Tag.FailedSOPSequence, 10);
+            int batchSize = session.getArchiveAEExtension().getArchiveDeviceExtension().getCopyMoveBatchSize();
+            List<InstanceLocations> batch = new ArrayList<>(Math.min(batchSize, instances.size()));
             for (InstanceLocations il : instances) {
-                Attributes attr = il.getAttributes();
-                StoreContext ctx = newStoreContext(session);
-                UIDUtils.remapUIDs(attr, session.getUIDMap(), ctx.getCoercedAttributes());
-                coerceAttrs(ctx, attr, coerceAttrs, updatePolicy);
-                for (Location location : il.getLocations()) {
-                    ctx.getLocations().add(location);
-                    if (location.getObjectType() == Location.ObjectType.DICOM_FILE)
-                        ctx.setStoreTranferSyntax(location.getTransferSyntaxUID());
-                }
-                ctx.setRetrieveAETs(il.getRetrieveAETs());
-                ctx.setAvailability(il.getAvailability());
-                try {
-                    store(ctx, attr);
-                    populateResult(refSOPSeq, attr);
-                } catch (DicomServiceException e) {
-                    result.setString(Tag.FailureReason, VR.US, Integer.toString(e.getStatus()));
-                    attr.setString(Tag.SOPInstanceUID, VR.UI, il.getSopInstanceUID());
-                    populateResult(failedSOPSeq, attr);
+                batch.add(il);
+                if (batch.size() == batchSize) {
+                    copyInstances(session, batch, coerceAttrs, updatePolicy, result, refSOPSeq, failedSOPSeq);
+                    batch.clear();
                 }
             }
+            if (!batch.isEmpty())
+                copyInstances(session, batch, coerceAttrs, updatePolicy, result, refSOPSeq, failedSOPSeq);
         }
         return result;
     }
 
+    private void copyInstances(StoreSession session, List<InstanceLocations> instances, Attributes coerceAttrs,
+            Attributes.UpdatePolicy updatePolicy, Attributes result, Sequence refSOPSeq, Sequence failedSOPSeq)
+            throws IOException {
+        List<StoreContext> ctxs = new ArrayList<>(instances.size());
+        List<StoreContext> ctxsWithLocations = new ArrayList<>(instances.size());
+        for (InstanceLocations il : instances) {
+            Attributes attr = il.getAttributes();
+            StoreContext ctx = newStoreContext(session);
+            UIDUtils.remapUIDs(attr, session.getUIDMap(), ctx.getCoercedAttributes());
+            coerceAttrs(ctx, attr, coerceAttrs, updatePolicy);
+            for (Location location : il.getLocations()) {
+                ctx.getLocations().add(location);
+                if (location.getObjectType() == Location.ObjectType.DICOM_FILE)
+                    ctx.setStoreTranferSyntax(location.getTransferSyntaxUID());
+            }
+            ctx.setRetrieveAETs(il.getRetrieveAETs());
+            ctx.setAvailability(il.getAvailability());
+            ctx.setAttributes(attr);
+            ctxs.add(ctx);
+            if (!ctx.getLocations().isEmpty())
+                ctxsWithLocations.add(ctx);
+        }
+        Iterator<UpdateDBResult> results = updateDB(session, ctxsWithLocations);
+        for (int i = 0; i < ctxs.size(); i++) {
+            StoreContext ctx = ctxs.get(i);
+            Attributes attr = ctx.getAttributes();
+            try {
+                if (results != null && !ctx.getLocations().isEmpty())
+                    copyInstance(ctx, results.next());
+                else
+                    store(ctx, attr);
+                populateResult(refSOPSeq, attr);
+            } catch (DicomServiceException e) {
+                result.setString(Tag.FailureReason, VR.US, Integer.toString(e.getStatus()));
+                attr.setString(Tag.SOPInstanceUID, VR.UI, instances.get(i).getSopInstanceUID());
+                populateResult(failedSOPSeq, attr);
+            }
+        }
+    }
+
+    private Iterator<UpdateDBResult> updateDB(StoreSession session, List<StoreContext> ctxs) {
+        if (ctxs.size() <= 1)
+            return null;
+
+        try {
+            long start = System.currentTimeMillis();
+            List<UpdateDBResult> results = ejb.updateDB(ctxs);
+            long time = System.currentTimeMillis() - start;
+            LOG.info("{}: Updated DB for {} Instances in {} ms", session, ctxs.size(), time);
+            metricsService.accept("db-update-on-store", (double) time / ctxs.size());
+            return results.iterator();
+        } catch (EJBException e) {
+            LOG.info("{}: Failed to update DB for {} Instances - update DB for each Instance:\n",
+                    session, ctxs.size(), e);
+            session.clearSeriesCache();
+            return null;
+        }
+    }
+
+    private void copyInstance(StoreContext ctx, UpdateDBResult result) throws DicomServiceException {
+        try {
+            postUpdateDB(ctx, result);
+        } catch (DicomServiceException e) {
+            ctx.setException(e);
+            throw e;
+        } catch (Exception e) {
+            LOG.info("{}: Unexpected Exception:\n", ctx.getStoreSession(), e);
+            DicomServiceException dse = new DicomServiceException(Status.ProcessingFailure, e);
+            ctx.setException(dse);
+            throw dse;
+        } finally {
+            fireStoreEvent(ctx);
+        }
+    }
+
     private void coerceAttrs(StoreContext ctx, Attributes attrs, Attributes coerceAttrs,
                              Attributes.UpdatePolicy updatePolicy) {
         if (coerceAttrs == null)
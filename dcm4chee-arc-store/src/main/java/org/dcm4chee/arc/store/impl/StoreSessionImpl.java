@@ -264,6 +264,12 @@ class StoreSessionImpl implements StoreSession {
         seriesCache.put(series.getSeriesInstanceUID(), series);
     }
 
+    @Override
+    public void clearSeriesCache() {
+        cachedStudy = null;
+        seriesCache.clear();
+    }
+
     @Override
     public boolean isNotProcessed(ExportPriorsRule rule) {
         return !processedPrefetchRules.contains(rule.getCommonName());
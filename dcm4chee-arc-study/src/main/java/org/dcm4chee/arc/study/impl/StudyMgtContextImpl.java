@@ -67,6 +67,7 @@ import java.time.LocalDate;
 public class StudyMgtContextImpl implements StudyMgtContext {
     private final AttributeFilter studyAttributeFilter;
     private final FuzzyStr fuzzyStr;
+    private final boolean searchTokenMaintenance;
     private HttpServletRequestInfo httpRequest;
     private ArchiveAEExtension arcAE;
     private Socket socket;
@@ -88,6 +89,7 @@ public class StudyMgtContextImpl implements StudyMgtContext {
         ArchiveDeviceExtension arcDev = device.getDeviceExtension(ArchiveDeviceExtension.class);
         this.studyAttributeFilter = arcDev.getAttributeFilter(Entity.Study);
         this.fuzzyStr = arcDev.getFuzzyStr();
+        this.searchTokenMaintenance = arcDev.isSearchTokenMaintenance();
     }
 
     StudyMgtContextImpl withApplicationEntity(ApplicationEntity ae) {
@@ -119,6 +121,11 @@ public class StudyMgtContextImpl implements StudyMgtContext {
         return fuzzyStr;
     }
 
+    @Override
+    public boolean isSearchTokenMaintenance() {
+        return searchTokenMaintenance;
+    }
+
     @Override
     public HttpServletRequestInfo getHttpRequest() {
         return httpRequest;
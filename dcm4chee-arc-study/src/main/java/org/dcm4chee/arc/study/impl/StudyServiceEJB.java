@@ -110,7 +110,8 @@ public class StudyServiceEJB {
                     device.getDeviceName(),
                     modified)
                 : attrs,
-                filter, ctx.getFuzzyStr());
+                filter, ctx.getFuzzyStr(),
+                ctx.isSearchTokenMaintenance());
         study.setIssuerOfAccessionNumber(
                 findOrCreateIssuer(attrs.getNestedDataset(Tag.IssuerOfAccessionNumberSequence)));
         study.setIssuerOfAdmissionID(
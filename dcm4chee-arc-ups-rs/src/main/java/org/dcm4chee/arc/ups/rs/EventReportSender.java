@@ -44,6 +44,7 @@ package org.dcm4chee.arc.ups.rs;
 import org.dcm4che3.data.Attributes;
 import org.dcm4che3.json.JSONWriter;
 import org.dcm4chee.arc.ups.UPSEvent;
+import org.dcm4chee.arc.ups.UPSEventDispatcher;
 import org.dcm4chee.arc.ups.UPSService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,9 +61,14 @@ import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.StringWriter;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -73,12 +79,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 @ServerEndpoint(value = "/aets/{AETitle}/ws/subscribers/{SubscriberAET}")
 public class EventReportSender {
     private static final Logger LOG = LoggerFactory.getLogger(EventReportSender.class);
+    private static final int SEND_TIMEOUT_SECONDS = 30;
 
     private final AtomicInteger messageID = new AtomicInteger(0);
 
     @Inject
     private UPSService service;
 
+    @Inject
+    private UPSEventDispatcher dispatcher;
+
     @OnOpen
     public void open(Session session,
             @PathParam("AETitle") String aet,
@@ -93,6 +103,8 @@ public class EventReportSender {
             @PathParam("SubscriberAET") String subscriberAET) {
         LOG.info("{} close /aets/{}/ws/subscribers/{} ", session, aet, subscriberAET);
         service.unregisterWebsocketChannel(session);
+        if (service.getWebsocketChannels(subscriberAET).isEmpty())
+            dispatcher.discard("ws", subscriberAET);
     }
 
     @OnError
@@ -106,19 +118,25 @@ public class EventReportSender {
         Optional<String> inprocessStateReport = toInprocessStateReportJson(event);
         String json = toJson(event);
         for (String subscriberAET : event.subscriberAETs) {
-            List<Session> sessions = service.getWebsocketChannels(subscriberAET);
-            if (sessions.isEmpty()) {
-                LOG.info("No Websocket channel to send {} EventReport to {}", event.type, subscriberAET);
-            } else {
-                try {
-                    LOG.info("Send {} EventReport to {}", event.type, subscriberAET);
-                    if (inprocessStateReport.isPresent()) {
-                        send(inprocessStateReport.get(), sessions);
-                    }
-                    send(json, sessions);
-                } catch (IOException e) {
-                    LOG.warn("Failed to send {} EventReport to {}:\n", event.type, subscriberAET, e);
+            dispatcher.dispatch("ws", subscriberAET, event,
+                    () -> sendEventReport(event, subscriberAET, inprocessStateReport, json));
+        }
+    }
+
+    private void sendEventReport(UPSEvent event, String subscriberAET, Optional<String> inprocessStateReport,
+            String json) {
+        List<Session> sessions = service.getWebsocketChannels(subscriberAET);
+        if (sessions.isEmpty()) {
+            LOG.info("No Websocket channel to send {} EventReport to {}", event.type, subscriberAET);
+        } else {
+            try {
+                LOG.info("Send {} EventReport to {}", event.type, subscriberAET);
+                if (inprocessStateReport.isPresent()) {
+                    send(inprocessStateReport.get(), sessions);
                 }
+                send(json, sessions);
+            } catch (IOException e) {
+                LOG.warn("Failed to send {} EventReport to {}:\n", event.type, subscriberAET, e);
             }
         }
     }
@@ -142,12 +160,20 @@ public class EventReportSender {
     private void send(String json, List<Session> sessions) throws IOException {
         IOException e1 = null;
         for (Session session : sessions) {
+            Future<Void> future = session.getAsyncRemote().sendText(json);
             try {
-                session.getBasicRemote().sendText(json);
+                future.get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
                 return;
-            } catch (IOException e) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } catch (ExecutionException | TimeoutException e) {
+                future.cancel(true);
                 service.unregisterWebsocketChannel(session);
-                LOG.info("{} error:\n", session, e1 = e);
+                LOG.info("{} error:\n", session, e);
+                e1 = e instanceof ExecutionException && e.getCause() instanceof IOException
+                        ? (IOException) e.getCause()
+                        : new IOException(e);
             }
         }
         throw e1;
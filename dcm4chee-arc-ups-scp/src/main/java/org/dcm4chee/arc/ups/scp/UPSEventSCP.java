@@ -51,6 +51,7 @@ import org.dcm4che3.net.pdu.PresentationContext;
 import org.dcm4che3.net.pdu.RoleSelection;
 import org.dcm4che3.net.service.DicomServiceException;
 import org.dcm4chee.arc.ups.UPSEvent;
+import org.dcm4chee.arc.ups.UPSEventDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,32 +75,41 @@ public class UPSEventSCP {
     @Inject
     private IApplicationEntityCache aeCache;
 
+    @Inject
+    private UPSEventDispatcher dispatcher;
+
     public void onUPSEvent(@Observes UPSEvent event) {
         Optional<Attributes> inprocessStateReport = event.inprocessStateReport();
-        int keepAliveTimeout = event.arcAE.upsEventSCUKeepAlive();
-        boolean keepAlive = keepAliveTimeout > 0;
         for (String subscriberAET : event.subscriberAETs) {
             if (event.arcAE.isUPSEventSCU(subscriberAET)) {
-                try {
-                    ApplicationEntity localAE = event.arcAE.getApplicationEntity();
-                    Association as = keepAlive
-                            ? getAssociation(localAE, subscriberAET, keepAliveTimeout)
-                            : localAE.connect(
-                                    aeCache.findApplicationEntity(subscriberAET),
-                                    mkAAssociateRQ(localAE, subscriberAET));
-                    try {
-                        if (inprocessStateReport.isPresent()) {
-                            sendNEventReport(as, event, inprocessStateReport.get());
-                        }
-                        sendNEventReport(as, event, event.attrs);
-                    } finally {
-                        if (!keepAlive) {
-                            as.release();
-                        }
-                    }
-                } catch (Exception e) {
-                    LOG.info("Failed to send {} EventReport to {} - {}", event.type, subscriberAET, e.getMessage());
-                }
+                dispatcher.dispatch("dimse", subscriberAET, event,
+                        () -> sendEventReport(event, subscriberAET, inprocessStateReport));
+            }
+        }
+    }
+
+    private void sendEventReport(UPSEvent event, String subscriberAET, Optional<Attributes> inprocessStateReport)
+            throws Exception {
+        int keepAliveTimeout = event.arcAE.upsEventSCUKeepAlive();
+        boolean keepAlive = keepAliveTimeout > 0;
+        ApplicationEntity localAE = event.arcAE.getApplicationEntity();
+        Association as = keepAlive
+                ? getAssociation(localAE, subscriberAET, keepAliveTimeout)
+                : localAE.connect(
+                        aeCache.findApplicationEntity(subscriberAET),
+                        mkAAssociateRQ(localAE, subscriberAET));
+        try {
+            DimseRSP inprocessStateReportRSP = inprocessStateReport.isPresent()
+                    ? sendNEventReport(as, event, inprocessStateReport.get())
+                    : null;
+            DimseRSP stateReportRSP = sendNEventReport(as, event, event.attrs);
+            if (inprocessStateReportRSP != null) {
+                checkStatus(inprocessStateReportRSP);
+            }
+            checkStatus(stateReportRSP);
+        } finally {
+            if (!keepAlive) {
+                as.release();
             }
         }
     }
@@ -108,7 +118,7 @@ public class UPSEventSCP {
             throws Exception {
         FromTo fromTo = new FromTo(localAE.getAETitle(), subscriberAET);
         Association as = reuseAssociations.get(fromTo);
-        if (!as.isReadyForDataTransfer()) {
+        if (as == null || !as.isReadyForDataTransfer()) {
             ApplicationEntity remote = aeCache.get(subscriberAET);
             CompatibleConnection cc = localAE.findCompatibleConnection(remote);
             Connection localConnection = new Connection(cc.getLocalConnection());
@@ -119,14 +129,17 @@ public class UPSEventSCP {
         return as;
     }
 
-    private void sendNEventReport(Association as, UPSEvent event, Attributes attrs) throws Exception {
-        DimseRSP dimseRSP = as.neventReport(
+    private DimseRSP sendNEventReport(Association as, UPSEvent event, Attributes attrs) throws Exception {
+        return as.neventReport(
                 UID.UnifiedProcedureStepEventSOPClass,
                 UID.UnifiedProcedureStepPushSOPClass,
                 event.upsIUID,
                 event.type.eventTypeID(),
                 attrs,
                 null);
+    }
+
+    private static void checkStatus(DimseRSP dimseRSP) throws Exception {
         dimseRSP.next();
         int status = dimseRSP.getCommand().getInt(Tag.Status, -1);
         if (status != 0) {
@@ -0,0 +1,249 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.ups;
+
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.UPSEventQueueFullPolicy;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivers UPS Event Reports asynchronously to the thread which changed the UPS. Event Reports are queued per
+ * subscriber and delivered in order by a worker of the device executor, which only runs while Event Reports to that
+ * subscriber are pending. So a slow or unreachable subscriber only delays its own Event Reports. If the bounded
+ * queue of a subscriber is full, Event Reports are discarded according the configured
+ * {@link UPSEventQueueFullPolicy}, but never Status Change Event Reports or State Reports of a final state. The
+ * queue of a subscriber is removed when there are no more Event Reports pending for it.
+ */
+@ApplicationScoped
+public class UPSEventDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UPSEventDispatcher.class);
+
+    @FunctionalInterface
+    public interface Delivery {
+        void deliver() throws Exception;
+    }
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    @Inject
+    private Device device;
+
+    @Inject
+    private MetricsService metricsService;
+
+    /**
+     * Queues the delivery of an Event Report to a subscriber.
+     *
+     * @param channel       channel over which the Event Report is delivered, e.g. {@code ws} or {@code dimse}
+     * @param subscriberAET AE Title of the subscriber
+     * @param event         UPS Event
+     * @param delivery      delivers the Event Report to the subscriber
+     */
+    public void dispatch(String channel, String subscriberAET, UPSEvent event, Delivery delivery) {
+        Pending pending = new Pending(event, delivery);
+        while (!subscribers.computeIfAbsent(key(channel, subscriberAET), Subscriber::new).offer(pending));
+    }
+
+    /**
+     * Discards pending Event Reports to a subscriber, e.g. after the last channel to the subscriber was closed.
+     *
+     * @param channel       channel over which the Event Reports would have been delivered
+     * @param subscriberAET AE Title of the subscriber
+     */
+    public void discard(String channel, String subscriberAET) {
+        Subscriber subscriber = subscribers.get(key(channel, subscriberAET));
+        if (subscriber != null)
+            subscriber.discardAll();
+    }
+
+    private static String key(String channel, String subscriberAET) {
+        return channel + '-' + subscriberAET;
+    }
+
+    private class Subscriber implements Runnable {
+        final String name;
+        final ArrayDeque<Pending> queue = new ArrayDeque<>();
+        boolean running;
+        boolean removed;
+
+        Subscriber(String name) {
+            this.name = name;
+        }
+
+        synchronized boolean offer(Pending pending) {
+            if (removed)
+                return false;
+
+            ArchiveDeviceExtension arcDev = device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class);
+            if (queue.size() >= arcDev.getUPSEventQueueSize()
+                    && !makeRoomFor(pending, arcDev.getUPSEventQueueFullPolicy()))
+                return true;
+
+            queue.add(pending);
+            if (!running) {
+                running = true;
+                device.getExecutor().execute(this);
+            }
+            return true;
+        }
+
+        private boolean makeRoomFor(Pending pending, UPSEventQueueFullPolicy policy) {
+            switch (policy) {
+                case DROP_NEWEST:
+                    if (pending.discardable()) {
+                        discard(pending);
+                        return false;
+                    }
+                    break;
+                case COALESCE:
+                    if (coalesce(pending))
+                        return false;
+                    // no ProgressReport of the same UPS queued - fall through to discard the oldest Event Report
+                default:
+                    break;
+            }
+            for (Iterator<Pending> iter = queue.iterator(); iter.hasNext();) {
+                Pending oldest = iter.next();
+                if (oldest.discardable()) {
+                    iter.remove();
+                    discard(oldest);
+                    return true;
+                }
+            }
+            if (pending.discardable()) {
+                discard(pending);
+                return false;
+            }
+            LOG.warn("Queue of {} full with not discardable EventReports - queue {} EventReport of UPS[uid={}]",
+                    name, pending.event.type, pending.event.upsIUID);
+            return true;
+        }
+
+        private void discard(Pending pending) {
+            LOG.warn("Queue of {} full - discard {} EventReport of UPS[uid={}]",
+                    name, pending.event.type, pending.event.upsIUID);
+        }
+
+        private boolean coalesce(Pending pending) {
+            if (pending.event.type != UPSEvent.Type.ProgressReport)
+                return false;
+
+            for (Iterator<Pending> iter = queue.iterator(); iter.hasNext();) {
+                Pending prev = iter.next();
+                if (prev.event.type == UPSEvent.Type.ProgressReport
+                        && prev.event.upsIUID.equals(pending.event.upsIUID)) {
+                    iter.remove();
+                    queue.add(pending);
+                    LOG.info("Queue of {} full - coalesce ProgressReports of UPS[uid={}]",
+                            name, pending.event.upsIUID);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void discardAll() {
+            if (!queue.isEmpty()) {
+                LOG.info("Discard {} pending EventReports to {}", queue.size(), name);
+                queue.clear();
+            }
+        }
+
+        private synchronized Pending poll() {
+            Pending pending = queue.poll();
+            if (pending == null) {
+                running = false;
+                removed = true;
+                subscribers.remove(name, this);
+            }
+            return pending;
+        }
+
+        @Override
+        public void run() {
+            Pending pending;
+            while ((pending = poll()) != null) {
+                metricsService.accept("ups-event-lag-" + name, System.currentTimeMillis() - pending.queuedTime);
+                try {
+                    pending.delivery.deliver();
+                } catch (Exception e) {
+                    LOG.info("Failed to deliver {} EventReport of UPS[uid={}] to {} - {}",
+                            pending.event.type, pending.event.upsIUID, name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static class Pending {
+        final UPSEvent event;
+        final Delivery delivery;
+        final long queuedTime = System.currentTimeMillis();
+
+        Pending(UPSEvent event, Delivery delivery) {
+            this.event = event;
+            this.delivery = delivery;
+        }
+
+        boolean discardable() {
+            switch (event.type) {
+                case StatusChange:
+                case StateReportInProcessAndCanceled:
+                    return false;
+                case StateReport:
+                    String state = event.attrs.getString(Tag.ProcedureStepState);
+                    return !"COMPLETED".equals(state) && !"CANCELED".equals(state);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.ups.impl;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.conf.Duration;
+import org.dcm4chee.arc.conf.Entity;
+import org.dcm4chee.arc.conf.UPSOnStore;
+import org.dcm4chee.arc.event.ArchiveServiceEvent;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.dcm4chee.arc.store.StoreContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects instances received within the configured UPS On Store Coalescing Window after the first instance, which
+ * would be applied to the same UPS by one UPS On Store rule, and appends them to that UPS once, instead of looking up
+ * and updating the UPS on storage of each instance. The first instance is applied without delay, so the UPS is created
+ * from its attributes. Only rules which append the Input Information of all instances to one scheduled UPS are
+ * coalesced; rules which create further UPS or include Input Information of only one instance per UPS are applied
+ * per instance.
+ */
+@ApplicationScoped
+public class UPSOnStoreCoalescer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UPSOnStoreCoalescer.class);
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    @Resource
+    private ManagedScheduledExecutorService scheduledExecutor;
+
+    @Inject
+    private Device device;
+
+    @Inject
+    private UPSServiceEJB ejb;
+
+    @Inject
+    private MetricsService metricsService;
+
+    /**
+     * Returns {@code false}, if the instance shall be applied by the caller, because coalescing is not configured or
+     * not applicable for the rule, or because it is the first instance applied to the UPS within the window.
+     */
+    public boolean coalesce(StoreContext ctx, Calendar now, UPSOnStore rule) {
+        Duration window = device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class)
+                .getUPSOnStoreCoalescingWindow();
+        if (window == null || rule.getInstanceUIDBasedOnName() == null
+                || rule.getIncludeInputInformation() != UPSOnStore.IncludeInputInformation.APPEND)
+            return false;
+
+        String iuid = rule.getInstanceUID(ctx.getAttributes());
+        String key = rule.getUPSOnStoreID() + '/' + iuid;
+        Attributes instanceRef = UPSServiceEJB.instanceRefOf(ctx);
+        boolean[] coalesced = { true };
+        pending.compute(key, (k, v) -> {
+            if (v == null) {
+                coalesced[0] = false;
+                schedule(k, window);
+                return new Pending(iuid, now, rule);
+            }
+            v.now = now;
+            v.instanceRefs.add(instanceRef);
+            return v;
+        });
+        return coalesced[0];
+    }
+
+    public void onArchiveServiceEvent(@Observes ArchiveServiceEvent event) {
+        if (event.getType() == ArchiveServiceEvent.Type.STOPPED)
+            pending.keySet().forEach(key -> flush(key, null));
+    }
+
+    private void schedule(String key, Duration window) {
+        scheduledExecutor.schedule(() -> flush(key, window), window.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void flush(String key, Duration retryWindow) {
+        Pending p = pending.remove(key);
+        if (p == null || p.instanceRefs.isEmpty())
+            return;
+
+        try {
+            ejb.appendOnStore(p.iuid, p.now, p.rule, p.instanceRefs,
+                    device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getAttributeFilter(Entity.UPS));
+            metricsService.accept("ups-on-store-saved-db-lookups", p.instanceRefs.size());
+        } catch (Exception e) {
+            if (retryWindow == null) {
+                LOG.warn("Failed to apply {} to {} Instances:\n", p.rule, p.instanceRefs.size(), e);
+                return;
+            }
+            LOG.warn("Failed to apply {} to {} Instances - retry:\n", p.rule, p.instanceRefs.size(), e);
+            pending.compute(key, (k, v) -> {
+                if (v == null) {
+                    schedule(k, retryWindow);
+                    return p;
+                }
+                v.instanceRefs.addAll(p.instanceRefs);
+                return v;
+            });
+        }
+    }
+
+    private static class Pending {
+        final String iuid;
+        final UPSOnStore rule;
+        final List<Attributes> instanceRefs = new ArrayList<>();
+        Calendar now;
+
+        Pending(String iuid, Calendar now, UPSOnStore rule) {
+            this.iuid = iuid;
+            this.now = now;
+            this.rule = rule;
+        }
+    }
+}
@@ -124,7 +124,8 @@ public class UPSServiceEJB {
                 attrs.getSequence(Tag.ScheduledHumanPerformersSequence));
         setReferencedRequests(ups.getReferencedRequests(),
                 attrs.getSequence(Tag.ReferencedRequestSequence),
-                arcDev.getFuzzyStr());
+                arcDev.getFuzzyStr(),
+                arcDev.isSearchTokenMaintenance());
         ups.setAttributes(attrs, arcDev.getAttributeFilter(Entity.UPS));
         em.persist(ups);
         LOG.info("{}: Create {}", ctx, ups);
@@ -239,7 +240,8 @@ public class UPSServiceEJB {
         if (requestUpdated) {
             setReferencedRequests(ups.getReferencedRequests(),
                     attrs.getSequence(Tag.ReferencedRequestSequence),
-                    arcDev.getFuzzyStr());
+                    arcDev.getFuzzyStr(),
+                    arcDev.isSearchTokenMaintenance());
         }
         ups.setAttributes(attrs, filter);
         LOG.info("{}: Update {}", ctx, ups);
@@ -283,14 +285,15 @@ public class UPSServiceEJB {
     }
 
     private void setReferencedRequests(Collection<UPSRequest> referencedRequests,
-            Sequence seq, FuzzyStr fuzzyStr) {
+            Sequence seq, FuzzyStr fuzzyStr, boolean searchTokens) {
         referencedRequests.clear();
         if (seq != null) {
             for (Attributes item : seq) {
                 referencedRequests.add(new UPSRequest(
                         item,
                         findOrCreateIssuer(item, Tag.IssuerOfAccessionNumberSequence),
-                        fuzzyStr));
+                        fuzzyStr,
+                        searchTokens));
             }
         }
     }
@@ -724,6 +727,7 @@ public class UPSServiceEJB {
 
     public UPS createOrUpdateOnStore(StoreContext ctx, Calendar now, UPSOnStore rule) {
         LOG.info("{}: Apply {}", ctx.getStoreSession(), rule);
+        List<Attributes> instanceRefs = Collections.singletonList(instanceRefOf(ctx));
         String iuid = rule.getInstanceUID(ctx.getAttributes());
         try {
             UPS ups = findUPS(iuid);
@@ -742,28 +746,67 @@ public class UPSServiceEJB {
                     }
             }
             LOG.info("{}: update existing {}", ctx.getStoreSession(), ups);
-            Attributes attrs = ups.getAttributes();
-            attrs.setDate(Tag.ScheduledProcedureStepStartDateTime, VR.DT, add(now, rule.getStartDateTimeDelay()));
-            if (!attrs.contains(Tag.InputInformationSequence))
-                attrs.setNull(Tag.InputInformationSequence, VR.SQ);
-            updateIncludeInputInformation(attrs.getSequence(Tag.InputInformationSequence), ctx);
-            ups.setAttributes(attrs, ctx.getStoreSession().getArchiveDeviceExtension().getAttributeFilter(Entity.UPS));
+            appendInputInformation(ups, now, rule, instanceRefs,
+                    ctx.getStoreSession().getArchiveDeviceExtension().getAttributeFilter(Entity.UPS));
             return ups;
         } catch (NoResultException e) {
-            return createOnStore(iuid, ctx, now, rule);
+            return createOnStore(iuid, ctx, now, rule, instanceRefs);
+        }
+    }
+
+    public UPS appendOnStore(String iuid, Calendar now, UPSOnStore rule, List<Attributes> instanceRefs,
+            AttributeFilter filter) {
+        LOG.info("Apply {} to {} Instances", rule, instanceRefs.size());
+        UPS ups;
+        try {
+            ups = findUPS(iuid);
+        } catch (NoResultException e) {
+            LOG.warn("UPS[uid={}] does not exist - discard references to {} Instances:\n{}",
+                    iuid, instanceRefs.size(), instanceRefs);
+            return null;
+        }
+        if (ups.getProcedureStepState() != UPSState.SCHEDULED) {
+            LOG.warn("{} is no longer SCHEDULED - discard references to {} Instances:\n{}",
+                    ups, instanceRefs.size(), instanceRefs);
+            return null;
         }
+        LOG.info("update existing {}", ups);
+        appendInputInformation(ups, now, rule, instanceRefs, filter);
+        return ups;
+    }
+
+    private static void appendInputInformation(UPS ups, Calendar now, UPSOnStore rule,
+            List<Attributes> instanceRefs, AttributeFilter filter) {
+        Attributes attrs = ups.getAttributes();
+        attrs.setDate(Tag.ScheduledProcedureStepStartDateTime, VR.DT, add(now, rule.getStartDateTimeDelay()));
+        if (!attrs.contains(Tag.InputInformationSequence))
+            attrs.setNull(Tag.InputInformationSequence, VR.SQ);
+        updateIncludeInputInformation(attrs.getSequence(Tag.InputInformationSequence), instanceRefs);
+        ups.setAttributes(attrs, filter);
+    }
+
+    static Attributes instanceRefOf(StoreContext ctx) {
+        Attributes item = new Attributes(5);
+        item.setString(Tag.StudyInstanceUID, VR.UI, ctx.getStudyInstanceUID());
+        item.setString(Tag.SeriesInstanceUID, VR.UI, ctx.getSeriesInstanceUID());
+        item.setString(Tag.ReferencedSOPClassUID, VR.UI, ctx.getSopClassUID());
+        item.setString(Tag.ReferencedSOPInstanceUID, VR.UI, ctx.getSopInstanceUID());
+        item.setString(Tag.RetrieveAETitle, VR.AE, ctx.getRetrieveAETs());
+        return item;
     }
 
-    private UPS createOnStore(String iuid, StoreContext storeCtx, Calendar now, UPSOnStore rule) {
+    private UPS createOnStore(String iuid, StoreContext storeCtx, Calendar now, UPSOnStore rule,
+            List<Attributes> instanceRefs) {
         UPSContext ctx = new UPSContextImpl(storeCtx);
         ctx.setUPSInstanceUID(iuid);
-        ctx.setAttributes(createOnStore(storeCtx, now, rule));
+        ctx.setAttributes(createOnStore(storeCtx, now, rule, instanceRefs));
         UPS ups = createUPS(ctx);
         LOG.info("{}: create {}", storeCtx.getStoreSession(), ups);
         return ups;
     }
 
-    private static Attributes createOnStore(StoreContext storeCtx, Calendar now, UPSOnStore rule) {
+    private static Attributes createOnStore(StoreContext storeCtx, Calendar now, UPSOnStore rule,
+            List<Attributes> instanceRefs) {
         Attributes attrs = applyXSLT(rule, storeCtx);
         if (rule.isIncludeStudyInstanceUID() && !attrs.contains(Tag.StudyInstanceUID)) {
             attrs.setString(Tag.StudyInstanceUID, VR.UI, storeCtx.getStudyInstanceUID());
@@ -819,7 +862,7 @@ public class UPSServiceEJB {
         }
         if (rule.getIncludeInputInformation() != UPSOnStore.IncludeInputInformation.NO
                 && !attrs.contains(Tag.InputInformationSequence)) {
-            updateIncludeInputInformation(attrs.newSequence(Tag.InputInformationSequence, 1), storeCtx);
+            updateIncludeInputInformation(attrs.newSequence(Tag.InputInformationSequence, 1), instanceRefs);
         }
         addScheduledProcessingParameter(attrs, ScopeOfAccumulation.CODE,
                 toScopeOfAccumlation(rule.getScopeOfAccumulation()));
@@ -1053,37 +1096,40 @@ public class UPSServiceEJB {
         return keys == null || attrs.matches(keys, false, false);
     }
 
-    private static void updateIncludeInputInformation(Sequence sq, StoreContext ctx) {
-        refSOPSequence(sq, ctx).add(toSOPRef(ctx));
+    private static void updateIncludeInputInformation(Sequence sq, List<Attributes> instanceRefs) {
+        for (Attributes instanceRef : instanceRefs)
+            refSOPSequence(sq, instanceRef).add(toSOPRef(instanceRef));
     }
 
-    private static Attributes toSOPRef(StoreContext ctx) {
+    private static Attributes toSOPRef(Attributes instanceRef) {
         Attributes item = new Attributes(2);
-        item.setString(Tag.ReferencedSOPClassUID, VR.UI, ctx.getSopClassUID());
-        item.setString(Tag.ReferencedSOPInstanceUID, VR.UI, ctx.getSopInstanceUID());
+        item.setString(Tag.ReferencedSOPClassUID, VR.UI, instanceRef.getString(Tag.ReferencedSOPClassUID));
+        item.setString(Tag.ReferencedSOPInstanceUID, VR.UI, instanceRef.getString(Tag.ReferencedSOPInstanceUID));
         return item;
     }
 
-    private static Sequence refSOPSequence(Sequence sq, StoreContext ctx) {
+    private static Sequence refSOPSequence(Sequence sq, Attributes instanceRef) {
+        String studyIUID = instanceRef.getString(Tag.StudyInstanceUID);
+        String seriesIUID = instanceRef.getString(Tag.SeriesInstanceUID);
         for (Attributes item : sq) {
-            if (ctx.getStudyInstanceUID().equals(item.getString(Tag.StudyInstanceUID))
-                && ctx.getSeriesInstanceUID().equals(item.getString(Tag.SeriesInstanceUID))) {
+            if (studyIUID.equals(item.getString(Tag.StudyInstanceUID))
+                && seriesIUID.equals(item.getString(Tag.SeriesInstanceUID))) {
                 return item.getSequence(Tag.ReferencedSOPSequence);
             }
         }
         Attributes item = new Attributes(5);
         sq.add(item);
         Sequence refSOPSequence = item.newSequence(Tag.ReferencedSOPSequence, 10);
-        item.setString(Tag.StudyInstanceUID, VR.UI, ctx.getStudyInstanceUID());
-        item.setString(Tag.SeriesInstanceUID, VR.UI, ctx.getSeriesInstanceUID());
+        item.setString(Tag.StudyInstanceUID, VR.UI, studyIUID);
+        item.setString(Tag.SeriesInstanceUID, VR.UI, seriesIUID);
         item.setString(Tag.TypeOfInstances, VR.CS, "DICOM");
-        item.newSequence(Tag.DICOMRetrievalSequence, 1).add(retrieveAETItem(ctx));
+        item.newSequence(Tag.DICOMRetrievalSequence, 1).add(retrieveAETItem(instanceRef));
         return refSOPSequence;
     }
 
-    private static Attributes retrieveAETItem(StoreContext ctx) {
+    private static Attributes retrieveAETItem(Attributes instanceRef) {
         Attributes item = new Attributes(1);
-        item.setString(Tag.RetrieveAETitle, VR.AE, ctx.getRetrieveAETs());
+        item.setString(Tag.RetrieveAETitle, VR.AE, instanceRef.getStrings(Tag.RetrieveAETitle));
         return item;
     }
 }
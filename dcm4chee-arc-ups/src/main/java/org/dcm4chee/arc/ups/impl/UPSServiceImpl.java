@@ -97,6 +97,9 @@ public class UPSServiceImpl implements UPSService {
     @Inject
     private UPSServiceEJB ejb;
 
+    @Inject
+    private UPSOnStoreCoalescer coalescer;
+
     @Inject
     private QueryService queryService;
 
@@ -363,7 +366,10 @@ public class UPSServiceImpl implements UPSService {
                                         session.getLocalHostName(),
                                         session.getCalledAET(),
                                         ctx.getAttributes()))
-                .forEach(upsOnStore -> ejb.createOrUpdateOnStore(ctx, now, upsOnStore));
+                .forEach(upsOnStore -> {
+                    if (!coalescer.coalesce(ctx, now, upsOnStore))
+                        ejb.createOrUpdateOnStore(ctx, now, upsOnStore);
+                });
     }
 
     public void onHL7Connection(@Observes HL7ConnectionEvent event) {
@@ -40,8 +40,10 @@
 
 package org.dcm4chee.arc.wado;
 
+import org.dcm4che3.data.Attributes;
 import org.dcm4che3.data.Tag;
 import org.dcm4che3.io.DicomInputStream;
+import org.dcm4che3.util.ByteUtils;
 import org.dcm4che3.util.SafeClose;
 import org.dcm4che3.util.StreamUtils;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
@@ -54,6 +56,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
  * @author Gunter Zeilinger <gunterze@gmail.com>
@@ -65,15 +68,22 @@ public class CompressedFramesOutput implements StreamingOutput, Closeable {
     private final InstanceLocations inst;
     private DicomInputStream dis;
     private final int[] frameList;
+    private final String mediaType;
+    private final FrameCache frameCache;
     private final Path[] spoolFiles;
     private final Path spoolDirectory;
     private int frame = 1;
     private int frameListIndex;
+    private long[] frameOffsets;
+    private long offset;
 
-    public CompressedFramesOutput(RetrieveContext ctx, InstanceLocations inst, int[] frameList, Path spoolDirectory) {
+    public CompressedFramesOutput(RetrieveContext ctx, InstanceLocations inst, int[] frameList, String mediaType,
+            FrameCache frameCache, Path spoolDirectory) {
         this.ctx = ctx;
         this.inst = inst;
         this.frameList = frameList;
+        this.mediaType = mediaType;
+        this.frameCache = frameCache;
         this.spoolDirectory = spoolDirectory;
         this.spoolFiles = spoolDirectory != null ? new Path[frameList.length] : null;
     }
@@ -81,25 +91,13 @@ public class CompressedFramesOutput implements StreamingOutput, Closeable {
     @Override
     public void write(OutputStream out) throws IOException {
         try {
-            if (frameListIndex == 0)
-                initDicomInputStream();
-
-            if (dis == null) {
-                Files.copy(spoolFiles[frameListIndex++], out);
-                return;
-            }
-            int nextFrame =  frameList[frameListIndex++];
-            while (frame < nextFrame) {
-                skipFrame();
-                frame++;
-            }
-            if (!dis.readItemHeader())
-                throw new IOException(
-                        "Number of data fragments not sufficient for number of frames in requested object");
-
-            StreamUtils.copy(dis, out, dis.length());
-            frame++;
-            if (allFramesRead())
+            int index = frameListIndex++;
+            int nextFrame = frameList[index];
+            if (spoolFiles != null && spoolFiles[index] != null)
+                Files.copy(spoolFiles[index], out);
+            else if (!frameCache.writeTo(out, inst, mediaType, nextFrame))
+                writeFrame(out, nextFrame);
+            if (frameListIndex == frameList.length)
                 close();
         } catch (IOException e) {
             close();
@@ -107,39 +105,104 @@ public class CompressedFramesOutput implements StreamingOutput, Closeable {
         }
     }
 
+    private void writeFrame(OutputStream out, int nextFrame) throws IOException {
+        if (dis == null || nextFrame < frame)
+            seekFrame(nextFrame);
+        while (frame < nextFrame) {
+            skipFrame();
+        }
+        if (!dis.readItemHeader())
+            throw new IOException(
+                    "Number of data fragments not sufficient for number of frames in requested object");
+
+        if (frameCache.isEnabled()) {
+            byte[] b = new byte[dis.length()];
+            dis.readFully(b);
+            out.write(b);
+            frameCache.put(inst, mediaType, nextFrame, b);
+        } else {
+            StreamUtils.copy(dis, out, dis.length());
+        }
+        nextFrame(dis.length());
+    }
+
     private void skipFrame() throws IOException {
         if (!dis.readItemHeader())
             throw new IOException(
                     "Number of data fragments not sufficient for number of frames in requested object");
 
-        for (int i = frameListIndex; i < frameList.length; i++) {
-            if (frame == frameList[i]) {
-                spoolFiles[i] = Files.createTempFile(spoolDirectory, null, null);
-                try (OutputStream o = Files.newOutputStream(spoolFiles[i])) {
-                    StreamUtils.copy(dis, o, dis.length());
-                }
-                return;
+        int i = spoolIndex();
+        if (i < 0) {
+            dis.skipFully(dis.length());
+        } else {
+            spoolFiles[i] = Files.createTempFile(spoolDirectory, null, null);
+            try (OutputStream o = Files.newOutputStream(spoolFiles[i])) {
+                StreamUtils.copy(dis, o, dis.length());
             }
         }
-        dis.skipFully(dis.length());
+        nextFrame(dis.length());
+    }
+
+    private int spoolIndex() {
+        if (spoolFiles != null)
+            for (int i = frameListIndex; i < frameList.length; i++)
+                if (frameList[i] == frame && spoolFiles[i] == null)
+                    return i;
+        return -1;
     }
 
-    private boolean allFramesRead() {
-        for (int i = frameListIndex; i < frameList.length; i++) {
-            if (frame <= frameList[i])
-                return false;
+    private void nextFrame(int length) {
+        offset += 8 + (length & 0xffffffffL);
+        if (frame < frameOffsets.length && frameOffsets[frame] < 0)
+            frameOffsets[frame] = offset;
+        frame++;
+    }
+
+    private void seekFrame(int nextFrame) throws IOException {
+        close();
+        initDicomInputStream();
+        frame = 1;
+        offset = 0;
+        int index = Math.min(nextFrame, frameOffsets.length) - 1;
+        while (frameOffsets[index] < 0)
+            index--;
+        if (index > 0) {
+            StreamUtils.skipFully(dis, frameOffsets[index]);
+            frame = index + 1;
+            offset = frameOffsets[index];
         }
-        return true;
     }
 
     private void initDicomInputStream() throws IOException {
         RetrieveService service = ctx.getRetrieveService();
         dis = service.openDicomInputStream(ctx, inst);
-        dis.readDataset(-1, Tag.PixelData);
+        Attributes attrs = dis.readDataset(-1, Tag.PixelData);
         if (dis.tag() != Tag.PixelData || dis.length() != -1 || !dis.readItemHeader()) {
             throw new IOException("No or incorrect encapsulated compressed pixel data in requested object");
         }
-        dis.skipFully(dis.length());
+        if (frameOffsets == null)
+            initFrameOffsets(attrs.getInt(Tag.NumberOfFrames, 1), dis.length());
+        else
+            dis.skipFully(dis.length());
+    }
+
+    /**
+     * Initializes frame offsets relative to the first item following the Basic Offset Table from the values
+     * of the Basic Offset Table, if present. Otherwise, offsets are recorded on scanning the fragments,
+     * assuming one fragment per frame.
+     */
+    private void initFrameOffsets(int numFrames, int botLength) throws IOException {
+        frameOffsets = new long[numFrames];
+        Arrays.fill(frameOffsets, -1L);
+        frameOffsets[0] = 0L;
+        if (botLength != numFrames * 4) {
+            dis.skipFully(botLength);
+            return;
+        }
+        byte[] bot = new byte[botLength];
+        dis.readFully(bot);
+        for (int i = 1; i < numFrames; i++)
+            frameOffsets[i] = ByteUtils.bytesToIntLE(bot, i * 4) & 0xffffffffL;
     }
 
     @Override
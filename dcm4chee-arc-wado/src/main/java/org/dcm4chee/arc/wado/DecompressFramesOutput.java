@@ -43,7 +43,9 @@ package org.dcm4chee.arc.wado;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.store.InstanceLocations;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.StreamingOutput;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
@@ -56,38 +58,31 @@ import java.nio.file.Path;
 public class DecompressFramesOutput extends DecompressSupport implements StreamingOutput {
 
     private final int[] frameList;
+    private final FrameCache frameCache;
     private final Path[] spoolFiles;
     private final Path spoolDirectory;
     private int frame = 1;
     private int frameListIndex;
 
-    public DecompressFramesOutput(RetrieveContext ctx, InstanceLocations inst, int[] frameList, Path spoolDirectory) {
+    public DecompressFramesOutput(RetrieveContext ctx, InstanceLocations inst, int[] frameList,
+            FrameCache frameCache, Path spoolDirectory) {
         super(ctx, inst);
         this.frameList = frameList;
+        this.frameCache = frameCache;
         this.spoolDirectory = spoolDirectory;
-        this.spoolFiles = spoolDirectory != null ? new Path[this.frameList.length] : null;
+        this.spoolFiles = spoolDirectory != null ? new Path[frameList.length] : null;
     }
 
     @Override
     public void write(OutputStream out) throws IOException {
         try {
-            if (frameListIndex == 0)
-                initEncapsulatedPixelData();
-
-            if (encapsulatedPixelData == null) {
-                Files.copy(spoolFiles[frameListIndex++], out);
-                return;
-            }
-            int nextFrame = frameList[frameListIndex++];
-            while (frame < nextFrame) {
-                skipFrame();
-                frame++;
-            }
-
-            decompressFrame(frame);
-            writeFrameTo(out);
-            frame++;
-            if (allFramesRead())
+            int index = frameListIndex++;
+            int nextFrame = frameList[index];
+            if (spoolFiles != null && spoolFiles[index] != null)
+                Files.copy(spoolFiles[index], out);
+            else if (!frameCache.writeTo(out, inst, MediaType.APPLICATION_OCTET_STREAM, nextFrame))
+                writeFrame(out, nextFrame);
+            if (frameListIndex == frameList.length)
                 close();
         } catch (IOException e) {
             close();
@@ -95,27 +90,50 @@ public class DecompressFramesOutput extends DecompressSupport implements Streami
         }
     }
 
-    private void skipFrame() throws IOException {
-        for (int i = frameListIndex; i < frameList.length; i++) {
-            if (frame == frameList[i]) {
-                spoolFiles[i] = Files.createTempFile(spoolDirectory, null, null);
-                try (OutputStream out = Files.newOutputStream(spoolFiles[i])) {
-                    decompressFrame(frame);
-                    writeFrameTo(out);
-                }
-                return;
-            }
+    private void writeFrame(OutputStream out, int nextFrame) throws IOException {
+        if (encapsulatedPixelData == null || nextFrame < frame) {
+            close();
+            initEncapsulatedPixelData();
+            frame = 1;
+        }
+        while (frame < nextFrame) {
+            skipFrame();
+            frame++;
         }
-        if (!encapsulatedPixelData.seekNextFrame())
-            throw new IOException("Number of data fragments not sufficient for number of frames in requested object");
+
+        decompressFrame(frame);
+        if (frameCache.isEnabled()) {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            writeFrameTo(bout);
+            bout.writeTo(out);
+            frameCache.put(inst, MediaType.APPLICATION_OCTET_STREAM, nextFrame, bout.toByteArray());
+        } else {
+            writeFrameTo(out);
+        }
+        frame++;
     }
 
-    private boolean allFramesRead() {
-        for (int i = frameListIndex; i < frameList.length; i++) {
-            if (frame <= frameList[i])
-                return false;
+    private void skipFrame() throws IOException {
+        int i = spoolIndex();
+        if (i < 0) {
+            if (!encapsulatedPixelData.seekNextFrame())
+                throw new IOException(
+                        "Number of data fragments not sufficient for number of frames in requested object");
+            return;
         }
-        return true;
+        spoolFiles[i] = Files.createTempFile(spoolDirectory, null, null);
+        try (OutputStream o = Files.newOutputStream(spoolFiles[i])) {
+            decompressFrame(frame);
+            writeFrameTo(o);
+        }
+    }
+
+    private int spoolIndex() {
+        if (spoolFiles != null)
+            for (int i = frameListIndex; i < frameList.length; i++)
+                if (frameList[i] == frame && spoolFiles[i] == null)
+                    return i;
+        return -1;
     }
 
 }
@@ -0,0 +1,218 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.wado;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Sequence;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.delete.InstancesDeleted;
+import org.dcm4chee.arc.delete.StudyDeleteContext;
+import org.dcm4chee.arc.event.ArchiveServiceEvent;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.dcm4chee.arc.store.InstanceLocations;
+import org.dcm4chee.arc.store.StoreContext;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Caches frames retrieved by WADO-RS in memory, bounded by the configured
+ * {@link ArchiveDeviceExtension#getWadoFrameCacheSize() size}. A frame is only admitted on its second retrieval
+ * and if it does not exceed a sixteenth of the cache size, to avoid that frames retrieved only once - e.g. on
+ * a bulk download - displace frames of studies currently viewed. Frames of rejected instances are not admitted.
+ * Cached frames are evicted in LRU order, and invalidated on replacement, rejection or deletion of their instance.
+ */
+@ApplicationScoped
+public class FrameCache {
+
+    private static final int MAX_ADMISSION_CANDIDATES = 10000;
+
+    private final LinkedHashMap<Key, byte[]> frames = new LinkedHashMap<>(256, 0.75f, true);
+    private final LinkedHashMap<Key, Boolean> candidates = new LinkedHashMap<Key, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+            return size() > MAX_ADMISSION_CANDIDATES;
+        }
+    };
+    private long size;
+
+    @Inject
+    private Device device;
+
+    @Inject
+    private MetricsService metricsService;
+
+    public boolean isEnabled() {
+        return maxSize() > 0;
+    }
+
+    /**
+     * Writes the specified frame to the output stream, if it is cached.
+     *
+     * @return {@code true} if the frame was cached, otherwise {@code false}
+     */
+    public boolean writeTo(OutputStream out, InstanceLocations inst, String mediaType, int frame)
+            throws IOException {
+        if (!isEnabled())
+            return false;
+
+        byte[] b;
+        synchronized (this) {
+            b = frames.get(new Key(inst, mediaType, frame));
+        }
+        metricsService.accept("wado-frame-cache-hit", b != null ? 1 : 0);
+        if (b == null)
+            return false;
+
+        out.write(b);
+        return true;
+    }
+
+    public void put(InstanceLocations inst, String mediaType, int frame, byte[] b) {
+        long maxSize = maxSize();
+        if (b.length > maxSize / 16 || inst.getRejectionCode() != null)
+            return;
+
+        Key key = new Key(inst, mediaType, frame);
+        synchronized (this) {
+            if (candidates.remove(key) == null) {
+                candidates.put(key, Boolean.TRUE);
+                return;
+            }
+            byte[] prev = frames.put(key, b);
+            size += b.length - (prev != null ? prev.length : 0);
+            for (Iterator<byte[]> iter = frames.values().iterator(); size > maxSize && iter.hasNext();) {
+                size -= iter.next().length;
+                iter.remove();
+            }
+        }
+    }
+
+    public void onStore(@Observes StoreContext ctx) {
+        if (ctx.getStoredInstance() == null)
+            return;
+
+        if (ctx.getRejectionNote() != null) {
+            if (!ctx.getRejectionNote().isRevokeRejection()) {
+                Set<String> sopInstanceUIDs = rejectedSOPInstanceUIDs(ctx.getAttributes());
+                invalidate(key -> sopInstanceUIDs.contains(key.sopInstanceUID));
+            }
+        } else if (ctx.getPreviousInstance() != null)
+            invalidate(key -> ctx.getSopInstanceUID().equals(key.sopInstanceUID));
+    }
+
+    public void onInstancesDeleted(@Observes InstancesDeleted event) {
+        Set<String> sopInstanceUIDs = new HashSet<>(event.getSopInstanceUIDs());
+        invalidate(key -> sopInstanceUIDs.contains(key.sopInstanceUID));
+    }
+
+    public void onStudyDeleted(@Observes StudyDeleteContext ctx) {
+        String studyInstanceUID = ctx.getStudy().getStudyInstanceUID();
+        invalidate(key -> studyInstanceUID.equals(key.studyInstanceUID));
+    }
+
+    public void onArchiveServiceEvent(@Observes ArchiveServiceEvent event) {
+        if (event.getType() != ArchiveServiceEvent.Type.STARTED)
+            invalidate(key -> true);
+    }
+
+    private static Set<String> rejectedSOPInstanceUIDs(Attributes ko) {
+        Set<String> sopInstanceUIDs = new HashSet<>();
+        Sequence studyRefs = ko.getSequence(Tag.CurrentRequestedProcedureEvidenceSequence);
+        if (studyRefs != null)
+            for (Attributes studyRef : studyRefs)
+                for (Attributes seriesRef : studyRef.getSequence(Tag.ReferencedSeriesSequence))
+                    for (Attributes sopRef : seriesRef.getSequence(Tag.ReferencedSOPSequence))
+                        sopInstanceUIDs.add(sopRef.getString(Tag.ReferencedSOPInstanceUID));
+        return sopInstanceUIDs;
+    }
+
+    private synchronized void invalidate(Predicate<Key> predicate) {
+        for (Iterator<Map.Entry<Key, byte[]>> iter = frames.entrySet().iterator(); iter.hasNext();) {
+            Map.Entry<Key, byte[]> entry = iter.next();
+            if (predicate.test(entry.getKey())) {
+                size -= entry.getValue().length;
+                iter.remove();
+            }
+        }
+        candidates.keySet().removeIf(predicate);
+    }
+
+    private long maxSize() {
+        return device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getWadoFrameCacheSizeInBytes();
+    }
+
+    private static final class Key {
+        final String studyInstanceUID;
+        final String sopInstanceUID;
+        final String mediaType;
+        final int frame;
+
+        Key(InstanceLocations inst, String mediaType, int frame) {
+            this.studyInstanceUID = inst.getAttributes().getString(Tag.StudyInstanceUID);
+            this.sopInstanceUID = inst.getSopInstanceUID();
+            this.mediaType = mediaType;
+            this.frame = frame;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return frame == key.frame
+                    && sopInstanceUID.equals(key.sopInstanceUID)
+                    && mediaType.equals(key.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sopInstanceUID, mediaType, frame);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+package org.dcm4chee.arc.wado;
+
+import org.dcm4che3.net.Device;
+import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.delete.StudyDeleteContext;
+import org.dcm4chee.arc.event.ArchiveServiceEvent;
+import org.dcm4chee.arc.metrics.MetricsService;
+import org.dcm4chee.arc.store.StoreContext;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the gzip compressed DICOM JSON metadata of Series retrieved by WADO-RS in memory, bounded by the
+ * configured {@link ArchiveDeviceExtension#getWadoMetadataCacheSize() size}. Metadata is cached per retrieving
+ * AE and effective Bulk Data Descriptor, which determine the Attributes encoded as Bulkdata. Bulkdata URIs are
+ * cached with {@link #BULKDATA_URI_PREFIX} as placeholder for the Study URL of the request, which is substituted
+ * on {@link #writeTo writing} the cached metadata. Cached metadata is only returned, if the Series was not updated
+ * since it was cached, and evicted in LRU order.
+ */
+@ApplicationScoped
+public class MetadataCache {
+
+    /**
+     * Placeholder for the Study URL in cached Bulkdata URIs. Its first character does not occur again in the
+     * placeholder, so it can be matched without backtracking.
+     */
+    public static final String BULKDATA_URI_PREFIX = "{dcm4chee-arc-study-url}";
+
+    private static final byte[] PLACEHOLDER = BULKDATA_URI_PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    private final LinkedHashMap<String, Entry> series = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+
+    @Inject
+    private Device device;
+
+    @Inject
+    private MetricsService metricsService;
+
+    public boolean isEnabled() {
+        return maxSize() > 0;
+    }
+
+    /**
+     * Returns the cached metadata of the specified Series.
+     *
+     * @return gzip compressed metadata or {@code null}, if the metadata of the Series is not cached or was cached
+     * before the Series was last modified
+     */
+    public byte[] get(String aet, String bulkDataDescriptorID, String seriesInstanceUID, Date lastModified,
+            int numberOfInstances) {
+        Entry entry;
+        synchronized (this) {
+            entry = series.get(key(aet, bulkDataDescriptorID, seriesInstanceUID));
+        }
+        boolean hit = entry != null
+                && entry.lastModified.equals(lastModified)
+                && entry.numberOfInstances == numberOfInstances;
+        metricsService.accept("wado-metadata-cache-hit", hit ? 1 : 0);
+        return hit ? entry.metadata : null;
+    }
+
+    public void put(String aet, String bulkDataDescriptorID, String studyInstanceUID, String seriesInstanceUID,
+            Date lastModified, int numberOfInstances, byte[] metadata) {
+        long maxSize = maxSize();
+        if (metadata.length > maxEntrySize(maxSize))
+            return;
+
+        Entry entry = new Entry(studyInstanceUID, seriesInstanceUID, lastModified, numberOfInstances, metadata);
+        synchronized (this) {
+            Entry prev = series.put(key(aet, bulkDataDescriptorID, seriesInstanceUID), entry);
+            size += metadata.length - (prev != null ? prev.metadata.length : 0);
+            for (Iterator<Entry> iter = series.values().iterator(); size > maxSize && iter.hasNext();) {
+                size -= iter.next().metadata.length;
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns a stream, which writes the metadata written to it to the specified output stream, substituting
+     * {@link #BULKDATA_URI_PREFIX} by the specified Study URL, and which gzip compresses the metadata for
+     * {@link #put caching} until its compressed size exceeds the size limit of cached metadata of one Series.
+     */
+    public RecordingOutputStream record(OutputStream out, byte[] studyURL) {
+        return new RecordingOutputStream(new SubstitutingOutputStream(out, studyURL), maxEntrySize(maxSize()));
+    }
+
+    /**
+     * Writes the uncompressed metadata to the output stream, substituting {@link #BULKDATA_URI_PREFIX} by the
+     * specified Study URL.
+     */
+    public static void writeTo(OutputStream out, byte[] metadata, byte[] studyURL) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(metadata))) {
+            SubstitutingOutputStream sout = new SubstitutingOutputStream(out, studyURL);
+            byte[] buf = new byte[8192];
+            int read;
+            while ((read = in.read(buf)) > 0)
+                sout.write(buf, 0, read);
+            sout.finish();
+        }
+    }
+
+    public void onStore(@Observes StoreContext ctx) {
+        if (ctx.getStoredInstance() != null)
+            invalidate(entry -> ctx.getSeriesInstanceUID().equals(entry.seriesInstanceUID));
+    }
+
+    public void onStudyDeleted(@Observes StudyDeleteContext ctx) {
+        String studyInstanceUID = ctx.getStudy().getStudyInstanceUID();
+        invalidate(entry -> studyInstanceUID.equals(entry.studyInstanceUID));
+    }
+
+    public void onArchiveServiceEvent(@Observes ArchiveServiceEvent event) {
+        if (event.getType() != ArchiveServiceEvent.Type.STARTED)
+            invalidate(entry -> true);
+    }
+
+    private synchronized void invalidate(Predicate<Entry> predicate) {
+        for (Iterator<Entry> iter = series.values().iterator(); iter.hasNext();) {
+            Entry entry = iter.next();
+            if (predicate.test(entry)) {
+                size -= entry.metadata.length;
+                iter.remove();
+            }
+        }
+    }
+
+    private static String key(String aet, String bulkDataDescriptorID, String seriesInstanceUID) {
+        return aet + '/' + bulkDataDescriptorID + '/' + seriesInstanceUID;
+    }
+
+    private long maxSize() {
+        return device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getWadoMetadataCacheSizeInBytes();
+    }
+
+    private static long maxEntrySize(long maxSize) {
+        return maxSize / 16;
+    }
+
+    private static final class Entry {
+        final String studyInstanceUID;
+        final String seriesInstanceUID;
+        final Date lastModified;
+        final int numberOfInstances;
+        final byte[] metadata;
+
+        Entry(String studyInstanceUID, String seriesInstanceUID, Date lastModified, int numberOfInstances,
+                byte[] metadata) {
+            this.studyInstanceUID = studyInstanceUID;
+            this.seriesInstanceUID = seriesInstanceUID;
+            this.lastModified = lastModified;
+            this.numberOfInstances = numberOfInstances;
+            this.metadata = metadata;
+        }
+    }
+
+    private static final class SubstitutingOutputStream extends OutputStream {
+        final OutputStream out;
+        final byte[] studyURL;
+        int matched;
+
+        SubstitutingOutputStream(OutputStream out, byte[] studyURL) {
+            this.out = out;
+            this.studyURL = studyURL;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws IOException {
+            int start = off;
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                if (buf[i] == PLACEHOLDER[matched]) {
+                    if (matched++ == 0)
+                        out.write(buf, start, i - start);
+                    if (matched == PLACEHOLDER.length) {
+                        out.write(studyURL);
+                        matched = 0;
+                    }
+                    start = i + 1;
+                } else if (matched > 0) {
+                    out.write(PLACEHOLDER, 0, matched);
+                    matched = buf[i] == PLACEHOLDER[0] ? 1 : 0;
+                    start = i + matched;
+                }
+            }
+            out.write(buf, start, end - start);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        void finish() throws IOException {
+            out.write(PLACEHOLDER, 0, matched);
+            matched = 0;
+        }
+    }
+
+    public static final class RecordingOutputStream extends OutputStream {
+        private final SubstitutingOutputStream out;
+        private final long limit;
+        private ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        private GZIPOutputStream gzip;
+
+        RecordingOutputStream(SubstitutingOutputStream out, long limit) {
+            this.out = out;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) throws IOException {
+            out.write(buf, off, len);
+            if (bout == null)
+                return;
+
+            if (gzip == null)
+                gzip = new GZIPOutputStream(bout);
+            gzip.write(buf, off, len);
+            if (bout.size() > limit)
+                stopRecording();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Completes writing the metadata.
+         *
+         * @return gzip compressed metadata or {@code null}, if its size exceeded the size limit
+         */
+        public byte[] finish() throws IOException {
+            out.finish();
+            if (bout == null)
+                return null;
+
+            if (gzip == null)
+                gzip = new GZIPOutputStream(bout);
+            gzip.close();
+            byte[] metadata = bout.size() <= limit ? bout.toByteArray() : null;
+            bout = null;
+            return metadata;
+        }
+
+        /**
+         * Releases resources of an unfinished recording, without closing the underlying output stream.
+         */
+        @Override
+        public void close() throws IOException {
+            stopRecording();
+        }
+
+        private void stopRecording() throws IOException {
+            if (gzip != null)
+                gzip.close();
+            gzip = null;
+            bout = null;
+        }
+    }
+}
@@ -49,6 +49,7 @@ import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.retrieve.RetrieveService;
 import org.dcm4chee.arc.store.InstanceLocations;
 
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.StreamingOutput;
 import java.io.Closeable;
 import java.io.IOException;
@@ -66,16 +67,19 @@ public class UncompressedFramesOutput implements StreamingOutput, Closeable {
     private final InstanceLocations inst;
     private DicomInputStream dis;
     private final int[] frameList;
+    private final FrameCache frameCache;
     private final Path[] spoolFiles;
     private final Path spoolDirectory;
     private int frame = 1;
     private int frameListIndex;
     private int frameLength;
 
-    public UncompressedFramesOutput(RetrieveContext ctx, InstanceLocations inst, int[] frameList, Path spoolDirectory) {
+    public UncompressedFramesOutput(RetrieveContext ctx, InstanceLocations inst, int[] frameList,
+            FrameCache frameCache, Path spoolDirectory) {
         this.ctx = ctx;
         this.inst = inst;
         this.frameList = frameList;
+        this.frameCache = frameCache;
         this.spoolDirectory = spoolDirectory;
         this.spoolFiles = spoolDirectory != null ? new Path[frameList.length] : null;
     }
@@ -83,47 +87,64 @@ public class UncompressedFramesOutput implements StreamingOutput, Closeable {
     @Override
     public void write(OutputStream out) throws IOException {
         try {
-            if (frameListIndex == 0)
-                initDicomInputStream();
+            int index = frameListIndex++;
+            int nextFrame = frameList[index];
+            if (spoolFiles != null && spoolFiles[index] != null)
+                Files.copy(spoolFiles[index], out);
+            else if (!frameCache.writeTo(out, inst, MediaType.APPLICATION_OCTET_STREAM, nextFrame))
+                writeFrame(out, nextFrame);
+            if (frameListIndex == frameList.length)
+                close();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
 
-            if (dis == null) {
-                Files.copy(spoolFiles[frameListIndex++], out);
-                return;
-            }
-            int nextFrame =  frameList[frameListIndex++];
+    private void writeFrame(OutputStream out, int nextFrame) throws IOException {
+        if (dis == null || nextFrame < frame) {
+            close();
+            initDicomInputStream();
+            frame = 1;
+        }
+        if (spoolFiles != null) {
             while (frame < nextFrame) {
                 skipFrame();
                 frame++;
             }
+        } else if (frame < nextFrame) {
+            StreamUtils.skipFully(dis, (long) (nextFrame - frame) * frameLength);
+            frame = nextFrame;
+        }
+        if (frameCache.isEnabled()) {
+            byte[] b = new byte[frameLength];
+            dis.readFully(b);
+            out.write(b);
+            frameCache.put(inst, MediaType.APPLICATION_OCTET_STREAM, nextFrame, b);
+        } else {
             StreamUtils.copy(dis, out, frameLength);
-            frame++;
-            if (allFramesRead())
-                close();
-        } catch (IOException e) {
-            close();
-            throw e;
         }
+        frame++;
     }
 
     private void skipFrame() throws IOException {
-        for (int i = frameListIndex; i < frameList.length; i++) {
-            if (frame == frameList[i]) {
-                spoolFiles[i] = Files.createTempFile(spoolDirectory, null, null);
-                try (OutputStream o = Files.newOutputStream(spoolFiles[i])) {
-                    StreamUtils.copy(dis, o, frameLength);
-                }
-                return;
-            }
+        int i = spoolIndex();
+        if (i < 0) {
+            dis.skipFully(frameLength);
+            return;
+        }
+        spoolFiles[i] = Files.createTempFile(spoolDirectory, null, null);
+        try (OutputStream o = Files.newOutputStream(spoolFiles[i])) {
+            StreamUtils.copy(dis, o, frameLength);
         }
-        dis.skipFully(frameLength);
     }
 
-    private boolean allFramesRead() {
-        for (int i = frameListIndex; i < frameList.length; i++) {
-            if (frame <= frameList[i])
-                return false;
-        }
-        return true;
+    private int spoolIndex() {
+        if (spoolFiles != null)
+            for (int i = frameListIndex; i < frameList.length; i++)
+                if (frameList[i] == frame && spoolFiles[i] == null)
+                    return i;
+        return -1;
     }
 
     private void initDicomInputStream() throws IOException {
@@ -59,12 +59,15 @@ import org.dcm4che3.ws.rs.MediaTypes;
 import org.dcm4chee.arc.conf.ArchiveAEExtension;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
 import org.dcm4chee.arc.conf.AttributeSet;
+import org.dcm4chee.arc.entity.Location;
 import org.dcm4chee.arc.keycloak.HttpServletRequestInfo;
 import org.dcm4chee.arc.keycloak.KeycloakContext;
 import org.dcm4chee.arc.retrieve.RetrieveContext;
 import org.dcm4chee.arc.retrieve.RetrieveEnd;
 import org.dcm4chee.arc.retrieve.RetrieveService;
 import org.dcm4chee.arc.retrieve.RetrieveStart;
+import org.dcm4chee.arc.retrieve.SeriesInfo;
+import org.dcm4chee.arc.retrieve.StudyInfo;
 import org.dcm4chee.arc.rs.util.MediaTypeUtils;
 import org.dcm4chee.arc.store.InstanceLocations;
 import org.dcm4chee.arc.validation.constraints.ValidValueOf;
@@ -90,9 +93,11 @@ import javax.xml.transform.stream.StreamResult;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -135,6 +140,12 @@ public class WadoRS {
     @Inject
     private Device device;
 
+    @Inject
+    private FrameCache frameCache;
+
+    @Inject
+    private MetadataCache metadataCache;
+
     @Inject @RetrieveStart
     private Event<RetrieveContext> retrieveStart;
 
@@ -1158,7 +1169,8 @@ public class WadoRS {
                                          int[] frameList, StringBuffer bulkdataURL) throws IOException {
         bulkdataURL.append("/frames/");
         int length = bulkdataURL.length();
-        uncompressedFramesOutput = new UncompressedFramesOutput(ctx, inst, frameList, spoolDirectory(frameList));
+        uncompressedFramesOutput = new UncompressedFramesOutput(ctx, inst, frameList, frameCache,
+                spoolDirectory(ctx, inst, frameList));
         for (int frame : frameList) {
             OutputPart outputPart = output.addPart(uncompressedFramesOutput, MediaType.APPLICATION_OCTET_STREAM_TYPE);
             bulkdataURL.setLength(length);
@@ -1172,7 +1184,8 @@ public class WadoRS {
             throws IOException {
         bulkdataURL.append("/frames/");
         int length = bulkdataURL.length();
-        compressedFramesOutput = new CompressedFramesOutput(ctx, inst, frameList, spoolDirectory(frameList));
+        compressedFramesOutput = new CompressedFramesOutput(ctx, inst, frameList, mediaType.toString(), frameCache,
+                spoolDirectory(ctx, inst, frameList));
         for (int frame : frameList) {
             OutputPart outputPart = output.addPart(compressedFramesOutput, mediaType);
             bulkdataURL.setLength(length);
@@ -1185,7 +1198,8 @@ public class WadoRS {
                                          int[] frameList, StringBuffer bulkdataURL) throws IOException {
         bulkdataURL.append("/frames/");
         int length = bulkdataURL.length();
-        decompressFramesOutput = new DecompressFramesOutput(ctx, inst, frameList, spoolDirectory(frameList));
+        decompressFramesOutput = new DecompressFramesOutput(ctx, inst, frameList, frameCache,
+                spoolDirectory(ctx, inst, frameList));
         for (int frame : frameList) {
             OutputPart outputPart = output.addPart(decompressFramesOutput, MediaType.APPLICATION_OCTET_STREAM_TYPE);
             bulkdataURL.setLength(length);
@@ -1224,20 +1238,22 @@ public class WadoRS {
         AttributesFormat pathFormat = new AttributesFormat(
                 ctx.getLocalApplicationEntity().getAEExtensionNotNull(ArchiveAEExtension.class).wadoZIPEntryNameFormat());
         final Collection<InstanceLocations> insts = ctx.getMatches();
+        int parallelism = device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getWadoZIPParallelism();
         return (StreamingOutput) out -> {
             try {
                 Set<String> dirPaths = new HashSet<>();
                 ZipOutputStream zip = new ZipOutputStream(out);
-                try (DicomDirWriter dicomDirWriter = dicomDirWriter()) {
-                    for (InstanceLocations inst : insts) {
+                try (DicomDirWriter dicomDirWriter = dicomDirWriter();
+                     ZipEntryPrefetcher prefetcher = new ZipEntryPrefetcher(
+                             ctx, insts, acceptableZipTransferSyntaxes, device.getExecutor(), parallelism)) {
+                    while (prefetcher.hasNext()) {
+                        ZipEntryPrefetcher.Entry entry = prefetcher.next();
+                        InstanceLocations inst = entry.inst;
                         String name = pathFormat.format(inst.getAttributes());
                         addDirEntries(zip, name, dirPaths);
-                        zip.putNextEntry(new ZipEntry(name));
-                        DicomObjectOutput output = new DicomObjectOutput(ctx, inst, acceptableZipTransferSyntaxes);
-                        output.write(zip);
-                        zip.closeEntry();
+                        Attributes fmi = entry.writeTo(zip, name);
                         if (dicomDirWriter != null) {
-                            addDicomDirRecords(dicomDirWriter, output.getFileMetaInformation(), inst.getAttributes(), toFileIDs(name));
+                            addDicomDirRecords(dicomDirWriter, fmi, inst.getAttributes(), toFileIDs(name));
                         }
                     }
                 }
@@ -1332,6 +1348,9 @@ public class WadoRS {
     }
 
     private Object writeMetadataJSON(final RetrieveContext ctx) {
+        if (metadataCache.isEnabled() && ctx.getMetadataFilter() == null && ctx.getSopInstanceUIDs().length == 0)
+            return writeCachedMetadataJSON(ctx);
+
         final Collection<InstanceLocations> insts = ctx.getMatches();
         return (StreamingOutput) out -> {
                 try {
@@ -1349,17 +1368,131 @@ public class WadoRS {
         };
     }
 
+    /**
+     * Writes the metadata of Series, to which no Attribute Coercion applies, from the Metadata Cache. If it is not
+     * cached or if the Series was modified since it was cached, the rendered metadata is streamed and recorded
+     * for caching in one pass.
+     */
+    private Object writeCachedMetadataJSON(final RetrieveContext ctx) {
+        final Map<String, List<InstanceLocations>> instsBySeries = ctx.getMatches().stream()
+                .collect(Collectors.groupingBy(
+                        inst -> inst.getAttributes().getString(Tag.SeriesInstanceUID),
+                        LinkedHashMap::new,
+                        Collectors.toList()));
+        return (StreamingOutput) out -> {
+                try {
+                    StringBuffer sb = device.getDeviceExtension(ArchiveDeviceExtension.class)
+                            .remapRetrieveURL(request);
+                    sb.setLength(sb.lastIndexOf("/metadata"));
+                    if (sb.lastIndexOf("/series/") >= 0)
+                        sb.setLength(sb.lastIndexOf("/series/"));
+                    byte[] studyURL = sb.toString().getBytes(StandardCharsets.UTF_8);
+                    String aet = ctx.getLocalAETitle();
+                    String bulkDataDescriptorID = ctx.getArchiveAEExtension().bulkDataDescriptorID();
+                    char delim = '[';
+                    for (Map.Entry<String, List<InstanceLocations>> entry : instsBySeries.entrySet()) {
+                        out.write(delim);
+                        delim = ',';
+                        String seriesIUID = entry.getKey();
+                        List<InstanceLocations> insts = entry.getValue();
+                        if (hasAttributeCoercion(ctx, insts)) {
+                            writeMetadataJSON(out, ctx, insts, null);
+                            continue;
+                        }
+                        Date lastModified = lastModified(ctx, seriesIUID, insts);
+                        byte[] metadata = metadataCache.get(aet, bulkDataDescriptorID, seriesIUID, lastModified,
+                                insts.size());
+                        if (metadata != null) {
+                            MetadataCache.writeTo(out, metadata, studyURL);
+                            continue;
+                        }
+                        try (MetadataCache.RecordingOutputStream rout = metadataCache.record(out, studyURL)) {
+                            writeMetadataJSON(rout, ctx, insts, MetadataCache.BULKDATA_URI_PREFIX);
+                            metadata = rout.finish();
+                        }
+                        if (metadata != null)
+                            metadataCache.put(aet, bulkDataDescriptorID,
+                                    insts.get(0).getAttributes().getString(Tag.StudyInstanceUID),
+                                    seriesIUID, lastModified, insts.size(), metadata);
+                    }
+                    if (delim == '[')
+                        out.write(delim);
+                    out.write(']');
+                } catch (Exception e) {
+                    throw new WebApplicationException(
+                            errResponseAsTextPlain(exceptionAsString(e), Response.Status.INTERNAL_SERVER_ERROR));
+                }
+        };
+    }
+
+    /**
+     * Checks if the metadata of any Instance would be coerced by {@link RetrieveService#getAttributesCoercion}
+     * beyond merging the Instance Attributes from the database, by an Attribute Coercion rule or by UID remapping.
+     */
+    private boolean hasAttributeCoercion(RetrieveContext ctx, List<InstanceLocations> insts) {
+        for (InstanceLocations inst : insts)
+            if (service.getArchiveAttributeCoercion(ctx, inst) != null
+                    || inst.getLocations().stream().anyMatch(l -> l.getUidMap() != null))
+                return true;
+        return false;
+    }
+
+    private static Date lastModified(RetrieveContext ctx, String seriesIUID, List<InstanceLocations> insts) {
+        Date lastModified = ctx.getPatientUpdatedTime();
+        for (StudyInfo studyInfo : ctx.getStudyInfos())
+            lastModified = max(lastModified, studyInfo.getModifiedTime());
+        for (SeriesInfo seriesInfo : ctx.getSeriesInfos())
+            if (seriesInfo.getSeriesInstanceUID().equals(seriesIUID))
+                lastModified = max(lastModified, seriesInfo.getUpdatedTime());
+        for (InstanceLocations inst : insts)
+            lastModified = max(lastModified, inst.getUpdatedTime());
+        return lastModified;
+    }
+
+    private static Date max(Date date1, Date date2) {
+        return date1 == null || date2 != null && date1.compareTo(date2) < 0 ? date2 : date1;
+    }
+
+    /**
+     * Writes the metadata of the Instances as comma separated JSON objects, with Bulkdata URIs relative to the
+     * specified Study URL or to the URL of the request, if {@code studyURL} is {@code null}.
+     */
+    private void writeMetadataJSON(OutputStream out, RetrieveContext ctx, List<InstanceLocations> insts,
+            String studyURL) throws IOException {
+        boolean first = true;
+        for (InstanceLocations inst : insts) {
+            if (!first)
+                out.write(',');
+            first = false;
+            JsonGenerator gen = Json.createGenerator(out);
+            new JSONWriter(gen).write(studyURL != null
+                    ? loadMetadata(ctx, inst, studyURL + instanceURL(inst))
+                    : loadMetadata(ctx, inst));
+            gen.flush();
+        }
+    }
+
     private Attributes loadMetadata(RetrieveContext ctx, InstanceLocations inst) throws IOException {
-        Attributes metadata = inst.isContainsMetadata() ? inst.getAttributes() : service.loadMetadata(ctx, inst);
         StringBuffer sb = device.getDeviceExtension(ArchiveDeviceExtension.class).remapRetrieveURL(request);
         sb.setLength(sb.lastIndexOf("/metadata"));
         mkInstanceURL(sb, inst);
+        return loadMetadata(ctx, inst, sb.toString());
+    }
+
+    private Attributes loadMetadata(RetrieveContext ctx, InstanceLocations inst, String retrieveURL)
+            throws IOException {
+        Attributes metadata = inst.isContainsMetadata() ? inst.getAttributes() : service.loadMetadata(ctx, inst);
         if (ctx.getMetadataFilter() != null)
             metadata = new Attributes(metadata, ctx.getMetadataFilter().getSelection());
-        setBulkdataURI(metadata, sb.toString());
+        setBulkdataURI(metadata, retrieveURL);
         return metadata;
     }
 
+    private static String instanceURL(InstanceLocations inst) {
+        return "/series/" + inst.getAttributes().getString(Tag.SeriesInstanceUID)
+                + "/instances/" + inst.getSopInstanceUID();
+    }
+
     private void setBulkdataURI(Attributes attrs, String retrieveURL) {
         try {
             attrs.accept(new Attributes.ItemPointerVisitor() {
@@ -1426,14 +1559,27 @@ public class WadoRS {
                 device.getDeviceExtensionNotNull(ArchiveDeviceExtension.class).getWadoSpoolDirectory())));
     }
 
-    private java.nio.file.Path spoolDirectory(int[] frameList) throws IOException {
+    /**
+     * Returns a spool directory for frames requested in descending order, if the object is not stored on a
+     * storage which skips bytes without reading them. Otherwise the frames are read by seeking backwards.
+     */
+    private java.nio.file.Path spoolDirectory(RetrieveContext ctx, InstanceLocations inst, int[] frameList)
+            throws IOException {
         for (int i = 1; i < frameList.length; i++) {
             if (frameList[i-1] > frameList[i])
-                return (spoolDirectory = Files.createTempDirectory(spoolDirectoryRoot(), null));
+                return isSeekable(ctx, inst)
+                        ? null
+                        : (spoolDirectory = Files.createTempDirectory(spoolDirectoryRoot(), null));
         }
         return null;
     }
 
+    private boolean isSeekable(RetrieveContext ctx, InstanceLocations inst) {
+        return inst.getLocations().stream()
+                .filter(Location::isDicomFile)
+                .allMatch(l -> service.getStorage(l.getStorageID(), ctx).isSeekable());
+    }
+
     private DicomDirWriter dicomDirWriter() throws IOException {
         if (Boolean.parseBoolean(dicomdir)) {
             spoolDirectory = Files.createTempDirectory(spoolDirectoryRoot(), null);
@@ -0,0 +1,267 @@
+/*
+ * *** BEGIN LICENSE BLOCK *****
+ * Version: MPL 1.1/GPL 2.0/LGPL 2.1
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ * http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ *
+ * The Original Code is part of dcm4che, an implementation of DICOM(TM) in
+ * Java(TM), hosted at https://github.com/dcm4che.
+ *
+ * The Initial Developer of the Original Code is
+ * J4Care.
+ * Portions created by the Initial Developer are Copyright (C) 2015-2019
+ * the Initial Developer. All Rights Reserved.
+ *
+ * Contributor(s):
+ * See @authors listed below
+ *
+ * Alternatively, the contents of this file may be used under the terms of
+ * either the GNU General Public License Version 2 or later (the "GPL"), or
+ * the GNU Lesser General Public License Version 2.1 or later (the "LGPL"),
+ * in which case the provisions of the GPL or the LGPL are applicable instead
+ * of those above. If you wish to allow use of your version of this file only
+ * under the terms of either the GPL or the LGPL, and not to allow others to
+ * use your version of this file under the terms of the MPL, indicate your
+ * decision by deleting the provisions above and replace them with the notice
+ * and other provisions required by the GPL or the LGPL. If you do not delete
+ * the provisions above, a recipient may use your version of this file under
+ * the terms of any one of the MPL, the GPL or the LGPL.
+ *
+ * *** END LICENSE BLOCK *****
+ */
+
+package org.dcm4chee.arc.wado;
+
+import org.dcm4che3.data.Attributes;
+import org.dcm4che3.data.Tag;
+import org.dcm4che3.data.UID;
+import org.dcm4che3.imageio.codec.TransferSyntaxType;
+import org.dcm4chee.arc.entity.Location;
+import org.dcm4chee.arc.retrieve.RetrieveContext;
+import org.dcm4chee.arc.store.InstanceLocations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Reads and transcodes objects for a ZIP archive ahead by up to {@code parallelism} threads into memory,
+ * while the ZIP stream is written sequentially in the order of the retrieved objects. Objects exceeding
+ * {@link #MAX_PREFETCH_SIZE} - or all objects with {@code parallelism = 1} - are read and written by
+ * the calling thread. Both limits apply to the bytes actually buffered, which may exceed the size of the stored
+ * object on decompression or transcoding: if reading ahead an object would exceed {@link #MAX_PREFETCH_SIZE}, or
+ * {@link #MAX_BUFFERED_SIZE} for all buffered objects in total, its buffer is discarded and the object is read
+ * again by the calling thread. Buffered objects with compressed Pixel Data are stored without deflating them
+ * again. On {@link #close}, objects not yet read ahead are skipped.
+ */
+class ZipEntryPrefetcher implements Closeable {
+
+    static final long MAX_PREFETCH_SIZE = 16 * 1024 * 1024;
+    static final long MAX_BUFFERED_SIZE = 4 * MAX_PREFETCH_SIZE;
+
+    private final RetrieveContext ctx;
+    private final Iterator<InstanceLocations> insts;
+    private final Collection<String> tsuids;
+    private final Executor executor;
+    private final int parallelism;
+    private final Deque<Entry> pending = new ArrayDeque<>();
+    private InstanceLocations lookahead;
+    private final AtomicLong bufferedSize = new AtomicLong();
+    private volatile boolean closed;
+
+    ZipEntryPrefetcher(RetrieveContext ctx, Collection<InstanceLocations> insts, Collection<String> tsuids,
+            Executor executor, int parallelism) {
+        this.ctx = ctx;
+        this.insts = insts.iterator();
+        this.tsuids = tsuids;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    public boolean hasNext() {
+        return !pending.isEmpty() || lookahead != null || insts.hasNext();
+    }
+
+    public Entry next() {
+        while (pending.size() < parallelism && (lookahead != null || insts.hasNext())) {
+            if (lookahead == null)
+                lookahead = insts.next();
+            long size = prefetchSize(lookahead);
+            if (size > 0 && bufferedSize.get() + size > MAX_BUFFERED_SIZE && !pending.isEmpty())
+                break;
+
+            pending.add(new Entry(lookahead, size > 0));
+            lookahead = null;
+        }
+        return pending.remove();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Entry entry : pending)
+            if (entry.future != null)
+                entry.future.cancel(true);
+        pending.clear();
+    }
+
+    /**
+     * Returns the size of the stored object, as estimate of the bytes to buffer, if it shall be read ahead,
+     * otherwise {@code 0}.
+     */
+    private long prefetchSize(InstanceLocations inst) {
+        if (parallelism <= 1)
+            return 0L;
+
+        long size = inst.getLocations().stream()
+                .filter(l -> l.getObjectType() == Location.ObjectType.DICOM_FILE)
+                .mapToLong(Location::getSize)
+                .findFirst()
+                .orElse(0L);
+        return size <= MAX_PREFETCH_SIZE ? size : 0L;
+    }
+
+    private Buffer read(InstanceLocations inst) {
+        if (closed)
+            throw new CancellationException();
+
+        DicomObjectOutput output = new DicomObjectOutput(ctx, inst, tsuids);
+        Buffer buffer = new Buffer();
+        try {
+            output.write(buffer);
+        } catch (BufferLimitExceededException e) {
+            buffer.release();
+            return null;
+        } catch (IOException e) {
+            buffer.release();
+            throw new CompletionException(e);
+        }
+        buffer.fmi = output.getFileMetaInformation();
+        buffer.crc.update(buffer.buf, 0, buffer.count);
+        return buffer;
+    }
+
+    private static boolean isCompressed(Attributes fmi) {
+        String tsuid = fmi.getString(Tag.TransferSyntaxUID);
+        return tsuid != null
+                && (TransferSyntaxType.forUID(tsuid) != TransferSyntaxType.NATIVE
+                    || tsuid.equals(UID.DeflatedExplicitVRLittleEndian));
+    }
+
+    private static class BufferLimitExceededException extends IOException {
+    }
+
+    /**
+     * Buffers an object read ahead, accounting its bytes to {@link #bufferedSize} until it is released.
+     */
+    private class Buffer extends OutputStream {
+        final CRC32 crc = new CRC32();
+        byte[] buf = new byte[64 * 1024];
+        int count;
+        Attributes fmi;
+
+        @Override
+        public void write(int b) throws IOException {
+            reserve(1);
+            buf[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            reserve(len);
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+
+        private void reserve(int len) throws IOException {
+            if (closed)
+                throw new CancellationException();
+
+            if (count + len > MAX_PREFETCH_SIZE)
+                throw new BufferLimitExceededException();
+
+            if (bufferedSize.addAndGet(len) > MAX_BUFFERED_SIZE) {
+                bufferedSize.addAndGet(-len);
+                throw new BufferLimitExceededException();
+            }
+            if (count + len > buf.length)
+                buf = Arrays.copyOf(buf, (int) Math.min(Math.max(buf.length << 1, count + len), MAX_PREFETCH_SIZE));
+        }
+
+        void release() {
+            bufferedSize.addAndGet(-count);
+            count = 0;
+            buf = null;
+        }
+    }
+
+    final class Entry {
+        final InstanceLocations inst;
+        final CompletableFuture<Buffer> future;
+
+        Entry(InstanceLocations inst, boolean prefetch) {
+            this.inst = inst;
+            this.future = prefetch
+                    ? CompletableFuture.supplyAsync(() -> read(inst), executor)
+                    : null;
+        }
+
+        /**
+         * Writes the object as ZIP entry with the specified name.
+         *
+         * @return File Meta Information of the written object
+         */
+        Attributes writeTo(ZipOutputStream zip, String name) throws IOException {
+            ZipEntry zipEntry = new ZipEntry(name);
+            Buffer buffer = future != null ? join() : null;
+            if (buffer == null) {
+                DicomObjectOutput output = new DicomObjectOutput(ctx, inst, tsuids);
+                zip.putNextEntry(zipEntry);
+                output.write(zip);
+                zip.closeEntry();
+                return output.getFileMetaInformation();
+            }
+            try {
+                if (isCompressed(buffer.fmi)) {
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(buffer.count);
+                    zipEntry.setCompressedSize(buffer.count);
+                    zipEntry.setCrc(buffer.crc.getValue());
+                }
+                zip.putNextEntry(zipEntry);
+                zip.write(buffer.buf, 0, buffer.count);
+                zip.closeEntry();
+            } finally {
+                buffer.release();
+            }
+            return buffer.fmi;
+        }
+
+        private Buffer join() throws IOException {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw e;
+            }
+        }
+    }
+}
@@ -42,6 +42,7 @@ import org.dcm4che3.io.*;
 import org.dcm4che3.net.Device;
 import org.dcm4che3.util.StringUtils;
 import org.dcm4chee.arc.conf.ArchiveDeviceExtension;
+import org.dcm4chee.arc.keycloak.HttpClientRegistry;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -49,8 +50,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 import javax.ws.rs.*;
-import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
@@ -75,6 +74,9 @@ public class AuditEventRS {
     @Inject
     private Device device;
 
+    @Inject
+    private HttpClientRegistry httpClientRegistry;
+
     @Context
     private HttpServletRequest httpRequest;
 
@@ -146,14 +148,22 @@ public class AuditEventRS {
         return new StreamingOutput() {
             @Override
             public void write(OutputStream out) throws IOException, WebApplicationException {
-                format.writeTo(AuditEventRS.this, response, out);
+                try {
+                    format.writeTo(AuditEventRS.this, response, out);
+                } finally {
+                    response.close();
+                }
             }
         };
     }
 
     private Response queryElasticSearch(String esURL) {
-        Client client = ClientBuilder.newBuilder().build();
-        WebTarget target = client.target(esURL);
+        WebTarget target;
+        try {
+            target = httpClientRegistry.getClient(esURL).target(esURL);
+        } catch (Exception e) {
+            throw new WebApplicationException(e, Response.Status.INTERNAL_SERVER_ERROR);
+        }
         //TODO
         // target = target.path(index);
         // target = target.path("_search");